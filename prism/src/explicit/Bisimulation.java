@@ -27,7 +27,9 @@
 package explicit;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -36,9 +38,21 @@ import parser.State;
 import prism.PrismComponent;
 import prism.PrismException;
 import prism.PrismNotSupportedException;
+import prism.PrismUtils;
 
 /**
  * Class to perform bisimulation minimisation for explicit-state models.
+ * <p>
+ * This uses partition refinement with splitters: blocks of states (and, for MDPs, of choices)
+ * are stored contiguously in primitive arrays and, when a block is used as a splitter,
+ * only the predecessors of its states are examined. When a block is split, only the new
+ * sub-blocks (excluding the largest, if the original block has already been used
+ * as a splitter) need to be used as splitters later.
+ * <p>
+ * DTMCs and CTMCs are treated as MDPs with one choice per state. For MDPs,
+ * choices are first partitioned according to their probability of moving to each block of states,
+ * and states are then split according to the set of blocks of their choices
+ * (i.e., this computes strong probabilistic bisimulation, ignoring action labels).
  */
 public class Bisimulation extends PrismComponent
 {
@@ -46,7 +60,45 @@ public class Bisimulation extends PrismComponent
 	protected int numStates;
 	protected int[] partition;
 	protected int numBlocks;
-	protected MDPSimple mdp;
+	// A representative state (the smallest) for each block
+	protected int[] representatives;
+
+	// Choices (with one per state for DTMCs/CTMCs):
+	// choices of state s are choiceStarts[s]...choiceStarts[s+1]-1
+	private int numChoices;
+	private int choiceStarts[];
+	private int choiceOwner[];
+	// Predecessors: incoming transitions of state s are from choices
+	// predChoice[predStarts[s]...predStarts[s+1]-1], with probabilities (or rates) predProb[...]
+	private int predStarts[];
+	private int predChoice[];
+	private double predProb[];
+
+	// Partition of states: block b is sElems[sBlockStart[b]...sBlockEnd[b]-1]; sLoc is the inverse of sElems
+	private int sElems[];
+	private int sLoc[];
+	private int sBlockOf[];
+	private int sBlockStart[];
+	private int sBlockEnd[];
+	// Partition of choices, stored in the same way
+	private int cElems[];
+	private int cLoc[];
+	private int cBlockOf[];
+	private int cBlockStart[];
+	private int cBlockEnd[];
+	private int cNumBlocks;
+
+	// Blocks of states still to be used as splitters
+	private int worklist[];
+	private int worklistSize;
+	private boolean inWorklist[];
+
+	// Work storage for splitting: number of marked elements (moved to the start of) each block,
+	// marked states, probability of each choice to move to the current splitter
+	private int sMarkCount[];
+	private int cMarkCount[];
+	private boolean sMarked[];
+	private double weight[];
 
 	/**
 	 * Construct a new Bisimulation object.
@@ -69,6 +121,8 @@ public class Bisimulation extends PrismComponent
 			return minimiseDTMC((DTMC) model, propNames, propBSs);
 		case CTMC:
 			return minimiseCTMC((CTMC) model, propNames, propBSs);
+		case MDP:
+			return minimiseMDP((MDP) model, propNames, propBSs);
 		default:
 			throw new PrismNotSupportedException("Bisimulation minimisation not yet supported for " + model.getModelType() + "s");
 		}
@@ -86,18 +140,17 @@ public class Bisimulation extends PrismComponent
 		initialisePartitionInfo(dtmc, propBSs);
 		//printPartition(dtmc);
 
-		// Iterative splitting
-		boolean changed = true;
-		while (changed)
-			changed = splitDTMC(dtmc);
-		mainLog.println("Minimisation: " + numStates + " to " + numBlocks + " States");
+		// Partition refinement
+		refinePartition(dtmc);
 		//printPartition(dtmc);
 
-		// Build reduced model
+		// Build reduced model (using one representative state per block)
 		DTMCSimple dtmcNew = new DTMCSimple(numBlocks);
 		for (int i = 0; i < numBlocks; i++) {
-			for (Map.Entry<Integer, Double> e : mdp.getChoice(i, 0)) {
-				dtmcNew.setProbability((Integer) mdp.getAction(i, 0), e.getKey(), e.getValue());
+			Iterator<Map.Entry<Integer, Double>> iter = dtmc.getTransitionsIterator(representatives[i]);
+			while (iter.hasNext()) {
+				Map.Entry<Integer, Double> e = iter.next();
+				dtmcNew.addToProbability(i, partition[e.getKey()], e.getValue());
 			}
 		}
 		attachStatesAndLabels(dtmc, dtmcNew, propNames, propBSs);
@@ -117,18 +170,17 @@ public class Bisimulation extends PrismComponent
 		initialisePartitionInfo(ctmc, propBSs);
 		//printPartition(ctmc);
 
-		// Iterative splitting
-		boolean changed = true;
-		while (changed)
-			changed = splitDTMC(ctmc);
-		mainLog.println("Minimisation: " + numStates + " to " + numBlocks + " States");
+		// Partition refinement
+		refinePartition(ctmc);
 		//printPartition(ctmc);
 
-		// Build reduced model
+		// Build reduced model (using one representative state per block)
 		CTMCSimple ctmcNew = new CTMCSimple(numBlocks);
 		for (int i = 0; i < numBlocks; i++) {
-			for (Map.Entry<Integer, Double> e : mdp.getChoice(i, 0)) {
-				ctmcNew.setProbability((Integer) mdp.getAction(i, 0), e.getKey(), e.getValue());
+			Iterator<Map.Entry<Integer, Double>> iter = ctmc.getTransitionsIterator(representatives[i]);
+			while (iter.hasNext()) {
+				Map.Entry<Integer, Double> e = iter.next();
+				ctmcNew.addToProbability(i, partition[e.getKey()], e.getValue());
 			}
 		}
 		attachStatesAndLabels(ctmc, ctmcNew, propNames, propBSs);
@@ -136,6 +188,44 @@ public class Bisimulation extends PrismComponent
 		return ctmcNew;
 	}
 
+	/**
+	 * Perform bisimulation minimisation on an MDP.
+	 * Action labels are not taken into account (or preserved).
+	 * @param mdp The MDP
+	 * @param propNames Names of the propositions in {@code propBSs}
+	 * @param propBSs Propositions (satisfying sets of states) to be preserved by bisimulation.
+	 */
+	private MDP minimiseMDP(MDP mdp, List<String> propNames, List<BitSet> propBSs)
+	{
+		// Create initial partition based on propositions
+		initialisePartitionInfo(mdp, propBSs);
+		//printPartition(mdp);
+
+		// Partition refinement
+		refinePartition(mdp);
+		//printPartition(mdp);
+
+		// Build reduced model (using one representative state per block;
+		// choices with identical lifted distributions are merged by MDPSimple)
+		MDPSimple mdpNew = new MDPSimple(numBlocks);
+		for (int i = 0; i < numBlocks; i++) {
+			int s = representatives[i];
+			int n = mdp.getNumChoices(s);
+			for (int j = 0; j < n; j++) {
+				Distribution distrNew = new Distribution();
+				Iterator<Map.Entry<Integer, Double>> iter = mdp.getTransitionsIterator(s, j);
+				while (iter.hasNext()) {
+					Map.Entry<Integer, Double> e = iter.next();
+					distrNew.add(partition[e.getKey()], e.getValue());
+				}
+				mdpNew.addChoice(i, distrNew);
+			}
+		}
+		attachStatesAndLabels(mdp, mdpNew, propNames, propBSs);
+
+		return mdpNew;
+	}
+
 	/**
 	 * Construct the initial partition based on a set of proposition bitsets.
 	 * Store info in {@code numStates}, {@code numBlocks} and {@code partition}.
@@ -182,48 +272,432 @@ public class Bisimulation extends PrismComponent
 	}
 
 	/**
-	 * Perform a split of the current partition, if possible, updating {@code numBlocks} and {@code partition}.
-	 * @return whether or not the partition was split 
+	 * Refine the current partition (as created by {@link #initialisePartitionInfo})
+	 * until it is a bisimulation, updating {@code numBlocks} and {@code partition}.
+	 * Blocks are numbered in order of their smallest state.
 	 */
-	private boolean splitDTMC(DTMC dtmc)
+	private void refinePartition(Model model)
 	{
-		int s, a, i, numBlocksNew, numChoicesOld;
-		Distribution distrNew;
-		int partitionNew[];
-
-		partitionNew = new int[numStates];
-		numBlocksNew = 0;
-		// Compute the signature for each state (i.e. the distribution for outgoing
-		// transitions, lifted to the current partition)
-		// For convenience, we just store them as an MDP, with action label equal to the index of the block
-		mdp = new MDPSimple(numBlocks);
-		for (s = 0; s < numStates; s++) {
-			// Build lifted distribution
-			Iterator<Map.Entry<Integer, Double>> iter = dtmc.getTransitionsIterator(s);
-			distrNew = new Distribution();
-			while (iter.hasNext()) {
-				Map.Entry<Integer, Double> e = iter.next();
-				distrNew.add(partition[e.getKey()], e.getValue());
+		long timer = System.currentTimeMillis();
+		buildTransitions(model);
+
+		// Initial partition of states
+		sElems = new int[numStates];
+		sLoc = new int[numStates];
+		sBlockOf = partition;
+		sBlockStart = new int[numStates + 1];
+		sBlockEnd = new int[numStates + 1];
+		for (int s = 0; s < numStates; s++) {
+			sBlockEnd[sBlockOf[s]]++;
+		}
+		for (int b = 0, k = 0; b < numBlocks; b++) {
+			sBlockStart[b] = k;
+			k += sBlockEnd[b];
+			sBlockEnd[b] = sBlockStart[b];
+		}
+		for (int s = 0; s < numStates; s++) {
+			int i = sBlockEnd[sBlockOf[s]]++;
+			sElems[i] = s;
+			sLoc[s] = i;
+		}
+		// Initial partition of choices: a single block
+		cElems = new int[numChoices];
+		cLoc = new int[numChoices];
+		cBlockOf = new int[numChoices];
+		cBlockStart = new int[numChoices + 1];
+		cBlockEnd = new int[numChoices + 1];
+		for (int c = 0; c < numChoices; c++) {
+			cElems[c] = c;
+			cLoc[c] = c;
+		}
+		cBlockEnd[0] = numChoices;
+		cNumBlocks = 1;
+		// Work storage
+		sMarkCount = new int[numStates + 1];
+		cMarkCount = new int[numChoices + 1];
+		sMarked = new boolean[numStates];
+		weight = new double[numChoices];
+		// Initially, all blocks are splitters
+		worklist = new int[numStates + 1];
+		inWorklist = new boolean[numStates + 1];
+		worklistSize = 0;
+		for (int b = 0; b < numBlocks; b++) {
+			addToWorklist(b);
+		}
+		// Separate states with no choices (possible for MDPs), whose signature differs
+		int numInitialBlocks = numBlocks;
+		for (int s = 0; s < numStates; s++) {
+			if (choiceStarts[s] == choiceStarts[s + 1]) {
+				int sb = sBlockOf[s];
+				sMarked[s] = true;
+				swap(sElems, sLoc, sLoc[s], sBlockStart[sb] + sMarkCount[sb]++);
 			}
-			// Store in MDP, update new partition
-			a = partition[s];
-			numChoicesOld = mdp.getNumChoices(a);
-			i = mdp.addChoice(a, distrNew);
-			if (i == numChoicesOld)
-				mdp.setAction(a, i, numBlocksNew++);
-			partitionNew[s] = (Integer) mdp.getAction(a, i);
-		}
-		// Debug info
-		//mainLog.println("New partition: " + java.util.Arrays.toString(partitionNew));
-		//mainLog.println("Signatures MDP: " + mdp.infoString());
-		//mainLog.println("Signatures MDP: " + mdp);
-		//try { mdp.exportToDotFile("mdp.dot"); } catch (PrismException e) {}
-		// Update info
-		boolean changed = numBlocks != numBlocksNew;
-		partition = partitionNew;
+		}
+		for (int b = 0; b < numInitialBlocks; b++) {
+			if (sMarkCount[b] > 0)
+				splitStates(b);
+		}
+
+		// Refine
+		int numSplitters = 0;
+		while (worklistSize > 0) {
+			int b = worklist[--worklistSize];
+			inWorklist[b] = false;
+			split(b);
+			numSplitters++;
+		}
+
+		// Renumber blocks in order of smallest state
+		int renumber[] = new int[numBlocks];
+		Arrays.fill(renumber, -1);
+		int numBlocksNew = 0;
+		partition = new int[numStates];
+		representatives = new int[numBlocks];
+		for (int s = 0; s < numStates; s++) {
+			int b = sBlockOf[s];
+			if (renumber[b] == -1) {
+				representatives[numBlocksNew] = s;
+				renumber[b] = numBlocksNew++;
+			}
+			partition[s] = renumber[b];
+		}
+		// (the initial partition may contain empty blocks)
 		numBlocks = numBlocksNew;
+		representatives = Arrays.copyOf(representatives, numBlocks);
+		timer = System.currentTimeMillis() - timer;
+		mainLog.println("Minimisation: " + numStates + " to " + numBlocks + " States (" + numSplitters + " splitters, " + timer / 1000.0 + " seconds)");
 
-		return changed;
+		// Free memory
+		predStarts = predChoice = choiceStarts = choiceOwner = null;
+		predProb = weight = null;
+		sElems = sLoc = sBlockOf = sBlockStart = sBlockEnd = null;
+		cElems = cLoc = cBlockOf = cBlockStart = cBlockEnd = null;
+		worklist = sMarkCount = cMarkCount = null;
+		inWorklist = sMarked = null;
+	}
+
+	/**
+	 * Store the choices of a DTMC/CTMC/MDP and the predecessor relation over them.
+	 */
+	private void buildTransitions(Model model)
+	{
+		boolean isMDP = model instanceof MDP;
+		choiceStarts = new int[numStates + 1];
+		for (int s = 0; s < numStates; s++) {
+			choiceStarts[s + 1] = choiceStarts[s] + (isMDP ? ((MDP) model).getNumChoices(s) : 1);
+		}
+		numChoices = choiceStarts[numStates];
+		choiceOwner = new int[numChoices];
+		for (int s = 0; s < numStates; s++) {
+			for (int c = choiceStarts[s]; c < choiceStarts[s + 1]; c++) {
+				choiceOwner[c] = s;
+			}
+		}
+		// Count incoming transitions, then store them
+		predStarts = new int[numStates + 1];
+		for (int pass = 0; pass < 2; pass++) {
+			int fill[] = pass == 0 ? null : Arrays.copyOf(predStarts, numStates);
+			for (int c = 0; c < numChoices; c++) {
+				int s = choiceOwner[c];
+				Iterator<Map.Entry<Integer, Double>> iter = isMDP ? ((MDP) model).getTransitionsIterator(s, c - choiceStarts[s]) : ((DTMC) model).getTransitionsIterator(s);
+				while (iter.hasNext()) {
+					Map.Entry<Integer, Double> e = iter.next();
+					if (pass == 0) {
+						predStarts[e.getKey() + 1]++;
+					} else {
+						int i = fill[e.getKey()]++;
+						predChoice[i] = c;
+						predProb[i] = e.getValue();
+					}
+				}
+			}
+			if (pass == 0) {
+				for (int s = 0; s < numStates; s++) {
+					predStarts[s + 1] += predStarts[s];
+				}
+				predChoice = new int[predStarts[numStates]];
+				predProb = new double[predStarts[numStates]];
+			}
+		}
+	}
+
+	/**
+	 * Split the current partition using block {@code b} of states as a splitter:
+	 * first split blocks of choices according to their probability to move to {@code b},
+	 * then split blocks of states whose choices were moved to new blocks.
+	 */
+	private void split(int b)
+	{
+		// Compute the probability for each choice to move to b and mark the choices
+		// (moving them to the start of their blocks); the states of b do not change here
+		int touched[] = new int[16];
+		int numTouched = 0;
+		int affected[] = new int[16];
+		int numAffected = 0;
+		for (int i = sBlockStart[b]; i < sBlockEnd[b]; i++) {
+			int t = sElems[i];
+			for (int k = predStarts[t]; k < predStarts[t + 1]; k++) {
+				int c = predChoice[k];
+				int cb = cBlockOf[c];
+				if (cLoc[c] >= cBlockStart[cb] + cMarkCount[cb]) {
+					if (cMarkCount[cb] == 0) {
+						if (numAffected == affected.length)
+							affected = Arrays.copyOf(affected, 2 * numAffected);
+						affected[numAffected++] = cb;
+					}
+					swap(cElems, cLoc, cLoc[c], cBlockStart[cb] + cMarkCount[cb]++);
+					if (numTouched == touched.length)
+						touched = Arrays.copyOf(touched, 2 * numTouched);
+					touched[numTouched++] = c;
+				}
+				weight[c] += predProb[k];
+			}
+		}
+
+		// Split each affected block of choices into groups with (nearly) equal probability;
+		// those not marked form a group with probability 0.
+		// States owning choices moved to a new block are marked (moving them to the start of their blocks).
+		int affectedStates[] = new int[16];
+		int numAffectedStates = 0;
+		for (int a = 0; a < numAffected; a++) {
+			int cb = affected[a];
+			int lo = cBlockStart[cb];
+			int mid = lo + cMarkCount[cb];
+			int hi = cBlockEnd[cb];
+			cMarkCount[cb] = 0;
+			sortByWeight(cElems, lo, mid);
+			for (int i = lo; i < mid; i++) {
+				cLoc[cElems[i]] = i;
+			}
+			// Find the largest group, which keeps the block index
+			int bestLo = mid, bestHi = hi;
+			for (int i = lo; i < mid;) {
+				int j = i + 1;
+				while (j < mid && PrismUtils.doublesAreClose(weight[cElems[j]], weight[cElems[i]], 1e-12, false))
+					j++;
+				if (j - i > bestHi - bestLo) {
+					bestLo = i;
+					bestHi = j;
+				}
+				i = j;
+			}
+			if (bestLo == lo && bestHi == hi)
+				continue;
+			for (int i = lo; i < hi;) {
+				int j = i < mid ? i + 1 : hi;
+				while (j < mid && PrismUtils.doublesAreClose(weight[cElems[j]], weight[cElems[i]], 1e-12, false))
+					j++;
+				if (i == bestLo) {
+					cBlockStart[cb] = i;
+					cBlockEnd[cb] = j;
+				} else {
+					int cbNew = cNumBlocks++;
+					cBlockStart[cbNew] = i;
+					cBlockEnd[cbNew] = j;
+					for (int k = i; k < j; k++) {
+						int c = cElems[k];
+						cBlockOf[c] = cbNew;
+						int s = choiceOwner[c];
+						if (!sMarked[s]) {
+							sMarked[s] = true;
+							int sb = sBlockOf[s];
+							if (sMarkCount[sb] == 0) {
+								if (numAffectedStates == affectedStates.length)
+									affectedStates = Arrays.copyOf(affectedStates, 2 * numAffectedStates);
+								affectedStates[numAffectedStates++] = sb;
+							}
+							swap(sElems, sLoc, sLoc[s], sBlockStart[sb] + sMarkCount[sb]++);
+						}
+					}
+				}
+				i = j;
+			}
+		}
+		for (int i = 0; i < numTouched; i++) {
+			weight[touched[i]] = 0.0;
+		}
+
+		// Split each affected block of states according to the set of blocks of each state's choices.
+		// Unmarked states (whose choices did not move) all still have the same set.
+		for (int a = 0; a < numAffectedStates; a++) {
+			splitStates(affectedStates[a]);
+		}
+	}
+
+	/**
+	 * Split block {@code sb} of states, whose marked states are at the start of the block,
+	 * according to their signatures (see {@link #getSignature(int)}).
+	 */
+	private void splitStates(int sb)
+	{
+		int lo = sBlockStart[sb];
+		int mid = lo + sMarkCount[sb];
+		int hi = sBlockEnd[sb];
+		sMarkCount[sb] = 0;
+		int numMarked = mid - lo;
+		final int sigs[][] = new int[numMarked][];
+		Integer order[] = new Integer[numMarked];
+		int oldSig[] = mid < hi ? getSignature(sElems[mid]) : null;
+		for (int i = 0; i < numMarked; i++) {
+			int s = sElems[lo + i];
+			sMarked[s] = false;
+			sigs[i] = getSignature(s);
+			order[i] = i;
+		}
+		// Sort marked states by signature, putting any with the same signature
+		// as the unmarked states last (so that they end up in the same group)
+		final int[] unmarkedSig = oldSig;
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer i1, Integer i2)
+			{
+				boolean old1 = unmarkedSig != null && Arrays.equals(sigs[i1], unmarkedSig);
+				boolean old2 = unmarkedSig != null && Arrays.equals(sigs[i2], unmarkedSig);
+				if (old1 != old2)
+					return old1 ? 1 : -1;
+				return compareSignatures(sigs[i1], sigs[i2]);
+			}
+		});
+		int states[] = new int[numMarked];
+		for (int i = 0; i < numMarked; i++) {
+			states[i] = sElems[lo + order[i]];
+		}
+		int sortedSigs[][] = new int[numMarked][];
+		for (int i = 0; i < numMarked; i++) {
+			sortedSigs[i] = sigs[order[i]];
+			sElems[lo + i] = states[i];
+			sLoc[states[i]] = lo + i;
+		}
+		// Find groups (the last may extend into the unmarked states) and the largest one
+		int numGroups = 0;
+		int groupStarts[] = new int[numMarked + 2];
+		for (int i = 0; i < numMarked; i++) {
+			if (i == 0 || compareSignatures(sortedSigs[i], sortedSigs[i - 1]) != 0)
+				groupStarts[numGroups++] = lo + i;
+		}
+		if (mid < hi && (numMarked == 0 || !Arrays.equals(sortedSigs[numMarked - 1], oldSig)))
+			groupStarts[numGroups++] = mid;
+		groupStarts[numGroups] = hi;
+		if (numGroups <= 1)
+			return;
+		int best = 0;
+		for (int g = 1; g < numGroups; g++) {
+			if (groupStarts[g + 1] - groupStarts[g] > groupStarts[best + 1] - groupStarts[best])
+				best = g;
+		}
+		// The largest group keeps the block index; the others become new blocks (and splitters).
+		// If sb was still to be used as a splitter, it remains so.
+		for (int g = 0; g < numGroups; g++) {
+			if (g == best) {
+				sBlockStart[sb] = groupStarts[g];
+				sBlockEnd[sb] = groupStarts[g + 1];
+			} else {
+				int sbNew = numBlocks++;
+				sBlockStart[sbNew] = groupStarts[g];
+				sBlockEnd[sbNew] = groupStarts[g + 1];
+				for (int i = groupStarts[g]; i < groupStarts[g + 1]; i++) {
+					sBlockOf[sElems[i]] = sbNew;
+				}
+				addToWorklist(sbNew);
+			}
+		}
+	}
+
+	/**
+	 * Get the signature of a state: the (sorted) set of blocks of its choices.
+	 */
+	private int[] getSignature(int s)
+	{
+		int n = choiceStarts[s + 1] - choiceStarts[s];
+		int sig[] = new int[n];
+		for (int i = 0; i < n; i++) {
+			sig[i] = cBlockOf[choiceStarts[s] + i];
+		}
+		Arrays.sort(sig);
+		int k = 0;
+		for (int i = 0; i < n; i++) {
+			if (i == 0 || sig[i] != sig[i - 1])
+				sig[k++] = sig[i];
+		}
+		return k == n ? sig : Arrays.copyOf(sig, k);
+	}
+
+	/**
+	 * Lexicographic comparison of signatures.
+	 */
+	private static int compareSignatures(int sig1[], int sig2[])
+	{
+		int n = Math.min(sig1.length, sig2.length);
+		for (int i = 0; i < n; i++) {
+			if (sig1[i] != sig2[i])
+				return sig1[i] < sig2[i] ? -1 : 1;
+		}
+		return sig1.length - sig2.length;
+	}
+
+	/**
+	 * Add block {@code b} of states to the list of splitters, if not there already.
+	 */
+	private void addToWorklist(int b)
+	{
+		if (!inWorklist[b]) {
+			inWorklist[b] = true;
+			worklist[worklistSize++] = b;
+		}
+	}
+
+	/**
+	 * Swap the elements at positions {@code i} and {@code j} of {@code elems},
+	 * updating the inverse mapping {@code loc}.
+	 */
+	private static void swap(int elems[], int loc[], int i, int j)
+	{
+		int e = elems[i];
+		elems[i] = elems[j];
+		elems[j] = e;
+		loc[elems[i]] = i;
+		loc[elems[j]] = j;
+	}
+
+	/**
+	 * Sort {@code elems[lo...hi-1]} by increasing value of {@code weight[]}
+	 * (3-way quicksort, with insertion sort for small ranges).
+	 */
+	private void sortByWeight(int elems[], int lo, int hi)
+	{
+		while (hi - lo > 16) {
+			double pivot = weight[elems[lo + (hi - lo) / 2]];
+			int lt = lo, i = lo, gt = hi;
+			while (i < gt) {
+				double w = weight[elems[i]];
+				if (w < pivot) {
+					int e = elems[lt]; elems[lt++] = elems[i]; elems[i++] = e;
+				} else if (w > pivot) {
+					int e = elems[--gt]; elems[gt] = elems[i]; elems[i] = e;
+				} else {
+					i++;
+				}
+			}
+			// Recurse on the smaller part, loop on the larger one
+			if (lt - lo < hi - gt) {
+				sortByWeight(elems, lo, lt);
+				lo = gt;
+			} else {
+				sortByWeight(elems, gt, hi);
+				hi = lt;
+			}
+		}
+		for (int i = lo + 1; i < hi; i++) {
+			int e = elems[i];
+			double w = weight[e];
+			int j = i - 1;
+			while (j >= lo && weight[elems[j]] > w) {
+				elems[j + 1] = elems[j];
+				j--;
+			}
+			elems[j + 1] = e;
+		}
 	}
 
 	/**
@@ -270,6 +744,12 @@ public class Bisimulation extends PrismComponent
 			modelNew.setStatesList(statesListNew);
 		}
 
+		// Attach initial states
+		for (int s : model.getInitialStates()) {
+			if (!modelNew.isInitialState(partition[s]))
+				modelNew.addInitialState(partition[s]);
+		}
+
 		// Build/attach new labels
 		int numProps = propBSs.size();
 		for (int i = 0; i < numProps; i++) {
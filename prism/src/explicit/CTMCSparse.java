@@ -0,0 +1,320 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import prism.ModelType;
+import prism.PrismException;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of a CTMC,
+ * stored in compressed sparse row (CSR) form using primitive arrays (see {@link DTMCSparse}).
+ * The embedded and uniformised DTMCs are also built in sparse form.
+ */
+public class CTMCSparse extends DTMCSparse implements CTMC
+{
+	/**
+	 * The cached embedded DTMC.
+	 * <p>
+	 * We cache this so that the PredecessorRelation of the
+	 * embedded DTMC is cached.
+	 */
+	private DTMCSparse cachedEmbeddedDTMC = null;
+
+	// Constructors
+
+	/**
+	 * Copy constructor (from CTMCSimple).
+	 * @param ctmc The CTMC to copy
+	 */
+	public CTMCSparse(CTMCSimple ctmc)
+	{
+		super(ctmc);
+	}
+
+	/**
+	 * Copy constructor (from CTMCSimple). Optionally, a state index permutation
+	 * can be provided, i.e. old state index i becomes index permut[i].
+	 * Note: if a permutation is given, the states list will not be permuted
+	 * and should be set separately afterwards if required.
+	 * @param ctmc The CTMC to copy
+	 * @param permut State space permutation (or null)
+	 */
+	public CTMCSparse(CTMCSimple ctmc, int permut[])
+	{
+		super(ctmc, permut);
+	}
+
+	/**
+	 * Construct a CTMC from existing compressed sparse row arrays, which are used directly (not copied).
+	 * The transitions of each state should be sorted by ascending column index, with no duplicates.
+	 * Initial states, deadlocks, etc. should be added separately afterwards.
+	 * @param numStates Number of states
+	 * @param rowStarts Indices into {@code cols}/{@code nonZeros} for each state (array of size numStates+1)
+	 * @param cols Column (destination) indices for each transition
+	 * @param nonZeros Rates for each transition
+	 */
+	public CTMCSparse(int numStates, int rowStarts[], int cols[], double nonZeros[])
+	{
+		super(numStates, rowStarts, cols, nonZeros);
+	}
+
+	// Mutators (other)
+
+	@Override
+	public void findDeadlocks(boolean fix) throws PrismException
+	{
+		super.findDeadlocks(fix);
+		// Self-loops may have been added
+		if (fix)
+			cachedEmbeddedDTMC = null;
+	}
+
+	// Accessors (for Model)
+
+	@Override
+	public ModelType getModelType()
+	{
+		return ModelType.CTMC;
+	}
+
+	// Accessors (for CTMC)
+
+	@Override
+	public double getExitRate(int i)
+	{
+		int k, h = rowStarts[i + 1];
+		double d = 0.0;
+		for (k = rowStarts[i]; k < h; k++) {
+			d += nonZeros[k];
+		}
+		return d;
+	}
+
+	@Override
+	public double getMaxExitRate()
+	{
+		return getMaxExitRate(null);
+	}
+
+	@Override
+	public double getMaxExitRate(BitSet subset)
+	{
+		int i;
+		double d, max = Double.NEGATIVE_INFINITY;
+		for (i = nextState(subset, false, 0); i >= 0; i = nextState(subset, false, i + 1)) {
+			d = getExitRate(i);
+			if (d > max)
+				max = d;
+		}
+		return max;
+	}
+
+	@Override
+	public double getDefaultUniformisationRate()
+	{
+		return 1.02 * getMaxExitRate();
+	}
+
+	@Override
+	public double getDefaultUniformisationRate(BitSet nonAbs)
+	{
+		return 1.02 * getMaxExitRate(nonAbs);
+	}
+
+	@Override
+	public DTMC buildImplicitEmbeddedDTMC()
+	{
+		DTMCSparse dtmc = buildEmbeddedDTMCSparse();
+		if (cachedEmbeddedDTMC != null) {
+			// replace cached DTMC
+			cachedEmbeddedDTMC = dtmc;
+		}
+		return dtmc;
+	}
+
+	@Override
+	public DTMC getImplicitEmbeddedDTMC()
+	{
+		if (cachedEmbeddedDTMC == null) {
+			cachedEmbeddedDTMC = buildEmbeddedDTMCSparse();
+		}
+		return cachedEmbeddedDTMC;
+	}
+
+	@Override
+	public DTMCSimple buildEmbeddedDTMC()
+	{
+		return toDTMCSimple(buildEmbeddedDTMCSparse());
+	}
+
+	@Override
+	public void uniformise(double q)
+	{
+		DTMCSparse unif = buildUniformised(q, false);
+		rowStarts = unif.rowStarts;
+		cols = unif.cols;
+		nonZeros = unif.nonZeros;
+		numTransitions = unif.numTransitions;
+		cachedEmbeddedDTMC = null;
+		clearPredecessorRelation();
+	}
+
+	@Override
+	public DTMC buildImplicitUniformisedDTMC(double q)
+	{
+		return buildUniformised(q, true);
+	}
+
+	@Override
+	public DTMCSimple buildUniformisedDTMC(double q)
+	{
+		return toDTMCSimple(buildUniformised(q, true));
+	}
+
+	// Local utility methods
+
+	/**
+	 * Build the embedded DTMC of this CTMC, in sparse form, i.e.
+	 * P(i,j) = R(i,j) / E(i) if E(i) > 0 and P(i,i) = 1 otherwise
+	 * where E(i) is the exit rate for state i: sum_j R(i,j).
+	 */
+	private DTMCSparse buildEmbeddedDTMCSparse()
+	{
+		int i, k, h, n, dRowStarts[], dCols[];
+		double er, dNonZeros[];
+		DTMCSparse dtmc;
+
+		// Count transitions (states with exit rate 0 get a self-loop)
+		n = numTransitions;
+		for (i = 0; i < numStates; i++) {
+			if (rowStarts[i] == rowStarts[i + 1])
+				n++;
+		}
+		dRowStarts = new int[numStates + 1];
+		dCols = new int[n];
+		dNonZeros = new double[n];
+		n = 0;
+		for (i = 0; i < numStates; i++) {
+			dRowStarts[i] = n;
+			h = rowStarts[i + 1];
+			er = getExitRate(i);
+			if (er == 0) {
+				dCols[n] = i;
+				dNonZeros[n] = 1.0;
+				n++;
+			} else {
+				for (k = rowStarts[i]; k < h; k++) {
+					dCols[n] = cols[k];
+					dNonZeros[n] = nonZeros[k] / er;
+					n++;
+				}
+			}
+		}
+		dRowStarts[numStates] = n;
+		dtmc = new DTMCSparse(numStates, dRowStarts, dCols, dNonZeros);
+		dtmc.copyFrom(this);
+		return dtmc;
+	}
+
+	/**
+	 * Build the uniformised version of this model, for rate {@code q}, in sparse form,
+	 * i.e. with diagonal entries R(i,i) set to q - sum_{j!=i} R(i,j) and,
+	 * if {@code normalise} is true, all entries divided by q (giving a DTMC).
+	 * If {@code normalise} is false, the result is used just for its transition matrix.
+	 */
+	private DTMCSparse buildUniformised(double q, boolean normalise)
+	{
+		int i, k, h, n, dRowStarts[], dCols[];
+		double d, dNonZeros[];
+		boolean diagDone;
+		DTMCSparse dtmc;
+
+		// Worst case: a diagonal entry is added for every state
+		dRowStarts = new int[numStates + 1];
+		dCols = new int[numTransitions + numStates];
+		dNonZeros = new double[numTransitions + numStates];
+		n = 0;
+		for (i = 0; i < numStates; i++) {
+			dRowStarts[i] = n;
+			h = rowStarts[i + 1];
+			// Compute off-diagonal sum
+			d = 0.0;
+			for (k = rowStarts[i]; k < h; k++) {
+				if (cols[k] != i)
+					d += nonZeros[k];
+			}
+			// Copy entries (keeping row sorted), inserting the diagonal where needed
+			diagDone = false;
+			for (k = rowStarts[i]; k <= h; k++) {
+				if (!diagDone && (k == h || cols[k] >= i)) {
+					diagDone = true;
+					if (normalise ? d < q : q - d != 0) {
+						dCols[n] = i;
+						dNonZeros[n] = normalise ? 1 - (d / q) : q - d;
+						n++;
+					}
+					if (k < h && cols[k] == i)
+						continue;
+				}
+				if (k < h) {
+					dCols[n] = cols[k];
+					dNonZeros[n] = normalise ? nonZeros[k] / q : nonZeros[k];
+					n++;
+				}
+			}
+		}
+		dRowStarts[numStates] = n;
+		if (n < dCols.length) {
+			dCols = Arrays.copyOf(dCols, n);
+			dNonZeros = Arrays.copyOf(dNonZeros, n);
+		}
+		dtmc = new DTMCSparse(numStates, dRowStarts, dCols, dNonZeros);
+		dtmc.copyFrom(this);
+		return dtmc;
+	}
+
+	/**
+	 * Convert a (sparse) DTMC to a DTMCSimple.
+	 */
+	private static DTMCSimple toDTMCSimple(DTMCSparse sparse)
+	{
+		int i, k, h;
+		DTMCSimple dtmc = new DTMCSimple(sparse.numStates);
+		for (int in : sparse.getInitialStates()) {
+			dtmc.addInitialState(in);
+		}
+		for (i = 0; i < sparse.numStates; i++) {
+			h = sparse.rowStarts[i + 1];
+			for (k = sparse.rowStarts[i]; k < h; k++) {
+				dtmc.setProbability(i, sparse.cols[k], sparse.nonZeros[k]);
+			}
+		}
+		return dtmc;
+	}
+}
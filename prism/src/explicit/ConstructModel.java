@@ -42,11 +42,13 @@ import prism.Prism;
 import prism.PrismComponent;
 import prism.PrismException;
 import prism.PrismLog;
+import prism.PrismSettings;
 import prism.PrismPrintStreamLog;
 import prism.PrismNotSupportedException;
 import prism.ProgressDisplay;
 import prism.UndefinedConstants;
 import simulator.SimulatorEngine;
+import simulator.Updater;
 
 public class ConstructModel extends PrismComponent
 {
@@ -58,6 +60,12 @@ public class ConstructModel extends PrismComponent
 	protected boolean findDeadlocks = true;
 	// Automatically fix deadlocks?
 	protected boolean fixDeadlocks = true;
+	// Number of threads to use for state space exploration (1 means sequential)
+	protected int numThreads = 1;
+	// Binary file to store built (sparse) models in/memory-map them from (null if none)
+	protected File modelFile = null;
+	// Print extra (diagnostic) information during construction?
+	protected boolean verbose = false;
 
 	// Details of built model
 	protected List<State> statesList;
@@ -66,6 +74,11 @@ public class ConstructModel extends PrismComponent
 	{
 		super(parent);
 		this.engine = engine;
+		// If present, initialise settings from PrismSettings
+		if (settings != null) {
+			setNumThreads(settings.getInteger(PrismSettings.PRISM_EXPLICIT_BUILD_THREADS));
+			verbose = settings.getBoolean(PrismSettings.PRISM_VERBOSE);
+		}
 	}
 
 	public List<State> getStatesList()
@@ -78,6 +91,26 @@ public class ConstructModel extends PrismComponent
 		fixDeadlocks = b;
 	}
 
+	/**
+	 * Set the number of threads to use for state space exploration (1 means sequential).
+	 * Parallel exploration is only possible if all model variables are bounded;
+	 * the resulting model (and state ordering) is the same as for sequential exploration.
+	 */
+	public void setNumThreads(int numThreads)
+	{
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	/**
+	 * Set a binary file (see {@link SparseModelFile}) in which to store built sparse models (null means none).
+	 * If the file already contains the model being built (same model and constants),
+	 * it is memory-mapped from there instead of being constructed again.
+	 */
+	public void setModelFile(File modelFile)
+	{
+		this.modelFile = modelFile;
+	}
+
 	/**
 	 * Build the set of reachable states for a PRISM model language description and return.
 	 * @param modulesFile The PRISM model
@@ -125,6 +158,7 @@ public class ConstructModel extends PrismComponent
 		ModelType modelType;
 		// State storage
 		StateStorage<State> states;
+		PackedStateStorage packedStates = null;
 		LinkedList<State> explore;
 		State state, stateNew;
 		// Explicit model storage
@@ -133,22 +167,44 @@ public class ConstructModel extends PrismComponent
 		CTMCSimple ctmc = null;
 		MDPSimple mdp = null;
 		CTMDPSimple ctmdp = null;
+		SparseModelBuilder builder = null;
 		ModelExplicit model = null;
 		Distribution distr = null;
+		// Parallel exploration
+		ParallelStateExplorer explorer = null;
+		ParallelStateExplorer.Batch batch;
 		// Misc
-		int i, j, nc, nt, src, dest;
+		int i, j, k, n, nc, nt, src, dest;
 		long timer;
 
 		// Get model info
 		modelType = modulesFile.getModelType();
 		
-		// Display a warning if there are unbounded vars
+		// If the model is already stored in the model file, load it from there
 		VarList varList = modulesFile.createVarList();
+		String modelKey = null;
+		if (!justReach && buildSparse && modelFile != null) {
+			modelKey = SparseModelFile.computeKey(modulesFile, fixDeadlocks);
+			if (modelKey.equals(SparseModelFile.readKey(modelFile))) {
+				timer = System.currentTimeMillis();
+				model = SparseModelFile.read(modelFile, varList);
+				model.setConstantValues(new Values(modulesFile.getConstantValues()));
+				statesList = model.getStatesList();
+				mainLog.println("\nModel loaded from file \"" + modelFile + "\" in " + ((System.currentTimeMillis() - timer) / 1000.0) + " secs.");
+				return model;
+			}
+		}
+
+		// Display a warning if there are unbounded vars
 		if (varList.containsUnboundedVariables())
 			mainLog.printWarning("Model contains one or more unbounded variables: model construction may not terminate");
+		// Parallel exploration is only possible if all variables are bounded
+		boolean parallel = numThreads > 1 && !varList.containsUnboundedVariables();
+		if (numThreads > 1 && !parallel)
+			mainLog.printWarning("Parallel exploration requires all variables to be bounded; exploring sequentially");
 
 		// Starting reachability...
-		mainLog.print("\nComputing reachable states...");
+		mainLog.print("\nComputing reachable states" + (parallel ? " (using " + numThreads + " threads)" : "") + "...");
 		mainLog.flush();
 		ProgressDisplay progress = new ProgressDisplay(mainLog);
 		progress.start();
@@ -156,9 +212,14 @@ public class ConstructModel extends PrismComponent
 
 		// Initialise simulator for this model
 		engine.createNewOnTheFlyPath(modulesFile);
+		engine.resetGuardStatistics();
+		long guardsEvaluated = 0, guardsSkipped = 0;
 
 		// Create model storage
-		if (!justReach) {
+		// Sparse models (DTMCs/CTMCs/MDPs) are built directly, in compressed sparse row form
+		if (!justReach && buildSparse && (modelType == ModelType.DTMC || modelType == ModelType.CTMC || modelType == ModelType.MDP)) {
+			builder = new SparseModelBuilder(modelType);
+		} else if (!justReach) {
 			// Create a (simple, mutable) model of the appropriate type
 			switch (modelType) {
 			case DTMC:
@@ -185,7 +246,16 @@ public class ConstructModel extends PrismComponent
 		}
 
 		// Initialise states storage
-		states = new IndexedSet<State>(true);
+		// If all variables are bounded, states are stored in packed form,
+		// and (since they are indexed in order of discovery) explored directly from the storage.
+		// Otherwise, we use a sorted set of State objects and a separate list of states to explore.
+		// Note that packed storage cannot represent out-of-range variable values, so any state
+		// in which a variable overflows its declared range is reported as an error.
+		if (!varList.containsUnboundedVariables()) {
+			states = packedStates = new PackedStateStorage(varList);
+		} else {
+			states = new IndexedSet<State>(true);
+		}
 		explore = new LinkedList<State>();
 		// Add initial state(s) to 'explore'
 		// Easy (normal) case: just one initial state
@@ -206,18 +276,78 @@ public class ConstructModel extends PrismComponent
 		}
 		// Copy initial state(s) to 'states' and to the model
 		for (State initState : explore) {
-			states.add(initState);
-			if (!justReach) {
+			addState(states, initState);
+			if (builder != null) {
+				builder.addInitialState(states.getIndexOfLastAdd());
+			} else if (!justReach) {
 				modelSimple.addState();
 				modelSimple.addInitialState(modelSimple.getNumStates() - 1);
 			}
 		}
+		if (packedStates != null) {
+			explore.clear();
+		}
+		// Set up parallel exploration, if required
+		if (parallel) {
+			explorer = new ParallelStateExplorer(this, modulesFile, packedStates, numThreads);
+		}
 		// Explore...
 		src = -1;
-		while (!explore.isEmpty()) {
+		// Parallel case: explore batches of states concurrently, but add to model in order
+		while (explorer != null && src + 1 < packedStates.size()) {
+			try {
+				batch = explorer.exploreBatch(src + 1, packedStates.size());
+			} catch (PrismException e) {
+				explorer.close();
+				throw e;
+			}
+			n = batch.getNumStates();
+			for (k = 0; k < n; k++) {
+				src++;
+				nc = batch.getNumChoices(k);
+				for (i = 0; i < nc; i++) {
+					// For nondet models, collect transitions in a Distribution
+					if (modelSimple != null && modelType.nondeterministic()) {
+						distr = new Distribution();
+					}
+					// Look at each transition in the choice
+					nt = batch.getNumTransitions(k, i);
+					for (j = 0; j < nt; j++) {
+						// Get index of target, adding to state set (and model) if new
+						dest = batch.addTransitionTarget(k, i, j);
+						if (dest < 0) {
+							dest = -(dest + 1);
+							if (modelSimple != null) {
+								modelSimple.addState();
+							}
+						}
+						// Add transitions to model
+						if (!justReach) {
+							addTransition(modelSimple, builder, distr, src, dest, batch.getTransitionProbability(k, i, j));
+						}
+					}
+					// For nondet models, add collated transition to model 
+					if (!justReach) {
+						addChoice(modelSimple, builder, src, distr, batch.getChoiceAction(k, i), distinguishActions);
+					}
+				}
+				if (builder != null) {
+					builder.finishState();
+				}
+				// Print some progress info occasionally
+				progress.updateIfReady(src + 1);
+			}
+		}
+		if (explorer != null) {
+			explorer.close();
+			guardsEvaluated += explorer.getNumGuardsEvaluated();
+			guardsSkipped += explorer.getNumGuardsSkipped();
+		}
+		// Sequential case
+		while (explorer == null && (packedStates != null ? src + 1 < packedStates.size() : !explore.isEmpty())) {
 			// Pick next state to explore
 			// (they are stored in order found so know index is src+1)
-			state = explore.removeFirst();
+			state = packedStates != null ? packedStates.getState(src + 1) : explore.removeFirst();
 			src++;
 			// Use simulator to explore all choices/transitions from this state
 			engine.initialisePath(state);
@@ -225,7 +355,7 @@ public class ConstructModel extends PrismComponent
 			nc = engine.getNumChoices();
 			for (i = 0; i < nc; i++) {
 				// For nondet models, collect transitions in a Distribution
-				if (!justReach && modelType.nondeterministic()) {
+				if (modelSimple != null && modelType.nondeterministic()) {
 					distr = new Distribution();
 				}
 				// Look at each transition in the choice
@@ -233,11 +363,12 @@ public class ConstructModel extends PrismComponent
 				for (j = 0; j < nt; j++) {
 					stateNew = engine.computeTransitionTarget(i, j);
 					// Is this a new state?
-					if (states.add(stateNew)) {
-						// If so, add to the explore list
-						explore.add(stateNew);
+					if (addState(states, stateNew)) {
+						// If so, add to the explore list (unless exploring from storage)
+						if (packedStates == null)
+							explore.add(stateNew);
 						// And to model
-						if (!justReach) {
+						if (modelSimple != null) {
 							modelSimple.addState();
 						}
 					}
@@ -245,41 +376,17 @@ public class ConstructModel extends PrismComponent
 					dest = states.getIndexOfLastAdd();
 					// Add transitions to model
 					if (!justReach) {
-						switch (modelType) {
-						case DTMC:
-							dtmc.addToProbability(src, dest, engine.getTransitionProbability(i, j));
-							break;
-						case CTMC:
-							ctmc.addToProbability(src, dest, engine.getTransitionProbability(i, j));
-							break;
-						case MDP:
-						case CTMDP:
-							distr.add(dest, engine.getTransitionProbability(i, j));
-							break;
-						case STPG:
-						case SMG:
-						case PTA:
-							throw new PrismNotSupportedException("Model construction not supported for " + modelType + "s");
-						}
+						addTransition(modelSimple, builder, distr, src, dest, engine.getTransitionProbability(i, j));
 					}
 				}
 				// For nondet models, add collated transition to model 
 				if (!justReach) {
-					if (modelType == ModelType.MDP) {
-						if (distinguishActions) {
-							mdp.addActionLabelledChoice(src, distr, engine.getTransitionAction(i, 0));
-						} else {
-							mdp.addChoice(src, distr);
-						}
-					} else if (modelType == ModelType.CTMDP) {
-						if (distinguishActions) {
-							ctmdp.addActionLabelledChoice(src, distr, engine.getTransitionAction(i, 0));
-						} else {
-							ctmdp.addChoice(src, distr);
-						}
-					}
+					addChoice(modelSimple, builder, src, distr, engine.getTransitionAction(i, 0), distinguishActions);
 				}
 			}
+			if (builder != null) {
+				builder.finishState();
+			}
 			// Print some progress info occasionally
 			progress.updateIfReady(src + 1);
 		}
@@ -291,11 +398,19 @@ public class ConstructModel extends PrismComponent
 		// Reachability complete
 		mainLog.print("Reachable states exploration" + (justReach ? "" : " and model construction"));
 		mainLog.println(" done in " + ((System.currentTimeMillis() - timer) / 1000.0) + " secs.");
+		guardsEvaluated += engine.getNumGuardsEvaluated();
+		guardsSkipped += engine.getNumGuardsSkipped();
+		if (verbose)
+			mainLog.println("Guard evaluation statistics: " + Updater.getGuardStatisticsString(guardsEvaluated, guardsSkipped));
 		//mainLog.println(states);
 
 		// Find/fix deadlocks (if required)
 		if (!justReach && findDeadlocks) {
-			modelSimple.findDeadlocks(fixDeadlocks);
+			if (builder != null) {
+				builder.findDeadlocks(fixDeadlocks);
+			} else {
+				modelSimple.findDeadlocks(fixDeadlocks);
+			}
 		}
 
 		boolean sort = true;
@@ -305,10 +420,10 @@ public class ConstructModel extends PrismComponent
 			// Sort states and convert set to list
 			mainLog.println("Sorting reachable states list...");
 			permut = states.buildSortingPermutation();
-			statesList = states.toPermutedArrayList(permut);
+			statesList = packedStates != null ? packedStates.toPackedListAndClear(permut) : states.toPermutedArrayList(permut);
 			//mainLog.println(permut);
 		} else {
-			statesList = states.toArrayList();
+			statesList = packedStates != null ? packedStates.toPackedListAndClear(null) : states.toArrayList();
 		}
 		states.clear();
 		states = null;
@@ -318,14 +433,25 @@ public class ConstructModel extends PrismComponent
 		if (!justReach) {
 			switch (modelType) {
 			case DTMC:
-				model = sort ? new DTMCSimple(dtmc, permut) : (DTMCSimple) dtmc;
+				if (buildSparse) {
+					model = builder.build(permut);
+					model.setVarList(varList);
+				} else {
+					model = sort ? new DTMCSimple(dtmc, permut) : (DTMCSimple) dtmc;
+				}
 				break;
 			case CTMC:
-				model = sort ? new CTMCSimple(ctmc, permut) : (CTMCSimple) ctmc;
+				if (buildSparse) {
+					model = builder.build(permut);
+					model.setVarList(varList);
+				} else {
+					model = sort ? new CTMCSimple(ctmc, permut) : (CTMCSimple) ctmc;
+				}
 				break;
 			case MDP:
 				if (buildSparse) {
-					model = sort ? new MDPSparse(mdp, true, permut) : new MDPSparse(mdp);
+					model = builder.build(permut);
+					model.setVarList(varList);
 				} else {
 					model = sort ? new MDPSimple(mdp, permut) : mdp;
 				}
@@ -341,6 +467,19 @@ public class ConstructModel extends PrismComponent
 			model.setStatesList(statesList);
 			model.setConstantValues(new Values(modulesFile.getConstantValues()));
 			//mainLog.println("Model: " + model);
+			// Store in model file, if required
+			if (modelKey != null) {
+				if (SparseModelFile.canWrite(model)) {
+					try {
+						SparseModelFile.write(model, modelKey, modelFile);
+						mainLog.println("Model stored in file \"" + modelFile + "\".");
+					} catch (PrismException e) {
+						mainLog.printWarning(e.getMessage());
+					}
+				} else {
+					mainLog.printWarning("Can't store " + modelType + "s in model file \"" + modelFile + "\"");
+				}
+			}
 		}
 
 		// Discard permutation
@@ -349,6 +488,73 @@ public class ConstructModel extends PrismComponent
 		return model;
 	}
 
+	/**
+	 * Add a transition (from state {@code src} to state {@code dest} with probability/rate {@code prob})
+	 * to a model under construction. For nondeterministic models, it is added to {@code distr}.
+	 * If a sparse model is being built directly, it is added to {@code builder} instead.
+	 */
+	private static void addTransition(ModelSimple modelSimple, SparseModelBuilder builder, Distribution distr, int src, int dest, double prob) throws PrismException
+	{
+		if (builder != null) {
+			builder.addTransition(dest, prob);
+			return;
+		}
+		switch (modelSimple.getModelType()) {
+		case DTMC:
+			((DTMCSimple) modelSimple).addToProbability(src, dest, prob);
+			break;
+		case CTMC:
+			((CTMCSimple) modelSimple).addToProbability(src, dest, prob);
+			break;
+		case MDP:
+		case CTMDP:
+			distr.add(dest, prob);
+			break;
+		default:
+			throw new PrismNotSupportedException("Model construction not supported for " + modelSimple.getModelType() + "s");
+		}
+	}
+
+	/**
+	 * For nondeterministic models, add a choice (distribution {@code distr}, with
+	 * action label {@code action}) to state {@code src} of a model under construction.
+	 * If a sparse model is being built directly, the choice just added to {@code builder} is finished instead.
+	 * For other models, does nothing.
+	 */
+	private static void addChoice(ModelSimple modelSimple, SparseModelBuilder builder, int src, Distribution distr, Object action, boolean distinguishActions)
+	{
+		if (builder != null) {
+			if (builder.nondet) {
+				builder.finishChoice(distinguishActions ? action : null);
+			}
+		} else if (modelSimple.getModelType() == ModelType.MDP) {
+			if (distinguishActions) {
+				((MDPSimple) modelSimple).addActionLabelledChoice(src, distr, action);
+			} else {
+				((MDPSimple) modelSimple).addChoice(src, distr);
+			}
+		} else if (modelSimple.getModelType() == ModelType.CTMDP) {
+			if (distinguishActions) {
+				((CTMDPSimple) modelSimple).addActionLabelledChoice(src, distr, action);
+			} else {
+				((CTMDPSimple) modelSimple).addChoice(src, distr);
+			}
+		}
+	}
+
+	/**
+	 * Add a state to the state storage, returning true if it was not already present.
+	 * Throws an exception if the state cannot be stored (e.g. a variable is out of range).
+	 */
+	private static boolean addState(StateStorage<State> states, State state) throws PrismException
+	{
+		try {
+			return states.add(state);
+		} catch (IllegalArgumentException e) {
+			throw new PrismException("Could not add state " + state + " during model construction: " + e.getMessage());
+		}
+	}
+
 	/**
 	 * Test method.
 	 */
@@ -106,6 +106,23 @@ public interface DTMC extends Model
 	 */
 	public double mvMultGS(double vect[], BitSet subset, boolean complement, boolean absolute);
 
+	/**
+	 * Do a Gauss-Seidel-style matrix-vector multiplication with over-relaxation (SOR) for
+	 * the DTMC's transition probability matrix P and the vector {@code vect} passed in,
+	 * updating the states listed in {@code order}, in that order, and
+	 * storing new values directly in {@code vect} as computed.
+	 * i.e. for all s in order: vect[s] = (1-omega)*vect[s] + omega*(sum_{j!=s} P(s,j)*vect[j]) / (1-P(s,s))
+	 * For {@code omega} = 1, this is Gauss-Seidel.
+	 * The maximum (absolute/relative) difference between old/new
+	 * elements of {@code vect} is also returned.
+	 * @param vect Vector to multiply by (and store the result in)
+	 * @param order The rows to do multiplication for, in order
+	 * @param omega Over-relaxation parameter
+	 * @param absolute If true, compute absolute, rather than relative, difference
+	 * @return The maximum difference between old/new elements of {@code vect}
+	 */
+	public double mvMultSOR(double vect[], int order[], double omega, boolean absolute);
+
 	/**
 	 * Do a single row of Jacobi-style matrix-vector multiplication for
 	 * the DTMC's transition probability matrix P and the vector {@code vect} passed in.
@@ -133,6 +150,15 @@ public interface DTMC extends Model
 	 */
 	public double mvMultRewSingle(int s, double vect[], MCRewards mcRewards);
 
+	/**
+	 * Do a single row of Jacobi-style matrix-vector multiplication and sum of action reward.
+	 * i.e. return (rew(s) + sum_{j!=s} P(s,j)*vect[j]) / (1-P(s,s))
+	 * @param s Row index
+	 * @param vect Vector to multiply by
+	 * @param mcRewards The rewards
+	 */
+	public double mvMultRewJacSingle(int s, double vect[], MCRewards mcRewards);
+
 	/**
 	 * Do a vector-matrix multiplication for
 	 * the DTMC's transition probability matrix P and the vector {@code vect} passed in.
@@ -288,9 +288,9 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 		}
 		// Exit rate > 0
 		else {
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				d += prob * vect[k];
 			}
 			d /= er;
@@ -318,9 +318,9 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 			// (sum_{j!=s} P(s,j)*vect[j]) / (1-P(s,s))
 			// = (sum_{j!=s} (R(s,j)/E(s))*vect[j]) / (1-(P(s,s)/E(s)))
 			// = (sum_{j!=s} R(s,j)*vect[j]) / (E(s)-P(s,s))
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				// Non-diagonal entries only
 				if (k != s) {
 					d += prob * vect[k];
@@ -349,9 +349,9 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 		}
 		// Exit rate > 0
 		else {
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				d += prob * vect[k];
 			}
 			d /= er;
@@ -361,7 +361,7 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 		return d;
 	}
 
-	//@Override
+	@Override
 	public double mvMultRewJacSingle(int s, double vect[], MCRewards mcRewards)
 	{
 		int k;
@@ -381,9 +381,9 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 			// = (rew(s) + sum_{j!=s} (R(s,j)/E(s))*vect[j]) / (1-(P(s,s)/E(s)))
 			// = (E(s)*rew(s) + sum_{j!=s} R(s,j)*vect[j]) / (E(s)-P(s,s))
 			d = er * mcRewards.getStateReward(s);
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				// Non-diagonal entries only
 				if (k != s) {
 					d += prob * vect[k];
@@ -418,9 +418,9 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 			}
 			// Exit rate > 0
 			else {
-				for (Map.Entry<Integer, Double> e : distr) {
-					j = (Integer) e.getKey();
-					prob = (Double) e.getValue();
+				for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+					j = distr.getStateAt(t);
+					prob = distr.getProbabilityAt(t);
 					result[j] += (prob / er) * vect[i];
 				}
 			}
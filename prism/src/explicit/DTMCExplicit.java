@@ -175,6 +175,23 @@ public abstract class DTMCExplicit extends ModelExplicit implements DTMC
 		return maxDiff;
 	}
 
+	@Override
+	public double mvMultSOR(double vect[], int order[], double omega, boolean absolute)
+	{
+		int s;
+		double d, diff, maxDiff = 0.0;
+		for (int i = 0; i < order.length; i++) {
+			s = order[i];
+			d = mvMultJacSingle(s, vect);
+			if (omega != 1.0)
+				d = (1 - omega) * vect[s] + omega * d;
+			diff = absolute ? (Math.abs(d - vect[s])) : (Math.abs(d - vect[s]) / d);
+			maxDiff = diff > maxDiff ? diff : maxDiff;
+			vect[s] = d;
+		}
+		return maxDiff;
+	}
+
 	@Override
 	public void mvMultRew(double vect[], MCRewards mcRewards, double result[], BitSet subset, boolean complement)
 	{
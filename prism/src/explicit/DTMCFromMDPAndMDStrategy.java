@@ -241,6 +241,12 @@ public class DTMCFromMDPAndMDStrategy extends DTMCExplicit
 		//return mdp.mvMultRewSingle(s, adv[s], vect);
 	}
 
+	@Override
+	public double mvMultRewJacSingle(int s, double vect[], MCRewards mcRewards)
+	{
+		throw new RuntimeException("Not implemented yet");
+	}
+
 	@Override
 	public void vmMult(double vect[], double result[])
 	{
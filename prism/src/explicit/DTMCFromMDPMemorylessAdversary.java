@@ -240,6 +240,12 @@ public class DTMCFromMDPMemorylessAdversary extends DTMCExplicit
 		return adv[s] >= 0 ? mdp.mvMultRewSingle(s, adv[s], vect, mcRewards) : 0;
 	}
 
+	@Override
+	public double mvMultRewJacSingle(int s, double vect[], MCRewards mcRewards)
+	{
+		throw new RuntimeException("Not implemented yet");
+	}
+
 	@Override
 	public void vmMult(double vect[], double result[])
 	{
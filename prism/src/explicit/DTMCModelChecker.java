@@ -502,7 +502,8 @@ public class DTMCModelChecker extends ProbModelChecker
 		LinEqMethod linEqMethod = this.linEqMethod;
 
 		// Switch to a supported method, if necessary
-		if (!(linEqMethod == LinEqMethod.POWER || linEqMethod == LinEqMethod.GAUSS_SEIDEL)) {
+		if (!(linEqMethod == LinEqMethod.POWER || linEqMethod == LinEqMethod.GAUSS_SEIDEL || linEqMethod == LinEqMethod.BACKWARDS_GAUSS_SEIDEL
+				|| linEqMethod == LinEqMethod.SOR || linEqMethod == LinEqMethod.BACKWARDS_SOR || linEqMethod == LinEqMethod.TOPOLOGICAL)) {
 			linEqMethod = LinEqMethod.GAUSS_SEIDEL;
 			mainLog.printWarning("Switching to linear equation solution method \"" + linEqMethod.fullName() + "\"");
 		}
@@ -579,6 +580,18 @@ public class DTMCModelChecker extends ProbModelChecker
 		case GAUSS_SEIDEL:
 			res = computeReachProbsGaussSeidel(dtmc, no, yes, init, known);
 			break;
+		case BACKWARDS_GAUSS_SEIDEL:
+			res = computeReachProbsSOR(dtmc, no, yes, init, known, true, 1.0);
+			break;
+		case SOR:
+			res = computeReachProbsSOR(dtmc, no, yes, init, known, false, linEqMethodParam);
+			break;
+		case BACKWARDS_SOR:
+			res = computeReachProbsSOR(dtmc, no, yes, init, known, true, linEqMethodParam);
+			break;
+		case TOPOLOGICAL:
+			res = computeReachProbsTopological(dtmc, no, yes, init, known);
+			break;
 		default:
 			throw new PrismException("Unknown linear equation solution method " + linEqMethod.fullName());
 		}
@@ -947,17 +960,44 @@ public class DTMCModelChecker extends ProbModelChecker
 	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.  
 	 */
 	protected ModelCheckerResult computeReachProbsGaussSeidel(DTMC dtmc, BitSet no, BitSet yes, double init[], BitSet known) throws PrismException
+	{
+		return computeReachProbsSOR(dtmc, no, yes, init, known, false, 1.0);
+	}
+
+	/**
+	 * Compute reachability probabilities using (forwards/backwards) SOR,
+	 * or Gauss-Seidel if {@code omega} is 1. States are updated in the order
+	 * given by {@link #computeStateOrder(Model, BitSet, BitSet, boolean)}.
+	 * @param dtmc The DTMC
+	 * @param no Probability 0 states
+	 * @param yes Probability 1 states
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * @param backwards Update states in decreasing index order (if using state index ordering)
+	 * @param omega Over-relaxation parameter
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.  
+	 */
+	protected ModelCheckerResult computeReachProbsSOR(DTMC dtmc, BitSet no, BitSet yes, double init[], BitSet known, boolean backwards, double omega)
+			throws PrismException
 	{
 		ModelCheckerResult res;
 		BitSet unknown;
 		int i, n, iters;
+		int order[];
 		double soln[], initVal, maxDiff;
 		boolean done;
 		long timer;
+		String methodName;
+
+		// Over-relaxation only converges for 0 < omega < 2
+		if (omega <= 0 || omega >= 2) {
+			throw new PrismException("Over-relaxation parameter must be strictly between 0 and 2");
+		}
+		methodName = (backwards ? "Backwards " : "") + (omega == 1.0 ? "Gauss-Seidel" : "SOR");
 
 		// Start value iteration
 		timer = System.currentTimeMillis();
-		mainLog.println("Starting Gauss-Seidel...");
+		mainLog.println("Starting " + methodName + (omega == 1.0 ? "" : " (omega=" + omega + ")") + "...");
 
 		// Store num states
 		n = dtmc.getNumStates();
@@ -990,20 +1030,23 @@ public class DTMCModelChecker extends ProbModelChecker
 		if (known != null)
 			unknown.andNot(known);
 
+		// Determine the order in which to update states
+		order = computeStateOrder(dtmc, yes, unknown, backwards);
+
 		// Start iterations
 		iters = 0;
 		done = false;
 		while (!done && iters < maxIters) {
 			iters++;
 			// Matrix-vector multiply
-			maxDiff = dtmc.mvMultGS(soln, unknown, false, termCrit == TermCrit.ABSOLUTE);
+			maxDiff = dtmc.mvMultSOR(soln, order, omega, termCrit == TermCrit.ABSOLUTE);
 			// Check termination
 			done = maxDiff < termCritParam;
 		}
 
-		// Finished Gauss-Seidel
+		// Finished Gauss-Seidel/SOR
 		timer = System.currentTimeMillis() - timer;
-		mainLog.print("Gauss-Seidel");
+		mainLog.print(methodName);
 		mainLog.println(" took " + iters + " iterations and " + timer / 1000.0 + " seconds.");
 
 		// Non-convergence is an error (usually)
@@ -1021,6 +1064,66 @@ public class DTMCModelChecker extends ProbModelChecker
 		return res;
 	}
 
+	/**
+	 * Compute reachability probabilities using topological value iteration,
+	 * i.e. solving one SCC at a time, in reverse topological order.
+	 * States in trivial SCCs are solved directly; other SCCs are solved
+	 * with Gauss-Seidel, until local convergence.
+	 * @param dtmc The DTMC
+	 * @param no Probability 0 states
+	 * @param yes Probability 1 states
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.  
+	 */
+	protected ModelCheckerResult computeReachProbsTopological(final DTMC dtmc, BitSet no, BitSet yes, double init[], BitSet known) throws PrismException
+	{
+		BitSet unknown;
+		int i, n;
+		double soln[], initVal;
+
+		// Store num states
+		n = dtmc.getNumStates();
+
+		// Create solution vector
+		soln = (init == null) ? new double[n] : init;
+
+		// Initialise solution vector. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 1.0/0.0 if in yes/no; (3) passed in initial value; (4) initVal
+		// where initVal is 0.0 or 1.0, depending on whether we converge from below/above. 
+		initVal = (valIterDir == ValIterDir.BELOW) ? 0.0 : 1.0;
+		if (init != null) {
+			if (known != null) {
+				for (i = 0; i < n; i++)
+					soln[i] = known.get(i) ? init[i] : yes.get(i) ? 1.0 : no.get(i) ? 0.0 : init[i];
+			} else {
+				for (i = 0; i < n; i++)
+					soln[i] = yes.get(i) ? 1.0 : no.get(i) ? 0.0 : init[i];
+			}
+		} else {
+			for (i = 0; i < n; i++)
+				soln[i] = yes.get(i) ? 1.0 : no.get(i) ? 0.0 : initVal;
+		}
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(yes);
+		unknown.andNot(no);
+		if (known != null)
+			unknown.andNot(known);
+
+		// Solve, one SCC at a time
+		return solveTopological(dtmc, unknown, soln, new TopologicalUpdate()
+		{
+			@Override
+			public double update(int s, double vect[])
+			{
+				return dtmc.mvMultJacSingle(s, vect);
+			}
+		}, null);
+	}
+
 	/**
 	 * Compute bounded reachability probabilities.
 	 * i.e. compute the probability of reaching a state in {@code target} within k steps.
@@ -1163,7 +1266,7 @@ public class DTMCModelChecker extends ProbModelChecker
 		LinEqMethod linEqMethod = this.linEqMethod;
 
 		// Switch to a supported method, if necessary
-		if (!(linEqMethod == LinEqMethod.POWER)) {
+		if (!(linEqMethod == LinEqMethod.POWER || linEqMethod == LinEqMethod.TOPOLOGICAL)) {
 			linEqMethod = LinEqMethod.POWER;
 			mainLog.printWarning("Switching to linear equation solution method \"" + linEqMethod.fullName() + "\"");
 		}
@@ -1203,6 +1306,9 @@ public class DTMCModelChecker extends ProbModelChecker
 		case POWER:
 			res = computeReachRewardsValIter(dtmc, mcRewards, target, inf, init, known);
 			break;
+		case TOPOLOGICAL:
+			res = computeReachRewardsTopological(dtmc, mcRewards, target, inf, init, known);
+			break;
 		default:
 			throw new PrismException("Unknown linear equation solution method " + linEqMethod.fullName());
 		}
@@ -1308,6 +1414,66 @@ public class DTMCModelChecker extends ProbModelChecker
 		return res;
 	}
 
+	/**
+	 * Compute expected reachability rewards using topological value iteration,
+	 * i.e. solving one SCC at a time, in reverse topological order.
+	 * States in trivial SCCs are solved directly; other SCCs are solved
+	 * with Gauss-Seidel, until local convergence.
+	 * @param dtmc The DTMC
+	 * @param mcRewards The rewards
+	 * @param target Target states
+	 * @param inf States for which reward is infinite
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.
+	 */
+	protected ModelCheckerResult computeReachRewardsTopological(final DTMC dtmc, final MCRewards mcRewards, BitSet target, BitSet inf, double init[], BitSet known)
+			throws PrismException
+	{
+		BitSet unknown;
+		int i, n;
+		double soln[];
+
+		// Store num states
+		n = dtmc.getNumStates();
+
+		// Create solution vector
+		soln = (init == null) ? new double[n] : init;
+
+		// Initialise solution vector. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 0.0/infinity if in target/inf; (3) passed in initial value; (4) 0.0
+		if (init != null) {
+			if (known != null) {
+				for (i = 0; i < n; i++)
+					soln[i] = known.get(i) ? init[i] : target.get(i) ? 0.0 : inf.get(i) ? Double.POSITIVE_INFINITY : init[i];
+			} else {
+				for (i = 0; i < n; i++)
+					soln[i] = target.get(i) ? 0.0 : inf.get(i) ? Double.POSITIVE_INFINITY : init[i];
+			}
+		} else {
+			for (i = 0; i < n; i++)
+				soln[i] = target.get(i) ? 0.0 : inf.get(i) ? Double.POSITIVE_INFINITY : 0.0;
+		}
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(target);
+		unknown.andNot(inf);
+		if (known != null)
+			unknown.andNot(known);
+
+		// Solve, one SCC at a time
+		return solveTopological(dtmc, unknown, soln, new TopologicalUpdate()
+		{
+			@Override
+			public double update(int s, double vect[])
+			{
+				return dtmc.mvMultRewJacSingle(s, vect, mcRewards);
+			}
+		}, null);
+	}
+
 	/**
 	 * Compute (forwards) steady-state probabilities
 	 * i.e. compute the long-run probability of being in each state,
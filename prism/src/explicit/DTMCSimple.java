@@ -304,9 +304,9 @@ public class DTMCSimple extends DTMCExplicit implements ModelSimple
 
 		distr = trans.get(s);
 		d = 0.0;
-		for (Map.Entry<Integer, Double> e : distr) {
-			k = (Integer) e.getKey();
-			prob = (Double) e.getValue();
+		for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+			k = distr.getStateAt(t);
+			prob = distr.getProbabilityAt(t);
 			d += prob * vect[k];
 		}
 
@@ -323,9 +323,9 @@ public class DTMCSimple extends DTMCExplicit implements ModelSimple
 		distr = trans.get(s);
 		diag = 1.0;
 		d = 0.0;
-		for (Map.Entry<Integer, Double> e : distr) {
-			k = (Integer) e.getKey();
-			prob = (Double) e.getValue();
+		for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+			k = distr.getStateAt(t);
+			prob = distr.getProbabilityAt(t);
 			if (k != s) {
 				d += prob * vect[k];
 			} else {
@@ -347,15 +347,40 @@ public class DTMCSimple extends DTMCExplicit implements ModelSimple
 
 		distr = trans.get(s);
 		d = mcRewards.getStateReward(s);
-		for (Map.Entry<Integer, Double> e : distr) {
-			k = (Integer) e.getKey();
-			prob = (Double) e.getValue();
+		for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+			k = distr.getStateAt(t);
+			prob = distr.getProbabilityAt(t);
 			d += prob * vect[k];
 		}
 
 		return d;
 	}
 
+	@Override
+	public double mvMultRewJacSingle(int s, double vect[], MCRewards mcRewards)
+	{
+		int k;
+		double diag, d, prob;
+		Distribution distr;
+
+		distr = trans.get(s);
+		diag = 1.0;
+		d = mcRewards.getStateReward(s);
+		for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+			k = distr.getStateAt(t);
+			prob = distr.getProbabilityAt(t);
+			if (k != s) {
+				d += prob * vect[k];
+			} else {
+				diag -= prob;
+			}
+		}
+		if (diag > 0)
+			d /= diag;
+
+		return d;
+	}
+
 	@Override
 	public void vmMult(double vect[], double result[])
 	{
@@ -370,9 +395,9 @@ public class DTMCSimple extends DTMCExplicit implements ModelSimple
 		// Go through matrix elements (by row)
 		for (i = 0; i < numStates; i++) {
 			distr = trans.get(i);
-			for (Map.Entry<Integer, Double> e : distr) {
-				j = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				j = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				result[j] += prob * vect[i];
 			}
 
@@ -0,0 +1,685 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import explicit.rewards.MCRewards;
+import prism.PrismException;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of a DTMC,
+ * stored in compressed sparse row (CSR) form using primitive arrays.
+ * This is much faster to access than e.g. DTMCSimple and should also be more compact.
+ * The catch is that you have to create the model all in one go and then can't modify it
+ * (the one exception being {@link #findDeadlocks(boolean)}, which can add self-loops to deadlock states).
+ * <p>
+ * The transitions for each state are stored in ascending order of column (destination) index,
+ * with no duplicates and no zero entries.
+ */
+public class DTMCSparse extends DTMCExplicit
+{
+	// Sparse matrix storing transition function
+	/** Probabilities for each transition (array of size numTransitions) */
+	protected double nonZeros[];
+	/** Column (destination) indices for each transition (array of size numTransitions) */
+	protected int cols[];
+	/** Indices into nonZeros/cols giving the start of the transitions for each state;
+	 * array is of size numStates+1 and last entry is always equal to numTransitions */
+	protected int rowStarts[];
+
+	// Other statistics
+	protected int numTransitions;
+
+	// Constructors
+
+	/**
+	 * Copy constructor (from DTMCSimple).
+	 * @param dtmc The DTMC to copy
+	 */
+	public DTMCSparse(DTMCSimple dtmc)
+	{
+		this(dtmc, null);
+	}
+
+	/**
+	 * Copy constructor (from DTMCSimple). Optionally, a state index permutation
+	 * can be provided, i.e. old state index i becomes index permut[i].
+	 * Note: if a permutation is given, the states list will not be permuted
+	 * and should be set separately afterwards if required.
+	 * @param dtmc The DTMC to copy
+	 * @param permut State space permutation (or null)
+	 */
+	public DTMCSparse(DTMCSimple dtmc, int permut[])
+	{
+		int i, j, k, s;
+		initialise(dtmc.getNumStates());
+		if (permut == null) {
+			copyFrom(dtmc);
+		} else {
+			copyFrom(dtmc, permut);
+		}
+		// Compute row sizes (permuted)
+		rowStarts = new int[numStates + 1];
+		for (i = 0; i < numStates; i++) {
+			rowStarts[(permut == null ? i : permut[i]) + 1] = dtmc.getNumTransitions(i);
+		}
+		for (i = 0; i < numStates; i++) {
+			rowStarts[i + 1] += rowStarts[i];
+		}
+		numTransitions = rowStarts[numStates];
+		// Copy transition function, then sort each row
+		nonZeros = new double[numTransitions];
+		cols = new int[numTransitions];
+		for (i = 0; i < numStates; i++) {
+			s = permut == null ? i : permut[i];
+			k = rowStarts[s];
+			for (Map.Entry<Integer, Double> e : dtmc.getTransitions(i)) {
+				j = e.getKey();
+				cols[k] = permut == null ? j : permut[j];
+				nonZeros[k] = e.getValue();
+				k++;
+			}
+			sortRow(cols, nonZeros, rowStarts[s], rowStarts[s + 1]);
+		}
+	}
+
+	/**
+	 * Construct a DTMC from existing compressed sparse row arrays, which are used directly (not copied).
+	 * The transitions of each state should be sorted by ascending column index, with no duplicates.
+	 * Initial states, deadlocks, etc. should be added separately afterwards.
+	 * @param numStates Number of states
+	 * @param rowStarts Indices into {@code cols}/{@code nonZeros} for each state (array of size numStates+1)
+	 * @param cols Column (destination) indices for each transition
+	 * @param nonZeros Probabilities for each transition
+	 */
+	public DTMCSparse(int numStates, int rowStarts[], int cols[], double nonZeros[])
+	{
+		initialise(numStates);
+		this.rowStarts = rowStarts;
+		this.cols = cols;
+		this.nonZeros = nonZeros;
+		numTransitions = rowStarts[numStates];
+	}
+
+	/**
+	 * Constructor for subclasses that store the sparse matrix themselves
+	 * (see {@link #getRowStart(int)}). Just initialises an empty model.
+	 * @param numStates Number of states
+	 */
+	protected DTMCSparse(int numStates)
+	{
+		// (not initialise(), which would allocate storage for the rows)
+		super.initialise(numStates);
+		numTransitions = 0;
+	}
+
+	// Mutators (other)
+
+	@Override
+	public void initialise(int numStates)
+	{
+		super.initialise(numStates);
+		numTransitions = 0;
+		rowStarts = new int[numStates + 1];
+		cols = new int[0];
+		nonZeros = new double[0];
+	}
+
+	@Override
+	public void buildFromPrismExplicit(String filename) throws PrismException
+	{
+		// Parse into a DTMCSimple (which handles unsorted files) and then copy
+		DTMCSimple dtmc = new DTMCSimple();
+		dtmc.buildFromPrismExplicit(filename);
+		DTMCSparse copy = new DTMCSparse(dtmc);
+		initialise(copy.numStates);
+		copyFrom(copy);
+		rowStarts = copy.rowStarts;
+		cols = copy.cols;
+		nonZeros = copy.nonZeros;
+		numTransitions = copy.numTransitions;
+	}
+
+	// Accessors (for sparse matrix storage)
+
+	/**
+	 * Get the index of the first transition of state {@code s};
+	 * the transitions of {@code s} are {@code getRowStart(s)}, ..., {@code getRowStart(s + 1) - 1}.
+	 * <p>
+	 * This, {@link #getColumn(int)} and {@link #getNonZero(int)} are the only way that
+	 * the sparse matrix is accessed (other than during construction and deadlock fixing),
+	 * so subclasses can store it elsewhere (see {@link DTMCSparseMapped}).
+	 */
+	public int getRowStart(int s)
+	{
+		return rowStarts[s];
+	}
+
+	/**
+	 * Get the column (destination state) index of (global) transition {@code k}.
+	 */
+	public int getColumn(int k)
+	{
+		return cols[k];
+	}
+
+	/**
+	 * Get the probability of (global) transition {@code k}.
+	 */
+	public double getNonZero(int k)
+	{
+		return nonZeros[k];
+	}
+
+	/**
+	 * Get the array of row starts (see {@link #getRowStart(int)}), e.g. for graph algorithms
+	 * that work directly on arrays. This is the model's own storage (or a copy, for subclasses
+	 * that store it elsewhere), so it must not be modified.
+	 */
+	public int[] getRowStartsArray()
+	{
+		return rowStarts;
+	}
+
+	/**
+	 * Get the array of columns (see {@link #getColumn(int)}),
+	 * in the same way as {@link #getRowStartsArray()}. It must not be modified.
+	 */
+	public int[] getColumnsArray()
+	{
+		return cols;
+	}
+
+	// Accessors (for Model)
+
+	@Override
+	public int getNumTransitions()
+	{
+		return numTransitions;
+	}
+
+	@Override
+	public Iterator<Integer> getSuccessorsIterator(final int s)
+	{
+		// No duplicates are stored, so can just iterate over the row
+		return new Iterator<Integer>()
+		{
+			int k = getRowStart(s);
+			final int end = getRowStart(s + 1);
+
+			@Override
+			public boolean hasNext()
+			{
+				return k < end;
+			}
+
+			@Override
+			public Integer next()
+			{
+				if (k >= end)
+					throw new NoSuchElementException();
+				return getColumn(k++);
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public boolean isSuccessor(int s1, int s2)
+	{
+		// Rows are sorted, so use binary search
+		int lo = getRowStart(s1), hi = getRowStart(s1 + 1) - 1, mid;
+		while (lo <= hi) {
+			mid = (lo + hi) >>> 1;
+			if (getColumn(mid) < s2)
+				lo = mid + 1;
+			else if (getColumn(mid) > s2)
+				hi = mid - 1;
+			else
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean allSuccessorsInSet(int s, BitSet set)
+	{
+		int k, h = getRowStart(s + 1);
+		for (k = getRowStart(s); k < h; k++) {
+			if (!set.get(getColumn(k)))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean someSuccessorsInSet(int s, BitSet set)
+	{
+		int k, h = getRowStart(s + 1);
+		for (k = getRowStart(s); k < h; k++) {
+			if (set.get(getColumn(k)))
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void findDeadlocks(boolean fix) throws PrismException
+	{
+		int i, numDeadlocks = 0;
+		for (i = 0; i < numStates; i++) {
+			if (rowStarts[i] == rowStarts[i + 1]) {
+				addDeadlockState(i);
+				numDeadlocks++;
+			}
+		}
+		// Fixing deadlocks (adding self-loops) requires the arrays to be rebuilt
+		if (fix && numDeadlocks > 0) {
+			int k, j, newRowStarts[], newCols[];
+			double newNonZeros[];
+			newRowStarts = new int[numStates + 1];
+			newCols = new int[numTransitions + numDeadlocks];
+			newNonZeros = new double[numTransitions + numDeadlocks];
+			j = 0;
+			for (i = 0; i < numStates; i++) {
+				newRowStarts[i] = j;
+				if (rowStarts[i] == rowStarts[i + 1]) {
+					newCols[j] = i;
+					newNonZeros[j] = 1.0;
+					j++;
+				} else {
+					for (k = rowStarts[i]; k < rowStarts[i + 1]; k++, j++) {
+						newCols[j] = cols[k];
+						newNonZeros[j] = nonZeros[k];
+					}
+				}
+			}
+			newRowStarts[numStates] = j;
+			rowStarts = newRowStarts;
+			cols = newCols;
+			nonZeros = newNonZeros;
+			numTransitions = j;
+			clearPredecessorRelation();
+		}
+	}
+
+	@Override
+	public void checkForDeadlocks(BitSet except) throws PrismException
+	{
+		for (int i = 0; i < numStates; i++) {
+			if (getRowStart(i) == getRowStart(i + 1) && (except == null || !except.get(i)))
+				throw new PrismException(getModelType() + " has a deadlock in state " + i);
+		}
+	}
+
+	// Accessors (for DTMC)
+
+	@Override
+	public int getNumTransitions(int s)
+	{
+		return getRowStart(s + 1) - getRowStart(s);
+	}
+
+	@Override
+	public Iterator<Entry<Integer, Double>> getTransitionsIterator(final int s)
+	{
+		return new Iterator<Entry<Integer, Double>>()
+		{
+			int k = getRowStart(s);
+			final int end = getRowStart(s + 1);
+
+			@Override
+			public boolean hasNext()
+			{
+				return k < end;
+			}
+
+			@Override
+			public Entry<Integer, Double> next()
+			{
+				if (k >= end)
+					throw new NoSuchElementException();
+				final int i = k++;
+				return new Entry<Integer, Double>()
+				{
+					int key = getColumn(i);
+					double value = getNonZero(i);
+
+					@Override
+					public Integer getKey()
+					{
+						return key;
+					}
+
+					@Override
+					public Double getValue()
+					{
+						return value;
+					}
+
+					@Override
+					public Double setValue(Double arg0)
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public void prob0step(BitSet subset, BitSet u, BitSet result)
+	{
+		for (int s = nextState(subset, false, 0); s >= 0; s = nextState(subset, false, s + 1)) {
+			result.set(s, someSuccessorsInSet(s, u));
+		}
+	}
+
+	@Override
+	public void prob1step(BitSet subset, BitSet u, BitSet v, BitSet result)
+	{
+		for (int s = nextState(subset, false, 0); s >= 0; s = nextState(subset, false, s + 1)) {
+			result.set(s, someSuccessorsInSet(s, v) && allSuccessorsInSet(s, u));
+		}
+	}
+
+	@Override
+	public void mvMult(double vect[], double result[], BitSet subset, boolean complement)
+	{
+		int s, k, h;
+		double d;
+		for (s = nextState(subset, complement, 0); s >= 0; s = nextState(subset, complement, s + 1)) {
+			d = 0.0;
+			h = getRowStart(s + 1);
+			for (k = getRowStart(s); k < h; k++) {
+				d += getNonZero(k) * vect[getColumn(k)];
+			}
+			result[s] = d;
+		}
+	}
+
+	@Override
+	public double mvMultSingle(int s, double vect[])
+	{
+		int k, h;
+		double d;
+		d = 0.0;
+		h = getRowStart(s + 1);
+		for (k = getRowStart(s); k < h; k++) {
+			d += getNonZero(k) * vect[getColumn(k)];
+		}
+		return d;
+	}
+
+	@Override
+	public double mvMultGS(double vect[], BitSet subset, boolean complement, boolean absolute)
+	{
+		int s;
+		double d, diff, maxDiff = 0.0;
+		for (s = nextState(subset, complement, 0); s >= 0; s = nextState(subset, complement, s + 1)) {
+			d = mvMultJacSingle(s, vect);
+			diff = absolute ? (Math.abs(d - vect[s])) : (Math.abs(d - vect[s]) / d);
+			maxDiff = diff > maxDiff ? diff : maxDiff;
+			vect[s] = d;
+		}
+		return maxDiff;
+	}
+
+	@Override
+	public double mvMultJacSingle(int s, double vect[])
+	{
+		int k, c, h;
+		double diag, d;
+		diag = 1.0;
+		d = 0.0;
+		h = getRowStart(s + 1);
+		for (k = getRowStart(s); k < h; k++) {
+			c = getColumn(k);
+			if (c != s) {
+				d += getNonZero(k) * vect[c];
+			} else {
+				diag -= getNonZero(k);
+			}
+		}
+		if (diag > 0)
+			d /= diag;
+		return d;
+	}
+
+	@Override
+	public void mvMultRew(double vect[], MCRewards mcRewards, double result[], BitSet subset, boolean complement)
+	{
+		int s, k, h;
+		double d;
+		for (s = nextState(subset, complement, 0); s >= 0; s = nextState(subset, complement, s + 1)) {
+			d = mcRewards.getStateReward(s);
+			h = getRowStart(s + 1);
+			for (k = getRowStart(s); k < h; k++) {
+				d += getNonZero(k) * vect[getColumn(k)];
+			}
+			result[s] = d;
+		}
+	}
+
+	@Override
+	public double mvMultRewSingle(int s, double vect[], MCRewards mcRewards)
+	{
+		int k, h;
+		double d;
+		d = mcRewards.getStateReward(s);
+		h = getRowStart(s + 1);
+		for (k = getRowStart(s); k < h; k++) {
+			d += getNonZero(k) * vect[getColumn(k)];
+		}
+		return d;
+	}
+
+	@Override
+	public double mvMultRewJacSingle(int s, double vect[], MCRewards mcRewards)
+	{
+		int k, c, h;
+		double diag, d;
+		diag = 1.0;
+		d = mcRewards.getStateReward(s);
+		h = getRowStart(s + 1);
+		for (k = getRowStart(s); k < h; k++) {
+			c = getColumn(k);
+			if (c != s) {
+				d += getNonZero(k) * vect[c];
+			} else {
+				diag -= getNonZero(k);
+			}
+		}
+		if (diag > 0)
+			d /= diag;
+		return d;
+	}
+
+	@Override
+	public void vmMult(double vect[], double result[])
+	{
+		int i, k, h;
+		double v;
+		// Initialise result to 0
+		for (i = 0; i < numStates; i++) {
+			result[i] = 0;
+		}
+		// Go through matrix elements (by row)
+		for (i = 0; i < numStates; i++) {
+			v = vect[i];
+			h = getRowStart(i + 1);
+			for (k = getRowStart(i); k < h; k++) {
+				result[getColumn(k)] += getNonZero(k) * v;
+			}
+		}
+	}
+
+	// Local utility methods
+
+	/**
+	 * Get the first state, from {@code s} onwards, in the set of states described by {@code subset}
+	 * and {@code complement} (as for {@link common.IterableStateSet}), or -1 if there is none.
+	 * Used to iterate over state sets without creating Integer objects.
+	 */
+	protected int nextState(BitSet subset, boolean complement, int s)
+	{
+		if (subset == null) {
+			if (complement)
+				return -1;
+		} else {
+			s = complement ? subset.nextClearBit(s) : subset.nextSetBit(s);
+		}
+		return s >= 0 && s < numStates ? s : -1;
+	}
+
+	/**
+	 * Sort the entries {@code from}...{@code to-1} of {@code cols} (and, correspondingly, {@code nonZeros})
+	 * into ascending order of column index. The sort is stable.
+	 */
+	protected static void sortRow(int cols[], double nonZeros[], int from, int to)
+	{
+		int i, j, c;
+		double d;
+		// Rows are usually short, so just use insertion sort, unless the row is long
+		if (to - from > 32) {
+			mergeSortRow(cols, nonZeros, from, to, new int[to - from], new double[to - from]);
+			return;
+		}
+		for (i = from + 1; i < to; i++) {
+			c = cols[i];
+			d = nonZeros[i];
+			for (j = i - 1; j >= from && cols[j] > c; j--) {
+				cols[j + 1] = cols[j];
+				nonZeros[j + 1] = nonZeros[j];
+			}
+			cols[j + 1] = c;
+			nonZeros[j + 1] = d;
+		}
+	}
+
+	/**
+	 * Merge sort for {@link #sortRow(int[], double[], int, int)}, using scratch arrays
+	 * {@code tmpCols}/{@code tmpNonZeros} (indexed relative to {@code from}).
+	 */
+	private static void mergeSortRow(int cols[], double nonZeros[], int from, int to, int tmpCols[], double tmpNonZeros[])
+	{
+		int i, j, k, mid;
+		if (to - from <= 32) {
+			sortRow(cols, nonZeros, from, to);
+			return;
+		}
+		mid = (from + to) >>> 1;
+		mergeSortRow(cols, nonZeros, from, mid, tmpCols, tmpNonZeros);
+		mergeSortRow(cols, nonZeros, mid, to, tmpCols, tmpNonZeros);
+		System.arraycopy(cols, from, tmpCols, 0, to - from);
+		System.arraycopy(nonZeros, from, tmpNonZeros, 0, to - from);
+		i = 0;
+		j = mid - from;
+		for (k = from; k < to; k++) {
+			if (j >= to - from || (i < mid - from && tmpCols[i] <= tmpCols[j])) {
+				cols[k] = tmpCols[i];
+				nonZeros[k] = tmpNonZeros[i++];
+			} else {
+				cols[k] = tmpCols[j];
+				nonZeros[k] = tmpNonZeros[j++];
+			}
+		}
+	}
+
+	// Standard methods
+
+	@Override
+	public String toString()
+	{
+		int i, k;
+		String s = "";
+		s = "trans: [ ";
+		for (i = 0; i < numStates; i++) {
+			if (i > 0)
+				s += ", ";
+			s += i + ": {";
+			for (k = getRowStart(i); k < getRowStart(i + 1); k++) {
+				if (k > getRowStart(i))
+					s += ", ";
+				s += getColumn(k) + "=" + getNonZero(k);
+			}
+			s += "}";
+		}
+		s += " ]";
+		return s;
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == null || !(o instanceof DTMCSparse))
+			return false;
+		if (!super.equals(o))
+			return false;
+		DTMCSparse dtmc = (DTMCSparse) o;
+		if (numTransitions != dtmc.numTransitions)
+			return false;
+		for (int s = 0; s <= numStates; s++) {
+			if (getRowStart(s) != dtmc.getRowStart(s))
+				return false;
+		}
+		for (int k = 0; k < numTransitions; k++) {
+			if (getColumn(k) != dtmc.getColumn(k) || getNonZero(k) != dtmc.getNonZero(k))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		// Consistent with equals (transition probabilities are not hashed)
+		int h = numStates;
+		for (int s = 0; s <= numStates; s++) {
+			h = 31 * h + getRowStart(s);
+		}
+		for (int k = 0; k < numTransitions; k++) {
+			h = 31 * h + getColumn(k);
+		}
+		return h;
+	}
+}
@@ -0,0 +1,125 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import prism.PrismException;
+import prism.PrismNotSupportedException;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of a DTMC,
+ * stored in compressed sparse row (CSR) form, as for {@link DTMCSparse},
+ * but with the arrays memory-mapped from a file (see {@link SparseModelFile})
+ * rather than held in the Java heap. Models larger than the heap can thus be analysed,
+ * and re-loading a previously built model is almost instant.
+ * <p>
+ * All model operations are inherited from {@link DTMCSparse};
+ * this class just provides the sparse matrix storage accessors.
+ */
+public class DTMCSparseMapped extends DTMCSparse
+{
+	// Sparse matrix storing transition function
+	/** Probabilities for each transition (array of size numTransitions) */
+	protected MappedDoubleArray mappedNonZeros;
+	/** Column (destination) indices for each transition (array of size numTransitions) */
+	protected MappedIntArray mappedCols;
+	/** Indices into nonZeros/cols giving the start of the transitions for each state;
+	 * array is of size numStates+1 and last entry is always equal to numTransitions */
+	protected MappedIntArray mappedRowStarts;
+
+	// Constructors
+
+	/**
+	 * Construct a DTMC from (mapped) compressed sparse row arrays.
+	 * The transitions of each state should be sorted by ascending column index, with no duplicates.
+	 * Initial states, deadlocks, etc. should be added separately afterwards.
+	 * @param numStates Number of states
+	 * @param rowStarts Indices into {@code cols}/{@code nonZeros} for each state (array of size numStates+1)
+	 * @param cols Column (destination) indices for each transition
+	 * @param nonZeros Probabilities for each transition
+	 */
+	public DTMCSparseMapped(int numStates, MappedIntArray rowStarts, MappedIntArray cols, MappedDoubleArray nonZeros)
+	{
+		super(numStates);
+		mappedRowStarts = rowStarts;
+		mappedCols = cols;
+		mappedNonZeros = nonZeros;
+		numTransitions = rowStarts.get(numStates);
+	}
+
+	// Mutators (other)
+
+	@Override
+	public void buildFromPrismExplicit(String filename) throws PrismException
+	{
+		throw new PrismNotSupportedException("Can't build a " + getClass().getSimpleName() + " from explicit files");
+	}
+
+	@Override
+	public void findDeadlocks(boolean fix) throws PrismException
+	{
+		for (int i = 0; i < numStates; i++) {
+			if (getRowStart(i) == getRowStart(i + 1)) {
+				addDeadlockState(i);
+				if (fix) {
+					throw new PrismException("Can't fix deadlocks in a " + getClass().getSimpleName() + " since it cannot be modified after construction");
+				}
+			}
+		}
+	}
+
+	// Accessors (for sparse matrix storage)
+
+	@Override
+	public int getRowStart(int s)
+	{
+		return mappedRowStarts.get(s);
+	}
+
+	@Override
+	public int getColumn(int k)
+	{
+		return mappedCols.get(k);
+	}
+
+	@Override
+	public double getNonZero(int k)
+	{
+		return mappedNonZeros.get(k);
+	}
+
+	@Override
+	public int[] getRowStartsArray()
+	{
+		return mappedRowStarts.toArray();
+	}
+
+	@Override
+	public int[] getColumnsArray()
+	{
+		return mappedCols.toArray();
+	}
+}
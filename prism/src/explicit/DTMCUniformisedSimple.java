@@ -29,7 +29,6 @@ package explicit;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
 
 import parser.State;
@@ -232,9 +231,9 @@ public class DTMCUniformisedSimple extends DTMCExplicit
 
 		distr = ctmc.getTransitions(s);
 		sum = d = 0.0;
-		for (Map.Entry<Integer, Double> e : distr) {
-			k = (Integer) e.getKey();
-			prob = (Double) e.getValue();
+		for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+			k = distr.getStateAt(t);
+			prob = distr.getProbabilityAt(t);
 			// Non-diagonal entries
 			if (k != s) {
 				sum += prob;
@@ -258,9 +257,9 @@ public class DTMCUniformisedSimple extends DTMCExplicit
 
 		distr = ctmc.getTransitions(s);
 		sum = d = 0.0;
-		for (Map.Entry<Integer, Double> e : distr) {
-			k = (Integer) e.getKey();
-			prob = (Double) e.getValue();
+		for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+			k = distr.getStateAt(t);
+			prob = distr.getProbabilityAt(t);
 			// Non-diagonal entries only
 			if (k != s) {
 				sum += prob;
@@ -279,6 +278,13 @@ public class DTMCUniformisedSimple extends DTMCExplicit
 		throw new Error("Not yet supported");
 	}
 
+	@Override
+	public double mvMultRewJacSingle(int s, double vect[], MCRewards mcRewards)
+	{
+		// TODO
+		throw new Error("Not yet supported");
+	}
+
 	@Override
 	public void vmMult(double vect[], double result[])
 	{
@@ -294,9 +300,9 @@ public class DTMCUniformisedSimple extends DTMCExplicit
 		for (i = 0; i < numStates; i++) {
 			distr = ctmc.getTransitions(i);
 			sum = 0.0;
-			for (Map.Entry<Integer, Double> e : distr) {
-				j = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				j = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				// Non-diagonal entries only
 				if (j != i) {
 					sum += prob;
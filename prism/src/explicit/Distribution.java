@@ -26,11 +26,14 @@
 
 package explicit;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import prism.PrismUtils;
@@ -38,10 +41,21 @@ import prism.PrismUtils;
 /**
  * Explicit representation of a probability distribution.
  * Basically, a mapping from (integer-valued) state indices to (non-zero, double-valued) probabilities. 
+ * <p>
+ * This is stored as a pair of arrays, of state indices (in increasing order) and their probabilities,
+ * i.e., without any per-entry objects. As well as the (boxed) {@link Map.Entry}-based iterator,
+ * entries can be accessed by position, for {@code 0 <= k < size()}, via {@link #getStateAt(int)}
+ * and {@link #getProbabilityAt(int)}; this should be used for performance-critical code.
  */
 public class Distribution implements Iterable<Entry<Integer, Double>>
 {
-	private HashMap<Integer, Double> map;
+	private static final int[] EMPTY_INDICES = new int[0];
+	private static final double[] EMPTY_PROBS = new double[0];
+
+	// State indices (sorted) and probabilities, in positions 0...size-1
+	private int indices[];
+	private double probs[];
+	private int size;
 
 	/**
 	 * Create an empty distribution.
@@ -56,12 +70,9 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Distribution(Distribution distr)
 	{
-		this();
-		Iterator<Entry<Integer, Double>> i = distr.iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			add(e.getKey(), e.getValue());
-		}
+		size = distr.size;
+		indices = Arrays.copyOf(distr.indices, size);
+		probs = Arrays.copyOf(distr.probs, size);
 	}
 
 	/**
@@ -73,10 +84,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public Distribution(Distribution distr, int permut[])
 	{
 		this();
-		Iterator<Entry<Integer, Double>> i = distr.iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			add(permut[e.getKey()], e.getValue());
+		for (int k = 0; k < distr.size; k++) {
+			add(permut[distr.indices[k]], distr.probs[k]);
 		}
 	}
 
@@ -85,7 +94,9 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public void clear()
 	{
-		map = new HashMap<Integer, Double>();
+		indices = EMPTY_INDICES;
+		probs = EMPTY_PROBS;
+		size = 0;
 	}
 
 	/**
@@ -95,12 +106,12 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean add(int j, double prob)
 	{
-		Double d = (Double) map.get(j);
-		if (d == null) {
-			map.put(j, prob);
+		int pos = find(j);
+		if (pos < 0) {
+			insert(-pos - 1, j, prob);
 			return false;
 		} else {
-			set(j, d + prob);
+			set(j, probs[pos] + prob);
 			return true;
 		}
 	}
@@ -110,10 +121,15 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public void set(int j, double prob)
 	{
-		if (prob == 0.0)
-			map.remove(j);
-		else
-			map.put(j, prob);
+		int pos = find(j);
+		if (prob == 0.0) {
+			if (pos >= 0)
+				remove(pos);
+		} else if (pos >= 0) {
+			probs[pos] = prob;
+		} else {
+			insert(-pos - 1, j, prob);
+		}
 	}
 
 	/**
@@ -121,9 +137,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public double get(int j)
 	{
-		Double d;
-		d = (Double) map.get(j);
-		return d == null ? 0.0 : d.doubleValue();
+		int pos = find(j);
+		return pos < 0 ? 0.0 : probs[pos];
 	}
 
 	/**
@@ -131,7 +146,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean contains(int j)
 	{
-		return map.get(j) != null;
+		return find(j) >= 0;
 	}
 
 	/**
@@ -139,10 +154,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean isSubsetOf(BitSet set)
 	{
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			if (!set.get((Integer) e.getKey()))
+		for (int k = 0; k < size; k++) {
+			if (!set.get(indices[k]))
 				return false;
 		}
 		return true;
@@ -153,10 +166,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean containsOneOf(BitSet set)
 	{
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			if (set.get((Integer) e.getKey()))
+		for (int k = 0; k < size; k++) {
+			if (set.get(indices[k]))
 				return true;
 		}
 		return false;
@@ -167,7 +178,49 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Set<Integer> getSupport()
 	{
-		return map.keySet();
+		return new AbstractSet<Integer>()
+		{
+			@Override
+			public Iterator<Integer> iterator()
+			{
+				return new Iterator<Integer>()
+				{
+					private int k = 0;
+
+					@Override
+					public boolean hasNext()
+					{
+						return k < size;
+					}
+
+					@Override
+					public Integer next()
+					{
+						if (k >= size)
+							throw new NoSuchElementException();
+						return indices[k++];
+					}
+
+					@Override
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size()
+			{
+				return size;
+			}
+
+			@Override
+			public boolean contains(Object o)
+			{
+				return o instanceof Integer && Distribution.this.contains((Integer) o);
+			}
+		};
 	}
 
 	/**
@@ -175,7 +228,49 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Iterator<Entry<Integer, Double>> iterator()
 	{
-		return map.entrySet().iterator();
+		return new Iterator<Entry<Integer, Double>>()
+		{
+			private int k = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return k < size;
+			}
+
+			@Override
+			public Entry<Integer, Double> next()
+			{
+				if (k >= size)
+					throw new NoSuchElementException();
+				Entry<Integer, Double> e = new AbstractMap.SimpleImmutableEntry<Integer, Double>(indices[k], probs[k]);
+				k++;
+				return e;
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Get the state index of the {@code k}th entry of the distribution
+	 * (entries are in increasing order of state index), for {@code 0 <= k < size()}.
+	 */
+	public int getStateAt(int k)
+	{
+		return indices[k];
+	}
+
+	/**
+	 * Get the probability of the {@code k}th entry of the distribution, for {@code 0 <= k < size()}.
+	 */
+	public double getProbabilityAt(int k)
+	{
+		return probs[k];
 	}
 
 	/**
@@ -183,7 +278,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean isEmpty()
 	{
-		return map.isEmpty();
+		return size == 0;
 	}
 
 	/**
@@ -191,7 +286,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public int size()
 	{
-		return map.size();
+		return size;
 	}
 
 	/**
@@ -200,10 +295,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public double sum()
 	{
 		double d = 0.0;
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			d += e.getValue();
+		for (int k = 0; k < size; k++) {
+			d += probs[k];
 		}
 		return d;
 	}
@@ -214,11 +307,9 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public double sumAllBut(int j)
 	{
 		double d = 0.0;
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			if (e.getKey() != j)
-				d += e.getValue();
+		for (int k = 0; k < size; k++) {
+			if (indices[k] != j)
+				d += probs[k];
 		}
 		return d;
 	}
@@ -230,27 +321,77 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public Distribution map(int map[])
 	{
 		Distribution distrNew = new Distribution();
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			distrNew.add(map[e.getKey()], e.getValue());
+		for (int k = 0; k < size; k++) {
+			distrNew.add(map[indices[k]], probs[k]);
 		}
 		return distrNew;
 	}
 
+	/**
+	 * Free any unused storage (e.g. once the distribution has been fully constructed).
+	 */
+	public void trimToSize()
+	{
+		if (indices.length > size) {
+			indices = size == 0 ? EMPTY_INDICES : Arrays.copyOf(indices, size);
+			probs = size == 0 ? EMPTY_PROBS : Arrays.copyOf(probs, size);
+		}
+	}
+
+	// Local utility methods
+
+	/**
+	 * Find the position of state j, or (-(insertion point) - 1) if it is not present
+	 * (as for {@link Arrays#binarySearch(int[], int, int, int)}).
+	 */
+	private int find(int j)
+	{
+		// Fast path for the common case of states added in increasing order
+		if (size == 0 || indices[size - 1] < j)
+			return -size - 1;
+		return Arrays.binarySearch(indices, 0, size, j);
+	}
+
+	/**
+	 * Insert a new entry at position {@code pos}.
+	 */
+	private void insert(int pos, int j, double prob)
+	{
+		if (size == indices.length) {
+			int newCapacity = size < 2 ? 2 : size + (size >> 1);
+			indices = Arrays.copyOf(indices, newCapacity);
+			probs = Arrays.copyOf(probs, newCapacity);
+		}
+		if (pos < size) {
+			System.arraycopy(indices, pos, indices, pos + 1, size - pos);
+			System.arraycopy(probs, pos, probs, pos + 1, size - pos);
+		}
+		indices[pos] = j;
+		probs[pos] = prob;
+		size++;
+	}
+
+	/**
+	 * Remove the entry at position {@code pos}.
+	 */
+	private void remove(int pos)
+	{
+		size--;
+		if (pos < size) {
+			System.arraycopy(indices, pos + 1, indices, pos, size - pos);
+			System.arraycopy(probs, pos + 1, probs, pos, size - pos);
+		}
+	}
+
 	@Override
 	public boolean equals(Object o)
 	{
-		Double d1, d2;
 		Distribution d = (Distribution) o;
 		if (d.size() != size())
 			return false;
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			d1 = e.getValue();
-			d2 = d.map.get(e.getKey());
-			if (d2 == null || !PrismUtils.doublesAreClose(d1, d2, 1e-12, false))
+		// Both are sorted by state index
+		for (int k = 0; k < size; k++) {
+			if (indices[k] != d.indices[k] || !PrismUtils.doublesAreClose(probs[k], d.probs[k], 1e-12, false))
 				return false;
 		}
 		return true;
@@ -260,12 +401,18 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public int hashCode()
 	{
 		// Simple hash code
-		return map.size();
+		return size;
 	}
 
 	@Override
 	public String toString()
 	{
-		return map.toString();
+		StringBuilder sb = new StringBuilder("{");
+		for (int k = 0; k < size; k++) {
+			if (k > 0)
+				sb.append(", ");
+			sb.append(indices[k]).append("=").append(probs[k]);
+		}
+		return sb.append("}").toString();
 	}
 }
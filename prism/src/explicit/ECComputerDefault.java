@@ -27,13 +27,13 @@
 
 package explicit;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import prism.PrismComponent;
 import prism.PrismException;
@@ -42,6 +42,8 @@ import prism.PrismException;
  * Explicit maximal end component computer for a nondeterministic model such as an MDP.
  * Implements the algorithm from p.48 of:
  * Luca de Alfaro. Formal Verification of Probabilistic Systems. Ph.D. thesis, Stanford University (1997)
+ * <br>
+ * This works directly on the model (i.e., without building submodels), using a mask of enabled choices.
  */
 public class ECComputerDefault extends ECComputer
 {
@@ -87,132 +89,265 @@ public class ECComputerDefault extends ECComputer
 	}
 
 	// Computation
-	
+
 	/**
 	 * Find all accepting maximal end components (MECs) in the submodel obtained
 	 * by restricting this one to the set of states {@code restrict},
 	 * where acceptance is defined as those which intersect with {@code accept}.
 	 * If {@code restrict} is null, we look at the whole model, not a submodel.
 	 * If {@code accept} is null, the acceptance condition is trivially satisfied.
+	 * <p>
+	 * This is done in place, on the original model: a mask of enabled choices is maintained
+	 * and candidate sets of states (initially {@code restrict}, then SCCs) are refined
+	 * using a worklist. For each candidate, choices that can leave it are disabled; if none are,
+	 * it is a MEC, otherwise SCCs are recomputed (over the enabled choices) and the non-trivial
+	 * ones become new candidates. Candidates not intersecting {@code accept} are dropped early.
 	 * @param restrict BitSet for the set of states to restrict to
 	 * @param accept BitSet for the set of accepting states
 	 * @return a list of BitSets representing the MECs
 	 */
 	private List<BitSet> findEndComponents(BitSet restrict, BitSet accept) throws PrismException
 	{
-		// If restrict is null, look within set of all reachable states
-		if (restrict == null) {
-			restrict = new BitSet();
-			restrict.set(0, model.getNumStates());
-		}
-		// Initialise L with set of all states to look in (if non-empty)
+		int n = model.getNumStates();
 		List<BitSet> L = new ArrayList<BitSet>();
-		if (restrict.isEmpty())
+
+		// Initial candidate: all states in restrict (or all states, if restrict is null)
+		int numInitial = restrict == null ? n : restrict.cardinality();
+		if (numInitial == 0)
 			return L;
-		L.add(restrict);
-		// Find MECs
-		boolean changed = true;
-		while (changed) {
-			changed = false;
-			BitSet E = L.remove(0);
-			SubNondetModel submodel = restrict(model, E);
-			List<BitSet> sccs = translateStates(submodel, computeSCCs(submodel));
-			L = replaceEWithSCCs(L, E, sccs);
-			changed = canLBeChanged(L, E);
+		int initial[] = new int[numInitial];
+		numInitial = 0;
+		for (int s = restrict == null ? 0 : restrict.nextSetBit(0); s >= 0 && s < n; s = restrict == null ? s + 1 : restrict.nextSetBit(s + 1)) {
+			initial[numInitial++] = s;
 		}
-		// Filter and return those that contain a state in accept
-		if (accept != null) {
-			int i = 0;
-			while (i < L.size()) {
-				if (!L.get(i).intersects(accept)) {
-					L.remove(i);
-				} else {
-					i++;
+		buildChoices(restrict);
+		comp = new int[n];
+		Arrays.fill(comp, -1);
+		index = new int[n];
+		lowlink = new int[n];
+		enabled = new BitSet(choiceStarts[n]);
+		for (int s : initial) {
+			comp[s] = 0;
+			enabled.set(choiceStarts[s], choiceStarts[s + 1]);
+		}
+		nextComp = 1;
+
+		// Process candidates until none are left
+		Deque<int[]> worklist = new ArrayDeque<int[]>();
+		if (accept == null || intersects(initial, accept))
+			worklist.push(initial);
+		boolean first = true;
+		while (!worklist.isEmpty()) {
+			int states[] = worklist.pop();
+			boolean changed = disableLeavingChoices(states);
+			if (!changed && !first) {
+				// Strongly connected and closed: a MEC
+				BitSet mec = new BitSet();
+				for (int s : states) {
+					mec.set(s);
 				}
+				L.add(mec);
+				continue;
+			}
+			first = false;
+			for (int scc[] : computeSCCs(states)) {
+				if (accept == null || intersects(scc, accept))
+					worklist.push(scc);
+				else
+					for (int s : scc)
+						comp[s] = -1;
 			}
 		}
+		comp = index = lowlink = null;
+		enabled = null;
 		return L;
 	}
 
-	private Set<BitSet> processedSCCs = new HashSet<BitSet>();
+	/** Choices of state s are (global) choice indices choiceStarts[s]...choiceStarts[s+1]-1 */
+	private int choiceStarts[];
+	/** Successors of (global) choice i are succs[transStarts[i]...transStarts[i+1]-1] */
+	private int transStarts[];
+	private int succs[];
+	/** Currently enabled choices, by global index */
+	private BitSet enabled;
+	/** Candidate set (index) that each state belongs to (-1 if none) */
+	private int comp[];
+	private int nextComp;
+	/** Work arrays for Tarjan's algorithm */
+	private int index[];
+	private int lowlink[];
 
-	private boolean canLBeChanged(List<BitSet> L, BitSet E)
+	/**
+	 * Set up {@code choiceStarts}/{@code transStarts}/{@code succs}, reusing the model's own storage
+	 * for an {@link MDPSparse} (where possible); otherwise, transitions are only stored for states in {@code restrict}.
+	 */
+	private void buildChoices(BitSet restrict)
 	{
-		processedSCCs.add(E);
-		for (int i = 0; i < L.size(); i++) {
-			if (!processedSCCs.contains(L.get(i))) {
-				return true;
+		int n = model.getNumStates();
+		if (model instanceof MDPSparse) {
+			MDPSparse mdp = (MDPSparse) model;
+			choiceStarts = mdp.getRowStartsArray();
+			transStarts = mdp.getChoiceStartsArray();
+			succs = mdp.getColumnsArray();
+			return;
+		}
+		choiceStarts = new int[n + 1];
+		for (int s = 0; s < n; s++) {
+			choiceStarts[s + 1] = choiceStarts[s] + model.getNumChoices(s);
+		}
+		transStarts = new int[choiceStarts[n] + 1];
+		succs = new int[16];
+		int k = 0;
+		for (int s = 0; s < n; s++) {
+			boolean include = restrict == null || restrict.get(s);
+			for (int i = choiceStarts[s]; i < choiceStarts[s + 1]; i++) {
+				transStarts[i] = k;
+				if (include) {
+					Iterator<Integer> it = model.getSuccessorsIterator(s, i - choiceStarts[s]);
+					while (it.hasNext()) {
+						if (k == succs.length)
+							succs = Arrays.copyOf(succs, 2 * k);
+						succs[k++] = it.next();
+					}
+				}
 			}
 		}
-		return false;
+		transStarts[choiceStarts[n]] = k;
 	}
 
-	private List<BitSet> replaceEWithSCCs(List<BitSet> L, BitSet E, List<BitSet> sccs)
+	/**
+	 * Disable all enabled choices of the states in a candidate set that can leave it.
+	 * Returns true if any choice was disabled.
+	 */
+	private boolean disableLeavingChoices(int states[])
 	{
-		if (sccs.size() > 0) {
-			List<BitSet> toAdd = new ArrayList<BitSet>();
-			for (int i = 0; i < sccs.size(); i++) {
-				if (!L.contains(sccs.get(i))) {
-					toAdd.add(sccs.get(i));
+		boolean changed = false;
+		for (int s : states) {
+			int c = comp[s];
+			for (int i = enabled.nextSetBit(choiceStarts[s]); i >= 0 && i < choiceStarts[s + 1]; i = enabled.nextSetBit(i + 1)) {
+				for (int k = transStarts[i]; k < transStarts[i + 1]; k++) {
+					if (comp[succs[k]] != c) {
+						enabled.clear(i);
+						changed = true;
+						break;
+					}
 				}
 			}
-			if (toAdd.size() > 0) {
-				L.addAll(toAdd);
-			}
 		}
-		return L;
+		return changed;
 	}
 
-	private SubNondetModel restrict(NondetModel model, BitSet states)
+	/**
+	 * Compute the SCCs of the graph of enabled choices restricted to a candidate set,
+	 * using (an iterative version of) Tarjan's algorithm. Each non-trivial SCC is given
+	 * a new candidate index and returned; states in trivial SCCs are removed from all candidates.
+	 */
+	private List<int[]> computeSCCs(int states[])
 	{
-		Map<Integer, BitSet> actions = new HashMap<Integer, BitSet>();
-		BitSet initialStates = new BitSet();
-		initialStates.set(states.nextSetBit(0));
-
-		boolean changed = true;
-		while (changed) {
-			changed = false;
-			actions.clear();
-			for (int i = 0; i < model.getNumStates(); i++) {
-				BitSet act = new BitSet();
-				if (states.get(i)) {
-					for (int j = 0; j < model.getNumChoices(i); j++) {
-						if (model.allSuccessorsInSet(i, j, states)) {
-							act.set(j);
+		List<int[]> sccs = new ArrayList<int[]>();
+		int num = states.length;
+		int c = comp[states[0]];
+		int stack[] = new int[num];
+		int callNode[] = new int[num];
+		int callChoice[] = new int[num];
+		int callPos[] = new int[num];
+		int sp = 0, cp = 0, nextIndex = 0;
+		for (int s : states) {
+			index[s] = -1;
+		}
+		for (int root : states) {
+			if (index[root] != -1)
+				continue;
+			index[root] = lowlink[root] = nextIndex++;
+			stack[sp++] = root;
+			callNode[cp] = root;
+			callChoice[cp] = choiceStarts[root];
+			callPos[cp++] = transStarts[choiceStarts[root]];
+			while (cp > 0) {
+				int v = callNode[cp - 1];
+				int i = callChoice[cp - 1];
+				int pos = callPos[cp - 1];
+				// Find next successor (via an enabled choice) within the candidate set
+				int w = -1;
+				while (i < choiceStarts[v + 1]) {
+					if (enabled.get(i) && pos < transStarts[i + 1]) {
+						int t = succs[pos++];
+						if (comp[t] == c) {
+							w = t;
+							break;
 						}
+					} else {
+						i++;
+						pos = i < choiceStarts[v + 1] ? transStarts[i] : pos;
 					}
-					if (act.isEmpty()) {
-						states.clear(i);
-						changed = true;
+				}
+				callChoice[cp - 1] = i;
+				callPos[cp - 1] = pos;
+				if (w != -1) {
+					if (index[w] == -1) {
+						index[w] = lowlink[w] = nextIndex++;
+						stack[sp++] = w;
+						callNode[cp] = w;
+						callChoice[cp] = choiceStarts[w];
+						callPos[cp++] = transStarts[choiceStarts[w]];
+					} else if (comp[w] == c && index[w] < lowlink[v]) {
+						// w is still on the stack
+						lowlink[v] = index[w];
+					}
+				} else {
+					cp--;
+					if (lowlink[v] == index[v]) {
+						int top = sp;
+						do {
+							sp--;
+						} while (stack[sp] != v);
+						int size = top - sp;
+						if (size > 1 || hasSelfLoop(v)) {
+							int scc[] = Arrays.copyOfRange(stack, sp, top);
+							int newComp = nextComp++;
+							for (int t : scc) {
+								comp[t] = newComp;
+							}
+							sccs.add(scc);
+						} else {
+							comp[v] = -1;
+						}
+					}
+					if (cp > 0) {
+						int u = callNode[cp - 1];
+						if (lowlink[v] < lowlink[u])
+							lowlink[u] = lowlink[v];
 					}
-					actions.put(i, act);
 				}
 			}
 		}
-
-		return new SubNondetModel(model, states, actions, initialStates);
+		return sccs;
 	}
 
-	private List<BitSet> computeSCCs(NondetModel model) throws PrismException
+	/**
+	 * Check whether state {@code s} has an enabled choice with itself as a successor.
+	 */
+	private boolean hasSelfLoop(int s)
 	{
-		SCCComputer sccc = SCCComputer.createSCCComputer(this, model);
-		sccc.computeSCCs();
-		return sccc.getSCCs();
+		for (int i = enabled.nextSetBit(choiceStarts[s]); i >= 0 && i < choiceStarts[s + 1]; i = enabled.nextSetBit(i + 1)) {
+			for (int k = transStarts[i]; k < transStarts[i + 1]; k++) {
+				if (succs[k] == s)
+					return true;
+			}
+		}
+		return false;
 	}
 
-	private List<BitSet> translateStates(SubNondetModel model, List<BitSet> sccs)
+	/**
+	 * Check whether any of the states in an array is in a set.
+	 */
+	private static boolean intersects(int states[], BitSet set)
 	{
-		List<BitSet> r = new ArrayList<BitSet>();
-		for (int i = 0; i < sccs.size(); i++) {
-			BitSet set = sccs.get(i);
-			BitSet set2 = new BitSet();
-			r.add(set2);
-			for (int j = set.nextSetBit(0); j >= 0; j = set.nextSetBit(j + 1)) {
-				set2.set(model.translateState(j));
-
-			}
+		for (int s : states) {
+			if (set.get(s))
+				return true;
 		}
-		return r;
+		return false;
 	}
 
 	private boolean isMEC(BitSet b)
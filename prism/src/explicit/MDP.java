@@ -161,6 +161,19 @@ public interface MDP extends NondetModel
 	 */
 	public double mvMultGSMinMax(double vect[], boolean min, BitSet subset, boolean complement, boolean absolute, int strat[]);
 
+	/**
+	 * Do a Gauss-Seidel-style matrix-vector multiplication followed by min/max,
+	 * as for {@link #mvMultGSMinMax(double[], boolean, BitSet, boolean, boolean, int[])},
+	 * but updating the states listed in {@code order}, in that order.
+	 * @param vect Vector to multiply by (and store the result in)
+	 * @param min Min or max for (true=min, false=max)
+	 * @param order The rows to do multiplication for, in order
+	 * @param absolute If true, compute absolute, rather than relative, difference
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * @return The maximum difference between old/new elements of {@code vect}
+	 */
+	public double mvMultGSMinMax(double vect[], boolean min, int order[], boolean absolute, int strat[]);
+
 	/**
 	 * Do a single row of Jacobi-style matrix-vector multiplication followed by min/max.
 	 * i.e. return min/max_k { (sum_{j!=s} P_k(s,j)*vect[j]) / 1-P_k(s,s) }
@@ -262,6 +262,21 @@ public abstract class MDPExplicit extends ModelExplicit implements MDP
 		return maxDiff;
 	}
 
+	@Override
+	public double mvMultGSMinMax(double vect[], boolean min, int order[], boolean absolute, int strat[])
+	{
+		int s;
+		double d, diff, maxDiff = 0.0;
+		for (int i = 0; i < order.length; i++) {
+			s = order[i];
+			d = mvMultJacMinMaxSingle(s, vect, min, strat);
+			diff = absolute ? (Math.abs(d - vect[s])) : (Math.abs(d - vect[s]) / d);
+			maxDiff = diff > maxDiff ? diff : maxDiff;
+			vect[s] = d;
+		}
+		return maxDiff;
+	}
+
 	@Override
 	public void mvMultRewMinMax(double vect[], MDPRewards mdpRewards, boolean min, double result[], BitSet subset, boolean complement, int strat[])
 	{
@@ -293,6 +293,21 @@ public class MDPModelChecker extends ProbModelChecker
 		return computeReachProbs(mdp, remain, target, min, null, null);
 	}
 
+	/**
+	 * Compute until probabilities.
+	 * i.e. compute the min/max probability of reaching a state in {@code target},
+	 * while remaining in those in @{code remain}.
+	 * @param mdp The MDP
+	 * @param remain Remain in these states (optional: null means "all")
+	 * @param target Target states
+	 * @param min Min or max probabilities (true=min, false=max)
+	 * @param statesOfInterest States for which (accurate) values are required (optional: null means "all")
+	 */
+	public ModelCheckerResult computeUntilProbs(MDP mdp, BitSet remain, BitSet target, boolean min, BitSet statesOfInterest) throws PrismException
+	{
+		return computeReachProbs(mdp, remain, target, min, null, null, statesOfInterest);
+	}
+
 	/**
 	 * Compute reachability/until probabilities.
 	 * i.e. compute the min/max probability of reaching a state in {@code target},
@@ -307,6 +322,27 @@ public class MDPModelChecker extends ProbModelChecker
 	 * Also, 'known' values cannot be passed for some solution methods, e.g. policy iteration.  
 	 */
 	public ModelCheckerResult computeReachProbs(MDP mdp, BitSet remain, BitSet target, boolean min, double init[], BitSet known) throws PrismException
+	{
+		return computeReachProbs(mdp, remain, target, min, init, known, null);
+	}
+
+	/**
+	 * Compute reachability/until probabilities.
+	 * i.e. compute the min/max probability of reaching a state in {@code target},
+	 * while remaining in those in @{code remain}.
+	 * @param mdp The MDP
+	 * @param remain Remain in these states (optional: null means "all")
+	 * @param target Target states
+	 * @param min Min or max probabilities (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (may be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * @param statesOfInterest States for which (accurate) values are required (optional: null means "all")
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values).
+	 * Also, 'known' values cannot be passed for some solution methods, e.g. policy iteration.  
+	 * Currently, {@code statesOfInterest} is only used for the convergence check of interval iteration.
+	 */
+	public ModelCheckerResult computeReachProbs(MDP mdp, BitSet remain, BitSet target, boolean min, double init[], BitSet known, BitSet statesOfInterest)
+			throws PrismException
 	{
 		ModelCheckerResult res = null;
 		BitSet targetOrig, no, yes;
@@ -334,6 +370,10 @@ public class MDPModelChecker extends ProbModelChecker
 				throw new PrismException("Policy iteration methods cannot be passed 'known' values for some states");
 			}
 		}
+		if (intervalIter) {
+			if (!(precomp && prob0))
+				throw new PrismException("Precomputation (Prob0) must be enabled for interval iteration");
+		}
 
 		// Start probabilistic reachability
 		timer = System.currentTimeMillis();
@@ -413,7 +453,9 @@ public class MDPModelChecker extends ProbModelChecker
 		}
 
 		// Compute probabilities (if needed)
-		if (numYes + numNo < n) {
+		if (numYes + numNo < n && intervalIter) {
+			res = computeReachProbsIntervalIter(mdp, no, yes, min, init, known, strat, statesOfInterest);
+		} else if (numYes + numNo < n) {
 			switch (mdpSolnMethod) {
 			case VALUE_ITERATION:
 				res = computeReachProbsValIter(mdp, no, yes, min, init, known, strat);
@@ -421,6 +463,9 @@ public class MDPModelChecker extends ProbModelChecker
 			case GAUSS_SEIDEL:
 				res = computeReachProbsGaussSeidel(mdp, no, yes, min, init, known, strat);
 				break;
+			case TOPOLOGICAL:
+				res = computeReachProbsTopological(mdp, no, yes, min, init, known, strat);
+				break;
 			case POLICY_ITERATION:
 				res = computeReachProbsPolIter(mdp, no, yes, min, strat);
 				break;
@@ -673,10 +718,11 @@ public class MDPModelChecker extends ProbModelChecker
 		double soln[], soln2[], tmpsoln[], initVal;
 		boolean done;
 		long timer;
+		ParallelValIter parallel = null;
 
 		// Start value iteration
 		timer = System.currentTimeMillis();
-		mainLog.println("Starting value iteration (" + (min ? "min" : "max") + ")...");
+		mainLog.println("Starting value iteration (" + (min ? "min" : "max") + ")" + (numThreads > 1 ? " using " + numThreads + " threads" : "") + "...");
 
 		// Store num states
 		n = mdp.getNumStates();
@@ -710,19 +756,35 @@ public class MDPModelChecker extends ProbModelChecker
 		if (known != null)
 			unknown.andNot(known);
 
+		// If required, set up parallel (Jacobi) value iteration
+		if (numThreads > 1) {
+			parallel = new ParallelValIter(mdp, unknown, numThreads);
+		}
+
 		// Start iterations
 		iters = 0;
 		done = false;
-		while (!done && iters < maxIters) {
-			iters++;
-			// Matrix-vector multiply and min/max ops
-			mdp.mvMultMinMax(soln, min, soln2, unknown, false, strat);
-			// Check termination
-			done = PrismUtils.doublesAreClose(soln, soln2, termCritParam, termCrit == TermCrit.ABSOLUTE);
-			// Swap vectors for next iter
-			tmpsoln = soln;
-			soln = soln2;
-			soln2 = tmpsoln;
+		try {
+			while (!done && iters < maxIters) {
+				iters++;
+				if (parallel != null) {
+					// Matrix-vector multiply and min/max ops, plus termination check (in parallel)
+					done = parallel.mvMultMinMax(soln, min, soln2, strat, termCritParam, termCrit == TermCrit.ABSOLUTE);
+				} else {
+					// Matrix-vector multiply and min/max ops
+					mdp.mvMultMinMax(soln, min, soln2, unknown, false, strat);
+					// Check termination
+					done = PrismUtils.doublesAreClose(soln, soln2, termCritParam, termCrit == TermCrit.ABSOLUTE);
+				}
+				// Swap vectors for next iter
+				tmpsoln = soln;
+				soln = soln2;
+				soln2 = tmpsoln;
+			}
+		} finally {
+			if (parallel != null) {
+				parallel.close();
+			}
 		}
 
 		// Finished value iteration
@@ -747,6 +809,7 @@ public class MDPModelChecker extends ProbModelChecker
 
 	/**
 	 * Compute reachability probabilities using Gauss-Seidel (including Jacobi-style updates).
+	 * States are updated in the order given by {@link #computeStateOrder(Model, BitSet, BitSet, boolean)}.
 	 * @param mdp The MDP
 	 * @param no Probability 0 states
 	 * @param yes Probability 1 states
@@ -762,6 +825,7 @@ public class MDPModelChecker extends ProbModelChecker
 		ModelCheckerResult res;
 		BitSet unknown;
 		int i, n, iters;
+		int order[];
 		double soln[], initVal, maxDiff;
 		boolean done;
 		long timer;
@@ -801,13 +865,16 @@ public class MDPModelChecker extends ProbModelChecker
 		if (known != null)
 			unknown.andNot(known);
 
+		// Determine the order in which to update states
+		order = computeStateOrder(mdp, yes, unknown, false);
+
 		// Start iterations
 		iters = 0;
 		done = false;
 		while (!done && iters < maxIters) {
 			iters++;
 			// Matrix-vector multiply
-			maxDiff = mdp.mvMultGSMinMax(soln, min, unknown, false, termCrit == TermCrit.ABSOLUTE, strat);
+			maxDiff = mdp.mvMultGSMinMax(soln, min, order, termCrit == TermCrit.ABSOLUTE, strat);
 			// Check termination
 			done = maxDiff < termCritParam;
 		}
@@ -832,6 +899,266 @@ public class MDPModelChecker extends ProbModelChecker
 		return res;
 	}
 
+	/**
+	 * Compute reachability probabilities using topological value iteration,
+	 * i.e. solving one SCC at a time, in reverse topological order.
+	 * States in trivial SCCs are solved directly; other SCCs are solved
+	 * with Gauss-Seidel, until local convergence.
+	 * Optionally, store optimal (memoryless) strategy info. 
+	 * @param mdp The MDP
+	 * @param no Probability 0 states
+	 * @param yes Probability 1 states
+	 * @param min Min or max probabilities (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.
+	 */
+	protected ModelCheckerResult computeReachProbsTopological(final MDP mdp, BitSet no, BitSet yes, final boolean min, double init[], BitSet known,
+			final int strat[])
+			throws PrismException
+	{
+		BitSet unknown;
+		int i, n;
+		double soln[], initVal;
+
+		// Store num states
+		n = mdp.getNumStates();
+
+		// Create solution vector
+		soln = (init == null) ? new double[n] : init;
+
+		// Initialise solution vector. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 1.0/0.0 if in yes/no; (3) passed in initial value; (4) initVal
+		// where initVal is 0.0 or 1.0, depending on whether we converge from below/above. 
+		initVal = (valIterDir == ValIterDir.BELOW) ? 0.0 : 1.0;
+		if (init != null) {
+			if (known != null) {
+				for (i = 0; i < n; i++)
+					soln[i] = known.get(i) ? init[i] : yes.get(i) ? 1.0 : no.get(i) ? 0.0 : init[i];
+			} else {
+				for (i = 0; i < n; i++)
+					soln[i] = yes.get(i) ? 1.0 : no.get(i) ? 0.0 : init[i];
+			}
+		} else {
+			for (i = 0; i < n; i++)
+				soln[i] = yes.get(i) ? 1.0 : no.get(i) ? 0.0 : initVal;
+		}
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(yes);
+		unknown.andNot(no);
+		if (known != null)
+			unknown.andNot(known);
+
+		// Solve, one SCC at a time
+		return solveTopological(mdp, unknown, soln, new TopologicalUpdate()
+		{
+			@Override
+			public double update(int s, double vect[])
+			{
+				return mdp.mvMultJacMinMaxSingle(s, vect, min, strat);
+			}
+		}, min ? "min" : "max");
+	}
+
+	/**
+	 * Compute reachability probabilities using interval iteration,
+	 * i.e. value iteration from below and above simultaneously, which yields sound
+	 * lower/upper bounds on the probabilities. Iteration stops as soon as the difference
+	 * between the bounds is below epsilon for all states in {@code statesOfInterest}
+	 * (or all states, if null), and the midpoint of the bounds is returned,
+	 * with half the difference stored as the (guaranteed) error bound.
+	 * For max, values of the upper bound within end components are "deflated"
+	 * to the best value for leaving the end component, which is needed for convergence.
+	 * For min, convergence relies on Prob0 precomputation having been done for {@code no}.
+	 * Optionally, store optimal (memoryless) strategy info (from the lower bound).
+	 * @param mdp The MDP
+	 * @param no Probability 0 states
+	 * @param yes Probability 1 states
+	 * @param min Min or max probabilities (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * @param statesOfInterest States for which the bounds must be within epsilon (optional: null means "all")
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.
+	 */
+	protected ModelCheckerResult computeReachProbsIntervalIter(MDP mdp, BitSet no, BitSet yes, boolean min, double init[], BitSet known, int strat[],
+			BitSet statesOfInterest) throws PrismException
+	{
+		ModelCheckerResult res;
+		BitSet unknown, conv;
+		ECComputer ecComputer;
+		List<BitSet> mecs;
+		int i, j, k, m, n, s, iters, numMECs, numChoices;
+		int mecExitStarts[], mecExitStates[], mecExitChoices[], mecStates[], mecStarts[];
+		double lower[], lower2[], upper[], upper2[], tmpsoln[], d, best, diff, maxDiff;
+		boolean done, absolute;
+		long timer;
+
+		// Start interval iteration
+		timer = System.currentTimeMillis();
+		mainLog.println("Starting interval iteration (" + (min ? "min" : "max") + ")...");
+
+		// Store num states
+		n = mdp.getNumStates();
+
+		// Create solution vectors
+		lower = (init == null) ? new double[n] : init;
+		lower2 = new double[n];
+		upper = new double[n];
+		upper2 = new double[n];
+
+		// Initialise solution vectors. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 1.0/0.0 if in yes/no; (3) 0.0/1.0 for lower/upper bound 
+		for (i = 0; i < n; i++) {
+			if (known != null && known.get(i)) {
+				lower[i] = upper[i] = init[i];
+			} else {
+				lower[i] = yes.get(i) ? 1.0 : 0.0;
+				upper[i] = no.get(i) ? 0.0 : 1.0;
+			}
+			lower2[i] = lower[i];
+			upper2[i] = upper[i];
+		}
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(yes);
+		unknown.andNot(no);
+		if (known != null)
+			unknown.andNot(known);
+
+		// Determine states used for convergence check
+		conv = unknown;
+		if (statesOfInterest != null) {
+			conv = (BitSet) unknown.clone();
+			conv.and(statesOfInterest);
+		}
+
+		// For max, find MECs (within unknown states) and their exiting choices, for deflation of upper bounds
+		numMECs = 0;
+		mecStates = mecStarts = mecExitStarts = mecExitStates = mecExitChoices = null;
+		if (!min) {
+			ecComputer = ECComputer.createECComputer(this, mdp);
+			// (pass a copy of unknown, since the MEC computation may modify it)
+			ecComputer.computeMECStates((BitSet) unknown.clone());
+			mecs = ecComputer.getMECStates();
+			numMECs = mecs.size();
+			mecStarts = new int[numMECs + 1];
+			mecExitStarts = new int[numMECs + 1];
+			for (j = 0; j < numMECs; j++) {
+				mecStarts[j + 1] = mecStarts[j] + mecs.get(j).cardinality();
+				k = 0;
+				for (s = mecs.get(j).nextSetBit(0); s >= 0; s = mecs.get(j).nextSetBit(s + 1)) {
+					numChoices = mdp.getNumChoices(s);
+					for (i = 0; i < numChoices; i++) {
+						if (!mdp.allSuccessorsInSet(s, i, mecs.get(j)))
+							k++;
+					}
+				}
+				mecExitStarts[j + 1] = mecExitStarts[j] + k;
+			}
+			mecStates = new int[mecStarts[numMECs]];
+			mecExitStates = new int[mecExitStarts[numMECs]];
+			mecExitChoices = new int[mecExitStarts[numMECs]];
+			for (j = 0; j < numMECs; j++) {
+				k = mecExitStarts[j];
+				m = mecStarts[j];
+				for (s = mecs.get(j).nextSetBit(0); s >= 0; s = mecs.get(j).nextSetBit(s + 1)) {
+					mecStates[m++] = s;
+					numChoices = mdp.getNumChoices(s);
+					for (i = 0; i < numChoices; i++) {
+						if (!mdp.allSuccessorsInSet(s, i, mecs.get(j))) {
+							mecExitStates[k] = s;
+							mecExitChoices[k++] = i;
+						}
+					}
+				}
+			}
+			mecs = null;
+		}
+
+		// Start iterations
+		absolute = (termCrit == TermCrit.ABSOLUTE);
+		maxDiff = 1.0;
+		iters = 0;
+		done = false;
+		while (!done && iters < maxIters) {
+			iters++;
+			// Matrix-vector multiply and min/max ops, for both bounds
+			if (mdp instanceof MDPSparse) {
+				((MDPSparse) mdp).mvMultMinMaxBounds(lower, upper, min, lower2, upper2, unknown, strat);
+			} else {
+				mdp.mvMultMinMax(lower, min, lower2, unknown, false, strat);
+				mdp.mvMultMinMax(upper, min, upper2, unknown, false, null);
+			}
+			// For max, deflate upper bounds in MECs to the best value for leaving
+			for (j = 0; j < numMECs; j++) {
+				best = 0.0;
+				for (k = mecExitStarts[j]; k < mecExitStarts[j + 1]; k++) {
+					d = mdp.mvMultSingle(mecExitStates[k], mecExitChoices[k], upper2);
+					if (d > best)
+						best = d;
+				}
+				for (k = mecStarts[j]; k < mecStarts[j + 1]; k++) {
+					s = mecStates[k];
+					if (upper2[s] > best)
+						upper2[s] = best;
+				}
+			}
+			// Swap vectors for next iter
+			tmpsoln = lower;
+			lower = lower2;
+			lower2 = tmpsoln;
+			tmpsoln = upper;
+			upper = upper2;
+			upper2 = tmpsoln;
+			// Check termination: difference between bounds (over states of interest)
+			maxDiff = 0.0;
+			for (s = conv.nextSetBit(0); s >= 0; s = conv.nextSetBit(s + 1)) {
+				diff = upper[s] - lower[s];
+				if (!absolute && upper[s] > 0)
+					diff /= upper[s];
+				if (diff > maxDiff)
+					maxDiff = diff;
+			}
+			done = maxDiff < termCritParam;
+		}
+
+		// Compute midpoint of bounds and (absolute) error bound
+		maxDiff = 0.0;
+		for (s = unknown.nextSetBit(0); s >= 0; s = unknown.nextSetBit(s + 1)) {
+			if (conv.get(s) && upper[s] - lower[s] > maxDiff)
+				maxDiff = upper[s] - lower[s];
+			lower[s] = (lower[s] + upper[s]) / 2;
+		}
+
+		// Finished interval iteration
+		timer = System.currentTimeMillis() - timer;
+		mainLog.print("Interval iteration (" + (min ? "min" : "max") + ")");
+		mainLog.println(" took " + iters + " iterations and " + timer / 1000.0 + " seconds.");
+		mainLog.println("Maximum (absolute) error bound: " + maxDiff / 2);
+
+		// Non-convergence is an error (usually)
+		if (!done && errorOnNonConverge) {
+			String msg = "Iterative method did not converge within " + iters + " iterations.";
+			msg += "\nConsider using a different numerical method or increasing the maximum number of iterations";
+			throw new PrismException(msg);
+		}
+
+		// Return results
+		res = new ModelCheckerResult();
+		res.soln = lower;
+		res.numIters = iters;
+		res.timeTaken = timer / 1000.0;
+		res.errorBound = maxDiff / 2;
+		return res;
+	}
+
 	/**
 	 * Compute reachability probabilities using policy iteration.
 	 * Optionally, store optimal (memoryless) strategy info. 
@@ -1248,7 +1575,8 @@ public class MDPModelChecker extends ProbModelChecker
 		MDPSolnMethod mdpSolnMethod = this.mdpSolnMethod;
 
 		// Switch to a supported method, if necessary
-		if (!(mdpSolnMethod == MDPSolnMethod.VALUE_ITERATION || mdpSolnMethod == MDPSolnMethod.GAUSS_SEIDEL || mdpSolnMethod == MDPSolnMethod.POLICY_ITERATION)) {
+		if (!(mdpSolnMethod == MDPSolnMethod.VALUE_ITERATION || mdpSolnMethod == MDPSolnMethod.GAUSS_SEIDEL || mdpSolnMethod == MDPSolnMethod.POLICY_ITERATION
+				|| mdpSolnMethod == MDPSolnMethod.TOPOLOGICAL)) {
 			mdpSolnMethod = MDPSolnMethod.GAUSS_SEIDEL;
 			mainLog.printWarning("Switching to MDP solution method \"" + mdpSolnMethod.fullName() + "\"");
 		}
@@ -1336,18 +1664,25 @@ public class MDPModelChecker extends ProbModelChecker
 		}
 
 		// Compute rewards
-		switch (mdpSolnMethod) {
-		case VALUE_ITERATION:
-			res = computeReachRewardsValIter(mdp, mdpRewards, target, inf, min, init, known, strat);
-			break;
-		case GAUSS_SEIDEL:
-			res = computeReachRewardsGaussSeidel(mdp, mdpRewards, target, inf, min, init, known, strat);
-			break;
-		case POLICY_ITERATION:
-			res = computeReachRewardsPolIter(mdp, mdpRewards, target, inf, min, strat);
-			break;
-		default:
-			throw new PrismException("Unknown MDP solution method " + mdpSolnMethod.fullName());
+		if (optimisticIter) {
+			res = computeReachRewardsOptimisticIter(mdp, mdpRewards, target, inf, min, init, known, strat);
+		} else {
+			switch (mdpSolnMethod) {
+			case VALUE_ITERATION:
+				res = computeReachRewardsValIter(mdp, mdpRewards, target, inf, min, init, known, strat);
+				break;
+			case GAUSS_SEIDEL:
+				res = computeReachRewardsGaussSeidel(mdp, mdpRewards, target, inf, min, init, known, strat);
+				break;
+			case TOPOLOGICAL:
+				res = computeReachRewardsTopological(mdp, mdpRewards, target, inf, min, init, known, strat);
+				break;
+			case POLICY_ITERATION:
+				res = computeReachRewardsPolIter(mdp, mdpRewards, target, inf, min, strat);
+				break;
+			default:
+				throw new PrismException("Unknown MDP solution method " + mdpSolnMethod.fullName());
+			}
 		}
 
 		// Store strategy
@@ -1397,10 +1732,11 @@ public class MDPModelChecker extends ProbModelChecker
 		double soln[], soln2[], tmpsoln[];
 		boolean done;
 		long timer;
+		ParallelValIter parallel = null;
 
 		// Start value iteration
 		timer = System.currentTimeMillis();
-		mainLog.println("Starting value iteration (" + (min ? "min" : "max") + ")...");
+		mainLog.println("Starting value iteration (" + (min ? "min" : "max") + ")" + (numThreads > 1 ? " using " + numThreads + " threads" : "") + "...");
 
 		// Store num states
 		n = mdp.getNumStates();
@@ -1432,20 +1768,36 @@ public class MDPModelChecker extends ProbModelChecker
 		if (known != null)
 			unknown.andNot(known);
 
+		// If required, set up parallel (Jacobi) value iteration
+		if (numThreads > 1) {
+			parallel = new ParallelValIter(mdp, unknown, numThreads);
+		}
+
 		// Start iterations
 		iters = 0;
 		done = false;
-		while (!done && iters < maxIters) {
-			//mainLog.println(soln);
-			iters++;
-			// Matrix-vector multiply and min/max ops
-			mdp.mvMultRewMinMax(soln, mdpRewards, min, soln2, unknown, false, strat);
-			// Check termination
-			done = PrismUtils.doublesAreClose(soln, soln2, termCritParam, termCrit == TermCrit.ABSOLUTE);
-			// Swap vectors for next iter
-			tmpsoln = soln;
-			soln = soln2;
-			soln2 = tmpsoln;
+		try {
+			while (!done && iters < maxIters) {
+				//mainLog.println(soln);
+				iters++;
+				if (parallel != null) {
+					// Matrix-vector multiply and min/max ops, plus termination check (in parallel)
+					done = parallel.mvMultRewMinMax(soln, mdpRewards, min, soln2, strat, termCritParam, termCrit == TermCrit.ABSOLUTE);
+				} else {
+					// Matrix-vector multiply and min/max ops
+					mdp.mvMultRewMinMax(soln, mdpRewards, min, soln2, unknown, false, strat);
+					// Check termination
+					done = PrismUtils.doublesAreClose(soln, soln2, termCritParam, termCrit == TermCrit.ABSOLUTE);
+				}
+				// Swap vectors for next iter
+				tmpsoln = soln;
+				soln = soln2;
+				soln2 = tmpsoln;
+			}
+		} finally {
+			if (parallel != null) {
+				parallel.close();
+			}
 		}
 
 		// Finished value iteration
@@ -1468,6 +1820,161 @@ public class MDPModelChecker extends ProbModelChecker
 		return res;
 	}
 
+	/**
+	 * Compute expected reachability rewards using optimistic value iteration.
+	 * Value iteration is done from below until the usual termination criterion is met;
+	 * an upper bound is then guessed (within {@code termCritParam} of the lower bound)
+	 * and both bounds are iterated until a single Bellman step does not increase the upper bound
+	 * for any state, which verifies it as an upper bound on the least fixpoint, i.e. the expected reward.
+	 * If the bounds cross, or this takes too long, value iteration from below continues,
+	 * with a stricter criterion, before guessing again.
+	 * The result is the midpoint of the (certified) lower and upper bounds.
+	 * Optionally, store optimal (memoryless) strategy info (from the lower bound).
+	 * @param mdp The MDP
+	 * @param mdpRewards The rewards
+	 * @param target Target states
+	 * @param inf States for which reward is infinite
+	 * @param min Min or max rewards (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.
+	 */
+	protected ModelCheckerResult computeReachRewardsOptimisticIter(MDP mdp, MDPRewards mdpRewards, BitSet target, BitSet inf, boolean min, double init[],
+			BitSet known, int strat[]) throws PrismException
+	{
+		ModelCheckerResult res;
+		BitSet unknown;
+		int i, j, n, s, iters, viIters, numGuesses;
+		double lower[], lower2[], upper[], upper2[], tmpsoln[], viEpsilon, maxDiff;
+		boolean done, verified, crossed, absolute;
+		long timer;
+
+		// Start optimistic value iteration
+		timer = System.currentTimeMillis();
+		mainLog.println("Starting optimistic value iteration (" + (min ? "min" : "max") + ")...");
+
+		// Store num states
+		n = mdp.getNumStates();
+
+		// Create solution vectors
+		lower = (init == null) ? new double[n] : init;
+		lower2 = new double[n];
+		upper = new double[n];
+		upper2 = new double[n];
+
+		// Initialise solution vectors. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 0.0/infinity if in target/inf; (3) 0.0
+		// (other initial values are not used since the lower bound must start below the least fixpoint)
+		for (i = 0; i < n; i++) {
+			if (known != null && known.get(i)) {
+				lower[i] = init[i];
+			} else {
+				lower[i] = inf.get(i) ? Double.POSITIVE_INFINITY : 0.0;
+			}
+			lower2[i] = upper[i] = upper2[i] = lower[i];
+		}
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(target);
+		unknown.andNot(inf);
+		if (known != null)
+			unknown.andNot(known);
+
+		// Start iterations
+		absolute = (termCrit == TermCrit.ABSOLUTE);
+		viEpsilon = termCritParam;
+		iters = 0;
+		numGuesses = 0;
+		verified = false;
+		while (!verified && iters < maxIters) {
+			// Value iteration from below, until the current termination criterion is met
+			done = false;
+			viIters = 0;
+			while (!done && iters < maxIters) {
+				iters++;
+				viIters++;
+				mdp.mvMultRewMinMax(lower, mdpRewards, min, lower2, unknown, false, strat);
+				done = PrismUtils.doublesAreClose(lower, lower2, viEpsilon, absolute);
+				// Swap vectors for next iter
+				tmpsoln = lower;
+				lower = lower2;
+				lower2 = tmpsoln;
+			}
+			if (!done)
+				break;
+			// Guess an upper bound, within termCritParam of the lower bound
+			numGuesses++;
+			for (s = unknown.nextSetBit(0); s >= 0; s = unknown.nextSetBit(s + 1)) {
+				upper[s] = absolute ? lower[s] + termCritParam : lower[s] * (1 + termCritParam);
+			}
+			// Verification phase: iterate both bounds (for at most as many iterations as the
+			// value iteration phase took) until a single Bellman step does not increase the
+			// upper bound for any state, in which case it is an upper bound on the least fixpoint,
+			// or until the bounds cross, in which case the guess was wrong
+			for (j = 0; j < viIters && !verified && iters < maxIters; j++) {
+				iters++;
+				mdp.mvMultRewMinMax(lower, mdpRewards, min, lower2, unknown, false, strat);
+				mdp.mvMultRewMinMax(upper, mdpRewards, min, upper2, unknown, false, null);
+				verified = true;
+				crossed = false;
+				for (s = unknown.nextSetBit(0); s >= 0; s = unknown.nextSetBit(s + 1)) {
+					if (upper2[s] > upper[s])
+						verified = false;
+					if (lower2[s] > upper2[s])
+						crossed = true;
+				}
+				// Swap vectors for next iter
+				tmpsoln = lower;
+				lower = lower2;
+				lower2 = tmpsoln;
+				tmpsoln = upper;
+				upper = upper2;
+				upper2 = tmpsoln;
+				if (crossed)
+					break;
+			}
+			// If not verified, go back to value iteration from below, with a stricter criterion
+			if (!verified)
+				viEpsilon /= 2;
+		}
+
+		// Compute midpoint of bounds and (absolute) error bound
+		maxDiff = 0.0;
+		if (verified) {
+			for (s = unknown.nextSetBit(0); s >= 0; s = unknown.nextSetBit(s + 1)) {
+				if (upper[s] - lower[s] > maxDiff)
+					maxDiff = upper[s] - lower[s];
+				lower[s] = (lower[s] + upper[s]) / 2;
+			}
+		}
+
+		// Finished optimistic value iteration
+		timer = System.currentTimeMillis() - timer;
+		mainLog.print("Optimistic value iteration (" + (min ? "min" : "max") + ")");
+		mainLog.println(" took " + iters + " iterations (" + numGuesses + " upper bound guesses) and " + timer / 1000.0 + " seconds.");
+		if (verified)
+			mainLog.println("Maximum (absolute) error bound: " + maxDiff / 2);
+
+		// Non-convergence is an error (usually)
+		if (!verified && errorOnNonConverge) {
+			String msg = "Iterative method did not converge within " + iters + " iterations.";
+			msg += "\nConsider using a different numerical method or increasing the maximum number of iterations";
+			throw new PrismException(msg);
+		}
+
+		// Return results
+		res = new ModelCheckerResult();
+		res.soln = lower;
+		res.numIters = iters;
+		res.timeTaken = timer / 1000.0;
+		if (verified)
+			res.errorBound = maxDiff / 2;
+		return res;
+	}
+
 	/**
 	 * Compute expected reachability rewards using Gauss-Seidel (including Jacobi-style updates).
 	 * Optionally, store optimal (memoryless) strategy info. 
@@ -1556,6 +2063,69 @@ public class MDPModelChecker extends ProbModelChecker
 		return res;
 	}
 
+	/**
+	 * Compute expected reachability rewards using topological value iteration,
+	 * i.e. solving one SCC at a time, in reverse topological order.
+	 * States in trivial SCCs are solved directly; other SCCs are solved
+	 * with Gauss-Seidel, until local convergence.
+	 * Optionally, store optimal (memoryless) strategy info. 
+	 * @param mdp The MDP
+	 * @param mdpRewards The rewards
+	 * @param target Target states
+	 * @param inf States for which reward is infinite
+	 * @param min Min or max rewards (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.
+	 */
+	protected ModelCheckerResult computeReachRewardsTopological(final MDP mdp, final MDPRewards mdpRewards, BitSet target, BitSet inf, final boolean min,
+			double init[], BitSet known, final int strat[]) throws PrismException
+	{
+		BitSet unknown;
+		int i, n;
+		double soln[];
+
+		// Store num states
+		n = mdp.getNumStates();
+
+		// Create solution vector
+		soln = (init == null) ? new double[n] : init;
+
+		// Initialise solution vector. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 0.0/infinity if in target/inf; (3) passed in initial value; (4) 0.0
+		if (init != null) {
+			if (known != null) {
+				for (i = 0; i < n; i++)
+					soln[i] = known.get(i) ? init[i] : target.get(i) ? 0.0 : inf.get(i) ? Double.POSITIVE_INFINITY : init[i];
+			} else {
+				for (i = 0; i < n; i++)
+					soln[i] = target.get(i) ? 0.0 : inf.get(i) ? Double.POSITIVE_INFINITY : init[i];
+			}
+		} else {
+			for (i = 0; i < n; i++)
+				soln[i] = target.get(i) ? 0.0 : inf.get(i) ? Double.POSITIVE_INFINITY : 0.0;
+		}
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(target);
+		unknown.andNot(inf);
+		if (known != null)
+			unknown.andNot(known);
+
+		// Solve, one SCC at a time
+		return solveTopological(mdp, unknown, soln, new TopologicalUpdate()
+		{
+			@Override
+			public double update(int s, double vect[])
+			{
+				return mdp.mvMultRewJacMinMaxSingle(s, vect, mdpRewards, min, strat);
+			}
+		}, min ? "min" : "max");
+	}
+
 	/**
 	 * Compute expected reachability rewards using policy iteration.
 	 * The array {@code strat} is used both to pass in the initial strategy for policy iteration,
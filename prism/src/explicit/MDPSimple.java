@@ -36,7 +36,6 @@ import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
 
 import common.IterableStateSet;
@@ -691,9 +690,9 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 		for (Distribution distr : step) {
 			// Compute sum for this distribution
 			d = 0.0;
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				d += prob * vect[k];
 			}
 			// Check whether we have exceeded min/max so far
@@ -736,9 +735,9 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 			j++;
 			// Compute sum for this distribution
 			d = 0.0;
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				d += prob * vect[k];
 			}
 			// Store strategy info if value matches
@@ -761,9 +760,9 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 		Distribution distr = trans.get(s).get(i);
 		// Compute sum for this distribution
 		d = 0.0;
-		for (Map.Entry<Integer, Double> e : distr) {
-			k = (Integer) e.getKey();
-			prob = (Double) e.getValue();
+		for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+			k = distr.getStateAt(t);
+			prob = distr.getProbabilityAt(t);
 			d += prob * vect[k];
 		}
 
@@ -786,9 +785,9 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 			diag = 1.0;
 			// Compute sum for this distribution
 			d = 0.0;
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				if (k != s) {
 					d += prob * vect[k];
 				} else {
@@ -832,9 +831,9 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 		diag = 1.0;
 		// Compute sum for this distribution
 		d = 0.0;
-		for (Map.Entry<Integer, Double> e : distr) {
-			k = (Integer) e.getKey();
-			prob = (Double) e.getValue();
+		for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+			k = distr.getStateAt(t);
+			prob = distr.getProbabilityAt(t);
 			if (k != s) {
 				d += prob * vect[k];
 			} else {
@@ -863,9 +862,9 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 			j++;
 			// Compute sum for this distribution
 			d = mdpRewards.getTransitionReward(s, j);
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				d += prob * vect[k];
 			}
 			// Check whether we have exceeded min/max so far
@@ -903,9 +902,9 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 		// TODO: use transition rewards when added to DTMCss
 		// d = mcRewards.getTransitionReward(s);
 		d = 0;
-		for (Map.Entry<Integer, Double> e : distr) {
-			k = (Integer) e.getKey();
-			prob = (Double) e.getValue();
+		for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+			k = distr.getStateAt(t);
+			prob = distr.getProbabilityAt(t);
 			d += prob * vect[k];
 		}
 		d += mcRewards.getStateReward(s);
@@ -930,9 +929,9 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 			diag = 1.0;
 			// Compute sum for this distribution
 			d = mdpRewards.getTransitionReward(s, j);
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				if (k != s) {
 					d += prob * vect[k];
 				} else {
@@ -983,9 +982,9 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 			j++;
 			// Compute sum for this distribution
 			d = mdpRewards.getTransitionReward(s, j);
-			for (Map.Entry<Integer, Double> e : distr) {
-				k = (Integer) e.getKey();
-				prob = (Double) e.getValue();
+			for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+				k = distr.getStateAt(t);
+				prob = distr.getProbabilityAt(t);
 				d += prob * vect[k];
 			}
 			d += mdpRewards.getStateReward(s);
@@ -283,6 +283,42 @@ public class MDPSparse extends MDPExplicit
 		rowStarts[numStates] = numDistrs;
 	}
 
+	/**
+	 * Construct an MDP from existing sparse matrix arrays, which are used directly (not copied).
+	 * Initial states, deadlocks, etc. should be added separately afterwards.
+	 * @param numStates Number of states
+	 * @param rowStarts Indices into {@code choiceStarts} for each state (array of size numStates+1)
+	 * @param choiceStarts Indices into {@code cols}/{@code nonZeros} for each choice (array of size numDistrs+1)
+	 * @param cols Column (destination) indices for each transition
+	 * @param nonZeros Probabilities for each transition
+	 * @param actions Action labels for each choice (or null if there are none)
+	 */
+	public MDPSparse(int numStates, int rowStarts[], int choiceStarts[], int cols[], double nonZeros[], Object actions[])
+	{
+		initialise(numStates);
+		this.rowStarts = rowStarts;
+		this.choiceStarts = choiceStarts;
+		this.cols = cols;
+		this.nonZeros = nonZeros;
+		this.actions = actions;
+		numDistrs = rowStarts[numStates];
+		numTransitions = choiceStarts[numDistrs];
+		maxNumDistrs = 0;
+		for (int i = 0; i < numStates; i++) {
+			maxNumDistrs = Math.max(maxNumDistrs, getNumChoices(i));
+		}
+	}
+
+	/**
+	 * Constructor for subclasses that store the sparse matrix themselves
+	 * (see {@link #getRowStart(int)}). Just initialises an empty model.
+	 * @param numStates Number of states
+	 */
+	protected MDPSparse(int numStates)
+	{
+		initialise(numStates);
+	}
+
 	// Mutators (other)
 
 	@Override
@@ -377,6 +413,82 @@ public class MDPSparse extends MDPExplicit
 		}
 	}
 
+	// Accessors (for sparse matrix storage)
+
+	/**
+	 * Get the index of the first choice of state {@code s}, among all choices of the model;
+	 * the choices of {@code s} are {@code getRowStart(s)}, ..., {@code getRowStart(s + 1) - 1}.
+	 * <p>
+	 * This, {@link #getChoiceStart(int)}, {@link #getColumn(int)}, {@link #getNonZero(int)}
+	 * and {@link #getChoiceAction(int)} are the only way that the sparse matrix is accessed
+	 * (after construction), so subclasses can store it elsewhere (see {@link MDPSparseMapped}).
+	 */
+	public int getRowStart(int s)
+	{
+		return rowStarts[s];
+	}
+
+	/**
+	 * Get the index of the first transition of (global) choice {@code j};
+	 * the transitions of {@code j} are {@code getChoiceStart(j)}, ..., {@code getChoiceStart(j + 1) - 1}.
+	 */
+	public int getChoiceStart(int j)
+	{
+		return choiceStarts[j];
+	}
+
+	/**
+	 * Get the column (destination state) index of (global) transition {@code k}.
+	 */
+	public int getColumn(int k)
+	{
+		return cols[k];
+	}
+
+	/**
+	 * Get the probability of (global) transition {@code k}.
+	 */
+	public double getNonZero(int k)
+	{
+		return nonZeros[k];
+	}
+
+	/**
+	 * Get the action label of (global) choice {@code j} (null if none).
+	 */
+	public Object getChoiceAction(int j)
+	{
+		return actions == null ? null : actions[j];
+	}
+
+	/**
+	 * Get the array of row starts (see {@link #getRowStart(int)}), e.g. for graph algorithms
+	 * that work directly on arrays. This is the model's own storage (or a copy, for subclasses
+	 * that store it elsewhere), so it must not be modified.
+	 */
+	public int[] getRowStartsArray()
+	{
+		return rowStarts;
+	}
+
+	/**
+	 * Get the array of choice starts (see {@link #getChoiceStart(int)}),
+	 * in the same way as {@link #getRowStartsArray()}. It must not be modified.
+	 */
+	public int[] getChoiceStartsArray()
+	{
+		return choiceStarts;
+	}
+
+	/**
+	 * Get the array of columns (see {@link #getColumn(int)}),
+	 * in the same way as {@link #getRowStartsArray()}. It must not be modified.
+	 */
+	public int[] getColumnsArray()
+	{
+		return cols;
+	}
+
 	// Accessors (for Model)
 
 	@Override
@@ -390,11 +502,11 @@ public class MDPSparse extends MDPExplicit
 	{
 		// Need to build set to avoid duplicates
 		// So not necessarily the fastest method to access successors
-		int start = choiceStarts[rowStarts[s]];
-		int end = choiceStarts[rowStarts[s + 1]];
+		int start = getChoiceStart(getRowStart(s));
+		int end = getChoiceStart(getRowStart(s + 1));
 		HashSet<Integer> succs = new HashSet<Integer>();
 		for (int i = start; i < end; i++) {
-			succs.add(cols[i]);
+			succs.add(getColumn(i));
 		}
 		return succs.iterator();
 	}
@@ -403,14 +515,14 @@ public class MDPSparse extends MDPExplicit
 	public boolean isSuccessor(int s1, int s2)
 	{
 		int j, k, l1, h1, l2, h2;
-		l1 = rowStarts[s1];
-		h1 = rowStarts[s1 + 1];
+		l1 = getRowStart(s1);
+		h1 = getRowStart(s1 + 1);
 		for (j = l1; j < h1; j++) {
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
 				// Assume that only non-zero entries are stored
-				if (cols[k] == s2) {
+				if (getColumn(k) == s2) {
 					return true;
 				}
 			}
@@ -422,14 +534,14 @@ public class MDPSparse extends MDPExplicit
 	public boolean allSuccessorsInSet(int s, BitSet set)
 	{
 		int j, k, l1, h1, l2, h2;
-		l1 = rowStarts[s];
-		h1 = rowStarts[s + 1];
+		l1 = getRowStart(s);
+		h1 = getRowStart(s + 1);
 		for (j = l1; j < h1; j++) {
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
 				// Assume that only non-zero entries are stored
-				if (!set.get(cols[k])) {
+				if (!set.get(getColumn(k))) {
 					return false;
 				}
 			}
@@ -441,14 +553,14 @@ public class MDPSparse extends MDPExplicit
 	public boolean someSuccessorsInSet(int s, BitSet set)
 	{
 		int j, k, l1, h1, l2, h2;
-		l1 = rowStarts[s];
-		h1 = rowStarts[s + 1];
+		l1 = getRowStart(s);
+		h1 = getRowStart(s + 1);
 		for (j = l1; j < h1; j++) {
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
 				// Assume that only non-zero entries are stored
-				if (set.get(cols[k])) {
+				if (set.get(getColumn(k))) {
 					return true;
 				}
 			}
@@ -484,7 +596,7 @@ public class MDPSparse extends MDPExplicit
 	@Override
 	public int getNumChoices(int s)
 	{
-		return rowStarts[s + 1] - rowStarts[s];
+		return getRowStart(s + 1) - getRowStart(s);
 	}
 
 	@Override
@@ -502,19 +614,19 @@ public class MDPSparse extends MDPExplicit
 	@Override
 	public Object getAction(int s, int i)
 	{
-		return i < 0 || actions == null ? null : actions[rowStarts[s] + i];
+		return i < 0 ? null : getChoiceAction(getRowStart(s) + i);
 	}
 
 	@Override
 	public boolean allSuccessorsInSet(int s, int i, BitSet set)
 	{
 		int j, k, l2, h2;
-		j = rowStarts[s] + i;
-		l2 = choiceStarts[j];
-		h2 = choiceStarts[j + 1];
+		j = getRowStart(s) + i;
+		l2 = getChoiceStart(j);
+		h2 = getChoiceStart(j + 1);
 		for (k = l2; k < h2; k++) {
 			// Assume that only non-zero entries are stored
-			if (!set.get(cols[k])) {
+			if (!set.get(getColumn(k))) {
 				return false;
 			}
 		}
@@ -525,12 +637,12 @@ public class MDPSparse extends MDPExplicit
 	public boolean someSuccessorsInSet(int s, int i, BitSet set)
 	{
 		int j, k, l2, h2;
-		j = rowStarts[s] + i;
-		l2 = choiceStarts[j];
-		h2 = choiceStarts[j + 1];
+		j = getRowStart(s) + i;
+		l2 = getChoiceStart(j);
+		h2 = getChoiceStart(j + 1);
 		for (k = l2; k < h2; k++) {
 			// Assume that only non-zero entries are stored
-			if (set.get(cols[k])) {
+			if (set.get(getColumn(k))) {
 				return true;
 			}
 		}
@@ -540,11 +652,11 @@ public class MDPSparse extends MDPExplicit
 	@Override
 	public Iterator<Integer> getSuccessorsIterator(final int s, final int i)
 	{
-		int start = choiceStarts[rowStarts[s] + i];
-		int end = choiceStarts[rowStarts[s] + i + 1];
+		int start = getChoiceStart(getRowStart(s) + i);
+		int end = getChoiceStart(getRowStart(s) + i + 1);
 		List<Integer> succs = new ArrayList<Integer>();
 		for (int j = start; j < end; j++) {
-			succs.add(cols[j]);
+			succs.add(getColumn(j));
 		}
 		return succs.iterator();
 	}
@@ -554,7 +666,7 @@ public class MDPSparse extends MDPExplicit
 	@Override
 	public int getNumTransitions(int s, int i)
 	{
-		return choiceStarts[rowStarts[s] + i + 1] - choiceStarts[rowStarts[s] + i];
+		return getChoiceStart(getRowStart(s) + i + 1) - getChoiceStart(getRowStart(s) + i);
 	}
 
 	@Override
@@ -562,9 +674,9 @@ public class MDPSparse extends MDPExplicit
 	{
 		return new Iterator<Entry<Integer, Double>>()
 		{
-			final int start = choiceStarts[rowStarts[s] + i];
+			final int start = getChoiceStart(getRowStart(s) + i);
 			int col = start;
-			final int end = choiceStarts[rowStarts[s] + i + 1];
+			final int end = getChoiceStart(getRowStart(s) + i + 1);
 
 			@Override
 			public boolean hasNext()
@@ -580,8 +692,8 @@ public class MDPSparse extends MDPExplicit
 				col++;
 				return new Entry<Integer, Double>()
 				{
-					int key = cols[i];
-					double value = nonZeros[i];
+					int key = getColumn(i);
+					double value = getNonZero(i);
 
 					@Override
 					public Integer getKey()
@@ -618,15 +730,15 @@ public class MDPSparse extends MDPExplicit
 		boolean b1, some;
 		for (int i : new IterableStateSet(subset, numStates)) {
 			b1 = forall; // there exists or for all
-			l1 = rowStarts[i];
-			h1 = rowStarts[i + 1];
+			l1 = getRowStart(i);
+			h1 = getRowStart(i + 1);
 			for (j = l1; j < h1; j++) {
 				some = false;
-				l2 = choiceStarts[j];
-				h2 = choiceStarts[j + 1];
+				l2 = getChoiceStart(j);
+				h2 = getChoiceStart(j + 1);
 				for (k = l2; k < h2; k++) {
 					// Assume that only non-zero entries are stored
-					if (u.get(cols[k])) {
+					if (u.get(getColumn(k))) {
 						some = true;
 						break;
 					}
@@ -654,20 +766,20 @@ public class MDPSparse extends MDPExplicit
 		boolean b1, some, all;
 		for (int i : new IterableStateSet(subset, numStates)) {
 			b1 = true;
-			l1 = rowStarts[i];
-			h1 = rowStarts[i + 1];
+			l1 = getRowStart(i);
+			h1 = getRowStart(i + 1);
 			for (j = l1; j < h1; j++) {
 				some = false;
 				all = true;
-				l2 = choiceStarts[j];
-				h2 = choiceStarts[j + 1];
+				l2 = getChoiceStart(j);
+				h2 = getChoiceStart(j + 1);
 				for (k = l2; k < h2; k++) {
 					// Assume that only non-zero entries are stored
-					if (!u.get(cols[k])) {
+					if (!u.get(getColumn(k))) {
 						all = false;
 						break; // Stop early (already know b1 will be set to false)
 					}
-					if (v.get(cols[k])) {
+					if (v.get(getColumn(k))) {
 						some = true;
 					}
 				}
@@ -687,20 +799,20 @@ public class MDPSparse extends MDPExplicit
 		boolean b1, some, all;
 		for (int i : new IterableStateSet(subset, numStates)) {
 			b1 = false;
-			l1 = rowStarts[i];
-			h1 = rowStarts[i + 1];
+			l1 = getRowStart(i);
+			h1 = getRowStart(i + 1);
 			for (j = l1; j < h1; j++) {
 				some = false;
 				all = true;
-				l2 = choiceStarts[j];
-				h2 = choiceStarts[j + 1];
+				l2 = getChoiceStart(j);
+				h2 = getChoiceStart(j + 1);
 				for (k = l2; k < h2; k++) {
 					// Assume that only non-zero entries are stored
-					if (!u.get(cols[k])) {
+					if (!u.get(getColumn(k))) {
 						all = false;
 						break; // Stop early (already know b1 will not be set to true)
 					}
-					if (v.get(cols[k])) {
+					if (v.get(getColumn(k))) {
 						some = true;
 					}
 				}
@@ -729,19 +841,19 @@ public class MDPSparse extends MDPExplicit
 		boolean b1, some, all;
 		for (int i : new IterableStateSet(subset, numStates)) {
 			b1 = forall; // there exists or for all
-			l1 = rowStarts[i];
-			h1 = rowStarts[i + 1];
+			l1 = getRowStart(i);
+			h1 = getRowStart(i + 1);
 			for (j = l1; j < h1; j++) {
 				some = false;
 				all = true;
-				l2 = choiceStarts[j];
-				h2 = choiceStarts[j + 1];
+				l2 = getChoiceStart(j);
+				h2 = getChoiceStart(j + 1);
 				for (k = l2; k < h2; k++) {
 					// Assume that only non-zero entries are stored
-					if (v.get(cols[k])) {
+					if (v.get(getColumn(k))) {
 						some = true;
 					}
-					if (!u.get(cols[k])) {
+					if (!u.get(getColumn(k))) {
 						all = false;
 					}
 				}
@@ -767,17 +879,17 @@ public class MDPSparse extends MDPExplicit
 		int j, k, l2, h2;
 		boolean some, all;
 
-		j = rowStarts[s] + i;
+		j = getRowStart(s) + i;
 		some = false;
 		all = true;
-		l2 = choiceStarts[j];
-		h2 = choiceStarts[j + 1];
+		l2 = getChoiceStart(j);
+		h2 = getChoiceStart(j + 1);
 		for (k = l2; k < h2; k++) {
 			// Assume that only non-zero entries are stored
-			if (v.get(cols[k])) {
+			if (v.get(getColumn(k))) {
 				some = true;
 			}
-			if (!u.get(cols[k])) {
+			if (!u.get(getColumn(k))) {
 				all = false;
 			}
 		}
@@ -793,15 +905,15 @@ public class MDPSparse extends MDPExplicit
 
 		minmax = 0;
 		first = true;
-		l1 = rowStarts[s];
-		h1 = rowStarts[s + 1];
+		l1 = getRowStart(s);
+		h1 = getRowStart(s + 1);
 		for (j = l1; j < h1; j++) {
 			// Compute sum for this distribution
 			d = 0.0;
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
-				d += nonZeros[k] * vect[cols[k]];
+				d += getNonZero(k) * vect[getColumn(k)];
 			}
 			// Check whether we have exceeded min/max so far
 			if (first || (min && d < minmax) || (!min && d > minmax)) {
@@ -825,6 +937,65 @@ public class MDPSparse extends MDPExplicit
 		return minmax;
 	}
 
+	/**
+	 * Do a matrix-vector multiplication followed by min/max, for a pair of vectors at once,
+	 * i.e. for all s: lowerNew[s] = min/max_k { sum_j P_k(s,j)*lower[j] } and similarly for {@code upper},
+	 * using a single pass over the transition matrix (e.g. for lower/upper bounds in interval iteration).
+	 * Optionally, store optimal (memoryless) strategy info for {@code lower}.
+	 * @param lower Vector of lower bounds to multiply by
+	 * @param upper Vector of upper bounds to multiply by
+	 * @param min Min or max for (true=min, false=max)
+	 * @param lowerNew Vector to store result for {@code lower} in
+	 * @param upperNew Vector to store result for {@code upper} in
+	 * @param subset Only do multiplication for these rows (ignored if null)
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 */
+	public void mvMultMinMaxBounds(double lower[], double upper[], boolean min, double lowerNew[], double upperNew[], BitSet subset, int strat[])
+	{
+		int s, j, k, l1, h1, l2, h2, c, stratCh;
+		double dLo, dHi, minmaxLo, minmaxHi;
+		boolean first;
+
+		for (s = (subset == null) ? 0 : subset.nextSetBit(0); s >= 0 && s < numStates; s = (subset == null) ? s + 1 : subset.nextSetBit(s + 1)) {
+			minmaxLo = minmaxHi = 0;
+			stratCh = -1;
+			first = true;
+			l1 = getRowStart(s);
+			h1 = getRowStart(s + 1);
+			for (j = l1; j < h1; j++) {
+				// Compute sums for this distribution
+				dLo = dHi = 0.0;
+				l2 = getChoiceStart(j);
+				h2 = getChoiceStart(j + 1);
+				for (k = l2; k < h2; k++) {
+					c = getColumn(k);
+					dLo += getNonZero(k) * lower[c];
+					dHi += getNonZero(k) * upper[c];
+				}
+				// Check whether we have exceeded min/max so far
+				if (first || (min && dLo < minmaxLo) || (!min && dLo > minmaxLo)) {
+					minmaxLo = dLo;
+					stratCh = j - l1;
+				}
+				if (first || (min && dHi < minmaxHi) || (!min && dHi > minmaxHi)) {
+					minmaxHi = dHi;
+				}
+				first = false;
+			}
+			// If strategy generation is enabled, store optimal choice
+			if (strat != null & !first) {
+				// For max, only remember strictly better choices
+				if (min) {
+					strat[s] = stratCh;
+				} else if (strat[s] == -1 || minmaxLo > lower[s]) {
+					strat[s] = stratCh;
+				}
+			}
+			lowerNew[s] = minmaxLo;
+			upperNew[s] = minmaxHi;
+		}
+	}
+
 	@Override
 	public List<Integer> mvMultMinMaxSingleChoices(int s, double vect[], boolean min, double val)
 	{
@@ -835,15 +1006,15 @@ public class MDPSparse extends MDPExplicit
 		// Create data structures to store strategy
 		res = new ArrayList<Integer>();
 		// One row of matrix-vector operation
-		l1 = rowStarts[s];
-		h1 = rowStarts[s + 1];
+		l1 = getRowStart(s);
+		h1 = getRowStart(s + 1);
 		for (j = l1; j < h1; j++) {
 			// Compute sum for this distribution
 			d = 0.0;
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
-				d += nonZeros[k] * vect[cols[k]];
+				d += getNonZero(k) * vect[getColumn(k)];
 			}
 			// Store strategy info if value matches
 			if (PrismUtils.doublesAreClose(val, d, 1e-12, false)) {
@@ -860,13 +1031,13 @@ public class MDPSparse extends MDPExplicit
 		int j, k, l2, h2;
 		double d;
 
-		j = rowStarts[s] + i;
+		j = getRowStart(s) + i;
 		// Compute sum for this distribution
 		d = 0.0;
-		l2 = choiceStarts[j];
-		h2 = choiceStarts[j + 1];
+		l2 = getChoiceStart(j);
+		h2 = getChoiceStart(j + 1);
 		for (k = l2; k < h2; k++) {
-			d += nonZeros[k] * vect[cols[k]];
+			d += getNonZero(k) * vect[getColumn(k)];
 		}
 
 		return d;
@@ -881,19 +1052,19 @@ public class MDPSparse extends MDPExplicit
 
 		minmax = 0;
 		first = true;
-		l1 = rowStarts[s];
-		h1 = rowStarts[s + 1];
+		l1 = getRowStart(s);
+		h1 = getRowStart(s + 1);
 		for (j = l1; j < h1; j++) {
 			diag = 1.0;
 			// Compute sum for this distribution
 			d = 0.0;
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
-				if (cols[k] != s) {
-					d += nonZeros[k] * vect[cols[k]];
+				if (getColumn(k) != s) {
+					d += getNonZero(k) * vect[getColumn(k)];
 				} else {
-					diag -= nonZeros[k];
+					diag -= getNonZero(k);
 				}
 			}
 			if (diag > 0)
@@ -926,17 +1097,17 @@ public class MDPSparse extends MDPExplicit
 		int j, k, l2, h2;
 		double diag, d;
 
-		j = rowStarts[s] + i;
+		j = getRowStart(s) + i;
 		diag = 1.0;
 		// Compute sum for this distribution
 		d = 0.0;
-		l2 = choiceStarts[j];
-		h2 = choiceStarts[j + 1];
+		l2 = getChoiceStart(j);
+		h2 = getChoiceStart(j + 1);
 		for (k = l2; k < h2; k++) {
-			if (cols[k] != s) {
-				d += nonZeros[k] * vect[cols[k]];
+			if (getColumn(k) != s) {
+				d += getNonZero(k) * vect[getColumn(k)];
 			} else {
-				diag -= nonZeros[k];
+				diag -= getNonZero(k);
 			}
 		}
 		if (diag > 0)
@@ -954,15 +1125,15 @@ public class MDPSparse extends MDPExplicit
 
 		minmax = 0;
 		first = true;
-		l1 = rowStarts[s];
-		h1 = rowStarts[s + 1];
+		l1 = getRowStart(s);
+		h1 = getRowStart(s + 1);
 		for (j = l1; j < h1; j++) {
 			// Compute sum for this distribution
 			d = mdpRewards.getTransitionReward(s, j - l1);
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
-				d += nonZeros[k] * vect[cols[k]];
+				d += getNonZero(k) * vect[getColumn(k)];
 			}
 			// Check whether we have exceeded min/max so far
 			if (first || (min && d < minmax) || (!min && d > minmax)) {
@@ -994,15 +1165,15 @@ public class MDPSparse extends MDPExplicit
 		int j, k, l2, h2;
 		double d;
 
-		j = rowStarts[s] + i;
+		j = getRowStart(s) + i;
 		// Compute sum for this distribution
 		// TODO: use transition rewards when added to DTMCss
 		// d = mcRewards.getTransitionReward(s);
 		d = 0;
-		l2 = choiceStarts[j];
-		h2 = choiceStarts[j + 1];
+		l2 = getChoiceStart(j);
+		h2 = getChoiceStart(j + 1);
 		for (k = l2; k < h2; k++) {
-			d += nonZeros[k] * vect[cols[k]];
+			d += getNonZero(k) * vect[getColumn(k)];
 		}
 		d += mcRewards.getStateReward(s);
 		return d;
@@ -1017,19 +1188,19 @@ public class MDPSparse extends MDPExplicit
 
 		minmax = 0;
 		first = true;
-		l1 = rowStarts[s];
-		h1 = rowStarts[s + 1];
+		l1 = getRowStart(s);
+		h1 = getRowStart(s + 1);
 		for (j = l1; j < h1; j++) {
 			diag = 1.0;
 			// Compute sum for this distribution
 			d = mdpRewards.getTransitionReward(s, j - l1);
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
-				if (cols[k] != s) {
-					d += nonZeros[k] * vect[cols[k]];
+				if (getColumn(k) != s) {
+					d += getNonZero(k) * vect[getColumn(k)];
 				} else {
-					diag -= nonZeros[k];
+					diag -= getNonZero(k);
 				}
 			}
 			if (diag > 0)
@@ -1068,15 +1239,15 @@ public class MDPSparse extends MDPExplicit
 		// Create data structures to store strategy
 		res = new ArrayList<Integer>();
 		// One row of matrix-vector operation
-		l1 = rowStarts[s];
-		h1 = rowStarts[s + 1];
+		l1 = getRowStart(s);
+		h1 = getRowStart(s + 1);
 		for (j = l1; j < h1; j++) {
 			// Compute sum for this distribution
 			d = mdpRewards.getTransitionReward(s, j - l1);
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
-				d += nonZeros[k] * vect[cols[k]];
+				d += getNonZero(k) * vect[getColumn(k)];
 			}
 			d += mdpRewards.getStateReward(s);
 			// Store strategy info if value matches
@@ -1094,11 +1265,11 @@ public class MDPSparse extends MDPExplicit
 		for (int s : states) {
 			int j, l2, h2;
 			int k = strat[s];
-			j = rowStarts[s] + k;
-			l2 = choiceStarts[j];
-			h2 = choiceStarts[j + 1];
+			j = getRowStart(s) + k;
+			l2 = getChoiceStart(j);
+			h2 = getChoiceStart(j + 1);
 			for (k = l2; k < h2; k++) {
-				dest[cols[k]] += nonZeros[k] * source[s];
+				dest[getColumn(k)] += getNonZero(k) * source[s];
 			}
 		}
 	}
@@ -1116,8 +1287,8 @@ public class MDPSparse extends MDPExplicit
 			if (i > 0)
 				s += ", ";
 			s += i + ": [";
-			l1 = rowStarts[i];
-			h1 = rowStarts[i + 1];
+			l1 = getRowStart(i);
+			h1 = getRowStart(i + 1);
 			for (j = l1; j < h1; j++) {
 				if (j > l1)
 					s += ",";
@@ -1125,12 +1296,12 @@ public class MDPSparse extends MDPExplicit
 				if (o != null)
 					s += o + ":";
 				s += "{";
-				l2 = choiceStarts[j];
-				h2 = choiceStarts[j + 1];
+				l2 = getChoiceStart(j);
+				h2 = getChoiceStart(j + 1);
 				for (k = l2; k < h2; k++) {
 					if (k > l2)
 						s += ", ";
-					s += cols[k] + ":" + nonZeros[k];
+					s += getColumn(k) + ":" + getNonZero(k);
 				}
 				s += "}";
 			}
@@ -1151,14 +1322,20 @@ public class MDPSparse extends MDPExplicit
 			return false;
 		if (!initialStates.equals(mdp.initialStates))
 			return false;
-		if (!Utils.doubleArraysAreEqual(nonZeros, mdp.nonZeros))
-			return false;
-		if (!Utils.intArraysAreEqual(cols, mdp.cols))
-			return false;
-		if (!Utils.intArraysAreEqual(choiceStarts, mdp.choiceStarts))
-			return false;
-		if (!Utils.intArraysAreEqual(rowStarts, mdp.rowStarts))
+		if (numDistrs != mdp.numDistrs || numTransitions != mdp.numTransitions)
 			return false;
+		for (int s = 0; s <= numStates; s++) {
+			if (getRowStart(s) != mdp.getRowStart(s))
+				return false;
+		}
+		for (int j = 0; j <= numDistrs; j++) {
+			if (getChoiceStart(j) != mdp.getChoiceStart(j))
+				return false;
+		}
+		for (int k = 0; k < numTransitions; k++) {
+			if (getColumn(k) != mdp.getColumn(k) || getNonZero(k) != mdp.getNonZero(k))
+				return false;
+		}
 		// TODO: compare actions (complicated: null = null,null,null,...)
 		return true;
 	}
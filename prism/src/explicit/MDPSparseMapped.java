@@ -0,0 +1,154 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import prism.PrismException;
+import prism.PrismNotSupportedException;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of an MDP,
+ * stored as for {@link MDPSparse}, but with the arrays memory-mapped from a file
+ * (see {@link SparseModelFile}) rather than held in the Java heap.
+ * Models larger than the heap can thus be analysed,
+ * and re-loading a previously built model is almost instant.
+ * <p>
+ * All model operations are inherited from {@link MDPSparse};
+ * this class just provides the sparse matrix storage accessors.
+ */
+public class MDPSparseMapped extends MDPSparse
+{
+	// Sparse matrix storing transition function (Steps)
+	/** Probabilities for each transition (array of size numTransitions) */
+	protected MappedDoubleArray mappedNonZeros;
+	/** Column (destination) indices for each transition (array of size numTransitions) */
+	protected MappedIntArray mappedCols;
+	/** Indices into nonZeros/cols giving the start of the transitions for each choice (distribution);
+	 * array is of size numDistrs+1 and last entry is always equal to numTransitions */
+	protected MappedIntArray mappedChoiceStarts;
+	/** Indices into choiceStarts giving the start of the choices for each state;
+	 * array is of size numStates+1 and last entry is always equal to numDistrs */
+	protected MappedIntArray mappedRowStarts;
+
+	// Action labels
+	/** Indices into actionTable of the action label for each choice (-1 if unlabelled);
+	 * if null, there are no actions; otherwise, is an array of size numDistrs */
+	protected MappedIntArray mappedActionIndices;
+	/** Distinct action labels */
+	protected Object actionTable[];
+
+	// Constructors
+
+	/**
+	 * Construct an MDP from (mapped) sparse matrix arrays.
+	 * Initial states, deadlocks, etc. should be added separately afterwards.
+	 * @param numStates Number of states
+	 * @param rowStarts Indices into {@code choiceStarts} for each state (array of size numStates+1)
+	 * @param choiceStarts Indices into {@code cols}/{@code nonZeros} for each choice (array of size numDistrs+1)
+	 * @param cols Column (destination) indices for each transition
+	 * @param nonZeros Probabilities for each transition
+	 * @param actionIndices Indices into {@code actionTable} for each choice, -1 if unlabelled (or null if there are no actions)
+	 * @param actionTable Distinct action labels (or null if there are no actions)
+	 */
+	public MDPSparseMapped(int numStates, MappedIntArray rowStarts, MappedIntArray choiceStarts, MappedIntArray cols, MappedDoubleArray nonZeros,
+			MappedIntArray actionIndices, Object actionTable[])
+	{
+		super(numStates);
+		mappedRowStarts = rowStarts;
+		mappedChoiceStarts = choiceStarts;
+		mappedCols = cols;
+		mappedNonZeros = nonZeros;
+		mappedActionIndices = actionIndices;
+		this.actionTable = actionTable;
+		numDistrs = rowStarts.get(numStates);
+		numTransitions = choiceStarts.get(numDistrs);
+		maxNumDistrs = 0;
+		for (int i = 0; i < numStates; i++) {
+			maxNumDistrs = Math.max(maxNumDistrs, getNumChoices(i));
+		}
+	}
+
+	// Mutators (other)
+
+	@Override
+	public void buildFromPrismExplicit(String filename) throws PrismException
+	{
+		throw new PrismNotSupportedException("Can't build a " + getClass().getSimpleName() + " from explicit files");
+	}
+
+	// Accessors (for sparse matrix storage)
+
+	@Override
+	public int getRowStart(int s)
+	{
+		return mappedRowStarts.get(s);
+	}
+
+	@Override
+	public int getChoiceStart(int j)
+	{
+		return mappedChoiceStarts.get(j);
+	}
+
+	@Override
+	public int getColumn(int k)
+	{
+		return mappedCols.get(k);
+	}
+
+	@Override
+	public double getNonZero(int k)
+	{
+		return mappedNonZeros.get(k);
+	}
+
+	@Override
+	public Object getChoiceAction(int j)
+	{
+		if (mappedActionIndices == null)
+			return null;
+		int a = mappedActionIndices.get(j);
+		return a < 0 ? null : actionTable[a];
+	}
+
+	@Override
+	public int[] getRowStartsArray()
+	{
+		return mappedRowStarts.toArray();
+	}
+
+	@Override
+	public int[] getChoiceStartsArray()
+	{
+		return mappedChoiceStarts.toArray();
+	}
+
+	@Override
+	public int[] getColumnsArray()
+	{
+		return mappedCols.toArray();
+	}
+}
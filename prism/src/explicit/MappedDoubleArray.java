@@ -0,0 +1,83 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only array of doubles stored in a file and accessed via memory mapping,
+ * so that it need not fit in the Java heap. Used by the models read with {@link SparseModelFile}.
+ * <p>
+ * The array is stored (little-endian) in a contiguous region of the file, which is mapped
+ * in chunks of at most 1GB, since a single mapped buffer is limited to 2GB.
+ */
+public class MappedDoubleArray
+{
+	// Number of elements per chunk is 2^CHUNK_SHIFT
+	private static final int CHUNK_SHIFT = 27;
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+	// Mapped chunks
+	private final DoubleBuffer chunks[];
+	// Number of elements
+	private final long length;
+
+	/**
+	 * Map an array of {@code length} doubles, starting at byte {@code offset} of the file open in {@code channel}.
+	 * The mapping remains valid after the channel is closed.
+	 */
+	public MappedDoubleArray(FileChannel channel, long offset, long length) throws IOException
+	{
+		this.length = length;
+		int numChunks = (int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT);
+		chunks = new DoubleBuffer[numChunks];
+		for (int i = 0; i < numChunks; i++) {
+			long start = (long) i << CHUNK_SHIFT;
+			long size = Math.min(length - start, 1L << CHUNK_SHIFT);
+			chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + 8 * start, 8 * size).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		}
+	}
+
+	/**
+	 * Get the {@code i}th element.
+	 */
+	public double get(long i)
+	{
+		return chunks[(int) (i >>> CHUNK_SHIFT)].get((int) (i & CHUNK_MASK));
+	}
+
+	/**
+	 * Get the number of elements.
+	 */
+	public long length()
+	{
+		return length;
+	}
+}
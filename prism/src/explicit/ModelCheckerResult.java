@@ -48,6 +48,8 @@ public class ModelCheckerResult
 	public double timeProb0 = 0.0;
 	// Strategy
 	public Strategy strat = null;
+	// Guaranteed bound on the (absolute) error of the solution vector, if known (otherwise NaN)
+	public double errorBound = Double.NaN;
 
 	/**
 	 * Clear all stored data, including setting of array pointers to null
@@ -58,5 +60,6 @@ public class ModelCheckerResult
 		soln = lastSoln = null;
 		numIters = 0;
 		timeTaken = timePre = timeProb0 = 0.0;
+		errorBound = Double.NaN;
 	}
 }
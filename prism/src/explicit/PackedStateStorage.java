@@ -0,0 +1,526 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import parser.State;
+import parser.VarList;
+import parser.type.TypeBool;
+
+/**
+ * Class storing an indexed set of states, where each state is bit-packed into
+ * one or more long words, using the variable ranges given by a {@link VarList}.
+ * States are stored contiguously (in order of addition) in a single long array
+ * and indexed by an open-addressing hash table of ints, so no per-state objects
+ * are created. State objects are only created when explicitly requested.
+ * <p>
+ * This can only be used if all variables are bounded. Adding a state in which
+ * some variable is outside its declared range results in an IllegalArgumentException.
+ * <p>
+ * Variables are packed in order, most significant bits first, with the top bit of
+ * each word left unused. So comparing packed words lexicographically (as signed longs)
+ * gives the same ordering as {@link State#compareTo(State)}.
+ */
+public class PackedStateStorage implements StateStorage<State>
+{
+	// Variable info
+	protected VarList varList;
+	protected int numVars;
+	// Packing info (for each variable): word index, shift, low value, is it Boolean?
+	protected int varWord[];
+	protected int varShift[];
+	protected long varMask[];
+	protected int varLow[];
+	protected boolean varBool[];
+	// Number of words per state
+	protected int numWords;
+
+	// Packed states: state i is stored in words i*numWords...(i+1)*numWords-1
+	protected long data[];
+	// Number of states stored
+	protected int size;
+	// Hash table: entries are (state index + 1), with 0 denoting an empty slot
+	protected int table[];
+	protected int tableMask;
+	// Index of last add
+	protected int indexOfLastAdd;
+	// Scratch space for encoding states
+	protected long buf[];
+
+	/**
+	 * Constructor: create empty storage for states over the variables in {@code varList}.
+	 */
+	public PackedStateStorage(VarList varList)
+	{
+		this(varList, 1024);
+	}
+
+	/**
+	 * Constructor: create empty storage for states over the variables in {@code varList},
+	 * with initial space for {@code initialCapacity} states.
+	 */
+	public PackedStateStorage(VarList varList, int initialCapacity)
+	{
+		int i, bits, word, free;
+
+		this.varList = varList;
+		numVars = varList.getNumVars();
+		varWord = new int[numVars];
+		varShift = new int[numVars];
+		varMask = new long[numVars];
+		varLow = new int[numVars];
+		varBool = new boolean[numVars];
+		// Allocate variables to words (63 usable bits per word)
+		word = 0;
+		free = 63;
+		for (i = 0; i < numVars; i++) {
+			bits = Math.max(1, varList.getRangeLogTwo(i));
+			if (bits > free) {
+				word++;
+				free = 63;
+			}
+			free -= bits;
+			varWord[i] = word;
+			varShift[i] = free;
+			varMask[i] = (1L << bits) - 1;
+			varLow[i] = varList.getLow(i);
+			varBool[i] = varList.getType(i) instanceof TypeBool;
+		}
+		numWords = word + 1;
+		buf = new long[numWords];
+		initialCapacity = Math.max(16, initialCapacity);
+		data = new long[initialCapacity * numWords];
+		table = new int[Integer.highestOneBit(initialCapacity - 1) << 2];
+		tableMask = table.length - 1;
+		size = 0;
+		indexOfLastAdd = -1;
+	}
+
+	/**
+	 * Get the number of long words used to store each state.
+	 */
+	public int getNumWords()
+	{
+		return numWords;
+	}
+
+	/**
+	 * Get the {@code i}th state added (as a newly created State object).
+	 */
+	public State getState(int i)
+	{
+		return decode(data, i * numWords);
+	}
+
+	@Override
+	public int get(State state)
+	{
+		encode(state, buf, 0);
+		return getPacked(buf, 0);
+	}
+
+	@Override
+	public boolean add(State state)
+	{
+		encode(state, buf, 0);
+		return addPacked(buf, 0);
+	}
+
+	/**
+	 * Get the index of a state, given in packed form (see {@link #encode(State, long[], int)})
+	 * in {@code words} from index {@code offset}. Returns -1 if the state is not stored.
+	 * This does not modify the storage, so it can safely be called concurrently
+	 * from multiple threads, as long as there are no concurrent calls to methods that add states.
+	 */
+	public int getPacked(long words[], int offset)
+	{
+		return table[findSlot(words, offset)] - 1;
+	}
+
+	/**
+	 * Add a state, given in packed form (see {@link #encode(State, long[], int)})
+	 * in {@code words} from index {@code offset}. Returns true if the state was not already present.
+	 * Either way, its index can then be obtained with {@link #getIndexOfLastAdd()}.
+	 */
+	public boolean addPacked(long words[], int offset)
+	{
+		int slot = findSlot(words, offset);
+		if (table[slot] != 0) {
+			indexOfLastAdd = table[slot] - 1;
+			return false;
+		}
+		// New state: copy into data array
+		if ((long) (size + 1) * numWords > data.length) {
+			long newLength = Math.max(data.length + (data.length >> 1), (long) (size + 1) * numWords);
+			if (newLength > Integer.MAX_VALUE - 8)
+				throw new IllegalArgumentException("Too many states for packed state storage");
+			long dataNew[] = new long[(int) newLength];
+			System.arraycopy(data, 0, dataNew, 0, size * numWords);
+			data = dataNew;
+		}
+		System.arraycopy(words, offset, data, size * numWords, numWords);
+		table[slot] = size + 1;
+		indexOfLastAdd = size;
+		size++;
+		// Keep load factor at most 1/2
+		if (size > (table.length >> 1)) {
+			rehash(table.length << 1);
+		}
+		return true;
+	}
+
+	@Override
+	public void clear()
+	{
+		data = new long[16 * numWords];
+		table = new int[64];
+		tableMask = table.length - 1;
+		size = 0;
+		indexOfLastAdd = -1;
+	}
+
+	@Override
+	public boolean contains(State state)
+	{
+		return get(state) != -1;
+	}
+
+	@Override
+	public int getIndexOfLastAdd()
+	{
+		return indexOfLastAdd;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Get access to the underlying set of map entries.
+	 * Note: this creates State objects for all stored states.
+	 */
+	@Override
+	public Set<Map.Entry<State, Integer>> getEntrySet()
+	{
+		Map<State, Integer> map = new HashMap<State, Integer>(size);
+		for (int i = 0; i < size; i++) {
+			map.put(getState(i), i);
+		}
+		return map.entrySet();
+	}
+
+	@Override
+	public ArrayList<State> toArrayList()
+	{
+		ArrayList<State> list = new ArrayList<State>(size);
+		toArrayList(list);
+		return list;
+	}
+
+	@Override
+	public void toArrayList(ArrayList<State> list)
+	{
+		for (int i = 0; i < size; i++) {
+			list.add(getState(i));
+		}
+	}
+
+	@Override
+	public ArrayList<State> toPermutedArrayList(int permut[])
+	{
+		ArrayList<State> list = new ArrayList<State>(size);
+		toPermutedArrayList(permut, list);
+		return list;
+	}
+
+	@Override
+	public void toPermutedArrayList(int permut[], ArrayList<State> list)
+	{
+		int i;
+		for (i = 0; i < size; i++)
+			list.add(null);
+		for (i = 0; i < size; i++) {
+			list.set(permut[i], getState(i));
+		}
+	}
+
+	/**
+	 * Create a (read-only) list of the states, ordered by permuted index,
+	 * which stores states in packed form and only creates State objects when they are accessed.
+	 * Index in new list is permut[old_index]. If {@code permut} is null, the original ordering is kept.
+	 * This storage is cleared afterwards (its memory is re-used for the list).
+	 * @param permut Permutation to apply (or null)
+	 */
+	public List<State> toPackedListAndClear(int permut[])
+	{
+		long words[];
+		int i;
+
+		// Discard hash table first, to reduce peak memory usage
+		table = null;
+		words = new long[size * numWords];
+		if (permut == null) {
+			System.arraycopy(data, 0, words, 0, size * numWords);
+		} else {
+			for (i = 0; i < size; i++) {
+				System.arraycopy(data, i * numWords, words, permut[i] * numWords, numWords);
+			}
+		}
+		PackedList list = new PackedList(words, size);
+		clear();
+		return list;
+	}
+
+	/**
+	 * Build sort permutation. This returns a permutation (integer array) mapping
+	 * current indices to new indices under the ordering of {@link State#compareTo(State)}.
+	 */
+	@Override
+	public int[] buildSortingPermutation()
+	{
+		int i, order[], perm[];
+
+		// Sort state indices (merge sort, to avoid boxing)
+		order = new int[size];
+		for (i = 0; i < size; i++)
+			order[i] = i;
+		mergeSort(order, new int[size], 0, size);
+		// Invert to get permutation
+		perm = new int[size];
+		for (i = 0; i < size; i++)
+			perm[order[i]] = i;
+
+		return perm;
+	}
+
+	@Override
+	public String toString()
+	{
+		String s = "[";
+		for (int i = 0; i < size; i++) {
+			if (i > 0)
+				s += ", ";
+			s += getState(i) + "=" + i;
+		}
+		return s + "]";
+	}
+
+	/**
+	 * Pack a state into {@code words}, starting from index {@code offset}
+	 * (using {@link #getNumWords()} words). This does not modify the storage,
+	 * so it can safely be called concurrently from multiple threads.
+	 * Throws an IllegalArgumentException if some variable value is out of range.
+	 */
+	public void encode(State state, long words[], int offset)
+	{
+		int i, w;
+		long v;
+		Object o;
+
+		for (w = 0; w < numWords; w++)
+			words[offset + w] = 0L;
+		for (i = 0; i < numVars; i++) {
+			o = state.varValues[i];
+			if (varBool[i]) {
+				v = ((Boolean) o).booleanValue() ? 1 : 0;
+			} else {
+				v = (long) ((Integer) o).intValue() - varLow[i];
+				if (v < 0 || v > varList.getHigh(i) - varLow[i]) {
+					throw new IllegalArgumentException("Value of variable " + varList.getName(i) + " overflows (" + o + " is outside its range " + varLow[i] + ".." + varList.getHigh(i) + ")");
+				}
+			}
+			words[offset + varWord[i]] |= v << varShift[i];
+		}
+	}
+
+	// Local utility methods
+
+	/**
+	 * Unpack a state, stored in {@code words} from index {@code offset}, to a new State object.
+	 */
+	private State decode(long words[], int offset)
+	{
+		int i, v;
+		State state = new State(numVars);
+		for (i = 0; i < numVars; i++) {
+			v = (int) ((words[offset + varWord[i]] >>> varShift[i]) & varMask[i]);
+			state.varValues[i] = varBool[i] ? Boolean.valueOf(v != 0) : Integer.valueOf(v + varLow[i]);
+		}
+		return state;
+	}
+
+	/**
+	 * Compute a hash code for the packed state stored in {@code words} from index {@code offset}.
+	 */
+	private int hash(long words[], int offset)
+	{
+		long h = 0;
+		for (int w = 0; w < numWords; w++) {
+			h = (h ^ words[offset + w]) * 0x9E3779B97F4A7C15L;
+		}
+		// Final mixing step (as in MurmurHash3), since packed values occupy the high bits
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+
+	/**
+	 * Find the hash table slot for the packed state stored in {@code words} from index {@code offset}:
+	 * either the slot containing this state, or the (empty) slot where it should be inserted.
+	 */
+	private int findSlot(long words[], int offset)
+	{
+		int slot, entry;
+		slot = hash(words, offset) & tableMask;
+		while ((entry = table[slot]) != 0) {
+			if (equalsStored(words, offset, entry - 1))
+				return slot;
+			slot = (slot + 1) & tableMask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Check if the packed state in {@code words} from index {@code offset} equals the {@code i}th stored state.
+	 */
+	private boolean equalsStored(long words[], int offset, int i)
+	{
+		int base = i * numWords;
+		for (int w = 0; w < numWords; w++) {
+			if (words[offset + w] != data[base + w])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Rebuild the hash table with a new size (a power of 2).
+	 */
+	private void rehash(int newSize)
+	{
+		int i, slot;
+		table = new int[newSize];
+		tableMask = newSize - 1;
+		for (i = 0; i < size; i++) {
+			slot = hash(data, i * numWords) & tableMask;
+			while (table[slot] != 0)
+				slot = (slot + 1) & tableMask;
+			table[slot] = i + 1;
+		}
+	}
+
+	/**
+	 * Compare the {@code i}th and {@code j}th stored states.
+	 */
+	private int compareStored(int i, int j)
+	{
+		int bi = i * numWords, bj = j * numWords;
+		for (int w = 0; w < numWords; w++) {
+			int c = Long.compare(data[bi + w], data[bj + w]);
+			if (c != 0)
+				return c;
+		}
+		return 0;
+	}
+
+	/**
+	 * Sort (stably) the state indices in {@code a[lo...hi-1]}, using {@code tmp} as scratch space.
+	 */
+	private void mergeSort(int a[], int tmp[], int lo, int hi)
+	{
+		int i, j, k, mid;
+		if (hi - lo < 16) {
+			// Insertion sort for small ranges
+			for (i = lo + 1; i < hi; i++) {
+				k = a[i];
+				for (j = i - 1; j >= lo && compareStored(a[j], k) > 0; j--)
+					a[j + 1] = a[j];
+				a[j + 1] = k;
+			}
+			return;
+		}
+		mid = (lo + hi) >>> 1;
+		mergeSort(a, tmp, lo, mid);
+		mergeSort(a, tmp, mid, hi);
+		if (compareStored(a[mid - 1], a[mid]) <= 0)
+			return;
+		System.arraycopy(a, lo, tmp, lo, hi - lo);
+		i = lo;
+		j = mid;
+		for (k = lo; k < hi; k++) {
+			if (j >= hi || (i < mid && compareStored(tmp[i], tmp[j]) <= 0))
+				a[k] = tmp[i++];
+			else
+				a[k] = tmp[j++];
+		}
+	}
+
+	/**
+	 * Read-only list of states, stored in packed form.
+	 */
+	protected class PackedList extends AbstractList<State> implements RandomAccess
+	{
+		private long words[];
+		private int n;
+
+		public PackedList(long words[], int n)
+		{
+			this.words = words;
+			this.n = n;
+		}
+
+		@Override
+		public State get(int i)
+		{
+			if (i < 0 || i >= n)
+				throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + n);
+			return decode(words, i * numWords);
+		}
+
+		@Override
+		public int size()
+		{
+			return n;
+		}
+	}
+}
@@ -0,0 +1,442 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import parser.State;
+import parser.VarList;
+import parser.ast.ModulesFile;
+import prism.PrismComponent;
+import prism.PrismException;
+import simulator.Choice;
+import simulator.TransitionList;
+import simulator.Updater;
+
+/**
+ * Multi-threaded exploration of the outgoing transitions of states
+ * stored in a {@link PackedStateStorage}, used by {@link ConstructModel}.
+ * <p>
+ * States are explored in batches (contiguous ranges of state indices).
+ * Each batch is split into chunks, which are processed by a (work-stealing)
+ * fork-join pool, each thread using its own {@link Updater} and {@link TransitionList}.
+ * Successor states are packed and looked up in the state storage concurrently
+ * (the storage is not modified while a batch is being explored). The resulting
+ * {@link Batch} is then processed sequentially by the caller, in order of state index,
+ * adding any new states to the storage. Hence, state indices are assigned in exactly
+ * the same (breadth-first) order as for sequential exploration.
+ */
+public class ParallelStateExplorer extends PrismComponent
+{
+	/** Number of states in each chunk of work */
+	private static final int CHUNK_SIZE = 256;
+	/** Maximum number of states explored in one batch */
+	private static final int MAX_BATCH_SIZE = 1 << 16;
+
+	// Model info
+	private ModulesFile modulesFile;
+	private VarList varList;
+	private PackedStateStorage states;
+	private int numWords;
+	// Thread pool
+	private int numThreads;
+	private ForkJoinPool pool;
+	// Per-thread workers (and a list of all of them)
+	private ThreadLocal<Worker> workers;
+	private List<Worker> allWorkers = Collections.synchronizedList(new ArrayList<Worker>());
+
+	/**
+	 * Create a new explorer for states of a model.
+	 * Note: All constants in the model must have already been defined.
+	 * @param parent Parent component (for settings, log)
+	 * @param modulesFile The model
+	 * @param states Storage for states (in which all states to be explored are stored)
+	 * @param numThreads Number of threads to use
+	 */
+	public ParallelStateExplorer(PrismComponent parent, ModulesFile modulesFile, PackedStateStorage states, int numThreads) throws PrismException
+	{
+		super(parent);
+		this.varList = modulesFile.createVarList();
+		// Evaluate constants and optimise (a copy of) modules file (as done by the simulator)
+		this.modulesFile = (ModulesFile) modulesFile.deepCopy().replaceConstants(modulesFile.getConstantValues()).simplify();
+		this.states = states;
+		this.numWords = states.getNumWords();
+		this.numThreads = numThreads;
+		pool = new ForkJoinPool(numThreads);
+		final ParallelStateExplorer explorer = this;
+		workers = new ThreadLocal<Worker>()
+		{
+			@Override
+			protected Worker initialValue()
+			{
+				return explorer.new Worker();
+			}
+		};
+	}
+
+	/**
+	 * Get the number of threads used.
+	 */
+	public int getNumThreads()
+	{
+		return numThreads;
+	}
+
+	/**
+	 * Explore (in parallel) the states with indices from {@code first} (inclusive)
+	 * to {@code last} (exclusive), or some non-empty prefix of this range if it is large.
+	 * The states should already be stored, and the storage should not be modified
+	 * until this method returns.
+	 */
+	public Batch exploreBatch(int first, int last) throws PrismException
+	{
+		int numChunks;
+		last = Math.min(last, first + MAX_BATCH_SIZE);
+		numChunks = (last - first + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		Batch batch = new Batch(first, last, numChunks);
+		try {
+			pool.invoke(new ChunkTask(batch, 0, numChunks));
+		} catch (ExplorationException e) {
+			throw e.getPrismException();
+		}
+		return batch;
+	}
+
+	/**
+	 * Get the total number of command guards evaluated by all threads.
+	 */
+	public long getNumGuardsEvaluated()
+	{
+		long n = 0;
+		synchronized (allWorkers) {
+			for (Worker worker : allWorkers) {
+				n += worker.updater.getNumGuardsEvaluated();
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Get the total number of command guard evaluations skipped (thanks to the guard index) by all threads.
+	 */
+	public long getNumGuardsSkipped()
+	{
+		long n = 0;
+		synchronized (allWorkers) {
+			for (Worker worker : allWorkers) {
+				n += worker.updater.getNumGuardsSkipped();
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Shut down the thread pool.
+	 */
+	public void close()
+	{
+		pool.shutdown();
+	}
+
+	/**
+	 * Result of exploring a batch of states: for each state, its choices and,
+	 * for each choice, its transitions (probability/rate and successor state).
+	 * States are indexed locally (from 0) within the batch, choices and transitions
+	 * are indexed locally within each state/choice, respectively.
+	 */
+	public class Batch
+	{
+		private int first;
+		private int last;
+		private Chunk chunks[];
+		// Chunk/index for the current state (cached for sequential access)
+		private int currentState = -1;
+		private Chunk currentChunk;
+		private int currentChunkState;
+
+		private Batch(int first, int last, int numChunks)
+		{
+			this.first = first;
+			this.last = last;
+			chunks = new Chunk[numChunks];
+		}
+
+		/**
+		 * Get the number of states in this batch.
+		 */
+		public int getNumStates()
+		{
+			return last - first;
+		}
+
+		/**
+		 * Get the (global) index of the first state in this batch.
+		 */
+		public int getFirstState()
+		{
+			return first;
+		}
+
+		/**
+		 * Get the number of choices for the {@code s}th state of the batch.
+		 */
+		public int getNumChoices(int s)
+		{
+			select(s);
+			return currentChunk.choiceStarts[currentChunkState + 1] - currentChunk.choiceStarts[currentChunkState];
+		}
+
+		/**
+		 * Get the action label of the {@code i}th choice of the {@code s}th state of the batch
+		 * (null for asynchronous/independent transitions).
+		 */
+		public String getChoiceAction(int s, int i)
+		{
+			select(s);
+			int a = currentChunk.actions[currentChunk.choiceStarts[currentChunkState] + i];
+			return a < 0 ? null : modulesFile.getSynch(a - 1);
+		}
+
+		/**
+		 * Get the number of transitions in the {@code i}th choice of the {@code s}th state of the batch.
+		 */
+		public int getNumTransitions(int s, int i)
+		{
+			select(s);
+			int c = currentChunk.choiceStarts[currentChunkState] + i;
+			return currentChunk.transStarts[c + 1] - currentChunk.transStarts[c];
+		}
+
+		/**
+		 * Get the probability/rate of the {@code j}th transition of the {@code i}th choice of the {@code s}th state of the batch.
+		 */
+		public double getTransitionProbability(int s, int i, int j)
+		{
+			int t = transitionIndex(s, i, j);
+			return currentChunk.probs[t];
+		}
+
+		/**
+		 * Get the index of the target of the {@code j}th transition of the {@code i}th choice
+		 * of the {@code s}th state of the batch. If the state was not yet stored when the batch
+		 * was explored, it is added to the state storage now; then, the return value is
+		 * negated (and offset by one), i.e. it is -(index+1) where index is the new state's index.
+		 * Note: this is not thread-safe and should only be called from a single thread.
+		 */
+		public int addTransitionTarget(int s, int i, int j)
+		{
+			int t = transitionIndex(s, i, j);
+			int dest = currentChunk.targets[t];
+			if (dest >= 0)
+				return dest;
+			boolean isNew = states.addPacked(currentChunk.targetWords, t * numWords);
+			dest = states.getIndexOfLastAdd();
+			return isNew ? -(dest + 1) : dest;
+		}
+
+		private int transitionIndex(int s, int i, int j)
+		{
+			select(s);
+			return currentChunk.transStarts[currentChunk.choiceStarts[currentChunkState] + i] + j;
+		}
+
+		private void select(int s)
+		{
+			if (s != currentState) {
+				currentState = s;
+				currentChunk = chunks[s / CHUNK_SIZE];
+				currentChunkState = s % CHUNK_SIZE;
+			}
+		}
+	}
+
+	/**
+	 * Storage for the result of exploring one chunk of states,
+	 * in compressed row form (with growable arrays).
+	 */
+	private class Chunk
+	{
+		// Start of choices for each state (plus one extra entry)
+		int choiceStarts[];
+		// Action/module index for each choice
+		int actions[];
+		// Start of transitions for each choice (plus one extra entry)
+		int transStarts[];
+		// Probability/rate of each transition
+		double probs[];
+		// Index of target state for each transition (-1 if not yet stored)
+		int targets[];
+		// Target states (packed) for each transition (only used if index is -1)
+		long targetWords[];
+		// Counts
+		int numChoices;
+		int numTransitions;
+
+		Chunk(int numStates)
+		{
+			choiceStarts = new int[numStates + 1];
+			actions = new int[numStates];
+			transStarts = new int[numStates + 1];
+			probs = new double[numStates * 2];
+			targets = new int[numStates * 2];
+			targetWords = new long[numStates * 2 * numWords];
+		}
+
+		void addChoice(int action)
+		{
+			if (numChoices >= actions.length) {
+				actions = Arrays.copyOf(actions, actions.length * 2);
+				transStarts = Arrays.copyOf(transStarts, actions.length + 1);
+			}
+			actions[numChoices] = action;
+			transStarts[numChoices] = numTransitions;
+			numChoices++;
+			transStarts[numChoices] = numTransitions;
+		}
+
+		/** Add a transition, returning the offset in {@code targetWords} for its target. */
+		int addTransition(double prob)
+		{
+			if (numTransitions >= probs.length) {
+				probs = Arrays.copyOf(probs, probs.length * 2);
+				targets = Arrays.copyOf(targets, targets.length * 2);
+				targetWords = Arrays.copyOf(targetWords, targetWords.length * 2);
+			}
+			probs[numTransitions] = prob;
+			numTransitions++;
+			transStarts[numChoices] = numTransitions;
+			return (numTransitions - 1) * numWords;
+		}
+	}
+
+	/**
+	 * Per-thread storage for exploring states.
+	 */
+	private class Worker
+	{
+		Updater updater;
+		TransitionList transitionList;
+		State target;
+
+		Worker()
+		{
+			updater = new Updater(modulesFile, varList, ParallelStateExplorer.this);
+			transitionList = new TransitionList();
+			target = new State(varList.getNumVars());
+			allWorkers.add(this);
+		}
+
+		/**
+		 * Explore states with indices {@code first}...{@code last-1}, storing the result in a new Chunk.
+		 */
+		Chunk explore(int first, int last) throws PrismException
+		{
+			Chunk chunk = new Chunk(last - first);
+			int s, i, j, nc, nt, offset;
+			for (s = first; s < last; s++) {
+				State state = states.getState(s);
+				updater.calculateTransitions(state, transitionList);
+				nc = transitionList.getNumChoices();
+				for (i = 0; i < nc; i++) {
+					Choice choice = transitionList.getChoice(i);
+					chunk.addChoice(choice.getModuleOrActionIndex());
+					nt = choice.size();
+					for (j = 0; j < nt; j++) {
+						offset = chunk.addTransition(choice.getProbability(j));
+						target.copy(state);
+						choice.computeTarget(j, state, target);
+						try {
+							states.encode(target, chunk.targetWords, offset);
+						} catch (IllegalArgumentException e) {
+							throw new PrismException("Could not add state " + target + " during model construction: " + e.getMessage());
+						}
+						chunk.targets[chunk.numTransitions - 1] = states.getPacked(chunk.targetWords, offset);
+					}
+				}
+				chunk.choiceStarts[s - first + 1] = chunk.numChoices;
+			}
+			return chunk;
+		}
+	}
+
+	/**
+	 * Fork-join task to explore a range of chunks of a batch.
+	 */
+	private class ChunkTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private Batch batch;
+		private int lo;
+		private int hi;
+
+		ChunkTask(Batch batch, int lo, int hi)
+		{
+			this.batch = batch;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new ChunkTask(batch, lo, mid), new ChunkTask(batch, mid, hi));
+				return;
+			}
+			int first = batch.first + lo * CHUNK_SIZE;
+			int last = Math.min(batch.last, first + CHUNK_SIZE);
+			try {
+				batch.chunks[lo] = workers.get().explore(first, last);
+			} catch (PrismException e) {
+				throw new ExplorationException(e);
+			}
+		}
+	}
+
+	/**
+	 * Unchecked wrapper for a PrismException thrown during exploration by a worker thread.
+	 */
+	private static class ExplorationException extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		ExplorationException(PrismException e)
+		{
+			super(e);
+		}
+
+		PrismException getPrismException()
+		{
+			return (PrismException) getCause();
+		}
+	}
+}
@@ -0,0 +1,251 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import prism.PrismUtils;
+import explicit.rewards.MDPRewards;
+
+/**
+ * Class to perform Jacobi-style value iteration steps (matrix-vector multiplication,
+ * with min/max over choices) for an MDP in parallel, using a fork-join pool.
+ * <p>
+ * The set of states to be updated is split into contiguous blocks of state indices,
+ * each with roughly the same amount of work (for an {@link MDPSparse}, measured by the number
+ * of transitions, using its row-contiguous storage), and the blocks are processed concurrently.
+ * Since each state's new value depends only on the previous solution vector, the result
+ * is identical to that of a sequential iteration. The check for convergence is done
+ * within the same pass over the states.
+ * <p>
+ * Call {@link #close()} once finished, to release the threads.
+ */
+public class ParallelValIter
+{
+	/** Number of blocks to create per thread (to help balance the load) */
+	private static final int BLOCKS_PER_THREAD = 8;
+
+	// MDP and set of states to update
+	private MDP mdp;
+	private BitSet subset;
+	// Block i comprises states (in subset) blockStarts[i]...blockStarts[i+1]-1
+	private int blockStarts[];
+	private int numBlocks;
+	// Pool of threads
+	private ForkJoinPool pool;
+
+	// Info for the current iteration
+	private double vect[];
+	private double result[];
+	private MDPRewards mdpRewards;
+	private boolean min;
+	private int strat[];
+	private double termCritParam;
+	private boolean absolute;
+
+	/**
+	 * Create a new ParallelValIter for (repeated) value iteration steps on MDP {@code mdp},
+	 * updating the states in {@code subset}, using {@code numThreads} threads.
+	 */
+	public ParallelValIter(MDP mdp, BitSet subset, int numThreads)
+	{
+		this.mdp = mdp;
+		this.subset = subset;
+		pool = new ForkJoinPool(numThreads);
+		computeBlocks(numThreads * BLOCKS_PER_THREAD);
+	}
+
+	/**
+	 * Get the number of threads used.
+	 */
+	public int getNumThreads()
+	{
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Do a matrix-vector multiplication followed by min/max, i.e. one step of value iteration,
+	 * i.e. for all states s in the subset: result[s] = min/max_k { sum_j P_k(s,j)*vect[j] }.
+	 * Optionally, store optimal (memoryless) strategy info (as for {@link MDP#mvMultMinMax}).
+	 * Returns true if, for all states, the old and new values are within {@code termCritParam}
+	 * of each other (as for {@link PrismUtils#doublesAreClose(double[], double[], double, boolean)}).
+	 * @param vect Vector to multiply by
+	 * @param min Min or max for (true=min, false=max)
+	 * @param result Vector to store result in
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * @param termCritParam Convergence threshold
+	 * @param absolute Absolute (true) or relative (false) convergence check
+	 */
+	public boolean mvMultMinMax(double vect[], boolean min, double result[], int strat[], double termCritParam, boolean absolute)
+	{
+		return iterate(vect, null, min, result, strat, termCritParam, absolute);
+	}
+
+	/**
+	 * Do a matrix-vector multiplication and sum of action reward followed by min/max,
+	 * i.e. one step of value iteration for expected rewards,
+	 * i.e. for all states s in the subset: result[s] = min/max_k { rew(s) + rew_k(s) + sum_j P_k(s,j)*vect[j] }.
+	 * Optionally, store optimal (memoryless) strategy info (as for {@link MDP#mvMultRewMinMax}).
+	 * Returns true if, for all states, the old and new values are within {@code termCritParam}
+	 * of each other (as for {@link PrismUtils#doublesAreClose(double[], double[], double, boolean)}).
+	 * @param vect Vector to multiply by
+	 * @param mdpRewards The rewards
+	 * @param min Min or max for (true=min, false=max)
+	 * @param result Vector to store result in
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * @param termCritParam Convergence threshold
+	 * @param absolute Absolute (true) or relative (false) convergence check
+	 */
+	public boolean mvMultRewMinMax(double vect[], MDPRewards mdpRewards, boolean min, double result[], int strat[], double termCritParam, boolean absolute)
+	{
+		return iterate(vect, mdpRewards, min, result, strat, termCritParam, absolute);
+	}
+
+	/**
+	 * Release the threads used. This object should not be used afterwards.
+	 */
+	public void close()
+	{
+		pool.shutdown();
+	}
+
+	// Local utility methods
+
+	/**
+	 * Split the states in the subset into (at most) {@code maxBlocks} blocks of roughly equal work.
+	 */
+	private void computeBlocks(int maxBlocks)
+	{
+		int s, n;
+		long totalWork, work, target;
+
+		n = mdp.getNumStates();
+		// Compute total work
+		totalWork = 0;
+		for (s = subset.nextSetBit(0); s >= 0 && s < n; s = subset.nextSetBit(s + 1)) {
+			totalWork += getWork(s);
+		}
+		// Split into blocks
+		blockStarts = new int[maxBlocks + 1];
+		numBlocks = 0;
+		work = 0;
+		target = Math.max(1, (totalWork + maxBlocks - 1) / maxBlocks);
+		for (s = subset.nextSetBit(0); s >= 0 && s < n; s = subset.nextSetBit(s + 1)) {
+			// Start a new block if the current one has enough work
+			if (numBlocks == 0 || (work >= target && numBlocks < maxBlocks)) {
+				blockStarts[numBlocks++] = s;
+				work = 0;
+			}
+			work += getWork(s);
+		}
+		blockStarts[numBlocks] = n;
+	}
+
+	/**
+	 * Get an estimate of the work required to update state {@code s}.
+	 */
+	private long getWork(int s)
+	{
+		if (mdp instanceof MDPSparse) {
+			MDPSparse mdpSparse = (MDPSparse) mdp;
+			return 1 + mdpSparse.getChoiceStart(mdpSparse.getRowStart(s + 1)) - mdpSparse.getChoiceStart(mdpSparse.getRowStart(s));
+		}
+		return 1 + mdp.getNumChoices(s);
+	}
+
+	/**
+	 * Do one iteration (over all blocks, in parallel) and return true if converged.
+	 */
+	private boolean iterate(double vect[], MDPRewards mdpRewards, boolean min, double result[], int strat[], double termCritParam, boolean absolute)
+	{
+		this.vect = vect;
+		this.mdpRewards = mdpRewards;
+		this.min = min;
+		this.result = result;
+		this.strat = strat;
+		this.termCritParam = termCritParam;
+		this.absolute = absolute;
+		if (numBlocks == 0)
+			return true;
+		return pool.invoke(new BlockTask(0, numBlocks));
+	}
+
+	/**
+	 * Process block {@code b} and return true if all its states have converged.
+	 */
+	private boolean doBlock(int b)
+	{
+		int s, hi;
+		double d;
+		boolean done = true;
+
+		hi = blockStarts[b + 1];
+		for (s = blockStarts[b]; s >= 0 && s < hi; s = subset.nextSetBit(s + 1)) {
+			if (mdpRewards == null) {
+				d = mdp.mvMultMinMaxSingle(s, vect, min, strat);
+			} else {
+				d = mdp.mvMultRewMinMaxSingle(s, vect, mdpRewards, min, strat);
+			}
+			result[s] = d;
+			if (done && !PrismUtils.doublesAreClose(vect[s], d, termCritParam, absolute)) {
+				done = false;
+			}
+		}
+		return done;
+	}
+
+	/**
+	 * Fork-join task which processes blocks lo...hi-1,
+	 * returning true if all their states have converged.
+	 */
+	private class BlockTask extends RecursiveTask<Boolean>
+	{
+		private static final long serialVersionUID = 1L;
+		private int lo;
+		private int hi;
+
+		public BlockTask(int lo, int hi)
+		{
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Boolean compute()
+		{
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				BlockTask left = new BlockTask(lo, mid);
+				left.fork();
+				boolean doneRight = new BlockTask(mid, hi).compute();
+				return left.join() & doneRight;
+			}
+			return doBlock(lo);
+		}
+	}
+}
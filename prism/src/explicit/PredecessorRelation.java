@@ -26,14 +26,12 @@
 
 package explicit;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Stack;
+import java.util.NoSuchElementException;
 
 import prism.PrismComponent;
-import common.IterableBitSet;
 
 /**
  * A class for storing and accessing the predecessor relation of an explicit Model.
@@ -41,15 +39,22 @@ import common.IterableBitSet;
  * As Model only provide easy access to successors of states,
  * the predecessor relation is computed and stored for subsequent efficient access.
  * <p>
+ * The relation is stored compactly (in CSR style): the predecessors of state {@code s}
+ * are {@code preds[predStarts[s]...predStarts[s+1]-1]}. These can be accessed
+ * either via an iterator over primitive ints ({@link #getPredecessorsIterator(int)})
+ * or, most efficiently, via an index range ({@link #getPredecessorsStart(int)},
+ * {@link #getPredecessorsEnd(int)} and {@link #getPredecessor(int)}).
+ * <p>
  * Note: Naturally, if the model changes, the predecessor relation
  * has to be recomputed to remain accurate.
  */
 public class PredecessorRelation
 {
 	/**
-	 * pre[i] provides the list of predecessors of state with index i.
+	 * Predecessors of the state with index i are preds[predStarts[i]...predStarts[i+1]-1].
 	 */
-	List<ArrayList<Integer>> pre;
+	private int predStarts[];
+	private int preds[];
 
 	/**
 	 * Constructor. Computes the predecessor relation for the given model
@@ -59,31 +64,36 @@ public class PredecessorRelation
 	 */
 	public PredecessorRelation(Model model)
 	{
-		pre = new ArrayList<ArrayList<Integer>>(model.getNumStates());
-		// construct the (empty) array list for all states
-		for (int s = 0; s < model.getNumStates(); s++) {
-			pre.add(s, new ArrayList<Integer>());
-		}
-
 		compute(model);
 	}
 
-	/** Compute the predecessor relation using getSuccessorsIterator. */
+	/**
+	 * Compute the predecessor relation using getSuccessorsIterator,
+	 * in two passes: first counting the predecessors of each state, then storing them.
+	 */
 	private void compute(Model model)
 	{
 		int n = model.getNumStates();
 
+		// As getSuccessorsIterator guarantees that there are
+		// no duplicates in the successors, each predecessor is stored exactly once.
+		predStarts = new int[n + 1];
+		for (int s = 0; s < n; s++) {
+			Iterator<Integer> it = model.getSuccessorsIterator(s);
+			while (it.hasNext()) {
+				predStarts[it.next() + 1]++;
+			}
+		}
+		for (int s = 0; s < n; s++) {
+			predStarts[s + 1] += predStarts[s];
+		}
+		preds = new int[predStarts[n]];
+		int fill[] = Arrays.copyOf(predStarts, n);
 		for (int s = 0; s < n; s++) {
 			Iterator<Integer> it = model.getSuccessorsIterator(s);
 			while (it.hasNext()) {
-				Integer successor = it.next();
-
-				// Add the current state s to pre[successor].
-				//
-				// As getSuccessorsIterator guarantees that
-				// there are no duplicates in the successors,
-				// s will be added to successor exactly once.
-				pre.get(successor).add(s);
+				// Add the current state s to the predecessors of the successor
+				preds[fill[it.next()]++] = s;
 			}
 		}
 	}
@@ -91,9 +101,16 @@ public class PredecessorRelation
 	/**
 	 * Get an Iterable over the predecessor states of {@code s}.
 	 */
-	public Iterable<Integer> getPre(int s)
+	public Iterable<Integer> getPre(final int s)
 	{
-		return pre.get(s);
+		return new Iterable<Integer>()
+		{
+			@Override
+			public Iterator<Integer> iterator()
+			{
+				return getPredecessorsIterator(s);
+			}
+		};
 	}
 
 	/**
@@ -101,7 +118,67 @@ public class PredecessorRelation
 	 */
 	public Iterator<Integer> getPredecessorsIterator(int s)
 	{
-		return pre.get(s).iterator();
+		final int start = predStarts[s];
+		final int end = predStarts[s + 1];
+		return new Iterator<Integer>()
+		{
+			private int i = start;
+
+			@Override
+			public boolean hasNext()
+			{
+				return i < end;
+			}
+
+			@Override
+			public Integer next()
+			{
+				if (i >= end)
+					throw new NoSuchElementException();
+				return preds[i++];
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Get the number of predecessor states of {@code s}.
+	 */
+	public int getNumPredecessors(int s)
+	{
+		return predStarts[s + 1] - predStarts[s];
+	}
+
+	/**
+	 * Get the start of the index range for the predecessors of {@code s}:
+	 * these are {@code getPredecessor(i)} for {@code getPredecessorsStart(s) <= i < getPredecessorsEnd(s)}.
+	 */
+	public int getPredecessorsStart(int s)
+	{
+		return predStarts[s];
+	}
+
+	/**
+	 * Get the end (exclusive) of the index range for the predecessors of {@code s}.
+	 * See {@link #getPredecessorsStart(int)}.
+	 */
+	public int getPredecessorsEnd(int s)
+	{
+		return predStarts[s + 1];
+	}
+
+	/**
+	 * Get the predecessor with (global) index {@code i}.
+	 * See {@link #getPredecessorsStart(int)}.
+	 */
+	public int getPredecessor(int i)
+	{
+		return preds[i];
 	}
 
 	/**
@@ -155,25 +232,25 @@ public class PredecessorRelation
 		result = (BitSet)target.clone();
 
 		// the stack of states whose predecessors have to be considered
-		Stack<Integer> todo = new Stack<Integer>();
+		// (each state is pushed at most once, when first added to result)
+		int todo[] = new int[Math.max(16, result.cardinality())];
+		int sp = 0;
 
 		// initial todo: all the target states
-		for (Integer s : IterableBitSet.getSetBits(target)) {
-			todo.add(s);
-		};
-
-		// the set of states that are finished
-		BitSet done = new BitSet();
-
-		while (!todo.isEmpty()) {
-			int s = todo.pop();
-			// already considered?
-			if (done.get(s)) continue;
+		for (int s = target.nextSetBit(0); s >= 0; s = target.nextSetBit(s + 1)) {
+			todo[sp++] = s;
+		}
 
-			done.set(s);
+		while (sp > 0) {
+			int s = todo[--sp];
 
 			// for each predecessor in the graph
-			for (int p : getPre(s)) {
+			for (int i = predStarts[s], end = predStarts[s + 1]; i < end; i++) {
+				int p = preds[i];
+				if (result.get(p)) {
+					// already considered
+					continue;
+				}
 				if (absorbing != null && absorbing.get(p)) {
 					// predecessor is absorbing, thus the edge is considered to not exist
 					continue;
@@ -181,10 +258,10 @@ public class PredecessorRelation
 				if (remain == null || remain.get(p)) {
 					// can reach result (and is in remain)
 					result.set(p);
-					if (!done.get(p)) {
-						// add to stack
-						todo.add(p);
-					}
+					// add to stack
+					if (sp == todo.length)
+						todo = Arrays.copyOf(todo, 2 * sp);
+					todo[sp++] = p;
 				}
 			}
 		}
@@ -43,6 +43,7 @@ import parser.type.TypeDouble;
 import parser.type.TypePathBool;
 import parser.type.TypePathDouble;
 import prism.IntegerBound;
+import prism.ModelType;
 import prism.OpRelOpBound;
 import prism.PrismComponent;
 import prism.PrismException;
@@ -64,6 +65,8 @@ public class ProbModelChecker extends NonProbModelChecker
 
 	// Method used to solve linear equation systems
 	protected LinEqMethod linEqMethod = LinEqMethod.GAUSS_SEIDEL;
+	// Parameter (over-relaxation) for linear equation system solution methods
+	protected double linEqMethodParam = 0.9;
 	// Method used to solve MDPs
 	protected MDPSolnMethod mdpSolnMethod = MDPSolnMethod.GAUSS_SEIDEL;
 	// Iterative numerical method termination criteria
@@ -84,6 +87,16 @@ public class ProbModelChecker extends NonProbModelChecker
 	protected SolnMethod solnMethod = SolnMethod.VALUE_ITERATION;
 	// Is non-convergence of an iterative method an error?
 	protected boolean errorOnNonConverge = true;
+	// Number of threads to use for (MDP) value iteration (1 means sequential)
+	protected int numThreads = 1;
+	// Use interval iteration (for MDP reachability probabilities)?
+	protected boolean intervalIter = false;
+	// Use optimistic value iteration (for MDP expected reachability rewards)?
+	protected boolean optimisticIter = false;
+	// Restrict numerical computation to the part of the model relevant to the states of interest?
+	protected boolean restrictToSoi = false;
+	// Order in which states are updated by Gauss-Seidel-style methods
+	protected StateOrder stateOrder = StateOrder.STATE_INDEX;
 	// Adversary export
 	protected boolean exportAdv = false;
 	protected String exportAdvFilename;
@@ -92,7 +105,7 @@ public class ProbModelChecker extends NonProbModelChecker
 
 	// Method used for numerical solution
 	public enum LinEqMethod {
-		POWER, JACOBI, GAUSS_SEIDEL, BACKWARDS_GAUSS_SEIDEL, JOR, SOR, BACKWARDS_SOR;
+		POWER, JACOBI, GAUSS_SEIDEL, BACKWARDS_GAUSS_SEIDEL, JOR, SOR, BACKWARDS_SOR, TOPOLOGICAL;
 		public String fullName()
 		{
 			switch (this) {
@@ -110,6 +123,8 @@ public class ProbModelChecker extends NonProbModelChecker
 				return "SOR";
 			case BACKWARDS_SOR:
 				return "Backwards SOR";
+			case TOPOLOGICAL:
+				return "Topological";
 			default:
 				return this.toString();
 			}
@@ -118,7 +133,7 @@ public class ProbModelChecker extends NonProbModelChecker
 
 	// Method used for solving MDPs
 	public enum MDPSolnMethod {
-		VALUE_ITERATION, GAUSS_SEIDEL, POLICY_ITERATION, MODIFIED_POLICY_ITERATION, LINEAR_PROGRAMMING;
+		VALUE_ITERATION, GAUSS_SEIDEL, POLICY_ITERATION, MODIFIED_POLICY_ITERATION, LINEAR_PROGRAMMING, TOPOLOGICAL;
 		public String fullName()
 		{
 			switch (this) {
@@ -132,6 +147,8 @@ public class ProbModelChecker extends NonProbModelChecker
 				return "Modified policy iteration";
 			case LINEAR_PROGRAMMING:
 				return "Linear programming";
+			case TOPOLOGICAL:
+				return "Topological value iteration";
 			default:
 				return this.toString();
 			}
@@ -148,6 +165,22 @@ public class ProbModelChecker extends NonProbModelChecker
 		BELOW, ABOVE
 	};
 
+	// Order in which states are updated by Gauss-Seidel-style methods
+	public enum StateOrder {
+		STATE_INDEX, BACKWARD_BFS;
+		public String fullName()
+		{
+			switch (this) {
+			case STATE_INDEX:
+				return "State index";
+			case BACKWARD_BFS:
+				return "Backward BFS";
+			default:
+				return this.toString();
+			}
+		}
+	};
+
 	// Method used for numerical solution
 	public enum SolnMethod {
 		VALUE_ITERATION, GAUSS_SEIDEL, POLICY_ITERATION, MODIFIED_POLICY_ITERATION, LINEAR_PROGRAMMING
@@ -179,9 +212,13 @@ public class ProbModelChecker extends NonProbModelChecker
 				setLinEqMethod(LinEqMethod.SOR);
 			} else if (s.equals("Backwards SOR")) {
 				setLinEqMethod(LinEqMethod.BACKWARDS_SOR);
+			} else if (s.equals("Topological")) {
+				setLinEqMethod(LinEqMethod.TOPOLOGICAL);
 			} else {
 				throw new PrismNotSupportedException("Explicit engine does not support linear equation solution method \"" + s + "\"");
 			}
+			// PRISM_LIN_EQ_METHOD_PARAM
+			setLinEqMethodParam(settings.getDouble(PrismSettings.PRISM_LIN_EQ_METHOD_PARAM));
 			// PRISM_MDP_SOLN_METHOD
 			s = settings.getString(PrismSettings.PRISM_MDP_SOLN_METHOD);
 			if (s.equals("Value iteration")) {
@@ -194,6 +231,8 @@ public class ProbModelChecker extends NonProbModelChecker
 				setMDPSolnMethod(MDPSolnMethod.MODIFIED_POLICY_ITERATION);
 			} else if (s.equals("Linear programming")) {
 				setMDPSolnMethod(MDPSolnMethod.LINEAR_PROGRAMMING);
+			} else if (s.equals("Topological value iteration")) {
+				setMDPSolnMethod(MDPSolnMethod.TOPOLOGICAL);
 			} else {
 				throw new PrismNotSupportedException("Explicit engine does not support MDP solution method \"" + s + "\"");
 			}
@@ -218,6 +257,23 @@ public class ProbModelChecker extends NonProbModelChecker
 			setProb1(settings.getBoolean(PrismSettings.PRISM_PROB1));
 			// PRISM_USE_PRE
 			setPreRel(settings.getBoolean(PrismSettings.PRISM_PRE_REL));
+			// PRISM_EXPLICIT_SOLN_THREADS
+			setNumThreads(settings.getInteger(PrismSettings.PRISM_EXPLICIT_SOLN_THREADS));
+			// PRISM_INTERVAL_ITER
+			setIntervalIter(settings.getBoolean(PrismSettings.PRISM_INTERVAL_ITER));
+			// PRISM_OPTIMISTIC_ITER
+			setOptimisticIter(settings.getBoolean(PrismSettings.PRISM_OPTIMISTIC_ITER));
+			// PRISM_RESTRICT_SOI
+			setRestrictToSoi(settings.getBoolean(PrismSettings.PRISM_RESTRICT_SOI));
+			// PRISM_EXPLICIT_GS_ORDER
+			s = settings.getString(PrismSettings.PRISM_EXPLICIT_GS_ORDER);
+			if (s.equals("State index")) {
+				setStateOrder(StateOrder.STATE_INDEX);
+			} else if (s.equals("Backward BFS")) {
+				setStateOrder(StateOrder.BACKWARD_BFS);
+			} else {
+				throw new PrismNotSupportedException("Unknown Gauss-Seidel state order \"" + s + "\"");
+			}
 			// PRISM_FAIRNESS
 			if (settings.getBoolean(PrismSettings.PRISM_FAIRNESS)) {
 				throw new PrismNotSupportedException("The explicit engine does not support model checking MDPs under fairness");
@@ -243,6 +299,7 @@ public class ProbModelChecker extends NonProbModelChecker
 	{
 		super.inheritSettings(other);
 		setLinEqMethod(other.getLinEqMethod());
+		setLinEqMethodParam(other.getLinEqMethodParam());
 		setMDPSolnMethod(other.getMDPSolnMethod());
 		setTermCrit(other.getTermCrit());
 		setTermCritParam(other.getTermCritParam());
@@ -253,6 +310,11 @@ public class ProbModelChecker extends NonProbModelChecker
 		setValIterDir(other.getValIterDir());
 		setSolnMethod(other.getSolnMethod());
 		setErrorOnNonConverge(other.geterrorOnNonConverge());
+		setNumThreads(other.getNumThreads());
+		setIntervalIter(other.getIntervalIter());
+		setOptimisticIter(other.getOptimisticIter());
+		setRestrictToSoi(other.getRestrictToSoi());
+		setStateOrder(other.getStateOrder());
 	}
 
 	/**
@@ -262,6 +324,7 @@ public class ProbModelChecker extends NonProbModelChecker
 	{
 		super.printSettings();
 		mainLog.print("linEqMethod = " + linEqMethod + " ");
+		mainLog.print("linEqMethodParam = " + linEqMethodParam + " ");
 		mainLog.print("mdpSolnMethod = " + mdpSolnMethod + " ");
 		mainLog.print("termCrit = " + termCrit + " ");
 		mainLog.print("termCritParam = " + termCritParam + " ");
@@ -272,6 +335,11 @@ public class ProbModelChecker extends NonProbModelChecker
 		mainLog.print("valIterDir = " + valIterDir + " ");
 		mainLog.print("solnMethod = " + solnMethod + " ");
 		mainLog.print("errorOnNonConverge = " + errorOnNonConverge + " ");
+		mainLog.print("numThreads = " + numThreads + " ");
+		mainLog.print("intervalIter = " + intervalIter + " ");
+		mainLog.print("optimisticIter = " + optimisticIter + " ");
+		mainLog.print("restrictToSoi = " + restrictToSoi + " ");
+		mainLog.print("stateOrder = " + stateOrder + " ");
 	}
 
 	// Set methods for flags/settings
@@ -292,6 +360,14 @@ public class ProbModelChecker extends NonProbModelChecker
 		this.linEqMethod = linEqMethod;
 	}
 
+	/**
+	 * Set parameter (over-relaxation parameter omega) for linear equation system solution methods.
+	 */
+	public void setLinEqMethodParam(double linEqMethodParam)
+	{
+		this.linEqMethodParam = linEqMethodParam;
+	}
+
 	/**
 	 * Set method used to solve MDPs.
 	 */
@@ -380,6 +456,47 @@ public class ProbModelChecker extends NonProbModelChecker
 		this.errorOnNonConverge = errorOnNonConverge;
 	}
 
+	/**
+	 * Set number of threads to use for (MDP) value iteration (1 means sequential).
+	 */
+	public void setNumThreads(int numThreads)
+	{
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	/**
+	 * Set whether or not to use interval iteration (for MDP reachability probabilities).
+	 */
+	public void setIntervalIter(boolean intervalIter)
+	{
+		this.intervalIter = intervalIter;
+	}
+
+	/**
+	 * Set whether or not to use optimistic value iteration (for MDP expected reachability rewards).
+	 */
+	public void setOptimisticIter(boolean optimisticIter)
+	{
+		this.optimisticIter = optimisticIter;
+	}
+
+	/**
+	 * Set whether or not to restrict numerical computation (for until probabilities
+	 * in DTMCs/MDPs) to the part of the model relevant to the states of interest.
+	 */
+	public void setRestrictToSoi(boolean restrictToSoi)
+	{
+		this.restrictToSoi = restrictToSoi;
+	}
+
+	/**
+	 * Set the order in which states are updated by Gauss-Seidel-style methods.
+	 */
+	public void setStateOrder(StateOrder stateOrder)
+	{
+		this.stateOrder = stateOrder;
+	}
+
 	public void setExportAdv(boolean exportAdv)
 	{
 		this.exportAdv = exportAdv;
@@ -402,6 +519,11 @@ public class ProbModelChecker extends NonProbModelChecker
 		return linEqMethod;
 	}
 
+	public double getLinEqMethodParam()
+	{
+		return linEqMethodParam;
+	}
+
 	public MDPSolnMethod getMDPSolnMethod()
 	{
 		return mdpSolnMethod;
@@ -460,6 +582,31 @@ public class ProbModelChecker extends NonProbModelChecker
 		return errorOnNonConverge;
 	}
 
+	public int getNumThreads()
+	{
+		return numThreads;
+	}
+
+	public boolean getIntervalIter()
+	{
+		return intervalIter;
+	}
+
+	public boolean getOptimisticIter()
+	{
+		return optimisticIter;
+	}
+
+	public boolean getRestrictToSoi()
+	{
+		return restrictToSoi;
+	}
+
+	public StateOrder getStateOrder()
+	{
+		return stateOrder;
+	}
+
 	// Model checking functions
 
 	@Override
@@ -742,12 +889,27 @@ public class ProbModelChecker extends NonProbModelChecker
 			// Otherwise: numerical solution
 			ModelCheckerResult res = null;
 
+			// For DTMCs/MDPs, if a solution for the same computation with a smaller (or equal)
+			// bound is cached, continue from it, rather than starting from scratch
+			Object cacheKey[] = null;
+			SolutionCache.CachedSolution cached = null;
+			if (solutionCache != null && (model.getModelType() == ModelType.DTMC || model.getModelType() == ModelType.MDP)) {
+				cacheKey = new Object[] { "bounded until", remain, target, model.getModelType() == ModelType.MDP ? minMax.isMin() : null };
+				cached = solutionCache.lookup(model, cacheKey);
+				if (cached != null && cached.getBound() > windowSize)
+					cached = null;
+				if (cached != null)
+					mainLog.println("\nContinuing from cached solution for bound " + cached.getBound() + "...");
+			}
+			int steps = (cached == null) ? windowSize : windowSize - cached.getBound();
+			double init[] = (cached == null) ? null : cached.getSolution();
+
 			switch (model.getModelType()) {
 			case DTMC:
-				res = ((DTMCModelChecker) this).computeBoundedUntilProbs((DTMC) model, remain, target, windowSize);
+				res = ((DTMCModelChecker) this).computeBoundedReachProbs((DTMC) model, remain, target, steps, init, null);
 				break;
 			case MDP:
-				res = ((MDPModelChecker) this).computeBoundedUntilProbs((MDP) model, remain, target, windowSize, minMax.isMin());
+				res = ((MDPModelChecker) this).computeBoundedReachProbs((MDP) model, remain, target, steps, minMax.isMin(), init, null);
 				break;
 			case STPG:
 				res = ((STPGModelChecker) this).computeBoundedUntilProbs((STPG) model, remain, target, windowSize, minMax.isMin1(), minMax.isMin2());
@@ -755,6 +917,8 @@ public class ProbModelChecker extends NonProbModelChecker
 			default:
 				throw new PrismNotSupportedException("Cannot model check " + expr + " for " + model.getModelType() + "s");
 			}
+			if (cacheKey != null)
+				solutionCache.store(model, windowSize, res.soln, cacheKey);
 			sv = StateValues.createFromDoubleArray(res.soln, model);
 		}
 
@@ -794,6 +958,27 @@ public class ProbModelChecker extends NonProbModelChecker
 		BitSet remain = checkExpression(model, expr.getOperand1(), null).getBitSet();
 		BitSet target = checkExpression(model, expr.getOperand2(), null).getBitSet();
 
+		// If possible, just solve the part of the model relevant to the states of interest
+		if (canRestrictToStatesOfInterest(model, statesOfInterest)) {
+			ReachabilityRestriction restr = new ReachabilityRestriction(model, remain, target, statesOfInterest);
+			if (restr.getNumStates() < model.getNumStates()) {
+				return checkProbUntilRestricted(model, restr, remain, target, minMax, statesOfInterest);
+			}
+			mainLog.println("\nRestriction to states of interest keeps all states; solving full model");
+		}
+
+		// For DTMCs/MDPs, reuse the cached solution for the same computation, if available
+		// (not if a strategy is needed, since this is not cached)
+		Object cacheKey[] = null;
+		if (solutionCache != null && !genStrat && (model.getModelType() == ModelType.DTMC || model.getModelType() == ModelType.MDP)) {
+			cacheKey = new Object[] { "until", remain, target, model.getModelType() == ModelType.MDP ? minMax.isMin() : null, statesOfInterest };
+			SolutionCache.CachedSolution cached = solutionCache.lookup(model, cacheKey);
+			if (cached != null) {
+				mainLog.println("\nReusing cached solution for until probabilities");
+				return StateValues.createFromDoubleArray(cached.getSolution(), model);
+			}
+		}
+
 		// Compute/return the probabilities
 		ModelCheckerResult res = null;
 		switch (model.getModelType()) {
@@ -804,7 +989,7 @@ public class ProbModelChecker extends NonProbModelChecker
 			res = ((DTMCModelChecker) this).computeUntilProbs((DTMC) model, remain, target);
 			break;
 		case MDP:
-			res = ((MDPModelChecker) this).computeUntilProbs((MDP) model, remain, target, minMax.isMin());
+			res = ((MDPModelChecker) this).computeUntilProbs((MDP) model, remain, target, minMax.isMin(), statesOfInterest);
 			result.setStrategy(res.strat);
 			break;
 		case STPG:
@@ -813,7 +998,75 @@ public class ProbModelChecker extends NonProbModelChecker
 		default:
 			throw new PrismNotSupportedException("Cannot model check " + expr + " for " + model.getModelType() + "s");
 		}
-		return StateValues.createFromDoubleArray(res.soln, model);
+		if (cacheKey != null)
+			solutionCache.store(model, -1, res.soln, cacheKey);
+		StateValues probs = StateValues.createFromDoubleArray(res.soln, model);
+		probs.setErrorBound(res.errorBound);
+		return probs;
+	}
+
+	/**
+	 * Check whether until probabilities can be computed just for the part of {@code model}
+	 * relevant to {@code statesOfInterest}, see {@link ReachabilityRestriction}.
+	 * This requires the setting to be enabled and the model to be a DTMC or MDP,
+	 * and is not done if values are (or may be) needed for all states,
+	 * e.g. because the results vector is stored or a strategy is generated.
+	 */
+	protected boolean canRestrictToStatesOfInterest(Model model, BitSet statesOfInterest)
+	{
+		if (!restrictToSoi || statesOfInterest == null || storeVector)
+			return false;
+		if (statesOfInterest.cardinality() == model.getNumStates())
+			return false;
+		switch (model.getModelType()) {
+		case DTMC:
+			return true;
+		case MDP:
+			return !(genStrat || exportAdv);
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Compute probabilities for an (unbounded) until operator, only solving the part
+	 * of the (DTMC or MDP) model that is relevant to {@code statesOfInterest},
+	 * as given by the restriction {@code restr}. Values for other states are not accurate.
+	 */
+	protected StateValues checkProbUntilRestricted(Model model, ReachabilityRestriction restr, BitSet remain, BitSet target, MinMax minMax,
+			BitSet statesOfInterest) throws PrismException
+	{
+		ModelCheckerResult res = null;
+		double soln[];
+		long timer;
+
+		// Build the restricted model
+		timer = System.currentTimeMillis();
+		Model modelRestr = restr.getTransformedModel();
+		timer = System.currentTimeMillis() - timer;
+		mainLog.print("\nRestricted model to states of interest: " + modelRestr.getNumStates() + " of " + model.getNumStates() + " states");
+		mainLog.println(" (" + timer / 1000.0 + " seconds)");
+
+		// Compute probabilities on the restricted model
+		if (modelRestr.getNumStates() == 0) {
+			soln = new double[0];
+		} else {
+			BitSet remainRestr = remain == null ? null : restr.mapToRestrictedModel(remain);
+			BitSet targetRestr = restr.mapToRestrictedModel(target);
+			BitSet soiRestr = restr.mapToRestrictedModel(statesOfInterest);
+			switch (model.getModelType()) {
+			case DTMC:
+				res = ((DTMCModelChecker) this).computeUntilProbs((DTMC) modelRestr, remainRestr, targetRestr);
+				break;
+			case MDP:
+				res = ((MDPModelChecker) this).computeUntilProbs((MDP) modelRestr, remainRestr, targetRestr, minMax.isMin(), soiRestr);
+				break;
+			default:
+				throw new PrismNotSupportedException("Cannot restrict " + model.getModelType() + "s to states of interest");
+			}
+			soln = res.soln;
+		}
+		return StateValues.createFromDoubleArray(restr.projectToOriginalModel(soln), model);
 	}
 
 	/**
@@ -1073,7 +1326,9 @@ public class ProbModelChecker extends NonProbModelChecker
 			throw new PrismNotSupportedException("Explicit engine does not yet handle the " + expr.getOperatorSymbol() + " reward operator for " + model.getModelType()
 					+ "s");
 		}
-		return StateValues.createFromDoubleArray(res.soln, model);
+		StateValues rewards = StateValues.createFromDoubleArray(res.soln, model);
+		rewards.setErrorBound(res.errorBound);
+		return rewards;
 	}
 
 	/**
@@ -1136,6 +1391,168 @@ public class ProbModelChecker extends NonProbModelChecker
 		return StateValues.createFromDoubleArray(res.soln, model);
 	}
 
+	// Utility methods for numerical solution
+
+	/**
+	 * Get the order in which the states in {@code unknown} should be updated by a Gauss-Seidel-style
+	 * method, according to the current {@link StateOrder} setting. For {@link StateOrder#BACKWARD_BFS},
+	 * states are visited in order of increasing distance to {@code target} (moving only through
+	 * {@code unknown} states), so that values propagate back from the target in a single sweep;
+	 * states that cannot reach {@code target} in this way come last, in index order.
+	 * @param model The model
+	 * @param target Target states (e.g. the probability 1 states)
+	 * @param unknown States to be updated
+	 * @param backwards Use decreasing, rather than increasing, state index order (ignored for backward BFS)
+	 */
+	protected int[] computeStateOrder(Model model, BitSet target, BitSet unknown, boolean backwards)
+	{
+		int order[] = new int[unknown.cardinality()];
+		int s, num = 0;
+		if (stateOrder == StateOrder.BACKWARD_BFS) {
+			PredecessorRelation pre = model.getPredecessorRelation(this, true);
+			BitSet visited = new BitSet(model.getNumStates());
+			int queue[] = new int[target.cardinality() + order.length];
+			int head = 0, tail = 0;
+			for (s = target.nextSetBit(0); s >= 0; s = target.nextSetBit(s + 1)) {
+				queue[tail++] = s;
+			}
+			while (head < tail) {
+				s = queue[head++];
+				for (int i = pre.getPredecessorsStart(s), end = pre.getPredecessorsEnd(s); i < end; i++) {
+					int p = pre.getPredecessor(i);
+					if (unknown.get(p) && !visited.get(p)) {
+						visited.set(p);
+						order[num++] = p;
+						queue[tail++] = p;
+					}
+				}
+			}
+			// Then any states not reached
+			for (s = unknown.nextSetBit(0); s >= 0; s = unknown.nextSetBit(s + 1)) {
+				if (!visited.get(s))
+					order[num++] = s;
+			}
+		} else if (backwards) {
+			for (s = unknown.previousSetBit(unknown.length() - 1); s >= 0; s = unknown.previousSetBit(s - 1)) {
+				order[num++] = s;
+			}
+		} else {
+			for (s = unknown.nextSetBit(0); s >= 0; s = unknown.nextSetBit(s + 1)) {
+				order[num++] = s;
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Single-state update used by {@link #solveTopological}: compute a new value
+	 * for state {@code s} from the current solution vector {@code soln}.
+	 */
+	protected interface TopologicalUpdate
+	{
+		public double update(int s, double soln[]);
+	}
+
+	/**
+	 * Topological value iteration: solve for the values of the states in {@code unknown}
+	 * one SCC at a time, in reverse topological order, so that the successors of an SCC
+	 * have already been solved when it is reached. States in trivial SCCs are solved
+	 * with a single update; other SCCs are solved with Gauss-Seidel, until local convergence.
+	 * Every SCC is solved, even if an earlier one failed to converge within {@code maxIters}.
+	 * @param model The model
+	 * @param unknown States whose values need to be computed
+	 * @param soln Solution vector, already initialised (will be overwritten)
+	 * @param update Single-state update
+	 * @param minMax Description of min/max, for the log (null if not applicable)
+	 */
+	protected ModelCheckerResult solveTopological(Model model, BitSet unknown, double soln[], TopologicalUpdate update, String minMax)
+			throws PrismException
+	{
+		ModelCheckerResult res;
+		SCCComputer sccComputer;
+		int i, j, s, iters, sccIters, numSCCs, numTrivial, lo, hi, size;
+		int sccStates[], sccStarts[], sccUnknown[];
+		double d, diff, maxDiff;
+		boolean done, allConverged, absolute;
+		long timer;
+
+		// Start value iteration
+		timer = System.currentTimeMillis();
+		mainLog.println("Starting topological value iteration" + (minMax == null ? "" : " (" + minMax + ")") + "...");
+
+		// Compute SCCs, in reverse topological order
+		sccComputer = SCCComputer.createSCCComputer(this, model);
+		sccComputer.computeSCCsTopological();
+		numSCCs = sccComputer.getNumSCCsTopological();
+		sccStates = sccComputer.getSCCStatesTopological();
+		sccStarts = sccComputer.getSCCStartsTopological();
+		sccUnknown = new int[model.getNumStates()];
+
+		// Solve each SCC in turn (successors are in earlier SCCs, so already solved)
+		absolute = (termCrit == TermCrit.ABSOLUTE);
+		iters = numTrivial = 0;
+		allConverged = true;
+		for (j = 0; j < numSCCs; j++) {
+			// Extract states of SCC that are still unknown
+			lo = sccStarts[j];
+			hi = sccStarts[j + 1];
+			size = 0;
+			for (i = lo; i < hi; i++) {
+				if (unknown.get(sccStates[i]))
+					sccUnknown[size++] = sccStates[i];
+			}
+			if (size == 0)
+				continue;
+			// Single state: solve directly
+			if (size == 1) {
+				s = sccUnknown[0];
+				soln[s] = update.update(s, soln);
+				numTrivial++;
+				continue;
+			}
+			// Otherwise, Gauss-Seidel until local convergence
+			sccIters = 0;
+			done = false;
+			while (!done && sccIters < maxIters) {
+				sccIters++;
+				maxDiff = 0.0;
+				for (i = 0; i < size; i++) {
+					s = sccUnknown[i];
+					d = update.update(s, soln);
+					diff = absolute ? (Math.abs(d - soln[s])) : (Math.abs(d - soln[s]) / d);
+					maxDiff = diff > maxDiff ? diff : maxDiff;
+					soln[s] = d;
+				}
+				// Check termination
+				done = maxDiff < termCritParam;
+			}
+			iters = Math.max(iters, sccIters);
+			allConverged &= done;
+		}
+
+		// Finished topological value iteration
+		timer = System.currentTimeMillis() - timer;
+		mainLog.print("Topological value iteration (" + (minMax == null ? "" : minMax + ", ") + numSCCs + " SCCs, " + numTrivial + " solved directly)");
+		mainLog.println(" took " + iters + " iterations (max per SCC) and " + timer / 1000.0 + " seconds.");
+
+		// Non-convergence is an error (usually)
+		if (!allConverged) {
+			String msg = "Iterative method did not converge within " + maxIters + " iterations.";
+			if (errorOnNonConverge) {
+				msg += "\nConsider using a different numerical method or increasing the maximum number of iterations";
+				throw new PrismException(msg);
+			}
+			mainLog.printWarning(msg);
+		}
+
+		// Return results
+		res = new ModelCheckerResult();
+		res.soln = soln;
+		res.numIters = iters;
+		res.timeTaken = timer / 1000.0;
+		return res;
+	}
+
 	// Utility methods for probability distributions
 
 	/**
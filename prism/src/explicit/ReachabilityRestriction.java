@@ -0,0 +1,297 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import parser.type.TypeDouble;
+import prism.PrismException;
+import prism.PrismNotSupportedException;
+
+/**
+ * Restriction of a DTMC or MDP to the part that is relevant for computing
+ * until probabilities (for {@code remain U target}) in a given set of states of interest.
+ * <p>
+ * The states kept are those in the backward cone of {@code target} (states that can reach
+ * {@code target} while remaining in {@code remain}), restricted to the states that are
+ * forward-reachable from the states of interest (again, only via states in {@code remain}
+ * that are not in {@code target}), plus the immediate successors of these.
+ * All other states have probability 0 or are not needed for the states of interest.
+ * <p>
+ * In the restricted model, states are renumbered (preserving their relative order)
+ * and the states whose value does not depend on their outgoing transitions
+ * (i.e. those not in {@code remain}, those in {@code target} and those outside the cone)
+ * are made absorbing. Values computed for the restricted model can be mapped back
+ * with {@link #projectToOriginalModel(double[])}; states not kept get value 0.
+ * These are only guaranteed to be correct for the original states of interest.
+ */
+public class ReachabilityRestriction implements ModelTransformation<Model, Model>
+{
+	// Original model
+	private Model originalModel;
+	// Restricted model (built on demand)
+	private Model restrictedModel = null;
+	// States (of the original model) kept in the restricted model
+	private BitSet kept;
+	// States (of the original model) whose outgoing transitions are kept
+	private BitSet expanded;
+	// Map from original states to restricted model states (-1 if not kept)
+	private int toRestricted[];
+	// Map from restricted model states to original states
+	private int toOriginal[];
+
+	/**
+	 * Compute the restriction of a DTMC or MDP for the until formula {@code remain U target},
+	 * for the states in {@code statesOfInterest}. The restricted model itself is
+	 * only constructed when first requested, via {@link #getTransformedModel()}.
+	 * @param model The DTMC or MDP
+	 * @param remain Remain in these states (optional: null means "all")
+	 * @param target Target states
+	 * @param statesOfInterest States for which values are required
+	 */
+	public ReachabilityRestriction(Model model, BitSet remain, BitSet target, BitSet statesOfInterest)
+	{
+		int n, s, t, head, tail, numEdges;
+		int queue[], edgeSrc[], edgeDst[];
+		BitSet forward, expandable, cone;
+
+		originalModel = model;
+		n = model.getNumStates();
+
+		// Forward reachability from the states of interest, only exploring
+		// states whose value depends on their successors; edges are stored
+		// so that the backward search below need not look at the rest of the model
+		forward = new BitSet(n);
+		expandable = new BitSet(n);
+		queue = new int[Math.max(statesOfInterest.cardinality(), 16)];
+		edgeSrc = new int[16];
+		edgeDst = new int[16];
+		numEdges = 0;
+		head = tail = 0;
+		for (s = statesOfInterest.nextSetBit(0); s >= 0; s = statesOfInterest.nextSetBit(s + 1)) {
+			forward.set(s);
+			queue[tail++] = s;
+		}
+		while (head < tail) {
+			s = queue[head++];
+			if (target.get(s) || (remain != null && !remain.get(s)))
+				continue;
+			expandable.set(s);
+			Iterator<Integer> it = model.getSuccessorsIterator(s);
+			while (it.hasNext()) {
+				t = it.next();
+				if (numEdges == edgeSrc.length) {
+					edgeSrc = Arrays.copyOf(edgeSrc, 2 * numEdges);
+					edgeDst = Arrays.copyOf(edgeDst, 2 * numEdges);
+				}
+				edgeSrc[numEdges] = s;
+				edgeDst[numEdges] = t;
+				numEdges++;
+				if (!forward.get(t)) {
+					forward.set(t);
+					if (tail == queue.length)
+						queue = Arrays.copyOf(queue, 2 * tail);
+					queue[tail++] = t;
+				}
+			}
+		}
+
+		// Backward search from the (forward-reachable) targets over the stored edges,
+		// using a CSR-style predecessor list indexed by position in the forward queue
+		int pos[] = new int[n];
+		for (int i = 0; i < tail; i++)
+			pos[queue[i]] = i;
+		int predStarts[] = new int[tail + 1];
+		for (int e = 0; e < numEdges; e++)
+			predStarts[pos[edgeDst[e]] + 1]++;
+		for (int i = 0; i < tail; i++)
+			predStarts[i + 1] += predStarts[i];
+		int preds[] = new int[numEdges];
+		int fill[] = Arrays.copyOf(predStarts, tail);
+		for (int e = 0; e < numEdges; e++)
+			preds[fill[pos[edgeDst[e]]]++] = edgeSrc[e];
+		fill = null;
+		cone = new BitSet(n);
+		head = tail = 0;
+		int stack[] = new int[16];
+		for (s = target.nextSetBit(0); s >= 0; s = target.nextSetBit(s + 1)) {
+			if (forward.get(s)) {
+				cone.set(s);
+				if (tail == stack.length)
+					stack = Arrays.copyOf(stack, 2 * tail);
+				stack[tail++] = s;
+			}
+		}
+		while (tail > 0) {
+			s = stack[--tail];
+			for (int j = predStarts[pos[s]]; j < predStarts[pos[s] + 1]; j++) {
+				t = preds[j];
+				if (!cone.get(t)) {
+					cone.set(t);
+					if (tail == stack.length)
+						stack = Arrays.copyOf(stack, 2 * tail);
+					stack[tail++] = t;
+				}
+			}
+		}
+
+		// Keep the cone and the successors of its expanded states
+		expanded = (BitSet) expandable.clone();
+		expanded.and(cone);
+		kept = (BitSet) cone.clone();
+		for (int e = 0; e < numEdges; e++) {
+			if (expanded.get(edgeSrc[e]))
+				kept.set(edgeDst[e]);
+		}
+
+		// Build state index maps
+		toRestricted = new int[n];
+		Arrays.fill(toRestricted, -1);
+		toOriginal = new int[kept.cardinality()];
+		int i = 0;
+		for (s = kept.nextSetBit(0); s >= 0; s = kept.nextSetBit(s + 1)) {
+			toRestricted[s] = i;
+			toOriginal[i++] = s;
+		}
+	}
+
+	/**
+	 * Get the number of states in the restricted model.
+	 */
+	public int getNumStates()
+	{
+		return toOriginal.length;
+	}
+
+	/**
+	 * Map a set of states of the original model to the restricted model
+	 * (states that are not kept are dropped).
+	 */
+	public BitSet mapToRestrictedModel(BitSet set)
+	{
+		BitSet res = new BitSet(toOriginal.length);
+		for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+			if (toRestricted[s] >= 0)
+				res.set(toRestricted[s]);
+		}
+		return res;
+	}
+
+	/**
+	 * Map a vector of values for the restricted model to one for the original model
+	 * (states that are not kept get value 0).
+	 */
+	public double[] projectToOriginalModel(double soln[])
+	{
+		double res[] = new double[originalModel.getNumStates()];
+		for (int i = 0; i < toOriginal.length; i++)
+			res[toOriginal[i]] = soln[i];
+		return res;
+	}
+
+	@Override
+	public Model getOriginalModel()
+	{
+		return originalModel;
+	}
+
+	@Override
+	public Model getTransformedModel() throws PrismException
+	{
+		if (restrictedModel == null) {
+			switch (originalModel.getModelType()) {
+			case DTMC:
+				restrictedModel = buildDTMC((DTMC) originalModel);
+				break;
+			case MDP:
+				restrictedModel = buildMDP((MDP) originalModel);
+				break;
+			default:
+				throw new PrismNotSupportedException("Cannot restrict " + originalModel.getModelType() + "s");
+			}
+		}
+		return restrictedModel;
+	}
+
+	@Override
+	public StateValues projectToOriginalModel(StateValues svTransformedModel) throws PrismException
+	{
+		if (!(svTransformedModel.type instanceof TypeDouble))
+			throw new PrismNotSupportedException("Handling for type " + svTransformedModel.type + " not implemented.");
+		return StateValues.createFromDoubleArray(projectToOriginalModel(svTransformedModel.getDoubleArray()), originalModel);
+	}
+
+	private DTMC buildDTMC(DTMC dtmc)
+	{
+		DTMCSimple res = new DTMCSimple(toOriginal.length);
+		for (int i = 0; i < toOriginal.length; i++) {
+			int s = toOriginal[i];
+			if (expanded.get(s)) {
+				Iterator<Entry<Integer, Double>> it = dtmc.getTransitionsIterator(s);
+				while (it.hasNext()) {
+					Entry<Integer, Double> e = it.next();
+					res.addToProbability(i, toRestricted[e.getKey()], e.getValue());
+				}
+			} else {
+				res.addToProbability(i, i, 1.0);
+			}
+			if (dtmc.isInitialState(s))
+				res.addInitialState(i);
+		}
+		return res;
+	}
+
+	private MDP buildMDP(MDP mdp)
+	{
+		MDPSimple res = new MDPSimple(toOriginal.length);
+		for (int i = 0; i < toOriginal.length; i++) {
+			int s = toOriginal[i];
+			if (expanded.get(s)) {
+				int numChoices = mdp.getNumChoices(s);
+				for (int j = 0; j < numChoices; j++) {
+					Distribution distr = new Distribution();
+					Iterator<Entry<Integer, Double>> it = mdp.getTransitionsIterator(s, j);
+					while (it.hasNext()) {
+						Entry<Integer, Double> e = it.next();
+						distr.add(toRestricted[e.getKey()], e.getValue());
+					}
+					res.addActionLabelledChoice(i, distr, mdp.getAction(s, j));
+				}
+			} else {
+				Distribution distr = new Distribution();
+				distr.add(i, 1.0);
+				res.addChoice(i, distr);
+			}
+			if (mdp.isInitialState(s))
+				res.addInitialState(i);
+		}
+		return res;
+	}
+}
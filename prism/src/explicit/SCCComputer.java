@@ -32,6 +32,7 @@ import java.util.List;
 
 import prism.PrismComponent;
 import prism.PrismException;
+import prism.PrismSettings;
 
 /**
  * Abstract class for (explicit) classes that compute (B)SCCs,
@@ -41,16 +42,32 @@ public abstract class SCCComputer extends PrismComponent
 {
 	// Method used for finding (B)SCCs
 	public enum SCCMethod {
-		TARJAN;
+		TARJAN, TARJAN_ITERATIVE, FORWARD_BACKWARD;
 		public String fullName()
 		{
 			switch (this) {
 			case TARJAN:
 				return "Tarjan";
+			case TARJAN_ITERATIVE:
+				return "Tarjan (iterative)";
+			case FORWARD_BACKWARD:
+				return "Forward-backward";
 			default:
 				return this.toString();
 			}
 		}
+
+		/**
+		 * Get the method with the given full name (see {@link #fullName()}), or null if there is none.
+		 */
+		public static SCCMethod fromFullName(String name)
+		{
+			for (SCCMethod method : values()) {
+				if (method.fullName().equals(name))
+					return method;
+			}
+			return null;
+		}
 	};
 
 	/**
@@ -58,8 +75,29 @@ public abstract class SCCComputer extends PrismComponent
 	 */
 	public static SCCComputer createSCCComputer(PrismComponent parent, Model model) throws PrismException
 	{
-		// Only one algorithm implemented currently
-		return new SCCComputerTarjan(parent, model);
+		SCCMethod method = null;
+		if (parent != null && parent.getSettings() != null)
+			method = SCCMethod.fromFullName(parent.getSettings().getString(PrismSettings.PRISM_EXPLICIT_SCC_METHOD));
+		return createSCCComputer(parent, model, method == null ? SCCMethod.TARJAN_ITERATIVE : method);
+	}
+
+	/**
+	 * Static method to create a new SCCComputer object, using a specified method.
+	 */
+	public static SCCComputer createSCCComputer(PrismComponent parent, Model model, SCCMethod method) throws PrismException
+	{
+		switch (method) {
+		case TARJAN:
+			return new SCCComputerTarjan(parent, model);
+		case FORWARD_BACKWARD:
+			int numThreads = 1;
+			if (parent != null && parent.getSettings() != null)
+				numThreads = parent.getSettings().getInteger(PrismSettings.PRISM_EXPLICIT_SOLN_THREADS);
+			return new SCCComputerFB(parent, model, numThreads);
+		case TARJAN_ITERATIVE:
+		default:
+			return new SCCComputerTarjanIterative(parent, model);
+		}
 	}
 
 	/**
@@ -89,6 +127,35 @@ public abstract class SCCComputer extends PrismComponent
 	 */
 	public abstract BitSet getNotInSCCs();
 
+	/**
+	 * Compute all strongly connected components (SCCs), including trivial ones,
+	 * in reverse topological order, i.e., such that every successor of a state in an SCC
+	 * is either in the same SCC or in one that comes earlier in the ordering.
+	 * The SCCs are stored compactly, as a list of states and SCC start indices into this list.
+	 * They should be retrieved using {@link #getNumSCCsTopological()}, {@link #getSCCStatesTopological()}
+	 * and {@link #getSCCStartsTopological()}.
+	 */
+	public abstract void computeSCCsTopological();
+
+	/**
+	 * Get the number of SCCs computed by {@link #computeSCCsTopological()}.
+	 */
+	public abstract int getNumSCCsTopological();
+
+	/**
+	 * Get the states of all SCCs computed by {@link #computeSCCsTopological()}:
+	 * the {@code i}th SCC comprises states {@code states[starts[i]]...states[starts[i+1]-1]},
+	 * where {@code states} is this array and {@code starts} is {@link #getSCCStartsTopological()}.
+	 */
+	public abstract int[] getSCCStatesTopological();
+
+	/**
+	 * Get the start indices (into {@link #getSCCStatesTopological()}) of the SCCs
+	 * computed by {@link #computeSCCsTopological()}. This array has one extra entry,
+	 * storing the total number of states.
+	 */
+	public abstract int[] getSCCStartsTopological();
+
 	/**
 	 * Compute bottom strongly connected components (BSCCs) and store them.
 	 * They can be retrieved using {@link #getBSCCs()} and {@link #getNotInBSCCs()}.
@@ -0,0 +1,413 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Christian von Essen <christian.vonessen@imag.fr> (Verimag, Grenoble)
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham/Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+package explicit;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import prism.PrismComponent;
+import prism.PrismException;
+
+/**
+ * Parallel SCC computation operating on a Model object, using the forward-backward
+ * algorithm with trimming, run on a fork-join pool.
+ * <p>
+ * The state space is split into subproblems, identified by a "colour" per state.
+ * For each subproblem, states with no predecessors or no successors within it are first
+ * removed repeatedly (trimming), since each forms a trivial SCC. Then, for a pivot state,
+ * the states forward-reachable (F) and backward-reachable (B) within the subproblem are computed
+ * (the latter using the model's {@link PredecessorRelation}): F&cap;B is an SCC and
+ * F\B, B\F and the remaining states are new, independent subproblems, handled in parallel.
+ * Small subproblems are solved directly, with (a restricted version of) Tarjan's algorithm.
+ * <p>
+ * Finally, SCCs are sorted into reverse topological order, so the results can be used in
+ * exactly the same way as those of {@link SCCComputerTarjanIterative}; they do not depend
+ * on the number of threads or their scheduling.
+ */
+public class SCCComputerFB extends SCCComputerTarjanIterative
+{
+	/** Subproblems with at most this many states (after trimming) are solved sequentially */
+	private static final int SEQUENTIAL_THRESHOLD = 4096;
+	/** Subproblems at this recursion depth are solved sequentially (bounds the cost on, e.g., long chains of SCCs) */
+	private static final int MAX_DEPTH = 64;
+	/** Colour of states that have been assigned to an SCC */
+	private static final int DONE = -1;
+
+	/* Number of threads */
+	private int numThreads;
+	/* Predecessor relation of the model */
+	private PredecessorRelation pre;
+	/* Subproblem which each (unassigned) state belongs to */
+	private int colour[];
+	/* Per-state work arrays; each state is only accessed by the task for its current subproblem */
+	private int degIn[];
+	private int degOut[];
+	private int index[];
+	private int lowlink[];
+	/* Counters for new colours and for SCCs found (in no particular order) */
+	private AtomicInteger nextColour;
+	private AtomicInteger nextSCC;
+
+	/**
+	 * Build (B)SCC computer for a given model, using {@code numThreads} threads.
+	 */
+	public SCCComputerFB(PrismComponent parent, Model model, int numThreads) throws PrismException
+	{
+		super(parent, model);
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	@Override
+	protected void decompose()
+	{
+		if (sccStates != null)
+			return;
+		buildSuccessors();
+		pre = model.getPredecessorRelation(this, true);
+		int n = numNodes;
+		colour = new int[n];
+		degIn = new int[n];
+		degOut = new int[n];
+		index = new int[n];
+		lowlink = new int[n];
+		Arrays.fill(index, -1);
+		sccOf = new int[n];
+		Arrays.fill(sccOf, -1);
+		nextColour = new AtomicInteger(1);
+		nextSCC = new AtomicInteger(0);
+		int all[] = new int[n];
+		for (int s = 0; s < n; s++) {
+			all[s] = s;
+		}
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try {
+			pool.invoke(new FBTask(all, n, 0, 0));
+		} finally {
+			pool.shutdown();
+		}
+		colour = degIn = degOut = index = lowlink = null;
+		sortTopologically(nextSCC.get());
+		pre = null;
+	}
+
+	/**
+	 * Remove (repeatedly) the states of subproblem {@code c} that have no predecessors or no successors
+	 * within it, making each a trivial SCC. The states of the subproblem are {@code states[0...num-1]};
+	 * those remaining are moved to the start of the array and their number returned.
+	 */
+	private int trim(int states[], int num, int c)
+	{
+		int i, k, s, t, head, tail;
+		int queue[] = new int[num];
+
+		// Compute in/out-degrees within the subproblem
+		// (each counted consistently with the way it is decremented below)
+		for (i = 0; i < num; i++) {
+			s = states[i];
+			degIn[s] = degOut[s] = 0;
+		}
+		for (i = 0; i < num; i++) {
+			s = states[i];
+			for (k = succStarts[s]; k < succStarts[s + 1]; k++) {
+				if (colour[succs[k]] == c)
+					degIn[succs[k]]++;
+			}
+			for (int pi = pre.getPredecessorsStart(s), piEnd = pre.getPredecessorsEnd(s); pi < piEnd; pi++) {
+				int p = pre.getPredecessor(pi);
+				if (colour[p] == c)
+					degOut[p]++;
+			}
+		}
+		head = tail = 0;
+		for (i = 0; i < num; i++) {
+			s = states[i];
+			if (degIn[s] == 0 || degOut[s] == 0) {
+				colour[s] = DONE;
+				sccOf[s] = nextSCC.getAndIncrement();
+				queue[tail++] = s;
+			}
+		}
+		while (head < tail) {
+			s = queue[head++];
+			for (k = succStarts[s]; k < succStarts[s + 1]; k++) {
+				t = succs[k];
+				if (colour[t] == c && --degIn[t] == 0) {
+					colour[t] = DONE;
+					sccOf[t] = nextSCC.getAndIncrement();
+					queue[tail++] = t;
+				}
+			}
+			for (int pi = pre.getPredecessorsStart(s), piEnd = pre.getPredecessorsEnd(s); pi < piEnd; pi++) {
+				int p = pre.getPredecessor(pi);
+				if (colour[p] == c && --degOut[p] == 0) {
+					colour[p] = DONE;
+					sccOf[p] = nextSCC.getAndIncrement();
+					queue[tail++] = p;
+				}
+			}
+		}
+		// Compact remaining states
+		int m = 0;
+		for (i = 0; i < num; i++) {
+			if (colour[states[i]] == c)
+				states[m++] = states[i];
+		}
+		return m;
+	}
+
+	/**
+	 * Find the SCCs of subproblem {@code c}, comprising states {@code states[0...num-1]},
+	 * using Tarjan's algorithm restricted to the subproblem (implemented iteratively,
+	 * as in {@link SCCComputerTarjanIterative#tarjan()}).
+	 */
+	private void tarjanRestricted(int states[], int num, int c)
+	{
+		int stack[] = new int[num];
+		int callNode[] = new int[num];
+		int callPos[] = new int[num];
+		int sp = 0, cp = 0, nextIndex = 0;
+		for (int i = 0; i < num; i++) {
+			int root = states[i];
+			if (index[root] != -1)
+				continue;
+			index[root] = lowlink[root] = nextIndex++;
+			stack[sp++] = root;
+			callNode[cp] = root;
+			callPos[cp++] = succStarts[root];
+			while (cp > 0) {
+				int v = callNode[cp - 1];
+				int pos = callPos[cp - 1];
+				if (pos < succStarts[v + 1]) {
+					int w = succs[pos];
+					callPos[cp - 1] = pos + 1;
+					// Ignore states outside the subproblem (or already in a completed SCC)
+					if (colour[w] != c)
+						continue;
+					if (index[w] == -1) {
+						index[w] = lowlink[w] = nextIndex++;
+						stack[sp++] = w;
+						callNode[cp] = w;
+						callPos[cp++] = succStarts[w];
+					} else if (index[w] < lowlink[v]) {
+						lowlink[v] = index[w];
+					}
+				} else {
+					cp--;
+					if (lowlink[v] == index[v]) {
+						int w, scc = nextSCC.getAndIncrement();
+						do {
+							w = stack[--sp];
+							colour[w] = DONE;
+							sccOf[w] = scc;
+						} while (w != v);
+					}
+					if (cp > 0) {
+						int u = callNode[cp - 1];
+						if (lowlink[v] < lowlink[u])
+							lowlink[u] = lowlink[v];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Given the SCC index {@code sccOf[s]} of every state (in no particular order),
+	 * store the SCCs in reverse topological order in {@code sccStates}/{@code sccStarts},
+	 * and renumber {@code sccOf} accordingly.
+	 */
+	private void sortTopologically(int num)
+	{
+		int i, j, s, head, tail;
+		int n = numNodes;
+
+		// Renumber SCCs in order of their smallest state, so that the result
+		// does not depend on the order in which they were found
+		int newId[] = new int[num];
+		Arrays.fill(newId, -1);
+		j = 0;
+		for (s = 0; s < n; s++) {
+			i = sccOf[s];
+			if (newId[i] == -1)
+				newId[i] = j++;
+			sccOf[s] = newId[i];
+		}
+		// Group states by SCC
+		int memberStarts[] = new int[num + 1];
+		for (s = 0; s < n; s++) {
+			memberStarts[sccOf[s] + 1]++;
+		}
+		for (i = 0; i < num; i++) {
+			memberStarts[i + 1] += memberStarts[i];
+		}
+		int members[] = new int[n];
+		int fill[] = Arrays.copyOf(memberStarts, num);
+		for (s = 0; s < n; s++) {
+			members[fill[sccOf[s]]++] = s;
+		}
+		fill = null;
+		// Count edges leaving each SCC (via predecessors, so without duplicates)
+		int outCount[] = new int[num];
+		for (s = 0; s < n; s++) {
+			for (int pi = pre.getPredecessorsStart(s), piEnd = pre.getPredecessorsEnd(s); pi < piEnd; pi++) {
+				int p = pre.getPredecessor(pi);
+				if (sccOf[p] != sccOf[s])
+					outCount[sccOf[p]]++;
+			}
+		}
+		// Output SCCs once all their successor SCCs have been output (Kahn's algorithm)
+		int queue[] = newId;
+		head = tail = 0;
+		for (i = 0; i < num; i++) {
+			if (outCount[i] == 0)
+				queue[tail++] = i;
+		}
+		int topo[] = new int[num];
+		sccStates = new int[n];
+		sccStarts = new int[num + 1];
+		numSCCs = 0;
+		int k = 0;
+		while (head < tail) {
+			i = queue[head++];
+			topo[i] = numSCCs;
+			sccStarts[numSCCs++] = k;
+			for (j = memberStarts[i]; j < memberStarts[i + 1]; j++) {
+				s = members[j];
+				sccStates[k++] = s;
+				for (int pi = pre.getPredecessorsStart(s), piEnd = pre.getPredecessorsEnd(s); pi < piEnd; pi++) {
+					int p = pre.getPredecessor(pi);
+					if (sccOf[p] != i && --outCount[sccOf[p]] == 0)
+						queue[tail++] = sccOf[p];
+				}
+			}
+		}
+		sccStarts[numSCCs] = k;
+		for (s = 0; s < n; s++) {
+			sccOf[s] = topo[sccOf[s]];
+		}
+	}
+
+	/**
+	 * Fork-join task which finds the SCCs of the subproblem with colour {@code c},
+	 * comprising states {@code states[0...num-1]}, at recursion depth {@code depth}.
+	 */
+	private class FBTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private int states[];
+		private int num;
+		private int c;
+		private int depth;
+
+		public FBTask(int states[], int num, int c, int depth)
+		{
+			this.states = states;
+			this.num = num;
+			this.c = c;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute()
+		{
+			int i, k, s, t, head, tail;
+
+			num = trim(states, num, c);
+			if (num == 0)
+				return;
+			if (num <= SEQUENTIAL_THRESHOLD || depth >= MAX_DEPTH) {
+				tarjanRestricted(states, num, c);
+				return;
+			}
+			int pivot = states[0];
+			int cF = nextColour.getAndIncrement();
+			int cB = nextColour.getAndIncrement();
+			int queue[] = new int[num];
+			// Forward search from pivot: colour cF
+			head = tail = 0;
+			colour[pivot] = cF;
+			queue[tail++] = pivot;
+			while (head < tail) {
+				s = queue[head++];
+				for (k = succStarts[s]; k < succStarts[s + 1]; k++) {
+					t = succs[k];
+					if (colour[t] == c) {
+						colour[t] = cF;
+						queue[tail++] = t;
+					}
+				}
+			}
+			// Backward search from pivot: forward-reachable states form an SCC, others get colour cB
+			int scc = nextSCC.getAndIncrement();
+			head = tail = 0;
+			colour[pivot] = DONE;
+			sccOf[pivot] = scc;
+			queue[tail++] = pivot;
+			while (head < tail) {
+				s = queue[head++];
+				for (int pi = pre.getPredecessorsStart(s), piEnd = pre.getPredecessorsEnd(s); pi < piEnd; pi++) {
+					int p = pre.getPredecessor(pi);
+					if (colour[p] == cF) {
+						colour[p] = DONE;
+						sccOf[p] = scc;
+						queue[tail++] = p;
+					} else if (colour[p] == c) {
+						colour[p] = cB;
+						queue[tail++] = p;
+					}
+				}
+			}
+			// Split remaining states into the three new subproblems
+			int numF = 0, numB = 0, numR = 0;
+			for (i = 0; i < num; i++) {
+				int col = colour[states[i]];
+				if (col == cF)
+					numF++;
+				else if (col == cB)
+					numB++;
+				else if (col == c)
+					numR++;
+			}
+			int statesF[] = new int[numF];
+			int statesB[] = new int[numB];
+			numF = numB = numR = 0;
+			for (i = 0; i < num; i++) {
+				s = states[i];
+				int col = colour[s];
+				if (col == cF)
+					statesF[numF++] = s;
+				else if (col == cB)
+					statesB[numB++] = s;
+				else if (col == c)
+					states[numR++] = s;
+			}
+			invokeAll(new FBTask(statesF, numF, cF, depth + 1), new FBTask(statesB, numB, cB, depth + 1), new FBTask(states, numR, c, depth + 1));
+		}
+	}
+}
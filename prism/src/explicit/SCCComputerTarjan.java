@@ -28,6 +28,7 @@
 package explicit;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -47,6 +48,13 @@ public class SCCComputerTarjan extends SCCComputer
 	private int numNodes;
 	/* Computed list of SCCs */
 	private List<BitSet> sccs = new ArrayList<BitSet>();
+	/* All SCCs, in the order found (reverse topological), stored compactly:
+	 * SCC i is states sccStates[sccStarts[i]...sccStarts[i+1]-1] */
+	private int sccStates[];
+	private int sccStarts[];
+	private int numSCCs = 0;
+	/* Has Tarjan's algorithm been run yet? */
+	private boolean done = false;
 	/* States not in non-trivial SCCs */
 	private BitSet notInSCCs;
 	/* Computed list of BSCCs */
@@ -84,20 +92,48 @@ public class SCCComputerTarjan extends SCCComputer
 	public void computeSCCs()
 	{
 		tarjan();
-		// Now remove trivial SCCs
+		// Store non-trivial SCCs (as BitSets) and states in trivial ones
+		sccs = new ArrayList<BitSet>();
 		notInSCCs = new BitSet();
-		for (Iterator<BitSet> it = sccs.iterator(); it.hasNext(); ) {
-			BitSet scc = it.next();
-			if (scc.cardinality() == 1) {
-				int s = scc.nextSetBit(0);
-				if (!model.someSuccessorsInSet(s, scc)) {
-					it.remove(); // remove this SCC from sccs list
-					notInSCCs.set(s);
+		for (int i = 0; i < numSCCs; i++) {
+			int lo = sccStarts[i];
+			int hi = sccStarts[i + 1];
+			if (hi - lo == 1 && !model.isSuccessor(sccStates[lo], sccStates[lo])) {
+				notInSCCs.set(sccStates[lo]);
+			} else {
+				BitSet scc = new BitSet();
+				for (int j = lo; j < hi; j++) {
+					scc.set(sccStates[j]);
 				}
+				sccs.add(scc);
 			}
 		}
 	}
 
+	@Override
+	public void computeSCCsTopological()
+	{
+		tarjan();
+	}
+
+	@Override
+	public int getNumSCCsTopological()
+	{
+		return numSCCs;
+	}
+
+	@Override
+	public int[] getSCCStatesTopological()
+	{
+		return sccStates;
+	}
+
+	@Override
+	public int[] getSCCStartsTopological()
+	{
+		return sccStarts;
+	}
+
 	@Override
 	public void computeBSCCs()
 	{
@@ -148,15 +184,22 @@ public class SCCComputerTarjan extends SCCComputer
 
 	/**
 	 * Execute Tarjan's algorithm. Determine maximal strongly connected components
-	 * (SCCS) for the graph of the model and stored in {@code sccs}.
+	 * (SCCS) for the graph of the model and store them (compactly) in {@code sccStates}/{@code sccStarts}.
+	 * SCCs are found in reverse topological order. This is only done once.
 	 */
 	public void tarjan()
 	{
+		if (done)
+			return;
+		sccStates = new int[numNodes];
+		sccStarts = new int[numNodes + 1];
+		numSCCs = 0;
 		for (int i = 0; i < numNodes; i++) {
 			if (nodeList.get(i).lowlink == -1)
 				tarjan(i);
 		}
-
+		sccStarts = Arrays.copyOf(sccStarts, numSCCs + 1);
+		done = true;
 	}
 
 	private void tarjan(int i)
@@ -179,14 +222,13 @@ public class SCCComputerTarjan extends SCCComputer
 			}
 		}
 		if (v.lowlink == v.index) {
-			int n;
-			BitSet component = new BitSet();
+			int n, k = sccStarts[numSCCs];
 			do {
 				n = stack.remove(0);
 				onStack.set(n, false);
-				component.set(n);
+				sccStates[k++] = n;
 			} while (n != i);
-			sccs.add(component);
+			sccStarts[++numSCCs] = k;
 		}
 	}
 
@@ -0,0 +1,322 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Christian von Essen <christian.vonessen@imag.fr> (Verimag, Grenoble)
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham/Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+package explicit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+import prism.PrismComponent;
+import prism.PrismException;
+
+/**
+ * Tarjan's SCC algorithm operating on a Model object, implemented iteratively
+ * (with an explicit call stack) and using only primitive arrays.
+ * <p>
+ * Unlike {@link SCCComputerTarjan}, this does not recurse, so it cannot overflow the Java stack
+ * on models with long paths, and does not allocate an object per state.
+ * The transition graph is read directly from the sparse storage of {@link DTMCSparse}
+ * and {@link MDPSparse}; for other models, it is first copied into a compact
+ * (CSR-style) successor array. SCCs are found in the same order as {@link SCCComputerTarjan}.
+ */
+public class SCCComputerTarjanIterative extends SCCComputer
+{
+	/* The model to compute (B)SCCs for */
+	protected Model model;
+	/* Number of nodes (model states) */
+	protected int numNodes;
+	/* Successors of state s are succs[succStarts[s]...succStarts[s+1]-1] (may contain duplicates) */
+	protected int succStarts[];
+	protected int succs[];
+	/* All SCCs, in the order found (reverse topological), stored compactly:
+	 * SCC i is states sccStates[sccStarts[i]...sccStarts[i+1]-1] */
+	protected int sccStates[];
+	protected int sccStarts[];
+	protected int numSCCs = 0;
+	/* Index of the SCC (into sccStarts) containing each state */
+	protected int sccOf[];
+	/* Computed list of SCCs */
+	private List<BitSet> sccs = null;
+	/* States not in non-trivial SCCs */
+	private BitSet notInSCCs;
+	/* Computed list of BSCCs */
+	private List<BitSet> bsccs = null;
+	/* States not in any BSCC */
+	private BitSet notInBSCCs;
+
+	/**
+	 * Build (B)SCC computer for a given model.
+	 */
+	public SCCComputerTarjanIterative(PrismComponent parent, Model model) throws PrismException
+	{
+		super(parent);
+		this.model = model;
+		this.numNodes = model.getNumStates();
+	}
+
+	// Methods for SCCComputer interface
+
+	@Override
+	public void computeSCCs()
+	{
+		if (sccs != null)
+			return;
+		decompose();
+		// Store non-trivial SCCs (as BitSets) and states in trivial ones
+		sccs = new ArrayList<BitSet>();
+		notInSCCs = new BitSet();
+		for (int i = 0; i < numSCCs; i++) {
+			int lo = sccStarts[i];
+			int hi = sccStarts[i + 1];
+			if (hi - lo == 1 && !hasSelfLoop(sccStates[lo])) {
+				notInSCCs.set(sccStates[lo]);
+			} else {
+				BitSet scc = new BitSet();
+				for (int j = lo; j < hi; j++) {
+					scc.set(sccStates[j]);
+				}
+				sccs.add(scc);
+			}
+		}
+	}
+
+	@Override
+	public void computeSCCsTopological()
+	{
+		decompose();
+	}
+
+	@Override
+	public int getNumSCCsTopological()
+	{
+		return numSCCs;
+	}
+
+	@Override
+	public int[] getSCCStatesTopological()
+	{
+		return sccStates;
+	}
+
+	@Override
+	public int[] getSCCStartsTopological()
+	{
+		return sccStarts;
+	}
+
+	@Override
+	public void computeBSCCs()
+	{
+		if (bsccs != null)
+			return;
+		computeSCCs();
+		bsccs = new ArrayList<BitSet>();
+		notInBSCCs = (BitSet) notInSCCs.clone();
+		// An SCC is bottom if no transition leaves it; checked on the compact encoding
+		for (int i = 0; i < numSCCs; i++) {
+			int lo = sccStarts[i];
+			int hi = sccStarts[i + 1];
+			if (hi - lo == 1 && !hasSelfLoop(sccStates[lo]))
+				continue;
+			boolean bottom = true;
+			for (int j = lo; j < hi && bottom; j++) {
+				int s = sccStates[j];
+				for (int k = succStarts[s]; k < succStarts[s + 1]; k++) {
+					if (sccOf[succs[k]] != i) {
+						bottom = false;
+						break;
+					}
+				}
+			}
+			BitSet scc = new BitSet();
+			for (int j = lo; j < hi; j++) {
+				scc.set(sccStates[j]);
+			}
+			if (bottom)
+				bsccs.add(scc);
+			else
+				notInBSCCs.or(scc);
+		}
+	}
+
+	@Override
+	public List<BitSet> getSCCs()
+	{
+		return sccs;
+	}
+
+	@Override
+	public BitSet getNotInSCCs()
+	{
+		return notInSCCs;
+	}
+
+	@Override
+	public List<BitSet> getBSCCs()
+	{
+		return bsccs;
+	}
+
+	@Override
+	public BitSet getNotInBSCCs()
+	{
+		return notInBSCCs;
+	}
+
+	// SCC Computation
+
+	/**
+	 * Compute all SCCs and store them in {@code sccStates}/{@code sccStarts}
+	 * (in reverse topological order), along with {@code sccOf}. This is only done once.
+	 * By default, this is done with {@link #tarjan()}.
+	 */
+	protected void decompose()
+	{
+		tarjan();
+	}
+
+	/**
+	 * Execute Tarjan's algorithm. Determine maximal strongly connected components
+	 * (SCCS) for the graph of the model and store them (compactly) in {@code sccStates}/{@code sccStarts}.
+	 * SCCs are found in reverse topological order. This is only done once.
+	 */
+	public void tarjan()
+	{
+		if (sccStates != null)
+			return;
+		buildSuccessors();
+		int n = numNodes;
+		int index[] = new int[n];
+		int lowlink[] = new int[n];
+		// Stack of nodes in the current (partial) SCCs
+		int stack[] = new int[n];
+		int sp = 0;
+		// Explicit call stack: node and position of its next successor to explore
+		int callNode[] = new int[n];
+		int callPos[] = new int[n];
+		int cp = 0;
+		int nextIndex = 0;
+		Arrays.fill(index, -1);
+		sccOf = new int[n];
+		Arrays.fill(sccOf, -1);
+		sccStates = new int[n];
+		sccStarts = new int[n + 1];
+		numSCCs = 0;
+		for (int root = 0; root < n; root++) {
+			if (index[root] != -1)
+				continue;
+			index[root] = lowlink[root] = nextIndex++;
+			stack[sp++] = root;
+			callNode[cp] = root;
+			callPos[cp++] = succStarts[root];
+			while (cp > 0) {
+				int v = callNode[cp - 1];
+				int pos = callPos[cp - 1];
+				if (pos < succStarts[v + 1]) {
+					int w = succs[pos];
+					callPos[cp - 1] = pos + 1;
+					if (index[w] == -1) {
+						// "Recursive call" for w
+						index[w] = lowlink[w] = nextIndex++;
+						stack[sp++] = w;
+						callNode[cp] = w;
+						callPos[cp++] = succStarts[w];
+					} else if (sccOf[w] == -1) {
+						// w is still on the stack
+						if (index[w] < lowlink[v])
+							lowlink[v] = index[w];
+					}
+				} else {
+					// All successors of v done: "return" to its caller
+					cp--;
+					if (lowlink[v] == index[v]) {
+						int w, k = sccStarts[numSCCs];
+						do {
+							w = stack[--sp];
+							sccOf[w] = numSCCs;
+							sccStates[k++] = w;
+						} while (w != v);
+						sccStarts[++numSCCs] = k;
+					}
+					if (cp > 0) {
+						int u = callNode[cp - 1];
+						if (lowlink[v] < lowlink[u])
+							lowlink[u] = lowlink[v];
+					}
+				}
+			}
+		}
+		sccStarts = Arrays.copyOf(sccStarts, numSCCs + 1);
+	}
+
+	/**
+	 * Set up {@code succStarts}/{@code succs}, reusing the model's own storage where possible.
+	 */
+	protected void buildSuccessors()
+	{
+		if (model instanceof DTMCSparse) {
+			DTMCSparse dtmc = (DTMCSparse) model;
+			succStarts = dtmc.getRowStartsArray();
+			succs = dtmc.getColumnsArray();
+		} else if (model instanceof MDPSparse) {
+			MDPSparse mdp = (MDPSparse) model;
+			succStarts = new int[numNodes + 1];
+			for (int s = 0; s <= numNodes; s++) {
+				succStarts[s] = mdp.getChoiceStart(mdp.getRowStart(s));
+			}
+			succs = mdp.getColumnsArray();
+		} else {
+			succStarts = new int[numNodes + 1];
+			succs = new int[Math.max(numNodes, 16)];
+			int k = 0;
+			for (int s = 0; s < numNodes; s++) {
+				succStarts[s] = k;
+				Iterator<Integer> it = model.getSuccessorsIterator(s);
+				while (it.hasNext()) {
+					if (k == succs.length)
+						succs = Arrays.copyOf(succs, 2 * k);
+					succs[k++] = it.next();
+				}
+			}
+			succStarts[numNodes] = k;
+		}
+	}
+
+	/**
+	 * Check whether state {@code s} is a successor of itself.
+	 */
+	protected boolean hasSelfLoop(int s)
+	{
+		for (int k = succStarts[s]; k < succStarts[s + 1]; k++) {
+			if (succs[k] == s)
+				return true;
+		}
+		return false;
+	}
+}
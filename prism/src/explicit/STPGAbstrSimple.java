@@ -681,9 +681,9 @@ public class STPGAbstrSimple extends ModelExplicit implements STPG, NondetModelS
 			for (Distribution distr : distrs) {
 				// Compute sum for this distribution
 				d = 0.0;
-				for (Map.Entry<Integer, Double> e : distr) {
-					k = (Integer) e.getKey();
-					prob = (Double) e.getValue();
+				for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+					k = distr.getStateAt(t);
+					prob = distr.getProbabilityAt(t);
 					d += prob * vect[k];
 				}
 				// Check whether we have exceeded min/max so far
@@ -721,9 +721,9 @@ public class STPGAbstrSimple extends ModelExplicit implements STPG, NondetModelS
 			for (Distribution distr : distrs) {
 				// Compute sum for this distribution
 				d = 0.0;
-				for (Map.Entry<Integer, Double> e : distr) {
-					k = (Integer) e.getKey();
-					prob = (Double) e.getValue();
+				for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+					k = distr.getStateAt(t);
+					prob = distr.getProbabilityAt(t);
 					d += prob * vect[k];
 				}
 				// Check whether we have exceeded min/max so far
@@ -773,9 +773,9 @@ public class STPGAbstrSimple extends ModelExplicit implements STPG, NondetModelS
 				diag = 1.0;
 				// Compute sum for this distribution
 				d = 0.0;
-				for (Map.Entry<Integer, Double> e : distr) {
-					k = (Integer) e.getKey();
-					prob = (Double) e.getValue();
+				for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+					k = distr.getStateAt(t);
+					prob = distr.getProbabilityAt(t);
 					if (k != s) {
 						d += prob * vect[k];
 					} else {
@@ -827,9 +827,9 @@ public class STPGAbstrSimple extends ModelExplicit implements STPG, NondetModelS
 				dIter++;
 				// Compute sum for this distribution
 				d = rewards.getNestedTransitionReward(s, dsIter, dIter);
-				for (Map.Entry<Integer, Double> e : distr) {
-					k = (Integer) e.getKey();
-					prob = (Double) e.getValue();
+				for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+					k = distr.getStateAt(t);
+					prob = distr.getProbabilityAt(t);
 					d += prob * vect[k];
 				}
 				// Check whether we have exceeded min/max so far
@@ -870,9 +870,9 @@ public class STPGAbstrSimple extends ModelExplicit implements STPG, NondetModelS
 				dIter++;
 				// Compute sum for this distribution
 				d = rewards.getNestedTransitionReward(s, dsIter, dIter);
-				for (Map.Entry<Integer, Double> e : distr) {
-					k = (Integer) e.getKey();
-					prob = (Double) e.getValue();
+				for (int t = 0, numTrans = distr.size(); t < numTrans; t++) {
+					k = distr.getStateAt(t);
+					prob = distr.getProbabilityAt(t);
 					d += prob * vect[k];
 				}
 				// Check whether we have exceeded min/max so far
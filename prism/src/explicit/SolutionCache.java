@@ -0,0 +1,123 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of solution vectors from previous numerical computations on a model,
+ * so that a series of related properties (e.g. the iterations of an experiment
+ * over property constants) need not each be solved from scratch.
+ * <p>
+ * Entries are keyed by a list of objects identifying the computation (e.g. its kind,
+ * the sets of states involved and min/max flags), which must implement equals/hashCode.
+ * For step-bounded computations, the bound of the stored solution is also kept,
+ * so that a computation for a larger bound can continue from it.
+ * The cache only holds entries for a single model: storing an entry for
+ * a different model first discards all existing ones.
+ */
+public class SolutionCache
+{
+	/**
+	 * A cached solution vector, plus the step bound it is for (-1 if unbounded).
+	 */
+	public static class CachedSolution
+	{
+		private final int bound;
+		private final double soln[];
+
+		private CachedSolution(int bound, double soln[])
+		{
+			this.bound = bound;
+			this.soln = soln;
+		}
+
+		/**
+		 * Get the step bound that the solution is for (-1 if unbounded).
+		 */
+		public int getBound()
+		{
+			return bound;
+		}
+
+		/**
+		 * Get a (fresh) copy of the solution vector.
+		 */
+		public double[] getSolution()
+		{
+			return soln.clone();
+		}
+	}
+
+	// Model that entries are for
+	private Model model = null;
+	// Cached solutions
+	private Map<List<Object>, CachedSolution> entries = new HashMap<>();
+
+	/**
+	 * Look up a solution for the computation identified by {@code key} on {@code model}.
+	 * Returns null if there is none.
+	 */
+	public CachedSolution lookup(Model model, Object... key)
+	{
+		if (model != this.model)
+			return null;
+		return entries.get(Arrays.asList(key));
+	}
+
+	/**
+	 * Store (a copy of) the solution {@code soln} for the computation identified by {@code key} on {@code model}.
+	 * Any BitSets in the key are copied too, since they may be modified later by the caller.
+	 * @param bound The step bound the solution is for (-1 if unbounded)
+	 */
+	public void store(Model model, int bound, double soln[], Object... key)
+	{
+		if (model != this.model) {
+			clear();
+			this.model = model;
+		}
+		List<Object> keyCopy = new ArrayList<>(key.length);
+		for (Object o : key) {
+			keyCopy.add(o instanceof BitSet ? ((BitSet) o).clone() : o);
+		}
+		entries.put(keyCopy, new CachedSolution(bound, soln.clone()));
+	}
+
+	/**
+	 * Discard all cached solutions.
+	 */
+	public void clear()
+	{
+		model = null;
+		entries.clear();
+	}
+}
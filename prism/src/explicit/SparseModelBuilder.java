@@ -0,0 +1,454 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import prism.ModelType;
+import prism.PrismNotSupportedException;
+import prism.PrismUtils;
+
+/**
+ * Class for building a sparse explicit-state model ({@link DTMCSparse}, {@link CTMCSparse}
+ * or {@link MDPSparse}) directly, without first constructing a mutable (e.g. MDPSimple) version of it.
+ * The transitions of each state are added in order of state index (as happens during
+ * state space exploration) and appended to growable primitive arrays.
+ * <p>
+ * For DTMCs/CTMCs, transitions are added with {@link #addTransition(int, double)}
+ * and each state is completed with {@link #finishState()}. For MDPs, each choice of a state
+ * is also completed with {@link #finishChoice(Object)} before finishing the state.
+ * Duplicate transitions (to the same state) within a choice are combined when the choice is finished;
+ * as for MDPSimple, duplicate choices (same distribution and action) within a state are discarded.
+ */
+public class SparseModelBuilder
+{
+	// Model type
+	protected ModelType modelType;
+	// Does the model have nondeterministic choices?
+	protected boolean nondet;
+	// Number of states finished so far
+	protected int numStates;
+	/** For nondeterministic models, indices into choiceStarts giving the start of the choices for each state */
+	protected int rowStarts[];
+	// Number of choices finished so far
+	protected int numChoices;
+	// Maximum number of choices in any state
+	protected int maxNumChoices;
+	/** Indices into cols/nonZeros giving the start of the transitions for each choice
+	 * (for DTMCs/CTMCs, there is exactly one choice per state) */
+	protected int choiceStarts[];
+	/** Column (destination) indices for each transition */
+	protected int cols[];
+	/** Probabilities/rates for each transition */
+	protected double nonZeros[];
+	// Number of transitions added so far
+	protected int numTransitions;
+	/** Action labels for choices (null if no non-null action has been added) */
+	protected Object actions[];
+	// Initial/deadlock states
+	protected List<Integer> initialStates;
+	protected List<Integer> deadlocks;
+
+	/**
+	 * Constructor: create builder for a model of type {@code modelType}.
+	 */
+	public SparseModelBuilder(ModelType modelType) throws PrismNotSupportedException
+	{
+		if (modelType != ModelType.DTMC && modelType != ModelType.CTMC && modelType != ModelType.MDP)
+			throw new PrismNotSupportedException("Sparse model building not supported for " + modelType + "s");
+		this.modelType = modelType;
+		nondet = modelType.nondeterministic();
+		numStates = 0;
+		rowStarts = nondet ? new int[1024 + 1] : null;
+		numChoices = 0;
+		maxNumChoices = 0;
+		choiceStarts = new int[1024 + 1];
+		cols = new int[4096];
+		nonZeros = new double[4096];
+		numTransitions = 0;
+		actions = null;
+		initialStates = new ArrayList<Integer>();
+		deadlocks = new ArrayList<Integer>();
+	}
+
+	/**
+	 * Get the number of states finished so far.
+	 */
+	public int getNumStates()
+	{
+		return numStates;
+	}
+
+	/**
+	 * Add a state to the list of initial states.
+	 */
+	public void addInitialState(int i)
+	{
+		initialStates.add(i);
+	}
+
+	/**
+	 * Add a transition, with probability/rate {@code prob}, to state {@code dest}, from the current
+	 * state (i.e. the one with index {@link #getNumStates()}) or, for MDPs, its current choice.
+	 */
+	public void addTransition(int dest, double prob)
+	{
+		if (numTransitions == cols.length) {
+			int newLength = cols.length + (cols.length >> 1);
+			cols = Arrays.copyOf(cols, newLength);
+			nonZeros = Arrays.copyOf(nonZeros, newLength);
+		}
+		cols[numTransitions] = dest;
+		nonZeros[numTransitions] = prob;
+		numTransitions++;
+	}
+
+	/**
+	 * For MDPs, finish adding transitions for the current choice of the current state,
+	 * labelling the choice with {@code action} (which may be null).
+	 * The choice is discarded if it is identical to an existing one for the same state.
+	 */
+	public void finishChoice(Object action)
+	{
+		int from, len, c;
+		// Sort/merge transitions and store the choice
+		closeChoice();
+		// Discard if a duplicate (this is done as in MDPSimple, i.e. probabilities
+		// are compared approximately, and actions must match)
+		from = choiceStarts[numChoices - 1];
+		len = numTransitions - from;
+		for (c = rowStarts[numStates]; c < numChoices - 1; c++) {
+			if (choiceStarts[c + 1] - choiceStarts[c] == len && choicesAreEqual(choiceStarts[c], from, len)) {
+				Object a = actions == null ? null : actions[c];
+				if (action == null ? a == null : action.equals(a)) {
+					numChoices--;
+					numTransitions = from;
+					return;
+				}
+			}
+		}
+		// Store action
+		if (action != null && actions == null) {
+			actions = new Object[choiceStarts.length];
+		}
+		if (actions != null) {
+			actions[numChoices - 1] = action;
+		}
+	}
+
+	/**
+	 * Finish adding transitions (or, for MDPs, choices) for the current state and move on to the next one.
+	 */
+	public void finishState()
+	{
+		if (!nondet) {
+			// For DTMCs/CTMCs, the transitions form a single choice
+			closeChoice();
+		} else {
+			numStates++;
+			if (numStates + 1 == rowStarts.length) {
+				rowStarts = Arrays.copyOf(rowStarts, rowStarts.length + (rowStarts.length >> 1));
+			}
+			rowStarts[numStates] = numChoices;
+			maxNumChoices = Math.max(maxNumChoices, numChoices - rowStarts[numStates - 1]);
+			return;
+		}
+		numStates++;
+	}
+
+	/**
+	 * Find all deadlock states (i.e. those with no choices/transitions) and store this information.
+	 * If {@code fix} is true, add self-loops to these states.
+	 * This should be called once all states have been finished.
+	 */
+	public void findDeadlocks(boolean fix)
+	{
+		int i, c, k, lo, extraChoices, extraTrans;
+		for (i = 0; i < numStates; i++) {
+			if (isDeadlock(i)) {
+				deadlocks.add(i);
+			}
+		}
+		if (!fix || deadlocks.isEmpty())
+			return;
+		// Make room
+		extraTrans = deadlocks.size();
+		extraChoices = nondet ? deadlocks.size() : 0;
+		ensureTransitionCapacity(numTransitions + extraTrans);
+		ensureChoiceCapacity(numChoices + extraChoices);
+		// Insert self-loops (and, for MDPs, new choices), shifting existing entries
+		// backwards, starting from the end of the arrays;
+		// extraChoices/extraTrans are the numbers of insertions still to be made at or before the current position
+		if (nondet) {
+			choiceStarts[numChoices + extraChoices] = numTransitions + extraTrans;
+		}
+		for (i = numStates - 1; i >= 0; i--) {
+			if (nondet) {
+				if (rowStarts[i] == rowStarts[i + 1]) {
+					// Add a new choice, with a self-loop
+					c = rowStarts[i] + extraChoices - 1;
+					k = choiceStarts[rowStarts[i]] + extraTrans - 1;
+					choiceStarts[c] = k;
+					cols[k] = i;
+					nonZeros[k] = 1.0;
+					if (actions != null)
+						actions[c] = null;
+					rowStarts[i + 1] += extraChoices;
+					extraChoices--;
+					extraTrans--;
+					maxNumChoices = Math.max(maxNumChoices, 1);
+				} else {
+					// Shift existing choices
+					for (c = rowStarts[i + 1] - 1; c >= rowStarts[i]; c--) {
+						lo = choiceStarts[c];
+						for (k = choiceStarts[c + 1] - 1; k >= lo; k--) {
+							cols[k + extraTrans] = cols[k];
+							nonZeros[k + extraTrans] = nonZeros[k];
+						}
+						choiceStarts[c + extraChoices] = lo + extraTrans;
+						if (actions != null)
+							actions[c + extraChoices] = actions[c];
+					}
+					rowStarts[i + 1] += extraChoices;
+				}
+			} else {
+				lo = choiceStarts[i];
+				if (lo == choiceStarts[i + 1]) {
+					// Add a self-loop
+					k = lo + extraTrans - 1;
+					cols[k] = i;
+					nonZeros[k] = 1.0;
+					choiceStarts[i + 1] = k + 1;
+					extraTrans--;
+				} else {
+					// Shift existing transitions
+					for (k = choiceStarts[i + 1] - 1; k >= lo; k--) {
+						cols[k + extraTrans] = cols[k];
+						nonZeros[k + extraTrans] = nonZeros[k];
+					}
+					choiceStarts[i + 1] += extraTrans;
+				}
+			}
+		}
+		numTransitions += deadlocks.size();
+		if (nondet) {
+			numChoices += deadlocks.size();
+		}
+	}
+
+	/**
+	 * Build the model (a {@link DTMCSparse}, {@link CTMCSparse} or {@link MDPSparse}), optionally applying
+	 * a state index permutation, i.e. in which state index i becomes index permut[i].
+	 * To keep peak memory usage low, column indices are renumbered (and re-sorted) in place,
+	 * and then the arrays are moved into their final (exactly sized) form one at a time.
+	 * The storage of this builder is handed over to (or discarded for) the model,
+	 * so the builder should not be used afterwards.
+	 * @param permut State space permutation (or null)
+	 */
+	public ModelExplicit build(int permut[])
+	{
+		int i, c, k, s, n, newRowStarts[], newChoiceStarts[], choiceOrder[], newCols[];
+		double newNonZeros[];
+		Object newActions[];
+		ModelExplicit model;
+
+		// Renumber columns and re-sort choices, in place
+		if (permut != null) {
+			for (k = 0; k < numTransitions; k++) {
+				cols[k] = permut[cols[k]];
+			}
+			for (c = 0; c < numChoices; c++) {
+				DTMCSparse.sortRow(cols, nonZeros, choiceStarts[c], choiceStarts[c + 1]);
+			}
+		}
+		// Work out new ordering of choices (choiceOrder[c] is old index of c-th new choice)
+		newRowStarts = null;
+		choiceOrder = null;
+		if (permut != null) {
+			choiceOrder = new int[numChoices];
+			if (nondet) {
+				newRowStarts = new int[numStates + 1];
+				for (i = 0; i < numStates; i++) {
+					newRowStarts[permut[i] + 1] = rowStarts[i + 1] - rowStarts[i];
+				}
+				for (i = 0; i < numStates; i++) {
+					newRowStarts[i + 1] += newRowStarts[i];
+				}
+				for (i = 0; i < numStates; i++) {
+					n = rowStarts[i + 1] - rowStarts[i];
+					for (c = 0; c < n; c++) {
+						choiceOrder[newRowStarts[permut[i]] + c] = rowStarts[i] + c;
+					}
+				}
+			} else {
+				for (i = 0; i < numStates; i++) {
+					choiceOrder[permut[i]] = i;
+				}
+			}
+		} else if (nondet) {
+			newRowStarts = Arrays.copyOf(rowStarts, numStates + 1);
+		}
+		rowStarts = null;
+		// Compute new choice starts
+		newChoiceStarts = new int[numChoices + 1];
+		for (c = 0; c < numChoices; c++) {
+			s = choiceOrder == null ? c : choiceOrder[c];
+			newChoiceStarts[c + 1] = newChoiceStarts[c] + choiceStarts[s + 1] - choiceStarts[s];
+		}
+		// Move columns, then probabilities, then actions (one array at a time)
+		newCols = new int[numTransitions];
+		for (c = 0; c < numChoices; c++) {
+			s = choiceOrder == null ? c : choiceOrder[c];
+			System.arraycopy(cols, choiceStarts[s], newCols, newChoiceStarts[c], choiceStarts[s + 1] - choiceStarts[s]);
+		}
+		cols = null;
+		newNonZeros = new double[numTransitions];
+		for (c = 0; c < numChoices; c++) {
+			s = choiceOrder == null ? c : choiceOrder[c];
+			System.arraycopy(nonZeros, choiceStarts[s], newNonZeros, newChoiceStarts[c], choiceStarts[s + 1] - choiceStarts[s]);
+		}
+		nonZeros = null;
+		choiceStarts = null;
+		newActions = null;
+		if (actions != null) {
+			newActions = new Object[numChoices];
+			for (c = 0; c < numChoices; c++) {
+				newActions[c] = actions[choiceOrder == null ? c : choiceOrder[c]];
+			}
+			actions = null;
+		}
+		choiceOrder = null;
+		// Create model
+		switch (modelType) {
+		case CTMC:
+			model = new CTMCSparse(numStates, newChoiceStarts, newCols, newNonZeros);
+			break;
+		case MDP:
+			model = new MDPSparse(numStates, newRowStarts, newChoiceStarts, newCols, newNonZeros, newActions);
+			break;
+		default:
+			model = new DTMCSparse(numStates, newChoiceStarts, newCols, newNonZeros);
+			break;
+		}
+		for (int in : initialStates) {
+			model.addInitialState(permut == null ? in : permut[in]);
+		}
+		for (int dl : deadlocks) {
+			model.addDeadlockState(permut == null ? dl : permut[dl]);
+		}
+		return model;
+	}
+
+	// Local utility methods
+
+	/**
+	 * Complete the current choice: sort its transitions, combine any duplicates,
+	 * remove any zero entries and store it.
+	 */
+	private void closeChoice()
+	{
+		int from, i, n;
+		from = choiceStarts[numChoices];
+		// Sort (stably, so duplicates are summed in the order they were added) and merge duplicates
+		DTMCSparse.sortRow(cols, nonZeros, from, numTransitions);
+		n = from;
+		for (i = from; i < numTransitions; i++) {
+			if (n > from && cols[n - 1] == cols[i]) {
+				nonZeros[n - 1] += nonZeros[i];
+			} else {
+				cols[n] = cols[i];
+				nonZeros[n] = nonZeros[i];
+				n++;
+			}
+		}
+		// Remove any entries that are zero
+		numTransitions = from;
+		for (i = from; i < n; i++) {
+			if (nonZeros[i] != 0.0) {
+				cols[numTransitions] = cols[i];
+				nonZeros[numTransitions] = nonZeros[i];
+				numTransitions++;
+			}
+		}
+		ensureChoiceCapacity(numChoices + 1);
+		numChoices++;
+		choiceStarts[numChoices] = numTransitions;
+	}
+
+	/**
+	 * Check whether the (sorted) transitions starting at indices {@code k1} and {@code k2}
+	 * (both of length {@code len}) are the same (up to approximate equality of probabilities).
+	 */
+	private boolean choicesAreEqual(int k1, int k2, int len)
+	{
+		for (int i = 0; i < len; i++) {
+			if (cols[k1 + i] != cols[k2 + i])
+				return false;
+			if (!PrismUtils.doublesAreClose(nonZeros[k1 + i], nonZeros[k2 + i], 1e-12, false))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether state {@code i} (which must have been finished) is a deadlock.
+	 */
+	private boolean isDeadlock(int i)
+	{
+		if (nondet) {
+			return rowStarts[i] == rowStarts[i + 1];
+		} else {
+			return choiceStarts[i] == choiceStarts[i + 1];
+		}
+	}
+
+	/**
+	 * Make sure there is space for {@code n} transitions.
+	 */
+	private void ensureTransitionCapacity(int n)
+	{
+		if (n > cols.length) {
+			cols = Arrays.copyOf(cols, n);
+			nonZeros = Arrays.copyOf(nonZeros, n);
+		}
+	}
+
+	/**
+	 * Make sure there is space for {@code n} choices.
+	 */
+	private void ensureChoiceCapacity(int n)
+	{
+		if (n + 1 > choiceStarts.length) {
+			int newLength = Math.max(n + 1, choiceStarts.length + (choiceStarts.length >> 1));
+			choiceStarts = Arrays.copyOf(choiceStarts, newLength);
+			if (actions != null) {
+				actions = Arrays.copyOf(actions, newLength);
+			}
+		}
+	}
+}
@@ -0,0 +1,570 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import parser.State;
+import parser.VarList;
+import parser.ast.ModulesFile;
+import prism.ModelType;
+import prism.PrismException;
+import prism.PrismNotSupportedException;
+
+/**
+ * Binary on-disk format for sparse explicit-state models (DTMCs and MDPs),
+ * designed to be read back via memory mapping (see {@link DTMCSparseMapped} and {@link MDPSparseMapped}),
+ * so that models larger than the Java heap can be analysed and a previously built model
+ * can be re-loaded almost instantly, rather than being constructed again.
+ * <p>
+ * A file comprises a small header (magic number, header length), the header itself
+ * (model type, key, sizes, initial states, deadlocks, labels, action names) and then
+ * the arrays of the sparse matrix (rowStarts, choiceStarts for MDPs, cols, nonZeros),
+ * the action indices for each choice (MDPs with actions only) and the (encoded)
+ * variable values for each state. Arrays are stored little-endian and 8-byte aligned.
+ * <p>
+ * The key stored in the file identifies the model it was built from (see {@link #computeKey}),
+ * so that a stale file can be detected. Files are written to a temporary file first
+ * and then renamed, so that an existing file (which may still be mapped) is replaced
+ * atomically and an interrupted write never leaves a file with a valid key. Reward structures are not stored,
+ * since these are constructed separately, at model checking time.
+ */
+public class SparseModelFile
+{
+	/** Magic number at the start of a file */
+	private static final int MAGIC = 0x50524d58;
+	/** Format version */
+	private static final int VERSION = 1;
+
+	/**
+	 * Compute a key identifying the model that would be built from {@code modulesFile}
+	 * (with its current constant values), to be stored in/compared against model files.
+	 * @param modulesFile The PRISM model
+	 * @param fixDeadlocks Whether deadlocks are fixed during model construction
+	 */
+	public static String computeKey(ModulesFile modulesFile, boolean fixDeadlocks) throws PrismException
+	{
+		String s = modulesFile + "\n" + modulesFile.getConstantValues() + "\n" + fixDeadlocks;
+		try {
+			byte digest[] = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new PrismException("Could not compute model key: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Can {@code model} be written to a file in this format?
+	 * (Only models of class {@link DTMCSparse} or {@link MDPSparse} can be.)
+	 */
+	public static boolean canWrite(Model model)
+	{
+		return model.getClass() == DTMCSparse.class || model.getClass() == MDPSparse.class;
+	}
+
+	/**
+	 * Write a model to a file (via a temporary file in the same directory,
+	 * which then atomically replaces {@code file}).
+	 * @param model The model (a {@link DTMCSparse} or {@link MDPSparse})
+	 * @param key Key identifying the model (see {@link #computeKey})
+	 * @param file File to write to
+	 */
+	public static void write(ModelExplicit model, String key, File file) throws PrismException
+	{
+		if (!canWrite(model))
+			throw new PrismNotSupportedException("Can't write a " + model.getClass().getSimpleName() + " to a sparse model file");
+		boolean isMDP = model instanceof MDPSparse;
+		DTMCSparse dtmc = isMDP ? null : (DTMCSparse) model;
+		MDPSparse mdp = isMDP ? (MDPSparse) model : null;
+		int numChoices = isMDP ? mdp.numDistrs : model.numStates;
+		int numTransitions = isMDP ? mdp.numTransitions : dtmc.numTransitions;
+		// Variable values are stored (encoded as ints) if variable info is available
+		VarList varList = model.getVarList();
+		List<State> statesList = model.getStatesList();
+		int numVars = varList != null && statesList != null ? varList.getNumVars() : 0;
+
+		// Build table of action names
+		List<Object> actionTable = new ArrayList<Object>();
+		int actionIndices[] = null;
+		if (isMDP && mdp.actions != null) {
+			Map<Object, Integer> actionMap = new HashMap<Object, Integer>();
+			actionIndices = new int[numChoices];
+			for (int j = 0; j < numChoices; j++) {
+				Object action = mdp.actions[j];
+				if (action == null) {
+					actionIndices[j] = -1;
+				} else {
+					Integer a = actionMap.get(action);
+					if (a == null) {
+						a = actionTable.size();
+						actionMap.put(action, a);
+						actionTable.add(action);
+					}
+					actionIndices[j] = a;
+				}
+			}
+		}
+
+		File tmpFile = null;
+		try {
+			File dir = file.getAbsoluteFile().getParentFile();
+			tmpFile = File.createTempFile(file.getName() + ".", ".tmp", dir);
+		} catch (IOException e) {
+			throw new PrismException("Could not write model to file \"" + file + "\": " + e.getMessage());
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw")) {
+			FileChannel channel = raf.getChannel();
+			// Header
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream header = new DataOutputStream(bytes);
+			header.writeInt(VERSION);
+			header.writeUTF(model.getModelType().name());
+			header.writeUTF(key);
+			header.writeInt(model.numStates);
+			header.writeInt(numChoices);
+			header.writeInt(numTransitions);
+			header.writeInt(numVars);
+			header.writeInt(model.getNumInitialStates());
+			for (int s : model.getInitialStates()) {
+				header.writeInt(s);
+			}
+			header.writeInt(model.deadlocks.size());
+			for (int s : model.deadlocks) {
+				header.writeInt(s);
+			}
+			header.writeInt(model.labels.size());
+			for (Map.Entry<String, BitSet> label : model.labels.entrySet()) {
+				header.writeUTF(label.getKey());
+				long words[] = label.getValue().toLongArray();
+				header.writeInt(words.length);
+				for (long w : words) {
+					header.writeLong(w);
+				}
+			}
+			header.writeBoolean(actionIndices != null);
+			header.writeInt(actionTable.size());
+			for (Object action : actionTable) {
+				header.writeUTF(action.toString());
+			}
+			header.close();
+			ArrayWriter out = new ArrayWriter(channel);
+			out.putInt(MAGIC);
+			out.putInt(bytes.size());
+			out.putBytes(bytes.toByteArray());
+			out.align();
+			// Arrays
+			out.putInts(isMDP ? mdp.rowStarts : dtmc.rowStarts, model.numStates + 1);
+			if (isMDP) {
+				out.putInts(mdp.choiceStarts, numChoices + 1);
+			}
+			out.putInts(isMDP ? mdp.cols : dtmc.cols, numTransitions);
+			out.putDoubles(isMDP ? mdp.nonZeros : dtmc.nonZeros, numTransitions);
+			if (actionIndices != null) {
+				out.putInts(actionIndices, numChoices);
+			}
+			for (State state : numVars > 0 ? statesList : new ArrayList<State>()) {
+				for (int v = 0; v < numVars; v++) {
+					out.putInt(varList.encodeToInt(v, state.varValues[v]));
+				}
+			}
+			out.align();
+			out.flush();
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw new PrismException("Could not write model to file \"" + file + "\": " + e.getMessage());
+		}
+		try {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw new PrismException("Could not write model to file \"" + file + "\": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Read the key stored in a model file (see {@link #computeKey}),
+	 * or return null if the file does not exist, is not a valid model file
+	 * or is shorter than its header says (e.g. because it was not completely written).
+	 */
+	public static String readKey(File file)
+	{
+		if (!file.isFile())
+			return null;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			Header header = new Header(raf.getChannel());
+			if (header.version != VERSION || raf.getChannel().size() < header.dataEnd)
+				return null;
+			return header.key;
+		} catch (IOException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Read a model from a file, memory-mapping its transitions and state information.
+	 * Variable info for the model (needed to decode the states list) is passed in,
+	 * since this is not stored in the file. Constant values should be set separately afterwards.
+	 * @param file File to read from
+	 * @param varList Variable info for the model (optional; if null, no states list is attached)
+	 */
+	public static ModelExplicit read(File file, VarList varList) throws PrismException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			FileChannel channel = raf.getChannel();
+			Header header = new Header(channel);
+			if (header.version != VERSION)
+				throw new PrismException("Unsupported model file version");
+			if (channel.size() < header.dataEnd)
+				throw new PrismException("Model file is incomplete");
+			ModelType modelType = header.modelType;
+			int numStates = header.numStates;
+			int numChoices = header.numChoices;
+			int numTransitions = header.numTransitions;
+			int numVars = header.numVars;
+			boolean hasActions = header.hasActions;
+			Object actionTable[] = header.actionTable;
+
+			// Map arrays
+			long offset = header.dataStart;
+			MappedIntArray rowStarts = new MappedIntArray(channel, offset, numStates + 1);
+			offset = align(offset + 4L * (numStates + 1));
+			MappedIntArray choiceStarts = null;
+			if (modelType == ModelType.MDP) {
+				choiceStarts = new MappedIntArray(channel, offset, numChoices + 1);
+				offset = align(offset + 4L * (numChoices + 1));
+			}
+			MappedIntArray cols = new MappedIntArray(channel, offset, numTransitions);
+			offset = align(offset + 4L * numTransitions);
+			MappedDoubleArray nonZeros = new MappedDoubleArray(channel, offset, numTransitions);
+			offset = align(offset + 8L * numTransitions);
+			MappedIntArray actionIndices = null;
+			if (hasActions) {
+				actionIndices = new MappedIntArray(channel, offset, numChoices);
+				offset = align(offset + 4L * numChoices);
+			}
+			MappedIntArray varValues = null;
+			if (numVars > 0) {
+				varValues = new MappedIntArray(channel, offset, (long) numStates * numVars);
+			}
+
+			// Create model
+			ModelExplicit model;
+			switch (modelType) {
+			case DTMC:
+				model = new DTMCSparseMapped(numStates, rowStarts, cols, nonZeros);
+				break;
+			case MDP:
+				model = new MDPSparseMapped(numStates, rowStarts, choiceStarts, cols, nonZeros, actionIndices, hasActions ? actionTable : null);
+				break;
+			default:
+				throw new PrismNotSupportedException("Can't read " + modelType + "s from a sparse model file");
+			}
+			for (int s : header.initialStates) {
+				model.addInitialState(s);
+			}
+			for (int s : header.deadlocks) {
+				model.addDeadlockState(s);
+			}
+			for (Map.Entry<String, BitSet> label : header.labels.entrySet()) {
+				model.addLabel(label.getKey(), label.getValue());
+			}
+			if (varList != null) {
+				model.setVarList(varList);
+				if (varValues != null && varList.getNumVars() == numVars) {
+					model.setStatesList(new MappedStatesList(varList, varValues, numStates));
+				}
+			}
+			return model;
+		} catch (IOException | IllegalArgumentException e) {
+			throw new PrismException("Could not read model from file \"" + file + "\": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Contents of the header of a model file, plus the offsets of the arrays that follow it.
+	 */
+	private static class Header
+	{
+		private int version;
+		private ModelType modelType;
+		private String key;
+		private int numStates;
+		private int numChoices;
+		private int numTransitions;
+		private int numVars;
+		private List<Integer> initialStates;
+		private List<Integer> deadlocks;
+		private Map<String, BitSet> labels;
+		private boolean hasActions;
+		private Object actionTable[];
+		// File offset of the start of the arrays
+		private long dataStart;
+		// File offset of the end of the arrays (i.e. the expected file length)
+		private long dataEnd;
+
+		/**
+		 * Read the header of a model file (only the version, if it is not the current one).
+		 */
+		private Header(FileChannel channel) throws IOException
+		{
+			DataInputStream header = readHeader(channel);
+			version = header.readInt();
+			if (version != VERSION)
+				return;
+			modelType = ModelType.valueOf(header.readUTF());
+			key = header.readUTF();
+			numStates = header.readInt();
+			numChoices = header.readInt();
+			numTransitions = header.readInt();
+			numVars = header.readInt();
+			initialStates = readInts(header);
+			deadlocks = readInts(header);
+			int numLabels = header.readInt();
+			labels = new HashMap<String, BitSet>();
+			for (int l = 0; l < numLabels; l++) {
+				String name = header.readUTF();
+				long words[] = new long[header.readInt()];
+				for (int i = 0; i < words.length; i++) {
+					words[i] = header.readLong();
+				}
+				labels.put(name, BitSet.valueOf(words));
+			}
+			hasActions = header.readBoolean();
+			actionTable = new Object[header.readInt()];
+			for (int a = 0; a < actionTable.length; a++) {
+				actionTable[a] = header.readUTF();
+			}
+			// Compute array extents (as laid out by write())
+			dataStart = align(8 + headerLength(channel));
+			long offset = align(dataStart + 4L * (numStates + 1));
+			if (modelType == ModelType.MDP)
+				offset = align(offset + 4L * (numChoices + 1));
+			offset = align(offset + 4L * numTransitions);
+			offset = align(offset + 8L * numTransitions);
+			if (hasActions)
+				offset = align(offset + 4L * numChoices);
+			offset = align(offset + 4L * numStates * numVars);
+			dataEnd = offset;
+		}
+	}
+
+	// Local utility methods
+
+	/**
+	 * Check the magic number at the start of a model file and return a stream for reading its header.
+	 */
+	private static DataInputStream readHeader(FileChannel channel) throws IOException
+	{
+		int length = headerLength(channel);
+		ByteBuffer buf = ByteBuffer.allocate(length);
+		channel.position(8);
+		while (buf.hasRemaining()) {
+			if (channel.read(buf) < 0)
+				throw new IOException("Unexpected end of file");
+		}
+		return new DataInputStream(new ByteArrayInputStream(buf.array()));
+	}
+
+	/**
+	 * Check the magic number at the start of a model file and return the length of its header.
+	 */
+	private static int headerLength(FileChannel channel) throws IOException
+	{
+		ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		channel.position(0);
+		while (buf.hasRemaining()) {
+			if (channel.read(buf) < 0)
+				throw new IOException("Unexpected end of file");
+		}
+		buf.flip();
+		if (buf.getInt() != MAGIC)
+			throw new IOException("Not a PRISM model file");
+		int length = buf.getInt();
+		if (length < 0 || length > channel.size())
+			throw new IOException("Invalid header length");
+		return length;
+	}
+
+	/**
+	 * Read a list of ints (preceded by its size) from a header.
+	 */
+	private static List<Integer> readInts(DataInputStream header) throws IOException
+	{
+		int n = header.readInt();
+		List<Integer> list = new ArrayList<Integer>(n);
+		for (int i = 0; i < n; i++) {
+			list.add(header.readInt());
+		}
+		return list;
+	}
+
+	/**
+	 * Round a file offset up to a multiple of 8.
+	 */
+	private static long align(long offset)
+	{
+		return (offset + 7) & ~7L;
+	}
+
+	/**
+	 * Buffered sequential writer of (little-endian) values to a file channel.
+	 */
+	private static class ArrayWriter
+	{
+		private FileChannel channel;
+		private ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		private long position = 0;
+
+		private ArrayWriter(FileChannel channel)
+		{
+			this.channel = channel;
+		}
+
+		private void putInt(int i) throws IOException
+		{
+			if (buf.remaining() < 4)
+				flush();
+			buf.putInt(i);
+			position += 4;
+		}
+
+		private void putDouble(double d) throws IOException
+		{
+			if (buf.remaining() < 8)
+				flush();
+			buf.putDouble(d);
+			position += 8;
+		}
+
+		private void putBytes(byte bytes[]) throws IOException
+		{
+			for (byte b : bytes) {
+				if (!buf.hasRemaining())
+					flush();
+				buf.put(b);
+			}
+			position += bytes.length;
+		}
+
+		private void putInts(int arr[], int n) throws IOException
+		{
+			for (int i = 0; i < n; i++) {
+				putInt(arr[i]);
+			}
+			align();
+		}
+
+		private void putDoubles(double arr[], int n) throws IOException
+		{
+			for (int i = 0; i < n; i++) {
+				putDouble(arr[i]);
+			}
+			align();
+		}
+
+		/**
+		 * Pad with zeros up to a multiple of 8 bytes.
+		 */
+		private void align() throws IOException
+		{
+			while (position % 8 != 0) {
+				putBytes(new byte[1]);
+			}
+		}
+
+		private void flush() throws IOException
+		{
+			buf.flip();
+			while (buf.hasRemaining()) {
+				channel.write(buf);
+			}
+			buf.clear();
+		}
+	}
+
+	/**
+	 * Read-only list of states, decoded on demand from the (mapped) variable values.
+	 */
+	private static class MappedStatesList extends AbstractList<State>
+	{
+		private VarList varList;
+		private MappedIntArray varValues;
+		private int numStates;
+		private int numVars;
+
+		private MappedStatesList(VarList varList, MappedIntArray varValues, int numStates)
+		{
+			this.varList = varList;
+			this.varValues = varValues;
+			this.numStates = numStates;
+			this.numVars = varList.getNumVars();
+		}
+
+		@Override
+		public State get(int i)
+		{
+			if (i < 0 || i >= numStates)
+				throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + numStates);
+			State state = new State(numVars);
+			long k = (long) i * numVars;
+			for (int v = 0; v < numVars; v++) {
+				state.varValues[v] = varList.decodeFromInt(v, varValues.get(k + v));
+			}
+			return state;
+		}
+
+		@Override
+		public int size()
+		{
+			return numStates;
+		}
+	}
+}
@@ -49,7 +49,9 @@ import parser.ast.ExpressionITE;
 import parser.ast.ExpressionIdent;
 import parser.ast.ExpressionLabel;
 import parser.ast.ExpressionLiteral;
+import parser.ast.ExpressionProb;
 import parser.ast.ExpressionProp;
+import parser.ast.ExpressionReward;
 import parser.ast.ExpressionUnaryOp;
 import parser.ast.ExpressionVar;
 import parser.ast.LabelList;
@@ -107,6 +109,9 @@ public class StateModelChecker extends PrismComponent
 	// Do bisimulation minimisation before model checking?
 	protected boolean doBisim = false;
 
+	// Cache of solutions from previous model checking (optional)
+	protected SolutionCache solutionCache = null;
+
 	// Model file (for reward structures, etc.)
 	protected ModulesFile modulesFile = null;
 
@@ -198,6 +203,7 @@ public class StateModelChecker extends PrismComponent
 		setStoreVector(other.getStoreVector());
 		setGenStrat(other.getGenStrat());
 		setDoBisim(other.getDoBisim());
+		setSolutionCache(other.getSolutionCache());
 	}
 
 	/**
@@ -272,6 +278,15 @@ public class StateModelChecker extends PrismComponent
 		this.doBisim = doBisim;
 	}
 
+	/**
+	 * Specify a cache of solutions from previous model checking, to be used
+	 * (and updated) where possible to avoid repeating numerical computation (null if none).
+	 */
+	public void setSolutionCache(SolutionCache solutionCache)
+	{
+		this.solutionCache = solutionCache;
+	}
+
 	// Get methods for flags/settings
 
 	public int getVerbosity()
@@ -333,6 +348,14 @@ public class StateModelChecker extends PrismComponent
 		return doBisim;
 	}
 
+	/**
+	 * Get the cache of solutions from previous model checking (null if none).
+	 */
+	public SolutionCache getSolutionCache()
+	{
+		return solutionCache;
+	}
+
 	/** Get the constant values (both from the modules file and the properties file) */
 	public Values getConstantValues()
 	{
@@ -1080,6 +1103,13 @@ public class StateModelChecker extends PrismComponent
 
 		// Store result
 		result.setResult(resObj);
+		// For a single value taken directly from a P/R operator, pass on any guaranteed error bound
+		boolean singleValue = op == FilterOperator.MIN || op == FilterOperator.MAX || op == FilterOperator.FIRST || op == FilterOperator.STATE;
+		if (singleValue && (expr.getOperand() instanceof ExpressionProb || expr.getOperand() instanceof ExpressionReward)) {
+			result.setErrorBound(vals.getErrorBound());
+		} else {
+			result.setErrorBound(Double.NaN);
+		}
 		// Set result explanation (if none or disabled, clear)
 		if (expr.getExplanationEnabled() && resultExpl != null) {
 			result.setExplanation(resultExpl.toLowerCase());
@@ -61,6 +61,9 @@ public class StateValues implements StateVector
 	protected int[] valuesI;
 	protected double[] valuesD;
 	protected BitSet valuesB;
+	// Guaranteed bound on the (absolute) error of the values, if known (otherwise NaN).
+	// This is just as computed: it is not updated by the operations below that modify the vector.
+	protected double errorBound = Double.NaN;
 
 	// Model info
 	protected List<State> statesList;
@@ -320,6 +323,14 @@ public class StateValues implements StateVector
 		valuesB.set(i, val);
 	}
 
+	/**
+	 * Set the guaranteed bound on the (absolute) error of the values (NaN if not known).
+	 */
+	public void setErrorBound(double errorBound)
+	{
+		this.errorBound = errorBound;
+	}
+
 	/**
 	 * Modify the vector by applying If-Then-Else, i.e. {@code svIf} ? {@code svThen} : {@code this}.
 	 */
@@ -1349,6 +1360,14 @@ public class StateValues implements StateVector
 		return valuesB;
 	}
 
+	/**
+	 * Get the guaranteed bound on the (absolute) error of the values, as computed (NaN if not known).
+	 */
+	public double getErrorBound()
+	{
+		return errorBound;
+	}
+
 	/**
 	 * Get the number of states for which the value is non-zero/non-false.
 	 */
@@ -29,7 +29,6 @@ package param;
 
 import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Vector;
 
@@ -66,22 +65,8 @@ public class SymbolicEngine
 		synchs = modulesFile.getSynchs();
 		numSynchs = synchs.size();
 
-		// Compute count of number of modules using each synch action
-		// First, compute and cache the synch actions for each of the modules
-		List<HashSet<String>> synchsPerModule = new ArrayList<HashSet<String>>(numModules);
-		for (int i = 0; i < numModules; i++) {
-			synchsPerModule.add(new HashSet<String>(modulesFile.getModule(i).getAllSynchs()));
-		}
-		// Second, do the counting
-		synchModuleCounts = new int[numSynchs];
-		for (int j = 0; j < numSynchs; j++) {
-			synchModuleCounts[j] = 0;
-			String s = synchs.get(j);
-			for (int i = 0; i < numModules; i++) {
-				if (synchsPerModule.get(i).contains(s))
-					synchModuleCounts[j]++;
-			}
-		}
+		// Get count of number of modules using each synch action
+		synchModuleCounts = modulesFile.getSynchModuleCounts();
 
 		updateLists = new ArrayList<List<List<Updates>>>(numModules);
 		for (int i = 0; i < numModules; i++) {
@@ -0,0 +1,897 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package parser;
+
+import parser.ast.Expression;
+import parser.ast.ExpressionBinaryOp;
+import parser.ast.ExpressionFormula;
+import parser.ast.ExpressionFunc;
+import parser.ast.ExpressionITE;
+import parser.ast.ExpressionLiteral;
+import parser.ast.ExpressionUnaryOp;
+import parser.ast.ExpressionVar;
+import parser.type.TypeInt;
+import prism.PrismLangException;
+
+/**
+ * An expression "compiled" into a tree of specialised evaluators, for fast repeated
+ * evaluation over states, e.g. of the guards, probabilities/rates and updates of a model
+ * during simulation or explicit-state model construction.
+ * <p>
+ * Unlike {@link Expression#evaluate(EvaluateContext)}, which boxes every intermediate result,
+ * evaluation works directly on primitive int/double/boolean values, reading variables
+ * from the array of values in a {@link State}. Constants are replaced with their values
+ * (and constant subexpressions evaluated) once, at compile time. Semantics (including
+ * implicit conversions and errors) are the same as for {@link Expression#evaluate(EvaluateContext)};
+ * any expressions that cannot be compiled are just evaluated in the usual way.
+ * <p>
+ * Note: the expression should have been type checked before it is compiled.
+ */
+public abstract class CompiledExpression
+{
+	/** The original expression (used for error messages) */
+	protected final Expression expr;
+
+	protected CompiledExpression(Expression expr)
+	{
+		this.expr = expr;
+	}
+
+	/**
+	 * Compile an expression, which should not contain any constants.
+	 */
+	public static CompiledExpression compile(Expression expr)
+	{
+		return compile(expr, null);
+	}
+
+	/**
+	 * Compile an expression, replacing any constants with their values from {@code constantValues}.
+	 * @param expr The expression to compile
+	 * @param constantValues Values for constants (may be null)
+	 */
+	public static CompiledExpression compile(Expression expr, Values constantValues)
+	{
+		return new Compiler(constantValues).compile(expr);
+	}
+
+	/**
+	 * Get the original (uncompiled) expression.
+	 */
+	public Expression getExpression()
+	{
+		return expr;
+	}
+
+	// Evaluation methods (for a State)
+
+	/**
+	 * Evaluate for a state, returning an Object, as for {@link Expression#evaluate(State)}.
+	 */
+	public final Object evaluate(State state) throws PrismLangException
+	{
+		return evaluate(state.varValues);
+	}
+
+	/**
+	 * Evaluate for a state, as an integer, as for {@link Expression#evaluateInt(State)}.
+	 */
+	public final int evaluateInt(State state) throws PrismLangException
+	{
+		return evaluateInt(state.varValues);
+	}
+
+	/**
+	 * Evaluate for a state, as a double, as for {@link Expression#evaluateDouble(State)}.
+	 */
+	public final double evaluateDouble(State state) throws PrismLangException
+	{
+		return evaluateDouble(state.varValues);
+	}
+
+	/**
+	 * Evaluate for a state, as a boolean, as for {@link Expression#evaluateBoolean(State)}.
+	 */
+	public final boolean evaluateBoolean(State state) throws PrismLangException
+	{
+		return evaluateBoolean(state.varValues);
+	}
+
+	// Evaluation methods (for an array of variable values)
+
+	/**
+	 * Evaluate for the variable values {@code vars}, returning an Object.
+	 */
+	public abstract Object evaluate(Object vars[]) throws PrismLangException;
+
+	/**
+	 * Evaluate for the variable values {@code vars}, as an integer
+	 * (booleans are converted to 0/1).
+	 */
+	public abstract int evaluateInt(Object vars[]) throws PrismLangException;
+
+	/**
+	 * Evaluate for the variable values {@code vars}, as a double
+	 * (integers are converted; booleans are converted to 0.0/1.0).
+	 */
+	public abstract double evaluateDouble(Object vars[]) throws PrismLangException;
+
+	/**
+	 * Evaluate for the variable values {@code vars}, as a boolean.
+	 */
+	public abstract boolean evaluateBoolean(Object vars[]) throws PrismLangException;
+
+	@Override
+	public String toString()
+	{
+		return expr.toString();
+	}
+
+	// Conversion of (boxed) values, as done by Expression.evaluateInt() etc.
+
+	protected int toInt(Object o) throws PrismLangException
+	{
+		if (o instanceof Integer)
+			return ((Integer) o).intValue();
+		if (o instanceof Boolean)
+			return ((Boolean) o).booleanValue() ? 1 : 0;
+		throw new PrismLangException("Cannot evaluate to an integer", expr);
+	}
+
+	protected double toDouble(Object o) throws PrismLangException
+	{
+		if (o instanceof Integer)
+			return ((Integer) o).intValue();
+		if (o instanceof Double)
+			return ((Double) o).doubleValue();
+		if (o instanceof Boolean)
+			return ((Boolean) o).booleanValue() ? 1.0 : 0.0;
+		throw new PrismLangException("Cannot evaluate to a double", expr);
+	}
+
+	protected boolean toBoolean(Object o) throws PrismLangException
+	{
+		if (!(o instanceof Boolean))
+			throw new PrismLangException("Cannot evaluate to a boolean", expr);
+		return ((Boolean) o).booleanValue();
+	}
+
+	// Base classes for nodes of a fixed type
+
+	/**
+	 * Base class for integer-valued expressions.
+	 */
+	private static abstract class IntNode extends CompiledExpression
+	{
+		private IntNode(Expression expr)
+		{
+			super(expr);
+		}
+
+		@Override
+		public Object evaluate(Object vars[]) throws PrismLangException
+		{
+			return Integer.valueOf(evaluateInt(vars));
+		}
+
+		@Override
+		public double evaluateDouble(Object vars[]) throws PrismLangException
+		{
+			return evaluateInt(vars);
+		}
+
+		@Override
+		public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+		{
+			throw new PrismLangException("Cannot evaluate to a boolean", expr);
+		}
+	}
+
+	/**
+	 * Base class for double-valued expressions.
+	 */
+	private static abstract class DoubleNode extends CompiledExpression
+	{
+		private DoubleNode(Expression expr)
+		{
+			super(expr);
+		}
+
+		@Override
+		public Object evaluate(Object vars[]) throws PrismLangException
+		{
+			return Double.valueOf(evaluateDouble(vars));
+		}
+
+		@Override
+		public int evaluateInt(Object vars[]) throws PrismLangException
+		{
+			throw new PrismLangException("Cannot evaluate to an integer", expr);
+		}
+
+		@Override
+		public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+		{
+			throw new PrismLangException("Cannot evaluate to a boolean", expr);
+		}
+	}
+
+	/**
+	 * Base class for boolean-valued expressions.
+	 */
+	private static abstract class BoolNode extends CompiledExpression
+	{
+		private BoolNode(Expression expr)
+		{
+			super(expr);
+		}
+
+		@Override
+		public Object evaluate(Object vars[]) throws PrismLangException
+		{
+			return Boolean.valueOf(evaluateBoolean(vars));
+		}
+
+		@Override
+		public int evaluateInt(Object vars[]) throws PrismLangException
+		{
+			return evaluateBoolean(vars) ? 1 : 0;
+		}
+
+		@Override
+		public double evaluateDouble(Object vars[]) throws PrismLangException
+		{
+			return evaluateBoolean(vars) ? 1.0 : 0.0;
+		}
+	}
+
+	/**
+	 * Base class for expressions whose values are computed as Objects (type determined at run-time).
+	 */
+	private static abstract class ObjectNode extends CompiledExpression
+	{
+		private ObjectNode(Expression expr)
+		{
+			super(expr);
+		}
+
+		@Override
+		public int evaluateInt(Object vars[]) throws PrismLangException
+		{
+			return toInt(evaluate(vars));
+		}
+
+		@Override
+		public double evaluateDouble(Object vars[]) throws PrismLangException
+		{
+			return toDouble(evaluate(vars));
+		}
+
+		@Override
+		public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+		{
+			return toBoolean(evaluate(vars));
+		}
+	}
+
+	/**
+	 * Evaluation context for the fall-back (interpreted) case: constants plus an array of variable values.
+	 */
+	private static class ArrayEvaluateContext implements EvaluateContext
+	{
+		private Values constantValues;
+		private Object vars[];
+
+		private ArrayEvaluateContext(Values constantValues, Object vars[])
+		{
+			this.constantValues = constantValues;
+			this.vars = vars;
+		}
+
+		@Override
+		public Object getConstantValue(String name)
+		{
+			if (constantValues == null)
+				return null;
+			int i = constantValues.getIndexOf(name);
+			return i == -1 ? null : constantValues.getValue(i);
+		}
+
+		@Override
+		public Object getVarValue(String name, int index)
+		{
+			return index == -1 ? null : vars[index];
+		}
+	}
+
+	/**
+	 * The compiler itself: a recursive translation of expressions into nodes.
+	 */
+	private static class Compiler
+	{
+		private Values constantValues;
+
+		private Compiler(Values constantValues)
+		{
+			this.constantValues = constantValues;
+		}
+
+		private CompiledExpression compile(Expression expr)
+		{
+			// Evaluate constant subexpressions now (if possible)
+			if (!(expr instanceof ExpressionLiteral) && expr.isConstant()) {
+				try {
+					CompiledExpression res = compileValue(expr, expr.evaluate(constantValues));
+					if (res != null)
+						return res;
+				} catch (PrismLangException e) {
+					// Leave any errors until evaluation time
+				}
+			}
+			CompiledExpression res = null;
+			if (expr instanceof ExpressionLiteral) {
+				res = compileValue(expr, ((ExpressionLiteral) expr).getValue());
+			} else if (expr instanceof ExpressionVar) {
+				res = compileVar((ExpressionVar) expr);
+			} else if (expr instanceof ExpressionFormula && ((ExpressionFormula) expr).getDefinition() != null) {
+				res = compile(((ExpressionFormula) expr).getDefinition());
+			} else if (expr instanceof ExpressionBinaryOp) {
+				res = compileBinaryOp((ExpressionBinaryOp) expr);
+			} else if (expr instanceof ExpressionUnaryOp) {
+				res = compileUnaryOp((ExpressionUnaryOp) expr);
+			} else if (expr instanceof ExpressionITE) {
+				res = compileITE((ExpressionITE) expr);
+			} else if (expr instanceof ExpressionFunc) {
+				res = compileFunc((ExpressionFunc) expr);
+			}
+			return res != null ? res : compileInterpreted(expr);
+		}
+
+		/**
+		 * Compile a constant value (or return null if it is not of a supported type).
+		 */
+		private CompiledExpression compileValue(Expression expr, Object value)
+		{
+			if (value instanceof Integer) {
+				final int i = ((Integer) value).intValue();
+				return new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[])
+					{
+						return i;
+					}
+				};
+			} else if (value instanceof Double) {
+				final double d = ((Double) value).doubleValue();
+				return new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[])
+					{
+						return d;
+					}
+				};
+			} else if (value instanceof Boolean) {
+				final boolean b = ((Boolean) value).booleanValue();
+				return new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[])
+					{
+						return b;
+					}
+				};
+			}
+			return null;
+		}
+
+		private CompiledExpression compileVar(final ExpressionVar expr)
+		{
+			final int index = expr.getIndex();
+			if (index < 0)
+				return null;
+			return new ObjectNode(expr)
+			{
+				@Override
+				public Object evaluate(Object vars[]) throws PrismLangException
+				{
+					Object res = vars[index];
+					if (res == null)
+						throw new PrismLangException("Could not evaluate variable", expr);
+					return res;
+				}
+
+				@Override
+				public int evaluateInt(Object vars[]) throws PrismLangException
+				{
+					Object res = vars[index];
+					if (res instanceof Integer)
+						return ((Integer) res).intValue();
+					return toInt(evaluate(vars));
+				}
+
+				@Override
+				public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+				{
+					Object res = vars[index];
+					if (res instanceof Boolean)
+						return ((Boolean) res).booleanValue();
+					return toBoolean(evaluate(vars));
+				}
+			};
+		}
+
+		private CompiledExpression compileBinaryOp(ExpressionBinaryOp expr)
+		{
+			final CompiledExpression op1 = compile(expr.getOperand1());
+			final CompiledExpression op2 = compile(expr.getOperand2());
+			boolean ints = expr.getOperand1().getType() == TypeInt.getInstance() && expr.getOperand2().getType() == TypeInt.getInstance();
+			switch (expr.getOperator()) {
+			case ExpressionBinaryOp.IMPLIES:
+				return new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return !op1.evaluateBoolean(vars) || op2.evaluateBoolean(vars);
+					}
+				};
+			case ExpressionBinaryOp.IFF:
+				return new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateBoolean(vars) == op2.evaluateBoolean(vars);
+					}
+				};
+			case ExpressionBinaryOp.OR:
+				return new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateBoolean(vars) || op2.evaluateBoolean(vars);
+					}
+				};
+			case ExpressionBinaryOp.AND:
+				return new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateBoolean(vars) && op2.evaluateBoolean(vars);
+					}
+				};
+			case ExpressionBinaryOp.EQ:
+				return ints ? new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateInt(vars) == op2.evaluateInt(vars);
+					}
+				} : new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) == op2.evaluateDouble(vars);
+					}
+				};
+			case ExpressionBinaryOp.NE:
+				return ints ? new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateInt(vars) != op2.evaluateInt(vars);
+					}
+				} : new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) != op2.evaluateDouble(vars);
+					}
+				};
+			case ExpressionBinaryOp.GT:
+				return ints ? new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateInt(vars) > op2.evaluateInt(vars);
+					}
+				} : new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) > op2.evaluateDouble(vars);
+					}
+				};
+			case ExpressionBinaryOp.GE:
+				return ints ? new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateInt(vars) >= op2.evaluateInt(vars);
+					}
+				} : new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) >= op2.evaluateDouble(vars);
+					}
+				};
+			case ExpressionBinaryOp.LT:
+				return ints ? new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateInt(vars) < op2.evaluateInt(vars);
+					}
+				} : new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) < op2.evaluateDouble(vars);
+					}
+				};
+			case ExpressionBinaryOp.LE:
+				return ints ? new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateInt(vars) <= op2.evaluateInt(vars);
+					}
+				} : new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) <= op2.evaluateDouble(vars);
+					}
+				};
+			case ExpressionBinaryOp.PLUS:
+				return ints ? new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateInt(vars) + op2.evaluateInt(vars);
+					}
+				} : new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) + op2.evaluateDouble(vars);
+					}
+				};
+			case ExpressionBinaryOp.MINUS:
+				return ints ? new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateInt(vars) - op2.evaluateInt(vars);
+					}
+				} : new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) - op2.evaluateDouble(vars);
+					}
+				};
+			case ExpressionBinaryOp.TIMES:
+				return ints ? new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateInt(vars) * op2.evaluateInt(vars);
+					}
+				} : new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) * op2.evaluateDouble(vars);
+					}
+				};
+			case ExpressionBinaryOp.DIVIDE:
+				return new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[]) throws PrismLangException
+					{
+						return op1.evaluateDouble(vars) / op2.evaluateDouble(vars);
+					}
+				};
+			}
+			return null;
+		}
+
+		private CompiledExpression compileUnaryOp(ExpressionUnaryOp expr)
+		{
+			final CompiledExpression op = compile(expr.getOperand());
+			switch (expr.getOperator()) {
+			case ExpressionUnaryOp.NOT:
+				return new BoolNode(expr)
+				{
+					@Override
+					public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+					{
+						return !op.evaluateBoolean(vars);
+					}
+				};
+			case ExpressionUnaryOp.MINUS:
+				return expr.getType() instanceof TypeInt ? new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						return -op.evaluateInt(vars);
+					}
+				} : new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[]) throws PrismLangException
+					{
+						return -op.evaluateDouble(vars);
+					}
+				};
+			case ExpressionUnaryOp.PARENTH:
+				return op;
+			}
+			return null;
+		}
+
+		private CompiledExpression compileITE(ExpressionITE expr)
+		{
+			final CompiledExpression op1 = compile(expr.getOperand1());
+			final CompiledExpression op2 = compile(expr.getOperand2());
+			final CompiledExpression op3 = compile(expr.getOperand3());
+			return new CompiledExpression(expr)
+			{
+				@Override
+				public Object evaluate(Object vars[]) throws PrismLangException
+				{
+					return op1.evaluateBoolean(vars) ? op2.evaluate(vars) : op3.evaluate(vars);
+				}
+
+				@Override
+				public int evaluateInt(Object vars[]) throws PrismLangException
+				{
+					return op1.evaluateBoolean(vars) ? op2.evaluateInt(vars) : op3.evaluateInt(vars);
+				}
+
+				@Override
+				public double evaluateDouble(Object vars[]) throws PrismLangException
+				{
+					return op1.evaluateBoolean(vars) ? op2.evaluateDouble(vars) : op3.evaluateDouble(vars);
+				}
+
+				@Override
+				public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+				{
+					return op1.evaluateBoolean(vars) ? op2.evaluateBoolean(vars) : op3.evaluateBoolean(vars);
+				}
+			};
+		}
+
+		private CompiledExpression compileFunc(final ExpressionFunc expr)
+		{
+			int n = expr.getNumOperands();
+			final CompiledExpression ops[] = new CompiledExpression[n];
+			for (int i = 0; i < n; i++) {
+				ops[i] = compile(expr.getOperand(i));
+			}
+			boolean isInt = expr.getType() instanceof TypeInt;
+			switch (expr.getNameCode()) {
+			case ExpressionFunc.MIN:
+				return isInt ? new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						int iMin = ops[0].evaluateInt(vars);
+						for (int i = 1; i < ops.length; i++) {
+							int j = ops[i].evaluateInt(vars);
+							iMin = (j < iMin) ? j : iMin;
+						}
+						return iMin;
+					}
+				} : new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[]) throws PrismLangException
+					{
+						double dMin = ops[0].evaluateDouble(vars);
+						for (int i = 1; i < ops.length; i++) {
+							double d = ops[i].evaluateDouble(vars);
+							dMin = (d < dMin) ? d : dMin;
+						}
+						return dMin;
+					}
+				};
+			case ExpressionFunc.MAX:
+				return isInt ? new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						int iMax = ops[0].evaluateInt(vars);
+						for (int i = 1; i < ops.length; i++) {
+							int j = ops[i].evaluateInt(vars);
+							iMax = (j > iMax) ? j : iMax;
+						}
+						return iMax;
+					}
+				} : new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[]) throws PrismLangException
+					{
+						double dMax = ops[0].evaluateDouble(vars);
+						for (int i = 1; i < ops.length; i++) {
+							double d = ops[i].evaluateDouble(vars);
+							dMax = (d > dMax) ? d : dMax;
+						}
+						return dMax;
+					}
+				};
+			case ExpressionFunc.FLOOR:
+				return new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						try {
+							return ExpressionFunc.evaluateFloor(ops[0].evaluateDouble(vars));
+						} catch (PrismLangException e) {
+							e.setASTElement(expr);
+							throw e;
+						}
+					}
+				};
+			case ExpressionFunc.CEIL:
+				return new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						try {
+							return ExpressionFunc.evaluateCeil(ops[0].evaluateDouble(vars));
+						} catch (PrismLangException e) {
+							e.setASTElement(expr);
+							throw e;
+						}
+					}
+				};
+			case ExpressionFunc.POW:
+				return isInt ? new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						try {
+							return ExpressionFunc.evaluatePowInt(ops[0].evaluateInt(vars), ops[1].evaluateInt(vars));
+						} catch (PrismLangException e) {
+							e.setASTElement(expr);
+							throw e;
+						}
+					}
+				} : new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[]) throws PrismLangException
+					{
+						try {
+							return ExpressionFunc.evaluatePowDouble(ops[0].evaluateDouble(vars), ops[1].evaluateDouble(vars));
+						} catch (PrismLangException e) {
+							e.setASTElement(expr);
+							throw e;
+						}
+					}
+				};
+			case ExpressionFunc.MOD:
+				return new IntNode(expr)
+				{
+					@Override
+					public int evaluateInt(Object vars[]) throws PrismLangException
+					{
+						try {
+							return ExpressionFunc.evaluateMod(ops[0].evaluateInt(vars), ops[1].evaluateInt(vars));
+						} catch (PrismLangException e) {
+							e.setASTElement(expr);
+							throw e;
+						}
+					}
+				};
+			case ExpressionFunc.LOG:
+				return new DoubleNode(expr)
+				{
+					@Override
+					public double evaluateDouble(Object vars[]) throws PrismLangException
+					{
+						try {
+							return ExpressionFunc.evaluateLog(ops[0].evaluateDouble(vars), ops[1].evaluateDouble(vars));
+						} catch (PrismLangException e) {
+							e.setASTElement(expr);
+							throw e;
+						}
+					}
+				};
+			}
+			return null;
+		}
+
+		/**
+		 * Fall-back case: evaluate the expression in the usual way.
+		 */
+		private CompiledExpression compileInterpreted(final Expression expr)
+		{
+			final Values constantValues = this.constantValues;
+			return new ObjectNode(expr)
+			{
+				@Override
+				public Object evaluate(Object vars[]) throws PrismLangException
+				{
+					return expr.evaluate(new ArrayEvaluateContext(constantValues, vars));
+				}
+
+				@Override
+				public int evaluateInt(Object vars[]) throws PrismLangException
+				{
+					return expr.evaluateInt(new ArrayEvaluateContext(constantValues, vars));
+				}
+
+				@Override
+				public double evaluateDouble(Object vars[]) throws PrismLangException
+				{
+					return expr.evaluateDouble(new ArrayEvaluateContext(constantValues, vars));
+				}
+
+				@Override
+				public boolean evaluateBoolean(Object vars[]) throws PrismLangException
+				{
+					return expr.evaluateBoolean(new ArrayEvaluateContext(constantValues, vars));
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,206 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package parser;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import parser.ast.Command;
+import parser.ast.Declaration;
+import parser.ast.DeclarationType;
+import parser.ast.Expression;
+import parser.ast.LabelList;
+import parser.ast.Module;
+import parser.ast.ModulesFile;
+import parser.ast.RewardStruct;
+import parser.ast.RewardStructItem;
+import parser.ast.Update;
+import parser.ast.Updates;
+import prism.PrismLangException;
+
+/**
+ * Optimisation of a (parsed) PRISM model, once values for its constants are known,
+ * before it is passed to model construction or simulation.
+ * <p>
+ * A copy of the model is made, in which (defined) constants are substituted with their values,
+ * expressions are simplified (folding constant subexpressions, including those from formulas,
+ * which have already been expanded by {@link ModulesFile#tidyUp()}) and commands whose guard
+ * has become {@code false} are removed. Since alphabets of modules are defined syntactically,
+ * a command is not removed if it is the only one in its module labelled with a given action.
+ * The original model is left unchanged, so that its undefined constants can be set again later.
+ */
+public class ModulesFileOptimiser
+{
+	// Original model
+	private ModulesFile modulesFile;
+	// Optimised copy
+	private ModulesFile optimised;
+	// Statistics
+	private int numCommandsRemoved = 0;
+
+	/**
+	 * Create an optimised copy of {@code modulesFile}, using its current constant values.
+	 */
+	public ModulesFileOptimiser(ModulesFile modulesFile) throws PrismLangException
+	{
+		this.modulesFile = modulesFile;
+		optimise();
+	}
+
+	/**
+	 * Get the original model.
+	 */
+	public ModulesFile getOriginalModulesFile()
+	{
+		return modulesFile;
+	}
+
+	/**
+	 * Get the optimised copy of the model.
+	 */
+	public ModulesFile getOptimisedModulesFile()
+	{
+		return optimised;
+	}
+
+	/**
+	 * Get the number of commands that were removed because their guard was false.
+	 */
+	public int getNumCommandsRemoved()
+	{
+		return numCommandsRemoved;
+	}
+
+	private void optimise() throws PrismLangException
+	{
+		Values constantValues = modulesFile.getConstantValues();
+		optimised = (ModulesFile) modulesFile.deepCopy();
+
+		for (int i = 0; i < optimised.getNumGlobals(); i++) {
+			optimiseDeclaration(optimised.getGlobal(i), constantValues);
+		}
+		for (int m = 0; m < optimised.getNumModules(); m++) {
+			Module module = optimised.getModule(m);
+			for (int i = 0; i < module.getNumDeclarations(); i++) {
+				optimiseDeclaration(module.getDeclaration(i), constantValues);
+			}
+			if (module.getInvariant() != null) {
+				module.setInvariant(fold(module.getInvariant(), constantValues));
+			}
+			for (int i = 0; i < module.getNumCommands(); i++) {
+				Command command = module.getCommand(i);
+				command.setGuard(fold(command.getGuard(), constantValues));
+				Updates updates = command.getUpdates();
+				for (int j = 0; j < updates.getNumUpdates(); j++) {
+					if (updates.getProbability(j) != null) {
+						updates.setProbability(j, fold(updates.getProbability(j), constantValues));
+					}
+					Update update = updates.getUpdate(j);
+					for (int k = 0; k < update.getNumElements(); k++) {
+						update.setExpression(k, fold(update.getExpression(k), constantValues));
+					}
+				}
+			}
+			removeFalseCommands(module);
+		}
+		for (int r = 0; r < optimised.getNumRewardStructs(); r++) {
+			RewardStruct rewardStruct = optimised.getRewardStruct(r);
+			for (int i = 0; i < rewardStruct.getNumItems(); i++) {
+				RewardStructItem item = rewardStruct.getRewardStructItem(i);
+				item.setStates(fold(item.getStates(), constantValues));
+				item.setReward(fold(item.getReward(), constantValues));
+			}
+		}
+		LabelList labelList = optimised.getLabelList();
+		for (int i = 0; i < labelList.size(); i++) {
+			labelList.setLabel(i, fold(labelList.getLabel(i), constantValues));
+		}
+		if (optimised.getInitialStates() != null) {
+			optimised.setInitialStates(fold(optimised.getInitialStates(), constantValues));
+		}
+	}
+
+	private void optimiseDeclaration(Declaration decl, Values constantValues) throws PrismLangException
+	{
+		decl.setDeclType((DeclarationType) decl.getDeclType().replaceConstants(constantValues));
+		if (decl.getStart() != null) {
+			decl.setStart(fold(decl.getStart(), constantValues));
+		}
+	}
+
+	/**
+	 * Remove commands from a module whose guard is (now) false,
+	 * keeping one for any action that would otherwise drop out of the module's alphabet.
+	 */
+	private void removeFalseCommands(Module module)
+	{
+		// Actions of commands that remain
+		Set<String> kept = new HashSet<String>();
+		for (Command command : module.getCommands()) {
+			if (!Expression.isFalse(command.getGuard())) {
+				kept.add(command.getSynch());
+			}
+		}
+		for (int i = module.getNumCommands() - 1; i >= 0; i--) {
+			Command command = module.getCommand(i);
+			if (Expression.isFalse(command.getGuard())) {
+				String synch = command.getSynch();
+				if (synch.equals("") || kept.contains(synch) || hasEarlierCommand(module, i, synch)) {
+					module.removeCommand(command);
+					numCommandsRemoved++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check whether there is a command before the {@code i}th one in a module labelled with action {@code synch}.
+	 */
+	private static boolean hasEarlierCommand(Module module, int i, String synch)
+	{
+		for (int j = 0; j < i; j++) {
+			if (module.getCommand(j).getSynch().equals(synch))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Substitute constants in an expression and then simplify it.
+	 * If simplification fails (e.g. because a subexpression that is never
+	 * actually evaluated in the model causes an error), constants are just substituted.
+	 */
+	private static Expression fold(Expression expr, Values constantValues) throws PrismLangException
+	{
+		Expression replaced = (Expression) expr.replaceConstants(constantValues);
+		try {
+			return (Expression) replaced.deepCopy().simplify();
+		} catch (PrismLangException e) {
+			return replaced;
+		}
+	}
+}
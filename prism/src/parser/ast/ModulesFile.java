@@ -61,6 +61,8 @@ public class ModulesFile extends ASTElement
 	private String[] moduleNames;
 	// List of synchronising actions
 	private Vector<String> synchs;
+	// Number of modules with each synchronising action in their alphabet
+	private int synchModuleCounts[];
 	// Lists of variable info (declaration, name, type)
 	private Vector<Declaration> varDecls;
 	private Vector<String> varNames;
@@ -485,6 +487,15 @@ public class ModulesFile extends ASTElement
 		return synchs.get(i);
 	}
 
+	/**
+	 * Get, for each action (indexed as in {@link #getSynchs()}), the number of modules
+	 * that have it in their alphabet, i.e. which must synchronise on it.
+	 */
+	public int[] getSynchModuleCounts()
+	{
+		return synchModuleCounts;
+	}
+
 	public boolean isSynch(String s)
 	{
 		if (synchs == null)
@@ -783,6 +794,16 @@ public class ModulesFile extends ASTElement
 		if (defaultSystemDefn != null) {
 			defaultSystemDefn.getSynchs(synchs, this);
 		}
+
+		// and count the number of modules using each one
+		synchModuleCounts = new int[synchs.size()];
+		for (i = 0; i < n; i++) {
+			v = getModule(i).getAllSynchs();
+			for (j = 0; j < synchs.size(); j++) {
+				if (v.contains(synchs.get(j)))
+					synchModuleCounts[j]++;
+			}
+		}
 	}
 
 	// check constant identifiers
@@ -1227,6 +1248,7 @@ public class ModulesFile extends ASTElement
 		ret.varIdents = (varIdents == null) ? null : (Vector<String>)varIdents.clone();
 		ret.moduleNames = (moduleNames == null) ? null : moduleNames.clone();
 		ret.synchs = (synchs == null) ? null : (Vector<String>)synchs.clone();
+		ret.synchModuleCounts = (synchModuleCounts == null) ? null : synchModuleCounts.clone();
 		if (varDecls != null) {
 			ret.varDecls = new Vector<Declaration>();
 			for (Declaration d : varDecls)
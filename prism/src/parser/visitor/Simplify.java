@@ -166,6 +166,28 @@ public class Simplify extends ASTTraverseModify
 		return e;
 	}
 
+	public Object visit(ExpressionITE e) throws PrismLangException
+	{
+		// Apply recursively
+		e.setOperand1((Expression) (e.getOperand1().accept(this)));
+		e.setOperand2((Expression) (e.getOperand2().accept(this)));
+		e.setOperand3((Expression) (e.getOperand3().accept(this)));
+		// If condition is a literal, replace with the relevant branch
+		if (e.getOperand1() instanceof ExpressionLiteral) {
+			Expression branch = e.getOperand1().evaluateBoolean() ? e.getOperand2() : e.getOperand3();
+			// Need to be careful that type is preserved, without changing the type
+			// of the branch itself, since it may be shared with the original expression
+			if (branch instanceof ExpressionLiteral && e.getType() instanceof TypeDouble)
+				return Expression.Double(branch.evaluateDouble());
+			if (e.getType() != null && !e.getType().equals(branch.getType())) {
+				branch = branch.deepCopy();
+				branch.setType(e.getType());
+			}
+			return branch;
+		}
+		return e;
+	}
+
 	public Object visit(ExpressionFunc e) throws PrismLangException
 	{
 		int i, n;
@@ -49,6 +49,7 @@ import param.ModelBuilder;
 import param.ParamModelChecker;
 import param.RegionValues;
 import parser.ExplicitFiles2ModulesFile;
+import parser.ModulesFileOptimiser;
 import parser.PrismParser;
 import parser.State;
 import parser.Values;
@@ -122,6 +123,7 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 	public static final int BSOR = 9;
 	public static final int PSOR = 10;
 	public static final int BPSOR = 11;
+	public static final int TOPOLOGICAL = 12;
 
 	// methods for solving MDPs
 	public static final int MDP_VALITER = 1;
@@ -129,6 +131,7 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 	public static final int MDP_POLITER = 3;
 	public static final int MDP_MODPOLITER = 4;
 	public static final int MDP_LP = 5;
+	public static final int MDP_TOPOLOGICAL = 6;
 
 	// methods for solving multi-objective queries on MDPs
 	public static final int MDP_MULTI_VALITER = 1;
@@ -203,6 +206,8 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 	protected boolean genStrat = false; 
 	// Do bisimulation minimisation before model checking?
 	protected boolean doBisim = false;
+	// Cache of solutions for re-use across model checking calls (explicit engine; null if disabled)
+	protected explicit.SolutionCache solutionCacheExpl = null;
 
 	// A few miscellaneous options (i.e. defunct/hidden/undocumented/etc.)
 	// See constructor below for default values
@@ -264,6 +269,8 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 	private ModulesFile currentModulesFile = null;
 	// Constants to be defined for PRISM model
 	private Values currentDefinedMFConstants = null;
+	// Optimised copy of PRISM model, for construction/simulation (created on demand)
+	private ModulesFileOptimiser currentModulesFileOptimiser = null;
 	// Built model storage - symbolic or explicit - at most one is non-null
 	private Model currentModel = null;
 	private explicit.Model currentModelExpl = null;
@@ -618,6 +625,17 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		this.doBisim = doBisim;
 	}
 
+	/**
+	 * Specify whether or not to cache solutions across calls to {@link #modelCheck(PropertiesFile, Property)}
+	 * (explicit engine only), e.g. for the iterations of an experiment over property constants.
+	 * While enabled, later calls re-use (or continue from) earlier solutions on the same model, where possible.
+	 * Disabling this discards any cached solutions.
+	 */
+	public void setCacheSolutions(boolean cacheSolutions)
+	{
+		solutionCacheExpl = cacheSolutions ? new explicit.SolutionCache() : null;
+	}
+
 	public void setDoReach(boolean b) throws PrismException
 	{
 		doReach = b;
@@ -1711,6 +1729,7 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		// Store constants here and in ModulesFile
 		currentDefinedMFConstants = definedMFConstants;
 		currentModulesFile.setSomeUndefinedConstants(definedMFConstants);
+		currentModulesFileOptimiser = null;
 		// Reset dependent info
 		currentModel = null;
 		currentModelExpl = null;
@@ -1906,13 +1925,16 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 			switch (currentModelSource) {
 			case PRISM_MODEL:
 				if (!getExplicit()) {
-					Modules2MTBDD mod2mtbdd = new Modules2MTBDD(this, currentModulesFile);
+					Modules2MTBDD mod2mtbdd = new Modules2MTBDD(this, getOptimisedModulesFile());
 					currentModel = mod2mtbdd.translate();
 					currentModelExpl = null;
 				} else {
 					ConstructModel constructModel = new ConstructModel(this, getSimulator());
 					constructModel.setFixDeadlocks(getFixDeadlocks());
-					currentModelExpl = constructModel.constructModel(currentModulesFile, false, true);
+					String modelFilename = settings.getString(PrismSettings.PRISM_EXPLICIT_MODEL_FILE);
+					if (!"".equals(modelFilename))
+						constructModel.setModelFile(new File(modelFilename));
+					currentModelExpl = constructModel.constructModel(getOptimisedModulesFile(), false, true);
 					currentModel = null;
 				}
 				// if (...) ... currentModel = buildModelExplicit(currentModulesFile);
@@ -2895,7 +2917,7 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		expr.checkValid(currentModelType);
 
 		// Do simulation
-		res = getSimulator().modelCheckSingleProperty(currentModulesFile, propertiesFile, expr, initialState, maxPathLength, simMethod);
+		res = getSimulator().modelCheckSingleProperty(getOptimisedModulesFile(), propertiesFile, expr, initialState, maxPathLength, simMethod);
 
 		return new Result(res);
 	}
@@ -2940,7 +2962,7 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 			expr.checkValid(currentModelType);
 
 		// Do simulation
-		res = getSimulator().modelCheckMultipleProperties(currentModulesFile, propertiesFile, exprs, initialState, maxPathLength, simMethod);
+		res = getSimulator().modelCheckMultipleProperties(getOptimisedModulesFile(), propertiesFile, exprs, initialState, maxPathLength, simMethod);
 
 		Result[] resArray = new Result[res.length];
 		for (int i = 0; i < res.length; i++)
@@ -3526,6 +3548,24 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		}*/
 	}
 
+	/**
+	 * Get the version of the currently loaded PRISM model to be passed to model construction
+	 * or simulation. Unless disabled, this is an optimised copy (see {@link ModulesFileOptimiser}),
+	 * created the first time it is needed after the model or its constants change.
+	 */
+	private ModulesFile getOptimisedModulesFile() throws PrismLangException
+	{
+		if (!settings.getBoolean(PrismSettings.PRISM_OPTIMISE_MODEL) || currentModulesFile.getConstantValues() == null)
+			return currentModulesFile;
+		if (currentModulesFileOptimiser == null || currentModulesFileOptimiser.getOriginalModulesFile() != currentModulesFile) {
+			currentModulesFileOptimiser = new ModulesFileOptimiser(currentModulesFile);
+			int numRemoved = currentModulesFileOptimiser.getNumCommandsRemoved();
+			if (numRemoved > 0)
+				mainLog.println("Model optimisation removed " + numRemoved + " command" + (numRemoved == 1 ? "" : "s") + " with false guards");
+		}
+		return currentModulesFileOptimiser.getOptimisedModulesFile();
+	}
+
 	/**
 	 * Clear the built model if needed (free/deallocate memory etc)
 	 */
@@ -3603,6 +3643,7 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		mc.setStoreVector(storeVector);
 		mc.setGenStrat(genStrat);
 		mc.setDoBisim(doBisim);
+		mc.setSolutionCache(solutionCacheExpl);
 		
 		return mc;
 	}
@@ -339,6 +339,8 @@ public class PrismCL implements PrismModelListener
 				}
 				// otherwise, treat each case individually
 				else {
+					// for experiments, allow solutions to be re-used across iterations
+					prism.setCacheSolutions(undefinedConstants[j].getNumPropertyIterations() > 1);
 					for (k = 0; k < undefinedConstants[j].getNumPropertyIterations(); k++) {
 
 						try {
@@ -431,6 +433,7 @@ public class PrismCL implements PrismModelListener
 						// iterate to next property
 						undefinedConstants[j].iterateProperty();
 					}
+					prism.setCacheSolutions(false);
 				}
 
 				// in case of build failure during model checking, store as result for any further properties and continue
@@ -1584,6 +1587,33 @@ public class PrismCL implements PrismModelListener
 						errorAndExit("No value specified for -" + sw + " switch");
 					}
 				}
+				// simulation number of threads
+				else if (sw.equals("simthreads")) {
+					if (i < args.length - 1) {
+						try {
+							j = Integer.parseInt(args[++i]);
+							if (j <= 0)
+								throw new NumberFormatException("");
+							prism.getSettings().set(PrismSettings.SIMULATOR_NUM_THREADS, j);
+						} catch (NumberFormatException e) {
+							errorAndExit("Invalid value for -" + sw + " switch");
+						}
+					} else {
+						errorAndExit("No value specified for -" + sw + " switch");
+					}
+				}
+				// simulation random seed
+				else if (sw.equals("simseed")) {
+					if (i < args.length - 1) {
+						try {
+							prism.getSettings().set(PrismSettings.SIMULATOR_SEED, Long.parseLong(args[++i]));
+						} catch (NumberFormatException e) {
+							errorAndExit("Invalid value for -" + sw + " switch");
+						}
+					} else {
+						errorAndExit("No value specified for -" + sw + " switch");
+					}
+				}
 				// simulation max path length
 				else if (sw.equals("simpathlen")) {
 					if (i < args.length - 1) {
@@ -1984,6 +2014,11 @@ public class PrismCL implements PrismModelListener
 			explicitbuild = false;
 		}
 
+		// check topological methods are only used with the explicit engine
+		if (prism.getEngine() != Prism.EXPLICIT && prism.getLinEqMethod() == Prism.TOPOLOGICAL) {
+			errorAndExit("Topological iteration is currently only supported by the explicit engine");
+		}
+
 		// check not trying to do gauss-seidel with mtbdd engine
 		if (prism.getEngine() == Prism.MTBDD) {
 			j = prism.getLinEqMethod();
@@ -2243,6 +2278,8 @@ public class PrismCL implements PrismModelListener
 		mainLog.println("-simvar <n> .................... Set the minimum number of samples to know the variance is null or not");
 		mainLog.println("-simmaxrwd <x> ................. Set the maximum reward -- useful to display the CI/ACI methods progress");
 		mainLog.println("-simpathlen <n> ................ Set the maximum path length for the simulator");
+		mainLog.println("-simthreads <n> ................ Set the number of threads used for sampling [default: 1]");
+		mainLog.println("-simseed <n> ................... Set the random seed for the simulator (0 means random) [default: 0]");
 
 		mainLog.println();
 		mainLog.println("You can also use \"prism -help xxx\" for help on some switches -xxx with non-obvious syntax.");
@@ -79,6 +79,7 @@ public class PrismSettings implements Observer
 	public static final	String PRISM_PROB1							= "prism.prob1";
 	public static final	String PRISM_PRE_REL					= "prism.preRel";
 	public static final	String PRISM_FIX_DEADLOCKS					= "prism.fixDeadlocks";
+	public static final	String PRISM_OPTIMISE_MODEL					= "prism.optimiseModel";
 	public static final	String PRISM_DO_PROB_CHECKS					= "prism.doProbChecks";
 	public static final	String PRISM_SUM_ROUND_OFF					= "prism.sumRoundOff";
 	public static final	String PRISM_COMPACT						= "prism.compact";
@@ -132,6 +133,15 @@ public class PrismSettings implements Observer
 	public static final String PRISM_FAU_INITIVAL					= "prism.fau.initival";
 	public static final String PRISM_FAU_ARRAYTHRESHOLD				= "prism.fau.arraythreshold";
 
+	public static final	String PRISM_EXPLICIT_BUILD_THREADS			= "prism.explicitBuildThreads";
+	public static final	String PRISM_EXPLICIT_SOLN_THREADS			= "prism.explicitSolnThreads";
+	public static final	String PRISM_INTERVAL_ITER					= "prism.intervalIter";
+	public static final	String PRISM_OPTIMISTIC_ITER				= "prism.optimisticIter";
+	public static final	String PRISM_RESTRICT_SOI					= "prism.restrictSoi";
+	public static final	String PRISM_EXPLICIT_SCC_METHOD			= "prism.explicitSccMethod";
+	public static final	String PRISM_EXPLICIT_GS_ORDER				= "prism.explicitGsOrder";
+	public static final	String PRISM_EXPLICIT_MODEL_FILE			= "prism.explicitModelFile";
+
 	//Simulator
 	public static final String SIMULATOR_DEFAULT_NUM_SAMPLES		= "simulator.defaultNumSamples";
 	public static final String SIMULATOR_DEFAULT_CONFIDENCE			= "simulator.defaultConfidence";
@@ -141,6 +151,8 @@ public class PrismSettings implements Observer
 	public static final String SIMULATOR_DECIDE 					= "simulator.decide";
 	public static final String SIMULATOR_ITERATIONS_TO_DECIDE		= "simulator.iterationsToDecide";
 	public static final String SIMULATOR_MAX_REWARD					= "simulator.maxReward";
+	public static final String SIMULATOR_NUM_THREADS				= "simulator.numThreads";
+	public static final String SIMULATOR_SEED						= "simulator.seed";
 	public static final	String SIMULATOR_SIMULTANEOUS				= "simulator.simultaneous";
 	public static final String SIMULATOR_FIELD_CHOICE				= "simulator.fieldChoice";
 	public static final	String SIMULATOR_NEW_PATH_ASK_VIEW			= "simulator.newPathAskView";
@@ -231,11 +243,11 @@ public class PrismSettings implements Observer
 			{ CHOICE_TYPE,		PRISM_TRANSIENT_METHOD,					"Transient probability computation method",	"3.3",		"Uniformisation",															"Uniformisation,Fast adaptive uniformisation",																
 																			"Which method to use for computing transient probabilities in CTMCs." },
 			// NUMERICAL SOLUTION OPTIONS:
-			{ CHOICE_TYPE,		PRISM_LIN_EQ_METHOD,					"Linear equations method",				"2.1",			"Jacobi",																	"Power,Jacobi,Gauss-Seidel,Backwards Gauss-Seidel,Pseudo-Gauss-Seidel,Backwards Pseudo-Gauss-Seidel,JOR,SOR,Backwards SOR,Pseudo-SOR,Backwards Pseudo-SOR",
+			{ CHOICE_TYPE,		PRISM_LIN_EQ_METHOD,					"Linear equations method",				"2.1",			"Jacobi",																	"Power,Jacobi,Gauss-Seidel,Backwards Gauss-Seidel,Pseudo-Gauss-Seidel,Backwards Pseudo-Gauss-Seidel,JOR,SOR,Backwards SOR,Pseudo-SOR,Backwards Pseudo-SOR,Topological",
 																			"Which iterative method to use when solving linear equation systems." },
 			{ DOUBLE_TYPE,		PRISM_LIN_EQ_METHOD_PARAM,				"Over-relaxation parameter",			"2.1",			new Double(0.9),															"",																							
 																			"Over-relaxation parameter for iterative numerical methods such as JOR/SOR." },
-			{ CHOICE_TYPE,		PRISM_MDP_SOLN_METHOD,					"MDP solution method",				"4.0",			"Value iteration",																"Value iteration,Gauss-Seidel,Policy iteration,Modified policy iteration,Linear programming",
+			{ CHOICE_TYPE,		PRISM_MDP_SOLN_METHOD,					"MDP solution method",				"4.0",			"Value iteration",																"Value iteration,Gauss-Seidel,Policy iteration,Modified policy iteration,Linear programming,Topological value iteration",
 																			"Which method to use when solving Markov decision processes." },
 			{ CHOICE_TYPE,		PRISM_MDP_MULTI_SOLN_METHOD,			"MDP multi-objective solution method",				"4.0.3",			"Value iteration",											"Value iteration,Gauss-Seidel,Linear programming",
 																			"Which method to use when solving multi-objective queries on Markov decision processes." },
@@ -258,6 +270,8 @@ public class PrismSettings implements Observer
 																			"Constrain to fair adversaries when model checking MDPs." },
 			{ BOOLEAN_TYPE,		PRISM_FIX_DEADLOCKS,					"Automatically fix deadlocks",			"4.0.3",		new Boolean(true),															"",																							
 																			"Automatically fix deadlocks, where necessary, when constructing probabilistic models." },
+			{ BOOLEAN_TYPE,		PRISM_OPTIMISE_MODEL,					"Optimise model before construction",	"4.3.1",		new Boolean(true),															"",
+																			"Substitute constants, simplify expressions and remove commands with false guards before constructing or simulating a model." },
 			{ BOOLEAN_TYPE,		PRISM_DO_PROB_CHECKS,					"Do probability/rate checks",			"2.1",			new Boolean(true),															"",																							
 																			"Perform sanity checks on model probabilities/rates when constructing probabilistic models." },
 			{ DOUBLE_TYPE,		PRISM_SUM_ROUND_OFF,					"Probability sum threshold",					"2.1",			new Double(1.0E-5),													"0.0,",
@@ -301,6 +315,23 @@ public class PrismSettings implements Observer
 																			"Maximum memory available to CUDD (underlying BDD/MTBDD library), e.g. 125k, 50m, 4g. Note: Restart PRISM after changing this." },
 			{ DOUBLE_TYPE,		PRISM_CUDD_EPSILON,						"CUDD epsilon",							"2.1",			new Double(1.0E-15),														"0.0,",																						
 																			"Epsilon value used by CUDD (underlying BDD/MTBDD library) for terminal cache comparisons." },
+			// EXPLICIT ENGINE OPTIONS:
+			{ INTEGER_TYPE,		PRISM_EXPLICIT_BUILD_THREADS,			"Explicit model construction threads",	"4.3.1",		new Integer(1),																"1,",
+																			"Number of threads used for state space exploration when constructing models with the explicit engine (1 means sequential)." },
+			{ INTEGER_TYPE,		PRISM_EXPLICIT_SOLN_THREADS,			"Explicit value iteration threads",		"4.3.1",		new Integer(1),																"1,",
+																			"Number of threads used for (Jacobi) value iteration on MDPs, and for forward-backward SCC computation, with the explicit engine (1 means sequential)." },
+			{ BOOLEAN_TYPE,		PRISM_INTERVAL_ITER,					"Use interval iteration",				"4.3.1",		new Boolean(false),															"",
+																			"Use interval iteration (simultaneous lower/upper bounds, with a guaranteed error bound) for MDP reachability probabilities with the explicit engine." },
+			{ BOOLEAN_TYPE,		PRISM_OPTIMISTIC_ITER,					"Use optimistic value iteration",		"4.3.1",		new Boolean(false),															"",
+																			"Use optimistic value iteration (value iteration from below, plus guessed and verified upper bounds) for MDP expected reachability rewards with the explicit engine." },
+			{ BOOLEAN_TYPE,		PRISM_RESTRICT_SOI,						"Restrict to states of interest",		"4.3.1",		new Boolean(false),															"",
+																			"Only solve the part of the model relevant to the states of interest (e.g. the initial state) when computing DTMC/MDP until probabilities with the explicit engine." },
+			{ CHOICE_TYPE,		PRISM_EXPLICIT_SCC_METHOD,				"Explicit SCC decomposition method",	"4.3.1",		"Tarjan (iterative)",														"Tarjan,Tarjan (iterative),Forward-backward",
+																			"Which algorithm to use for (B)SCC computation with the explicit engine (forward-backward runs in parallel, with the number of threads used for value iteration)." },
+			{ CHOICE_TYPE,		PRISM_EXPLICIT_GS_ORDER,				"Explicit Gauss-Seidel state order",	"4.3.1",		"State index",																"State index,Backward BFS",
+																			"Order in which states are updated by Gauss-Seidel/SOR methods with the explicit engine (backward BFS visits states in order of increasing distance from the target)." },
+			{ STRING_TYPE,		PRISM_EXPLICIT_MODEL_FILE,				"Explicit model file",					"4.3.1",		"",																			"",
+																			"Binary file in which models built with the explicit engine are stored, and from which they are memory-mapped (rather than rebuilt) if they match the current model (empty means none)." },
 			// ADVERSARIES/COUNTEREXAMPLES:
 			{ CHOICE_TYPE,		PRISM_EXPORT_ADV,						"Adversary export",						"3.3",			"None",																	"None,DTMC,MDP",																
 																			"Type of adversary to generate and export during MDP model checking" },
@@ -363,6 +394,10 @@ public class PrismSettings implements Observer
 																			"Number of iterations to decide whether the standard error is null or not." },
 			{ DOUBLE_TYPE,		SIMULATOR_MAX_REWARD,					"Maximum reward",						"4.0",		new	Double(1000.0),			"1,",
 																			"Maximum reward for CI/ACI methods. It helps these methods in displaying the progress in case of rewards computation." },
+			{ INTEGER_TYPE,		SIMULATOR_NUM_THREADS,					"Sampling threads",						"4.3.1",	new	Integer(1),				"1,",
+																			"Number of threads used to generate sample paths for approximate model checking (1 means sequential). Results are reproducible for a fixed seed and number of threads." },
+			{ LONG_TYPE,		SIMULATOR_SEED,							"Random seed",							"4.3.1",	new	Long(0),				"",
+																			"Seed for the random number generator used by the simulator, for reproducible results (0 means choose a seed randomly)." },
 			{ BOOLEAN_TYPE,		SIMULATOR_SIMULTANEOUS,					"Check properties simultaneously",		"2.1",		new Boolean(true),			"",
 																			"Check multiple properties simultaneously over the same set of execution paths (simulator only)." },
 			{ CHOICE_TYPE,		SIMULATOR_FIELD_CHOICE,					"Values used in dialog",				"2.1",		"Last used values",			"Last used values,Always use defaults",
@@ -961,6 +996,9 @@ public class PrismSettings implements Observer
 			set(PRISM_MDP_SOLN_METHOD, "Policy iteration");
 		} else if (sw.equals("modpoliter")) {
 			set(PRISM_MDP_SOLN_METHOD, "Modified policy iteration");
+		} else if (sw.equals("topological") || sw.equals("topo")) {
+			set(PRISM_LIN_EQ_METHOD, "Topological");
+			set(PRISM_MDP_SOLN_METHOD, "Topological value iteration");
 		} else if (sw.equals("linprog") || sw.equals("lp")) {
 			set(PRISM_MDP_SOLN_METHOD, "Linear programming");
 			set(PRISM_MDP_MULTI_SOLN_METHOD, "Linear programming");
@@ -1046,6 +1084,10 @@ public class PrismSettings implements Observer
 		else if (sw.equals("nofair")) {
 			set(PRISM_FAIRNESS, false);
 		}
+		// Model optimisation off
+		else if (sw.equals("nooptimisemodel")) {
+			set(PRISM_OPTIMISE_MODEL, false);
+		}
 		// Prob/rate checks off
 		else if (sw.equals("noprobchecks")) {
 			set(PRISM_DO_PROB_CHECKS, false);
@@ -1253,6 +1295,89 @@ public class PrismSettings implements Observer
 				throw new PrismException("No value specified for -" + sw + " switch");
 			}
 		}
+
+		// EXPLICIT ENGINE OPTIONS:
+		
+		// Number of threads for model construction
+		else if (sw.equals("buildthreads")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException();
+					set(PRISM_EXPLICIT_BUILD_THREADS, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		// Number of threads for value iteration
+		else if (sw.equals("solnthreads")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException();
+					set(PRISM_EXPLICIT_SOLN_THREADS, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		// Interval iteration
+		else if (sw.equals("intervaliter") || sw.equals("ii")) {
+			set(PRISM_INTERVAL_ITER, true);
+		}
+		// Optimistic value iteration
+		else if (sw.equals("optimisticiter") || sw.equals("ovi")) {
+			set(PRISM_OPTIMISTIC_ITER, true);
+		}
+		// Restriction to states of interest
+		else if (sw.equals("restrictsoi")) {
+			set(PRISM_RESTRICT_SOI, true);
+		}
+		// SCC computation algorithm (explicit engine)
+		else if (sw.equals("explicitsccmethod")) {
+			if (i < args.length - 1) {
+				s = args[++i];
+				if (s.equals("tarjan"))
+					set(PRISM_EXPLICIT_SCC_METHOD, "Tarjan");
+				else if (s.equals("tarjaniter"))
+					set(PRISM_EXPLICIT_SCC_METHOD, "Tarjan (iterative)");
+				else if (s.equals("fb"))
+					set(PRISM_EXPLICIT_SCC_METHOD, "Forward-backward");
+				else
+					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: tarjan, tarjaniter, fb)");
+			} else {
+				throw new PrismException("No parameter specified for -" + sw + " switch");
+			}
+		}
+		// State ordering for Gauss-Seidel/SOR (explicit engine)
+		else if (sw.equals("gsorder")) {
+			if (i < args.length - 1) {
+				s = args[++i];
+				if (s.equals("index"))
+					set(PRISM_EXPLICIT_GS_ORDER, "State index");
+				else if (s.equals("bfs"))
+					set(PRISM_EXPLICIT_GS_ORDER, "Backward BFS");
+				else
+					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: index, bfs)");
+			} else {
+				throw new PrismException("No parameter specified for -" + sw + " switch");
+			}
+		}
+		// Binary model file (explicit engine)
+		else if (sw.equals("explicitmodelfile")) {
+			if (i < args.length - 1) {
+				set(PRISM_EXPLICIT_MODEL_FILE, args[++i]);
+			} else {
+				throw new PrismException("No file specified for -" + sw + " switch");
+			}
+		}
 		
 		// ADVERSARIES/COUNTEREXAMPLES:
 		
@@ -1580,6 +1705,7 @@ public class PrismSettings implements Observer
 		mainLog.println("-bsor .......................... Use Backwards SOR for numerical computation");
 		mainLog.println("-psor .......................... Use Pseudo SOR for numerical computation");
 		mainLog.println("-bpsor ......................... Use Backwards Pseudo SOR for numerical computation");
+		mainLog.println("-topological (or -topo) ........ Use topological (SCC-based) iteration for numerical computation (explicit engine only)");
 		mainLog.println("-omega <x> ..................... Set over-relaxation parameter (for JOR/SOR/...) [default: 0.9]");
 		mainLog.println();
 		mainLog.println("SOLUTION METHODS (MDPS):");
@@ -1587,6 +1713,7 @@ public class PrismSettings implements Observer
 		mainLog.println("-gaussseidel (or -gs) .......... Use Gauss-Seidel value iteration for solving MDPs");
 		mainLog.println("-politer ....................... Use policy iteration for solving MDPs");
 		mainLog.println("-modpoliter .................... Use modified policy iteration for solving MDPs");
+		mainLog.println("-topological (or -topo) ........ Use topological (SCC-based) value iteration for solving MDPs (explicit engine only)");
 		mainLog.println();
 		mainLog.println("SOLUTION METHOD SETTINGS");
 		mainLog.println("-relative (or -rel) ............ Use relative error for detecting convergence [default]");
@@ -1603,6 +1730,7 @@ public class PrismSettings implements Observer
 		mainLog.println("-nofair ........................ Don't use fairness (for model checking of MDPs) [default]");
 		mainLog.println("-fixdl ......................... Automatically put self-loops in deadlock states [default]");
 		mainLog.println("-nofixdl ....................... Do not automatically put self-loops in deadlock states");
+		mainLog.println("-nooptimisemodel ............... Do not simplify the model (constants, false guards) before construction");
 		mainLog.println("-noprobchecks .................. Disable checks on model probabilities/rates");
 		mainLog.println("-sumroundoff <x> ............... Set probability sum threshold [default: 1-e5]");
 		mainLog.println("-zerorewardcheck ............... Check for absence of zero-reward loops");
@@ -1637,6 +1765,16 @@ public class PrismSettings implements Observer
 		mainLog.println("-cuddmaxmem <n> ................ Set max memory for CUDD package, e.g. 125k, 50m, 4g [default: 1g]");
 		mainLog.println("-cuddepsilon <x> ............... Set epsilon value for CUDD package [default: 1e-15]");
 		mainLog.println();
+		mainLog.println("EXPLICIT ENGINE OPTIONS:");
+		mainLog.println("-buildthreads <n> .............. Set number of threads for model construction [default: 1]");
+		mainLog.println("-solnthreads <n> ............... Set number of threads for MDP value iteration and parallel SCCs [default: 1]");
+		mainLog.println("-intervaliter (or -ii) ......... Use interval iteration for MDP reachability probabilities");
+		mainLog.println("-optimisticiter (or -ovi) ...... Use optimistic value iteration for MDP expected reachability rewards");
+		mainLog.println("-restrictsoi ................... Only solve the part of the model relevant to the states of interest");
+		mainLog.println("-explicitsccmethod <name> ...... Specify SCC computation method (tarjan, tarjaniter, fb) [default: tarjaniter]");
+		mainLog.println("-gsorder <name> ................ Specify state order for Gauss-Seidel/SOR (index, bfs) [default: index]");
+		mainLog.println("-explicitmodelfile <file> ...... Store built model in <file> and memory-map it from there if unchanged");
+		mainLog.println();
 		mainLog.println("PARAMETRIC MODEL CHECKING OPTIONS:");
 		mainLog.println("-param <vals> .................. Do parametric model checking with parameters (and ranges) <vals>");
 		mainLog.println("-paramprecision <x> ............ Set max undecided region for parameter synthesis [default: 5/100]");
@@ -47,6 +47,8 @@ public class Result
 	private Strategy strat;
 	// Solution vector (optional)
 	private StateVector vect;
+	// Guaranteed bound on the (absolute) error of the result (optional: NaN if not known)
+	private double errorBound;
 	
 	/**
 	 * Construct an empty Result object.
@@ -58,6 +60,7 @@ public class Result
 		this.cex = null;
 		this.strat = null;
 		this.vect = null;
+		this.errorBound = Double.NaN;
 	}
 	
 	/**
@@ -109,6 +112,14 @@ public class Result
 		this.vect = vect;
 	}
 	
+	/**
+	 * Set the guaranteed bound on the (absolute) error of the result (NaN denotes not known).
+	 */
+	public void setErrorBound(double errorBound)
+	{
+		this.errorBound = errorBound;
+	}
+	
 	/**
 	 * Get the result.
 	 */
@@ -150,11 +161,21 @@ public class Result
 	}
 	
 	/**
-	 * Get a string of the result and (if present) explanatory text
+	 * Get the guaranteed bound on the (absolute) error of the result (NaN denotes not known).
+	 */
+	public double getErrorBound()
+	{
+		return errorBound;
+	}
+	
+	/**
+	 * Get a string of the result and (if present) error bound and explanatory text
 	 */
 	public String getResultString()
 	{
 		String s = result.toString();
+		if (!Double.isNaN(errorBound))
+			s += " (+/- " + errorBound + ")";
 		if (explanation != null)
 			s += " (" + explanation +")";
 		return s;
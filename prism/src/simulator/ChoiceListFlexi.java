@@ -43,19 +43,22 @@ public class ChoiceListFlexi implements Choice
 	protected int moduleOrActionIndex;
 
 	// List of multiple updates and associated probabilities/rates
-	// Size of list is stored implicitly in target.length
+	// Size of list is stored in 'size'; 'updates' may contain further
+	// (unused) lists beyond this, which are kept so they can be reused after clear()
 	// Probabilities/rates are already evaluated, target states are not
-	// but are just stored as lists of updates (for efficiency)
-	protected List<List<Update>> updates;
-	protected List<Double> probability;
+	// but are just stored as lists of (compiled) updates (for efficiency)
+	protected List<List<CompiledUpdate>> updates;
+	protected double probability[];
+	protected int size;
 
 	/**
 	 * Create empty choice.
 	 */
 	public ChoiceListFlexi()
 	{
-		updates = new ArrayList<List<Update>>();
-		probability = new ArrayList<Double>();
+		updates = new ArrayList<List<CompiledUpdate>>();
+		probability = new double[4];
+		size = 0;
 	}
 
 	/**
@@ -64,21 +67,35 @@ public class ChoiceListFlexi implements Choice
 	 */
 	public ChoiceListFlexi(ChoiceListFlexi ch)
 	{
+		this();
+		copyFrom(ch);
+	}
+
+	/**
+	 * Make this choice a copy of another one, reusing existing storage where possible.
+	 * NB: Does a shallow, not deep, copy with respect to references to Update objects.
+	 */
+	public void copyFrom(ChoiceListFlexi ch)
+	{
+		clear();
 		moduleOrActionIndex = ch.moduleOrActionIndex;
-		updates = new ArrayList<List<Update>>(ch.updates.size());
-		for (List<Update> list : ch.updates) {
-			List<Update> listNew = new ArrayList<Update>(list.size()); 
-			updates.add(listNew);
-			for (Update up : list) {
-				listNew.add(up);
-			}
-		}
-		probability = new ArrayList<Double>(ch.size());
-		for (double p : ch.probability) {
-			probability.add(p);
+		for (int i = 0; i < ch.size; i++) {
+			List<CompiledUpdate> list = nextList();
+			list.addAll(ch.updates.get(i));
+			probability[i] = ch.probability[i];
+			size++;
 		}
 	}
 
+	/**
+	 * Clear this choice (i.e. remove all transitions), keeping storage for later reuse.
+	 */
+	public void clear()
+	{
+		moduleOrActionIndex = 0;
+		size = 0;
+	}
+
 	// Set methods
 
 	/**
@@ -94,21 +111,32 @@ public class ChoiceListFlexi implements Choice
 	/**
 	 * Add a transition to this choice.
 	 * @param probability Probability (or rate) of the transition
-	 * @param ups List of Update objects defining transition
+	 * @param ups List of (compiled) Update objects defining transition (this list is copied)
+	 */
+	public void add(double probability, List<CompiledUpdate> ups)
+	{
+		List<CompiledUpdate> list = nextList();
+		list.addAll(ups);
+		this.probability[size++] = probability;
+	}
+
+	/**
+	 * Add a transition, comprising a single update, to this choice.
+	 * @param probability Probability (or rate) of the transition
+	 * @param up (Compiled) Update object defining transition
 	 */
-	public void add(double probability, List<Update> ups)
+	public void add(double probability, CompiledUpdate up)
 	{
-		this.updates.add(ups);
-		this.probability.add(probability);
+		List<CompiledUpdate> list = nextList();
+		list.add(up);
+		this.probability[size++] = probability;
 	}
 
 	@Override
 	public void scaleProbabilitiesBy(double d)
 	{
-		int i, n;
-		n = size();
-		for (i = 0; i < n; i++) {
-			probability.set(i, probability.get(i) * d);
+		for (int i = 0; i < size; i++) {
+			probability[i] *= d;
 		}
 	}
 
@@ -117,7 +145,7 @@ public class ChoiceListFlexi implements Choice
 	 */
 	public void productWith(ChoiceListFlexi ch)
 	{
-		List<Update> list;
+		List<CompiledUpdate> list;
 		int i, j, n, n2;
 		double pi;
 
@@ -129,26 +157,48 @@ public class ChoiceListFlexi implements Choice
 			// Loop through each (jth) element of existing choice
 			for (j = 0; j < n2; j++) {
 				// Create new element (i,j) of product 
-				list = new ArrayList<Update>(updates.get(j).size() + ch.updates.get(i).size());
-				for (Update u : updates.get(j)) {
-					list.add(u);
-				}
-				for (Update u : ch.updates.get(i)) {
-					list.add(u);
-				}
-				add(pi * getProbability(j), list);
+				list = nextList();
+				list.addAll(updates.get(j));
+				list.addAll(ch.updates.get(i));
+				probability[size++] = pi * probability[j];
 			}
 		}
 		// Modify elements of current choice to get (0,j) elements of product
 		pi = ch.getProbability(0);
 		for (j = 0; j < n2; j++) {
-			for (Update u : ch.updates.get(0)) {
-				updates.get(j).add(u);
-			}
-			probability.set(j, pi * probability.get(j));
+			updates.get(j).addAll(ch.updates.get(0));
+			probability[j] *= pi;
 		}
 	}
 
+	/**
+	 * Get an (empty) list of updates for a new transition, at index {@code size},
+	 * reusing an existing list if available, and make sure there is space for its probability.
+	 * The caller should then increment {@code size}.
+	 */
+	private List<CompiledUpdate> nextList()
+	{
+		List<CompiledUpdate> list;
+		ensureCapacity(size + 1);
+		if (size < updates.size()) {
+			list = updates.get(size);
+			list.clear();
+		} else {
+			list = new ArrayList<CompiledUpdate>();
+			updates.add(list);
+		}
+		return list;
+	}
+
+	/**
+	 * Make sure there is space to store (at least) {@code n} probabilities.
+	 */
+	private void ensureCapacity(int n)
+	{
+		if (n > probability.length)
+			probability = Arrays.copyOf(probability, Math.max(n, 2 * probability.length));
+	}
+
 	// Get methods
 
 	@Override
@@ -161,7 +211,7 @@ public class ChoiceListFlexi implements Choice
 	public String getModuleOrAction()
 	{
 		// Action label (or absence of) will be the same for all updates in a choice
-		Update u = updates.get(0).get(0);
+		Update u = updates.get(0).get(0).getUpdate();
 		Command c = u.getParent().getParent();
 		if ("".equals(c.getSynch()))
 			return c.getParent().getName();
@@ -172,7 +222,7 @@ public class ChoiceListFlexi implements Choice
 	@Override
 	public int size()
 	{
-		return probability.size();
+		return size;
 	}
 
 	@Override
@@ -181,7 +231,8 @@ public class ChoiceListFlexi implements Choice
 		int j, n;
 		String s = "";
 		boolean first = true;
-		for (Update up : updates.get(i)) {
+		for (CompiledUpdate cup : updates.get(i)) {
+			Update up = cup.getUpdate();
 			n = up.getNumElements();
 			for (j = 0; j < n; j++) {
 				if (first)
@@ -199,8 +250,8 @@ public class ChoiceListFlexi implements Choice
 	{
 		String s = "";
 		boolean first = true;
-		for (Update up : updates.get(i)) {
-			if (up.getNumElements() == 0)
+		for (CompiledUpdate up : updates.get(i)) {
+			if (up.getUpdate().getNumElements() == 0)
 				continue;
 			if (first)
 				first = false;
@@ -215,7 +266,7 @@ public class ChoiceListFlexi implements Choice
 	public State computeTarget(int i, State currentState) throws PrismLangException
 	{
 		State newState = new State(currentState);
-		for (Update up : updates.get(i))
+		for (CompiledUpdate up : updates.get(i))
 			up.update(currentState, newState);
 		return newState;
 	}
@@ -223,22 +274,22 @@ public class ChoiceListFlexi implements Choice
 	@Override
 	public void computeTarget(int i, State currentState, State newState) throws PrismLangException
 	{
-		for (Update up : updates.get(i))
+		for (CompiledUpdate up : updates.get(i))
 			up.update(currentState, newState);
 	}
 
 	@Override
 	public double getProbability(int i)
 	{
-		return probability.get(i);
+		return probability[i];
 	}
 
 	@Override
 	public double getProbabilitySum()
 	{
 		double sum = 0.0;
-		for (double d : probability)
-			sum += d;
+		for (int i = 0; i < size; i++)
+			sum += probability[i];
 		return sum;
 	}
 
@@ -250,7 +301,7 @@ public class ChoiceListFlexi implements Choice
 		n = size();
 		d = 0.0;
 		for (i = 0; x >= d && i < n; i++) {
-			d += probability.get(i);
+			d += probability[i];
 		}
 		return i - 1;
 	}
@@ -268,8 +319,8 @@ public class ChoiceListFlexi implements Choice
 		int i, n;
 		n = size();
 		for (i = 0; i < n; i++) {
-			for (Update up : updates.get(i))
-				up.checkUpdate(currentState, varList);
+			for (CompiledUpdate up : updates.get(i))
+				up.getUpdate().checkUpdate(currentState, varList);
 		}
 	}
 	
@@ -0,0 +1,90 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package simulator;
+
+import parser.CompiledExpression;
+import parser.State;
+import parser.ast.Update;
+import prism.PrismLangException;
+
+/**
+ * An {@link Update}, with its expressions compiled (see {@link CompiledExpression}),
+ * as executed by the {@link Updater} when computing the target states of transitions.
+ */
+public class CompiledUpdate
+{
+	// The original update
+	private final Update update;
+	// Indices of the variables updated
+	private final int varIndices[];
+	// Compiled expressions for the new values of the variables
+	private final CompiledExpression exprs[];
+
+	/**
+	 * Compile an update. Any constants should already have been replaced with their values.
+	 */
+	public CompiledUpdate(Update update)
+	{
+		this.update = update;
+		int n = update.getNumElements();
+		varIndices = new int[n];
+		exprs = new CompiledExpression[n];
+		for (int i = 0; i < n; i++) {
+			varIndices[i] = update.getVarIndex(i);
+			exprs[i] = CompiledExpression.compile(update.getExpression(i));
+		}
+	}
+
+	/**
+	 * Get the original (uncompiled) update.
+	 */
+	public Update getUpdate()
+	{
+		return update;
+	}
+
+	/**
+	 * Execute this update, as for {@link Update#update(State, State)}:
+	 * apply changes in variables to {@code newState} (which should be equal to {@code oldState} when passed in).
+	 * @param oldState Variable values in current state
+	 * @param newState State object to apply changes to
+	 */
+	public void update(State oldState, State newState) throws PrismLangException
+	{
+		Object oldValues[] = oldState.varValues;
+		Object newValues[] = newState.varValues;
+		for (int i = 0; i < varIndices.length; i++) {
+			newValues[varIndices[i]] = exprs[i].evaluate(oldValues);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return update.toString();
+	}
+}
@@ -0,0 +1,308 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import parser.State;
+import parser.VarList;
+import parser.ast.DeclarationBool;
+import parser.ast.DeclarationInt;
+import parser.ast.Expression;
+import parser.ast.ExpressionBinaryOp;
+import parser.ast.ExpressionUnaryOp;
+import parser.ast.ExpressionVar;
+import parser.ast.Module;
+import prism.PrismLangException;
+
+/**
+ * Index of the commands of a module by the value of a single variable,
+ * used by the {@link Updater} so that only the commands whose guards
+ * can possibly be true in a state need to have their guards evaluated.
+ * <p>
+ * The guard of each command is split into its top-level conjuncts, and those that compare
+ * a (bounded) variable with a constant (e.g. {@code s=2}, {@code s<3} or {@code b}/{@code !b}
+ * for a Boolean {@code b}) determine the values of the variable for which the command may be enabled.
+ * The variable for which this rules out the most (command, value) pairs is used for the index,
+ * which is then just a table giving the candidate commands for each of its values.
+ * If no variable is useful, all commands are candidates in every state.
+ */
+public class GuardIndex
+{
+	/** Maximum size (number of values times number of commands) of an index table */
+	private static final int MAX_TABLE_SIZE = 1 << 20;
+
+	// Variable used for the index (-1 if none)
+	private int var = -1;
+	// Lowest value of the variable (0 for Booleans)
+	private int low;
+	// Candidate commands for each value of the variable (offset by low)
+	private int table[][];
+	// All commands
+	private int all[];
+
+	/**
+	 * Build the guard index for a module. Any constants in its guards should already have been replaced with their values.
+	 * @param module The module
+	 * @param varList Info about the model's variables
+	 */
+	public GuardIndex(Module module, VarList varList)
+	{
+		int numCommands = module.getNumCommands();
+		int numVars = varList.getNumVars();
+		all = new int[numCommands];
+		for (int i = 0; i < numCommands; i++) {
+			all[i] = i;
+		}
+
+		// Find the values of each (bounded) variable for which each command may be enabled
+		// (null means all values, for commands that don't restrict the variable;
+		// variables too large to index on, see MAX_TABLE_SIZE, are always null)
+		boolean allowed[][][] = new boolean[numVars][][];
+		for (int i = 0; i < numCommands; i++) {
+			List<Expression> conjuncts = new ArrayList<Expression>();
+			splitConjunction(module.getCommand(i).getGuard(), conjuncts);
+			for (Expression conjunct : conjuncts) {
+				restrictValues(conjunct, varList, allowed, i, numCommands);
+			}
+		}
+
+		// Pick the variable that rules out the most (command, value) pairs
+		long bestScore = 0;
+		for (int v = 0; v < numVars; v++) {
+			if (allowed[v] == null)
+				continue;
+			long score = 0;
+			for (int i = 0; i < numCommands; i++) {
+				if (allowed[v][i] != null) {
+					for (boolean b : allowed[v][i]) {
+						if (!b)
+							score++;
+					}
+				}
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				var = v;
+			}
+		}
+
+		// Build the table
+		if (var != -1) {
+			low = varList.getDeclaration(var).getDeclType() instanceof DeclarationBool ? 0 : varList.getLow(var);
+			int range = getRange(var, varList);
+			table = new int[range][];
+			int cands[] = new int[numCommands];
+			for (int k = 0; k < range; k++) {
+				int n = 0;
+				for (int i = 0; i < numCommands; i++) {
+					if (allowed[var][i] == null || allowed[var][i][k])
+						cands[n++] = i;
+				}
+				table[k] = n == numCommands ? all : Arrays.copyOf(cands, n);
+			}
+		}
+	}
+
+	/**
+	 * Get the indices of the commands whose guards may be true in {@code state}, in ascending order.
+	 * The returned array should not be modified.
+	 */
+	public int[] getCandidates(State state)
+	{
+		if (var == -1)
+			return all;
+		Object val = state.varValues[var];
+		int k;
+		if (val instanceof Integer)
+			k = ((Integer) val).intValue() - low;
+		else if (val instanceof Boolean)
+			k = ((Boolean) val).booleanValue() ? 1 : 0;
+		else
+			return all;
+		// Out of range values (e.g. before an error is detected) are not indexed
+		return k >= 0 && k < table.length ? table[k] : all;
+	}
+
+	/**
+	 * Get the index of the variable used for the index (-1 if none).
+	 */
+	public int getIndexVariable()
+	{
+		return var;
+	}
+
+	// Local utility methods
+
+	/**
+	 * Split an expression into its top-level conjuncts.
+	 */
+	private static void splitConjunction(Expression expr, List<Expression> conjuncts)
+	{
+		if (expr instanceof ExpressionBinaryOp && ((ExpressionBinaryOp) expr).getOperator() == ExpressionBinaryOp.AND) {
+			splitConjunction(((ExpressionBinaryOp) expr).getOperand1(), conjuncts);
+			splitConjunction(((ExpressionBinaryOp) expr).getOperand2(), conjuncts);
+		} else if (expr instanceof ExpressionUnaryOp && ((ExpressionUnaryOp) expr).getOperator() == ExpressionUnaryOp.PARENTH) {
+			splitConjunction(((ExpressionUnaryOp) expr).getOperand(), conjuncts);
+		} else {
+			conjuncts.add(expr);
+		}
+	}
+
+	/**
+	 * Get the number of values of a variable that can be indexed (0 if it is unbounded or otherwise not indexable).
+	 */
+	private static int getRange(int v, VarList varList)
+	{
+		if (varList.getDeclaration(v).getDeclType() instanceof DeclarationBool)
+			return 2;
+		if (varList.getDeclaration(v).getDeclType() instanceof DeclarationInt)
+			return varList.getHigh(v) - varList.getLow(v) + 1;
+		return 0;
+	}
+
+	/**
+	 * If a conjunct of the guard of command {@code i} is a comparison between a variable and a constant,
+	 * restrict the values of the variable for which the command may be enabled accordingly.
+	 */
+	private static void restrictValues(Expression conjunct, VarList varList, boolean allowed[][][], int i, int numCommands)
+	{
+		ExpressionVar ev;
+		int op, c;
+		// Strip parentheses
+		while (conjunct instanceof ExpressionUnaryOp && ((ExpressionUnaryOp) conjunct).getOperator() == ExpressionUnaryOp.PARENTH)
+			conjunct = ((ExpressionUnaryOp) conjunct).getOperand();
+		// Boolean variable b or !b
+		if (conjunct instanceof ExpressionVar) {
+			ev = (ExpressionVar) conjunct;
+			op = ExpressionBinaryOp.EQ;
+			c = 1;
+		} else if (conjunct instanceof ExpressionUnaryOp && ((ExpressionUnaryOp) conjunct).getOperator() == ExpressionUnaryOp.NOT
+				&& ((ExpressionUnaryOp) conjunct).getOperand() instanceof ExpressionVar) {
+			ev = (ExpressionVar) ((ExpressionUnaryOp) conjunct).getOperand();
+			op = ExpressionBinaryOp.EQ;
+			c = 0;
+		}
+		// Relational operator, comparing variable and constant (either way round)
+		else if (conjunct instanceof ExpressionBinaryOp && ExpressionBinaryOp.isRelOp(((ExpressionBinaryOp) conjunct).getOperator())) {
+			ExpressionBinaryOp eb = (ExpressionBinaryOp) conjunct;
+			Expression other;
+			op = eb.getOperator();
+			if (eb.getOperand1() instanceof ExpressionVar) {
+				ev = (ExpressionVar) eb.getOperand1();
+				other = eb.getOperand2();
+			} else if (eb.getOperand2() instanceof ExpressionVar) {
+				ev = (ExpressionVar) eb.getOperand2();
+				other = eb.getOperand1();
+				op = flipRelOp(op);
+			} else {
+				return;
+			}
+			if (!other.isConstant())
+				return;
+			try {
+				Object o = other.evaluate();
+				if (o instanceof Integer)
+					c = ((Integer) o).intValue();
+				else if (o instanceof Boolean)
+					c = ((Boolean) o).booleanValue() ? 1 : 0;
+				else
+					return;
+			} catch (PrismLangException e) {
+				return;
+			}
+		} else {
+			return;
+		}
+		int v = ev.getIndex();
+		if (v < 0 || v >= allowed.length)
+			return;
+		int range = getRange(v, varList);
+		// Variables with too many values to index on are skipped (before allocating anything for them)
+		if (range <= 0 || (long) range * numCommands > MAX_TABLE_SIZE)
+			return;
+		boolean isBool = varList.getDeclaration(v).getDeclType() instanceof DeclarationBool;
+		// Comparisons of a Boolean variable other than =/!= are not handled
+		if (isBool && op != ExpressionBinaryOp.EQ && op != ExpressionBinaryOp.NE)
+			return;
+		int low = isBool ? 0 : varList.getLow(v);
+		if (allowed[v] == null)
+			allowed[v] = new boolean[numCommands][];
+		if (allowed[v][i] == null) {
+			allowed[v][i] = new boolean[range];
+			Arrays.fill(allowed[v][i], true);
+		}
+		for (int k = 0; k < range; k++) {
+			if (!compare(low + k, op, c))
+				allowed[v][i][k] = false;
+		}
+	}
+
+	/**
+	 * Get the relational operator {@code op'} such that {@code x op y} iff {@code y op' x}.
+	 */
+	private static int flipRelOp(int op)
+	{
+		switch (op) {
+		case ExpressionBinaryOp.GT:
+			return ExpressionBinaryOp.LT;
+		case ExpressionBinaryOp.GE:
+			return ExpressionBinaryOp.LE;
+		case ExpressionBinaryOp.LT:
+			return ExpressionBinaryOp.GT;
+		case ExpressionBinaryOp.LE:
+			return ExpressionBinaryOp.GE;
+		default:
+			return op;
+		}
+	}
+
+	/**
+	 * Evaluate {@code x op c} for a relational operator {@code op}.
+	 */
+	private static boolean compare(int x, int op, int c)
+	{
+		switch (op) {
+		case ExpressionBinaryOp.EQ:
+			return x == c;
+		case ExpressionBinaryOp.NE:
+			return x != c;
+		case ExpressionBinaryOp.GT:
+			return x > c;
+		case ExpressionBinaryOp.GE:
+			return x >= c;
+		case ExpressionBinaryOp.LT:
+			return x < c;
+		case ExpressionBinaryOp.LE:
+			return x <= c;
+		default:
+			return true;
+		}
+	}
+}
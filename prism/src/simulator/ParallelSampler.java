@@ -0,0 +1,247 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import parser.State;
+import parser.ast.Expression;
+import parser.ast.ModulesFile;
+import prism.PrismException;
+
+/**
+ * Multi-threaded generation of sample paths, used by {@link SimulatorEngine} for
+ * approximate (statistical) model checking.
+ * <p>
+ * Each thread has its own {@link SimulatorEngine} (and thus its own {@link Updater},
+ * path and copies of the samplers for the properties being checked) and its own stream
+ * of random numbers, derived from a single seed. Paths are generated in rounds:
+ * in each round, every thread generates a fixed-size block of paths, storing
+ * the values of the samplers for each one. The caller then consumes these
+ * one by one, via {@link #nextSample()}, in order of thread and then path.
+ * Hence, the sequence of samples seen (and thus the final statistics) depends only
+ * on the seed and the number of threads, not on the scheduling of the threads.
+ * <p>
+ * Call {@link #close()} once finished, to release the threads.
+ */
+public class ParallelSampler
+{
+	/** Number of paths generated by each thread in each round */
+	private static final int PATHS_PER_ROUND = 256;
+
+	// Thread pool
+	private ForkJoinPool pool;
+	// Per-thread workers
+	private List<Worker> workers;
+	// Number of samplers (properties)
+	private int numSamplers;
+	// Position of the current sample: worker index, path index within its block
+	private int currentWorker;
+	private int currentPath;
+
+	/**
+	 * Create a new parallel sampler.
+	 * Note: All constants in the model must have already been defined.
+	 * @param parent Simulator engine whose settings/log are used
+	 * @param modulesFile The model
+	 * @param properties The (processed) properties for which to sample, as stored in {@code parent}
+	 * @param initialState Initial state (if null, use default, selecting randomly if needed)
+	 * @param maxPathLength The maximum path length for sampling
+	 * @param numThreads Number of threads to use
+	 * @param seed Base seed for random number generation
+	 */
+	public ParallelSampler(SimulatorEngine parent, ModulesFile modulesFile, List<Expression> properties, State initialState, long maxPathLength,
+			int numThreads, long seed) throws PrismException
+	{
+		numSamplers = properties.size();
+		// Determine initial state here, rather than concurrently in each thread
+		if (initialState == null) {
+			if (modulesFile.getInitialStates() != null)
+				throw new PrismException("Random choice of multiple initial states not yet supported");
+			initialState = modulesFile.getDefaultInitialState();
+		}
+		workers = new ArrayList<Worker>(numThreads);
+		RandomNumberGenerator rng = new RandomNumberGenerator(seed);
+		for (int t = 0; t < numThreads; t++) {
+			SimulatorEngine engine = new SimulatorEngine(parent);
+			engine.createNewOnTheFlyPath(modulesFile);
+			for (Expression prop : properties) {
+				engine.addProperty(prop);
+			}
+			engine.setRandomNumberGenerator(rng.split());
+			workers.add(new Worker(engine, initialState, maxPathLength));
+		}
+		pool = new ForkJoinPool(numThreads);
+		// No samples generated yet
+		currentWorker = numThreads - 1;
+		currentPath = 0;
+	}
+
+	/**
+	 * Move to the next sample path, generating a new round of paths if needed.
+	 */
+	public void nextSample() throws PrismException
+	{
+		currentPath++;
+		while (currentPath >= workers.get(currentWorker).numPaths) {
+			currentPath = 0;
+			currentWorker++;
+			if (currentWorker == workers.size()) {
+				generateRound();
+				currentWorker = 0;
+			}
+		}
+	}
+
+	/**
+	 * Get the length of the current sample path.
+	 */
+	public long getPathLength()
+	{
+		return workers.get(currentWorker).pathLengths[currentPath];
+	}
+
+	/**
+	 * Check whether all samplers knew their value for the current sample path.
+	 * If not, the thread that generated it stopped there (for this round).
+	 */
+	public boolean allValuesKnown()
+	{
+		Worker worker = workers.get(currentWorker);
+		return worker.allKnown || currentPath < worker.numPaths - 1;
+	}
+
+	/**
+	 * Get the value of the {@code k}th sampler for the current sample path,
+	 * as returned by {@link simulator.sampler.Sampler#getCurrentValueAsDouble()}.
+	 */
+	public double getValue(int k)
+	{
+		return workers.get(currentWorker).values[currentPath * numSamplers + k];
+	}
+
+	/**
+	 * Get the total number of command guards evaluated by all threads.
+	 */
+	public long getNumGuardsEvaluated()
+	{
+		long n = 0;
+		for (Worker worker : workers) {
+			n += worker.engine.getNumGuardsEvaluated();
+		}
+		return n;
+	}
+
+	/**
+	 * Get the total number of command guard evaluations skipped (thanks to the guard index) by all threads.
+	 */
+	public long getNumGuardsSkipped()
+	{
+		long n = 0;
+		for (Worker worker : workers) {
+			n += worker.engine.getNumGuardsSkipped();
+		}
+		return n;
+	}
+
+	/**
+	 * Shut down the thread pool.
+	 */
+	public void close()
+	{
+		pool.shutdown();
+	}
+
+	/**
+	 * Generate (in parallel) a new block of paths for each thread.
+	 */
+	private void generateRound() throws PrismException
+	{
+		List<Future<Void>> futures = pool.invokeAll(workers);
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof PrismException)
+					throw (PrismException) e.getCause();
+				throw new PrismException("Error during parallel sampling: " + e.getCause());
+			} catch (InterruptedException e) {
+				throw new PrismException("Parallel sampling was interrupted");
+			}
+		}
+	}
+
+	/**
+	 * Generator of blocks of sample paths for a single thread.
+	 */
+	private class Worker implements Callable<Void>
+	{
+		// Simulator engine used (exclusively) by this thread
+		private SimulatorEngine engine;
+		private State initialState;
+		private long maxPathLength;
+		// Results for the current block of paths
+		private int numPaths = 0;
+		private long pathLengths[] = new long[PATHS_PER_ROUND];
+		private double values[] = new double[PATHS_PER_ROUND * numSamplers];
+		// Did all samplers know their value for all paths in the block?
+		// (if not, the block ends with the first path for which they did not)
+		private boolean allKnown = true;
+
+		private Worker(SimulatorEngine engine, State initialState, long maxPathLength)
+		{
+			this.engine = engine;
+			this.initialState = initialState;
+			this.maxPathLength = maxPathLength;
+		}
+
+		@Override
+		public Void call() throws PrismException
+		{
+			numPaths = 0;
+			allKnown = true;
+			while (numPaths < PATHS_PER_ROUND) {
+				pathLengths[numPaths] = engine.generateSamplePath(initialState, maxPathLength);
+				if (!engine.allSamplerValuesKnown()) {
+					allKnown = false;
+					numPaths++;
+					break;
+				}
+				for (int k = 0; k < numSamplers; k++) {
+					values[numPaths * numSamplers + k] = engine.getPropertySampler(k).getCurrentValueAsDouble();
+				}
+				numPaths++;
+			}
+			return null;
+		}
+	}
+}
@@ -27,31 +27,63 @@
 
 package simulator;
 
-import java.util.Date;
-
-import cern.jet.random.Exponential;
-import cern.jet.random.Uniform;
-import cern.jet.random.engine.MersenneTwister;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Random number generator for the simulator.
- * Currently, uses the Colt library.
+ * <p>
+ * This uses the SplitMix64 algorithm (as in Java 8's {@code java.util.SplittableRandom},
+ * whose output it matches, but implemented here so as to also run on Java 7),
+ * so it can be seeded (for reproducible runs) and can cheaply be split into independent
+ * streams of random numbers (e.g. for concurrent sampling threads) via {@link #split()}.
+ * Splitting is deterministic: the streams obtained by successive calls to {@link #split()}
+ * depend only on the seed of the original generator.
+ * Instances are not thread-safe; each thread should use its own one.
  */
 public class RandomNumberGenerator
 {
-	private MersenneTwister random;
-	private Uniform uniform;
-	private Exponential exponential;
+	/** Default increment ("gamma") for the seed, i.e. the odd integer closest to 2^64/phi */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/** Source of seeds for randomly seeded generators */
+	private static final AtomicLong defaultSeeds = new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+	/** Current seed, advanced by {@code gamma} for each random number */
+	private long seed;
+	/** Seed increment (always odd) */
+	private final long gamma;
 
 	/**
-	 * Create a new random number generator (seeded, by default, with the current time).
+	 * Create a new random number generator (seeded randomly).
 	 */
 	public RandomNumberGenerator()
 	{
-		random = new MersenneTwister(new Date());
-		uniform = new Uniform(random);
-		// Create exponential generator (rate 1.0 but this is ignored from now on)
-		exponential = new Exponential(1.0, random);
+		long s = defaultSeeds.getAndAdd(2 * GOLDEN_GAMMA);
+		seed = mix64(s);
+		gamma = mixGamma(s + GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Create a new random number generator, with the specified seed.
+	 */
+	public RandomNumberGenerator(long seed)
+	{
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	private RandomNumberGenerator(long seed, long gamma)
+	{
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * Create a new random number generator, for a stream of random numbers that is
+	 * independent of this one. This also advances the state of this generator.
+	 */
+	public RandomNumberGenerator split()
+	{
+		return new RandomNumberGenerator(mix64(nextSeed()), mixGamma(nextSeed()));
 	}
 
 	/**
@@ -59,7 +91,19 @@ public class RandomNumberGenerator
 	 */
 	public int randomUnifInt(int n)
 	{
-		return uniform.nextIntFromTo(0, n - 1);
+		if (n <= 0)
+			throw new IllegalArgumentException("bound must be positive");
+		int r = mix32(nextSeed());
+		int m = n - 1;
+		if ((n & m) == 0) {
+			// Power of two
+			r &= m;
+		} else {
+			// Reject over-represented candidates
+			for (int u = r >>> 1; u + m - (r = u % n) < 0; u = mix32(nextSeed()) >>> 1)
+				;
+		}
+		return r;
 	}
 
 	/**
@@ -67,7 +111,12 @@ public class RandomNumberGenerator
 	 */
 	public double randomUnifDouble()
 	{
-		return random.nextDouble();
+		double d;
+		// Exclude 0 (nextDouble() is in [0,1))
+		do {
+			d = nextDouble();
+		} while (d == 0.0);
+		return d;
 	}
 
 	/**
@@ -75,7 +124,7 @@ public class RandomNumberGenerator
 	 */
 	public double randomUnifDouble(double x)
 	{
-		return x * random.nextDouble();
+		return x * randomUnifDouble();
 	}
 
 	/**
@@ -83,7 +132,46 @@ public class RandomNumberGenerator
 	 */
 	public double randomExpDouble(double x)
 	{
-		return exponential.nextDouble(x);
-		//return (-Math.log(random.nextDouble())) / x;
+		return -Math.log(randomUnifDouble()) / x;
+	}
+
+	// SplitMix64 internals
+
+	private long nextSeed()
+	{
+		return seed += gamma;
+	}
+
+	/**
+	 * Uniformly distributed double in [0,1).
+	 */
+	private double nextDouble()
+	{
+		return (mix64(nextSeed()) >>> 11) * 0x1.0p-53;
+	}
+
+	private static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z)
+	{
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	/**
+	 * Compute a seed increment (gamma) for a new stream: odd, and with enough bit transitions.
+	 */
+	private static long mixGamma(long z)
+	{
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
 	}
 }
@@ -48,6 +48,7 @@ import prism.PrismException;
 import prism.PrismFileLog;
 import prism.PrismLangException;
 import prism.PrismLog;
+import prism.PrismSettings;
 import prism.PrismUtils;
 import prism.ResultsCollection;
 import prism.UndefinedConstants;
@@ -96,6 +97,9 @@ import userinterface.graph.Graph;
  */
 public class SimulatorEngine extends PrismComponent
 {
+	/** Maximum number of sample paths in each batch processed during sampling */
+	private static final int MAX_SAMPLING_BATCH = 1024;
+
 	// The current parsed model + info
 	private ModulesFile modulesFile;
 	private ModelType modelType;
@@ -125,6 +129,8 @@ public class SimulatorEngine extends PrismComponent
 	protected State currentState;
 	// List of currently available transitions
 	protected TransitionList transitionList;
+	// Reference to a transition in the list (reused to avoid allocation)
+	protected TransitionList.Ref transitionRef;
 	// Has the transition list been built? 
 	protected boolean transitionListBuilt;
 	// State for which transition list applies
@@ -139,6 +145,12 @@ public class SimulatorEngine extends PrismComponent
 	// Random number generator
 	private RandomNumberGenerator rng;
 
+	// Sampling settings
+	// Number of threads to use for sampling (if 0, taken from settings)
+	private int numThreads;
+	// Seed for random number generation (if null, taken from settings)
+	private Long seed;
+
 	// ------------------------------------------------------------------------------
 	// Basic setup
 	// ------------------------------------------------------------------------------
@@ -161,12 +173,95 @@ public class SimulatorEngine extends PrismComponent
 		onTheFly = true;
 		currentState = null;
 		transitionList = null;
+		transitionRef = null;
 		transitionListBuilt = false;
 		transitionListState = null;
 		tmpStateRewards = null;
 		tmpTransitionRewards = null;
 		updater = null;
 		rng = new RandomNumberGenerator();
+		numThreads = 0;
+		seed = null;
+	}
+
+	/**
+	 * Set the number of threads to use for sampling-based model checking (1 means sequential).
+	 * If not set, the value from the PRISM settings is used.
+	 */
+	public void setNumThreads(int numThreads)
+	{
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	/**
+	 * Get the number of threads to use for sampling-based model checking (1 means sequential).
+	 */
+	public int getNumThreads()
+	{
+		if (numThreads > 0)
+			return numThreads;
+		return settings == null ? 1 : Math.max(1, settings.getInteger(PrismSettings.SIMULATOR_NUM_THREADS));
+	}
+
+	/**
+	 * Set the seed for random number generation, so that generated paths and sampling results
+	 * are reproducible (the latter for a given number of threads). This takes effect immediately
+	 * and is re-applied whenever a new path is created and at the start of sampling.
+	 * If null, the seed from the PRISM settings is used, if any (see {@link #getSeed()}).
+	 */
+	public void setSeed(Long seed)
+	{
+		this.seed = seed;
+		resetRandomNumberGenerator();
+	}
+
+	/**
+	 * Get the seed for random number generation: the one set via {@link #setSeed(Long)} or,
+	 * if none, the one from the PRISM settings. Returns null if a seed is to be chosen randomly.
+	 */
+	public Long getSeed()
+	{
+		if (seed != null)
+			return seed;
+		long settingsSeed = settings == null ? 0 : settings.getLong(PrismSettings.SIMULATOR_SEED);
+		return settingsSeed == 0 ? null : settingsSeed;
+	}
+
+	/**
+	 * Re-create the random number generator from the seed (see {@link #getSeed()}), if there is one.
+	 */
+	private void resetRandomNumberGenerator()
+	{
+		Long s = getSeed();
+		if (s != null)
+			rng = new RandomNumberGenerator(s);
+	}
+
+	/**
+	 * Get the number of command guards evaluated so far when exploring the current model
+	 * (see {@link Updater#getNumGuardsEvaluated()}).
+	 */
+	public long getNumGuardsEvaluated()
+	{
+		return updater == null ? 0 : updater.getNumGuardsEvaluated();
+	}
+
+	/**
+	 * Get the number of command guard evaluations skipped so far, thanks to the guard index,
+	 * when exploring the current model (see {@link Updater#getNumGuardsSkipped()}).
+	 */
+	public long getNumGuardsSkipped()
+	{
+		return updater == null ? 0 : updater.getNumGuardsSkipped();
+	}
+
+	/**
+	 * Reset the counts of guards evaluated/skipped.
+	 */
+	public void resetGuardStatistics()
+	{
+		if (updater != null)
+			updater.resetGuardStatistics();
 	}
 
 	// ------------------------------------------------------------------------------
@@ -201,6 +296,7 @@ public class SimulatorEngine extends PrismComponent
 		// Create empty (full) path object associated with this model
 		path = new PathFull(modulesFile);
 		onTheFly = false;
+		resetRandomNumberGenerator();
 	}
 
 	/**
@@ -215,6 +311,9 @@ public class SimulatorEngine extends PrismComponent
 		// Create empty (on-the-fly_ path object associated with this model
 		path = new PathOnTheFly(modulesFile);
 		onTheFly = true;
+		resetRandomNumberGenerator();
+		// Since no transitions lists are stored, Choice objects can be recycled
+		updater.setRecycleChoices(true);
 	}
 
 	/**
@@ -304,7 +403,7 @@ public class SimulatorEngine extends PrismComponent
 		case DTMC:
 			// Pick a random number to determine choice/transition
 			d = rng.randomUnifDouble();
-			ref = transitions.new Ref();
+			ref = transitionRef;
 			transitions.getChoiceIndexByProbabilitySum(d, ref);
 			// Execute
 			executeTransition(ref.i, ref.offset, -1);
@@ -324,7 +423,7 @@ public class SimulatorEngine extends PrismComponent
 			r = transitions.getProbabilitySum();
 			// Pick a random number to determine choice/transition
 			d = rng.randomUnifDouble(r);
-			ref = transitions.new Ref();
+			ref = transitionRef;
 			transitions.getChoiceIndexByProbabilitySum(d, ref);
 			// Execute
 			executeTimedTransition(ref.i, ref.offset, rng.randomExpDouble(r), -1);
@@ -720,6 +819,7 @@ public class SimulatorEngine extends PrismComponent
 		tmpStateRewards = new double[modulesFile.getNumRewardStructs()];
 		tmpTransitionRewards = new double[modulesFile.getNumRewardStructs()];
 		transitionList = new TransitionList();
+		transitionRef = transitionList.new Ref();
 
 		// Create updater for model
 		updater = new Updater(modulesFile, varList, this);
@@ -1657,19 +1757,25 @@ public class SimulatorEngine extends PrismComponent
 	 * Sample paths are from the specified initial state and maximum length.
 	 * Termination of the sampling process occurs when the SimulationMethod object
 	 * for all properties indicate that it is finished.
+	 * If more than one thread is used (see {@link #getNumThreads()}), paths are generated
+	 * concurrently by a {@link ParallelSampler} but processed here in a fixed order,
+	 * so results are reproducible for a given seed and number of threads.
 	 * @param initialState Initial state (if null, is selected randomly)
 	 * @param maxPathLength The maximum path length for sampling
 	 */
 	private void doSampling(State initialState, long maxPathLength) throws PrismException
 	{
-		int iters;
-		long i;
+		int iters, numThreads, numSamplers, batchSize, b, k;
+		long i, seed;
+		Long fixedSeed;
+		// Sampler values for the current batch of paths (MAX_SAMPLING_BATCH per sampler)
+		double batchValues[];
+		ParallelSampler parallelSampler = null;
 		// Flags
 		boolean stoppedEarly = false;
 		boolean deadlocksFound = false;
 		boolean allDone = false;
 		boolean allKnown = false;
-		boolean someUnknownButBounded = false;
 		boolean shouldStopSampling = false;
 		// Path stats
 		double avgPathLength = 0;
@@ -1680,14 +1786,33 @@ public class SimulatorEngine extends PrismComponent
 		// Timing info
 		long start, stop;
 		double time_taken;
+		long batchStart, batchTime, totalBatchTime = 0, maxBatchTime = 0;
+		int numBatches = 0;
+
+		// Set up random number generation and, if required, the threads for sampling
+		// (not done in parallel if a strategy is loaded since this is shared)
+		fixedSeed = getSeed();
+		seed = (fixedSeed != null) ? fixedSeed : System.nanoTime();
+		numThreads = (strategy == null) ? getNumThreads() : 1;
+		if (numThreads > 1) {
+			mainLog.println("\nSampling with " + numThreads + " threads (seed " + seed + ")");
+			parallelSampler = new ParallelSampler(this, modulesFile, properties, initialState, maxPathLength, numThreads, seed);
+		} else if (fixedSeed != null) {
+			mainLog.println("\nSampling with seed " + seed);
+			rng = new RandomNumberGenerator(seed);
+		}
 
 		// Start
+		resetGuardStatistics();
 		start = System.currentTimeMillis();
 		mainLog.print("\nSampling progress: [");
 		mainLog.flush();
 
-		// Main sampling loop
+		// Main sampling loop: paths are generated in batches, storing the sampler values for each;
+		// statistics are then updated, and stopping criteria checked, once per batch
 		iters = 0;
+		numSamplers = propertySamplers.size();
+		batchValues = new double[numSamplers * MAX_SAMPLING_BATCH];
 		while (!shouldStopSampling) {
 
 			// See if all properties are done; if so, stop sampling
@@ -1710,52 +1835,79 @@ public class SimulatorEngine extends PrismComponent
 				mainLog.flush();
 			}
 
-			iters++;
-
-			// Start the new path for this iteration (sample)
-			initialisePath(initialState);
+			// Pick batch size: this grows with the number of samples so far, so that any samples
+			// taken beyond those needed (since criteria are only checked per batch) are relatively few,
+			// but is limited by the simulation methods (e.g. if the number of samples is fixed)
+			batchSize = Math.max(1, Math.min(iters / 16, MAX_SAMPLING_BATCH));
+			for (Sampler sampler : propertySamplers) {
+				batchSize = Math.min(batchSize, sampler.getSimulationMethod().getMaxIterationsBeforeCheck(iters, sampler));
+			}
 
-			// Generate a path
-			allKnown = false;
-			someUnknownButBounded = false;
-			i = 0;
-			while ((!allKnown && i < maxPathLength) || someUnknownButBounded) {
-				// Check status of samplers
-				allKnown = true;
-				someUnknownButBounded = false;
-				for (Sampler sampler : propertySamplers) {
-					if (!sampler.isCurrentValueKnown()) {
-						allKnown = false;
-						if (sampler.needsBoundedNumSteps())
-							someUnknownButBounded = true;
+			batchStart = System.nanoTime();
+			for (b = 0; b < batchSize; b++) {
+
+				iters++;
+
+				// Generate a path for this iteration (sample),
+				// or take the next one from those generated by the sampling threads
+				if (parallelSampler == null) {
+					i = generateSamplePath(initialState, maxPathLength);
+					allKnown = allSamplerValuesKnown();
+				} else {
+					try {
+						parallelSampler.nextSample();
+					} catch (PrismException e) {
+						parallelSampler.close();
+						throw e;
 					}
+					i = parallelSampler.getPathLength();
+					allKnown = parallelSampler.allValuesKnown();
 				}
-				// Stop when all answers are known or we have reached max path length
-				// (but don't stop yet if there are "bounded" samplers with unkown values)
-				if ((allKnown || i >= maxPathLength) && !someUnknownButBounded)
-					break;
-				// Make a random transition
-				automaticTransition();
-				i++;
-			}
 
-			// TODO: Detect deadlocks so we can report a warning
+				// TODO: Detect deadlocks so we can report a warning
 
-			// Update path length statistics
-			avgPathLength = (avgPathLength * (iters - 1) + (i)) / iters;
-			minPathFound = (iters == 1) ? i : Math.min(minPathFound, i);
-			maxPathFound = (iters == 1) ? i : Math.max(maxPathFound, i);
+				// Update path length statistics
+				avgPathLength = (avgPathLength * (iters - 1) + (i)) / iters;
+				minPathFound = (iters == 1) ? i : Math.min(minPathFound, i);
+				maxPathFound = (iters == 1) ? i : Math.max(maxPathFound, i);
 
-			// If not all samplers could produce values, this an error
-			if (!allKnown) {
-				stoppedEarly = true;
-				break;
+				// If not all samplers could produce values, this an error
+				if (!allKnown) {
+					stoppedEarly = true;
+					break;
+				}
+
+				// Store values of samplers for last path
+				if (parallelSampler == null) {
+					for (k = 0; k < numSamplers; k++) {
+						batchValues[k * MAX_SAMPLING_BATCH + b] = propertySamplers.get(k).getCurrentValueAsDouble();
+					}
+				} else {
+					for (k = 0; k < numSamplers; k++) {
+						batchValues[k * MAX_SAMPLING_BATCH + b] = parallelSampler.getValue(k);
+					}
+				}
 			}
 
-			// Update state of samplers based on last path
-			for (Sampler sampler : propertySamplers) {
-				sampler.updateStats();
+			// Update state of samplers based on the paths in the batch
+			// (b is the number of paths for which all values are known)
+			for (k = 0; k < numSamplers; k++) {
+				propertySamplers.get(k).updateStats(batchValues, k * MAX_SAMPLING_BATCH, b);
 			}
+			batchTime = System.nanoTime() - batchStart;
+			totalBatchTime += batchTime;
+			maxBatchTime = Math.max(maxBatchTime, batchTime);
+			numBatches++;
+
+			if (stoppedEarly)
+				break;
+		}
+		long guardsEvaluated = getNumGuardsEvaluated();
+		long guardsSkipped = getNumGuardsSkipped();
+		if (parallelSampler != null) {
+			parallelSampler.close();
+			guardsEvaluated += parallelSampler.getNumGuardsEvaluated();
+			guardsSkipped += parallelSampler.getNumGuardsSkipped();
 		}
 
 		// Print details
@@ -1769,6 +1921,10 @@ public class SimulatorEngine extends PrismComponent
 			mainLog.print(iters + " iterations in " + time_taken + " seconds (average " + PrismUtils.formatDouble(2, time_taken / iters) + ")\n");
 			mainLog.print("Path length statistics: average " + PrismUtils.formatDouble(2, avgPathLength) + ", min " + minPathFound + ", max " + maxPathFound
 					+ "\n");
+			if (numBatches > 0)
+				mainLog.print("Sampling batches: " + numBatches + " (average " + (iters / numBatches) + " paths and "
+						+ PrismUtils.formatDouble(2, totalBatchTime / 1e6 / numBatches) + " ms per batch, max " + PrismUtils.formatDouble(2, maxBatchTime / 1e6) + " ms)\n");
+			mainLog.print("Guard evaluation statistics: " + Updater.getGuardStatisticsString(guardsEvaluated, guardsSkipped) + "\n");
 		} else {
 			mainLog.print(" ...\n\nSampling terminated early after " + iters + " iterations.\n");
 		}
@@ -1790,6 +1946,74 @@ public class SimulatorEngine extends PrismComponent
 		}
 	}
 
+	/**
+	 * Generate a single sample path for the currently loaded properties, from the specified
+	 * initial state and of (at most) the specified maximum length (unless there are "bounded"
+	 * samplers whose values are still unknown). Returns the number of steps taken.
+	 * Afterwards, {@link #allSamplerValuesKnown()} indicates whether all samplers know their value.
+	 * @param initialState Initial state (if null, is selected randomly)
+	 * @param maxPathLength The maximum path length for sampling
+	 */
+	long generateSamplePath(State initialState, long maxPathLength) throws PrismException
+	{
+		boolean allKnown = false;
+		boolean someUnknownButBounded = false;
+		long i = 0;
+
+		// Start the new path
+		initialisePath(initialState);
+
+		// Generate a path
+		while ((!allKnown && i < maxPathLength) || someUnknownButBounded) {
+			// Check status of samplers
+			allKnown = true;
+			someUnknownButBounded = false;
+			for (Sampler sampler : propertySamplers) {
+				if (!sampler.isCurrentValueKnown()) {
+					allKnown = false;
+					if (sampler.needsBoundedNumSteps())
+						someUnknownButBounded = true;
+				}
+			}
+			// Stop when all answers are known or we have reached max path length
+			// (but don't stop yet if there are "bounded" samplers with unkown values)
+			if ((allKnown || i >= maxPathLength) && !someUnknownButBounded)
+				break;
+			// Make a random transition
+			automaticTransition();
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Check whether the samplers for all loaded properties know their value for the current path.
+	 */
+	boolean allSamplerValuesKnown()
+	{
+		for (Sampler sampler : propertySamplers) {
+			if (!sampler.isCurrentValueKnown())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the sampler for a previously added property (specified by its index).
+	 */
+	Sampler getPropertySampler(int index)
+	{
+		return propertySamplers.get(index);
+	}
+
+	/**
+	 * Set the random number generator used for path generation.
+	 */
+	void setRandomNumberGenerator(RandomNumberGenerator rng)
+	{
+		this.rng = rng;
+	}
+
 	/**
 	 * Halt the sampling algorithm in its tracks (not implemented).
 	 */
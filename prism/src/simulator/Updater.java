@@ -39,6 +39,8 @@ public class Updater extends PrismComponent
 	protected boolean doProbChecks = true;
 	// The precision to which we check probabilities sum to 1
 	protected double sumRoundOff = 1e-5;
+	// Do we recycle Choice objects across calls to calculateTransitions?
+	protected boolean recycleChoices = false;
 	
 	// Model to which the path corresponds
 	protected ModulesFile modulesFile;
@@ -51,18 +53,36 @@ public class Updater extends PrismComponent
 	protected int synchModuleCounts[];
 	// Model info/stats
 	protected int numRewardStructs;
+	// Compiled commands (for each module) and reward structure items
+	// (guards/rewards of reward items for each reward structure)
+	protected CompiledCommand compiledCommands[][];
+	// Guard index for each module
+	protected GuardIndex guardIndexes[];
+	protected CompiledExpression rewardGuards[][];
+	protected CompiledExpression rewardValues[][];
 
 	// Temporary storage:
 
-	// Element i,j of updateLists is a list of the updates from module i labelled with action j
+	// Element i,j of updateLists is a list of the (commands for the) updates from module i labelled with action j
 	// (where j=0 denotes independent, otherwise 1-indexed action label)
-	protected List<List<List<Updates>>> updateLists;
+	protected List<List<List<CompiledCommand>>> updateLists;
 	// Bit j of enabledSynchs is set iff action j is currently enabled
 	// (where j=0 denotes independent, otherwise 1-indexed action label)
 	protected BitSet enabledSynchs;
 	// Element j of enabledModules is a BitSet showing modules which enable action j
 	// (where j=0 denotes independent, otherwise 1-indexed action label)
 	protected BitSet enabledModules[];
+	// List of choices for a synchronous action, under construction
+	protected List<ChoiceListFlexi> chs;
+	// Choice used when building products (for synchronous actions)
+	protected ChoiceListFlexi productChoice;
+	// Statistics: number of guards evaluated/skipped (thanks to the guard index)
+	protected long numGuardsEvaluated = 0;
+	protected long numGuardsSkipped = 0;
+	// Pool of choices that can be recycled (if recycleChoices is true);
+	// the first choicePoolUsed are those used since the last call to calculateTransitions
+	protected List<ChoiceListFlexi> choicePool;
+	protected int choicePoolUsed;
 
 	public Updater(ModulesFile modulesFile, VarList varList)
 	{
@@ -72,7 +92,6 @@ public class Updater extends PrismComponent
 	public Updater(ModulesFile modulesFile, VarList varList, PrismComponent parent)
 	{
 		int i, j;
-		String s;
 
 		// Store some settings
 		doProbChecks = parent.getSettings().getBoolean(PrismSettings.PRISM_DO_PROB_CHECKS);
@@ -87,29 +106,38 @@ public class Updater extends PrismComponent
 		numRewardStructs = modulesFile.getNumRewardStructs();
 		this.varList = varList;
 
-		// Compute count of number of modules using each synch action
-		// First, compute and cache the synch actions for each of the modules
-		List<HashSet<String>> synchsPerModule = new ArrayList<HashSet<String>>(numModules);
+		// Get count of number of modules using each synch action
+		synchModuleCounts = modulesFile.getSynchModuleCounts();
+
+		// Compile guards, probabilities/rates and updates of commands, and reward structures
+		compiledCommands = new CompiledCommand[numModules][];
+		guardIndexes = new GuardIndex[numModules];
 		for (i = 0; i < numModules; i++) {
-			synchsPerModule.add(new HashSet<String>(modulesFile.getModule(i).getAllSynchs()));
+			Module module = modulesFile.getModule(i);
+			compiledCommands[i] = new CompiledCommand[module.getNumCommands()];
+			for (j = 0; j < module.getNumCommands(); j++) {
+				compiledCommands[i][j] = new CompiledCommand(module.getCommand(j));
+			}
+			guardIndexes[i] = new GuardIndex(module, varList);
 		}
-		// Second, do the counting
-		synchModuleCounts = new int[numSynchs];
-		for (j = 0; j < numSynchs; j++) {
-			synchModuleCounts[j] = 0;
-			s = synchs.get(j);
-			for (i = 0; i < numModules; i++) {
-				if (synchsPerModule.get(i).contains(s))
-					synchModuleCounts[j]++;
+		rewardGuards = new CompiledExpression[numRewardStructs][];
+		rewardValues = new CompiledExpression[numRewardStructs][];
+		for (i = 0; i < numRewardStructs; i++) {
+			RewardStruct rw = modulesFile.getRewardStruct(i);
+			rewardGuards[i] = new CompiledExpression[rw.getNumItems()];
+			rewardValues[i] = new CompiledExpression[rw.getNumItems()];
+			for (j = 0; j < rw.getNumItems(); j++) {
+				rewardGuards[i][j] = CompiledExpression.compile(rw.getStates(j));
+				rewardValues[i][j] = CompiledExpression.compile(rw.getReward(j));
 			}
 		}
 
 		// Build lists/bitsets for later use
-		updateLists = new ArrayList<List<List<Updates>>>(numModules);
+		updateLists = new ArrayList<List<List<CompiledCommand>>>(numModules);
 		for (i = 0; i < numModules; i++) {
-			updateLists.add(new ArrayList<List<Updates>>(numSynchs + 1));
+			updateLists.add(new ArrayList<List<CompiledCommand>>(numSynchs + 1));
 			for (j = 0; j < numSynchs + 1; j++) {
-				updateLists.get(i).add(new ArrayList<Updates>());
+				updateLists.get(i).add(new ArrayList<CompiledCommand>());
 			}
 		}
 		enabledSynchs = new BitSet(numSynchs + 1);
@@ -117,6 +145,10 @@ public class Updater extends PrismComponent
 		for (j = 0; j < numSynchs + 1; j++) {
 			enabledModules[j] = new BitSet(numModules);
 		}
+		chs = new ArrayList<ChoiceListFlexi>();
+		productChoice = new ChoiceListFlexi();
+		choicePool = new ArrayList<ChoiceListFlexi>();
+		choicePoolUsed = 0;
 	}
 
 	/**
@@ -135,6 +167,63 @@ public class Updater extends PrismComponent
 		return sumRoundOff;
 	}
 
+	/**
+	 * Set whether Choice objects are recycled across calls to {@link #calculateTransitions}.
+	 * This avoids allocating new objects for every state explored (e.g. when generating
+	 * sample paths on the fly) but means that the choices stored in a TransitionList
+	 * are only valid until the next call to {@link #calculateTransitions}.
+	 */
+	public void setRecycleChoices(boolean recycleChoices)
+	{
+		this.recycleChoices = recycleChoices;
+		choicePool.clear();
+		choicePoolUsed = 0;
+	}
+
+	/**
+	 * Are Choice objects recycled across calls to {@link #calculateTransitions}?
+	 */
+	public boolean getRecycleChoices()
+	{
+		return recycleChoices;
+	}
+
+	/**
+	 * Get the number of command guards evaluated so far (by {@link #calculateTransitions}).
+	 */
+	public long getNumGuardsEvaluated()
+	{
+		return numGuardsEvaluated;
+	}
+
+	/**
+	 * Get the number of command guards whose evaluation has been skipped so far
+	 * (by {@link #calculateTransitions}) because the guard index showed they were false.
+	 */
+	public long getNumGuardsSkipped()
+	{
+		return numGuardsSkipped;
+	}
+
+	/**
+	 * Reset the counts of guards evaluated/skipped.
+	 */
+	public void resetGuardStatistics()
+	{
+		numGuardsEvaluated = numGuardsSkipped = 0;
+	}
+
+	/**
+	 * Get a description of the guard evaluation statistics,
+	 * given the number of guards evaluated and skipped.
+	 */
+	public static String getGuardStatisticsString(long evaluated, long skipped)
+	{
+		long total = evaluated + skipped;
+		return evaluated + " guards evaluated, " + skipped + " skipped by guard index"
+				+ (total > 0 ? " (" + PrismUtils.formatDouble(2, 100.0 * skipped / total) + "%)" : "");
+	}
+
 	/**
 	 * Determine the set of outgoing transitions from state 'state' and store in 'transitionList'.
 	 * @param state State from which to explore
@@ -142,11 +231,11 @@ public class Updater extends PrismComponent
 	 */
 	public void calculateTransitions(State state, TransitionList transitionList) throws PrismException
 	{
-		List<ChoiceListFlexi> chs;
 		int i, j, k, l, n, count;
 
 		// Clear lists/bitsets
 		transitionList.clear();
+		choicePoolUsed = 0;
 		for (i = 0; i < numModules; i++) {
 			for (j = 0; j < numSynchs + 1; j++) {
 				updateLists.get(i).get(j).clear();
@@ -166,14 +255,13 @@ public class Updater extends PrismComponent
 
 		// Add independent transitions for each (enabled) module to list
 		for (i = enabledModules[0].nextSetBit(0); i >= 0; i = enabledModules[0].nextSetBit(i + 1)) {
-			for (Updates ups : updateLists.get(i).get(0)) {
+			for (CompiledCommand ups : updateLists.get(i).get(0)) {
 				ChoiceListFlexi ch = processUpdatesAndCreateNewChoice(-(i + 1), ups, state);
 				if (ch.size() > 0)
 					transitionList.add(ch);
 			}
 		}
 		// Add synchronous transitions to list
-		chs = new ArrayList<ChoiceListFlexi>();
 		for (i = enabledSynchs.nextSetBit(1); i >= 0; i = enabledSynchs.nextSetBit(i + 1)) {
 			chs.clear();
 			// Check counts to see if this action is blocked by some module
@@ -184,7 +272,7 @@ public class Updater extends PrismComponent
 				count = updateLists.get(j).get(i).size();
 				// Case where there is only 1 Updates for this module
 				if (count == 1) {
-					Updates ups = updateLists.get(j).get(i).get(0);
+					CompiledCommand ups = updateLists.get(j).get(i).get(0);
 					// Case where this is the first Choice created
 					if (chs.size() == 0) {
 						ChoiceListFlexi ch = processUpdatesAndCreateNewChoice(i, ups, state);
@@ -203,7 +291,7 @@ public class Updater extends PrismComponent
 				else {
 					// Case where there are no existing choices
 					if (chs.size() == 0) {
-						for (Updates ups : updateLists.get(j).get(i)) {
+						for (CompiledCommand ups : updateLists.get(j).get(i)) {
 							ChoiceListFlexi ch = processUpdatesAndCreateNewChoice(i, ups, state);
 							if (ch.size() > 0)
 								chs.add(ch);
@@ -215,10 +303,10 @@ public class Updater extends PrismComponent
 						n = chs.size();
 						for (k = 0; k < count - 1; k++)
 							for (l = 0; l < n; l++)
-								chs.add(new ChoiceListFlexi(chs.get(l)));
+								chs.add(newChoice(chs.get(l)));
 						// Products with existing choices
 						for (k = 0; k < count; k++) {
-							Updates ups = updateLists.get(j).get(i).get(k);
+							CompiledCommand ups = updateLists.get(j).get(i).get(k);
 							for (l = 0; l < n; l++) {
 								processUpdatesAndAddToProduct(ups, state, chs.get(k * n + l));
 							}
@@ -266,8 +354,8 @@ public class Updater extends PrismComponent
 			d = 0.0;
 			for (j = 0; j < n; j++) {
 				if (!rw.getRewardStructItem(j).isTransitionReward())
-					if (rw.getStates(j).evaluateBoolean(state))
-						d += rw.getReward(j).evaluateDouble(state);
+					if (rewardGuards[i][j].evaluateBoolean(state))
+						d += rewardValues[i][j].evaluateDouble(state);
 			}
 			store[i] = d;
 		}
@@ -291,8 +379,8 @@ public class Updater extends PrismComponent
 			for (j = 0; j < n; j++) {
 				if (rw.getRewardStructItem(j).isTransitionReward())
 					if (rw.getRewardStructItem(j).getSynchIndex() == Math.max(0, ch.getModuleOrActionIndex()))
-						if (rw.getStates(j).evaluateBoolean(state))
-							d += rw.getReward(j).evaluateDouble(state);
+						if (rewardGuards[i][j].evaluateBoolean(state))
+							d += rewardValues[i][j].evaluateDouble(state);
 			}
 			store[i] = d;
 		}
@@ -303,22 +391,24 @@ public class Updater extends PrismComponent
 	/**
 	 * Determine the enabled updates for the 'm'th module from (global) state 'state'.
 	 * Update information in updateLists, enabledSynchs and enabledModules.
+	 * Only the commands that the guard index says may be enabled have their guards evaluated.
 	 * @param m The module index
 	 * @param state State from which to explore
 	 */
 	protected void calculateUpdatesForModule(int m, State state) throws PrismLangException
 	{
-		Module module;
-		Command command;
-		int i, j, n;
+		CompiledCommand command;
+		int i, j, n, cands[];
 
-		module = modulesFile.getModule(m);
-		n = module.getNumCommands();
+		cands = guardIndexes[m].getCandidates(state);
+		n = cands.length;
+		numGuardsEvaluated += n;
+		numGuardsSkipped += compiledCommands[m].length - n;
 		for (i = 0; i < n; i++) {
-			command = module.getCommand(i);
-			if (command.getGuard().evaluateBoolean(state)) {
-				j = command.getSynchIndex();
-				updateLists.get(m).get(j).add(command.getUpdates());
+			command = compiledCommands[m][cands[i]];
+			if (command.guard.evaluateBoolean(state)) {
+				j = command.synchIndex;
+				updateLists.get(m).get(j).add(command);
 				enabledSynchs.set(j);
 				enabledModules[j].set(m);
 			}
@@ -330,24 +420,39 @@ public class Updater extends PrismComponent
 	 * and a (global) state. Check for negative probabilities/rates and, if appropriate,
 	 * check probabilities sum to 1 too.
 	 * @param moduleOrActionIndex Module/action for the choice, encoded as an integer (see Choice)
-	 * @param ups The Updates object 
+	 * @param ups The (compiled command containing the) Updates object
 	 * @param state Global state
 	 */
-	private ChoiceListFlexi processUpdatesAndCreateNewChoice(int moduleOrActionIndex, Updates ups, State state) throws PrismLangException
+	private ChoiceListFlexi processUpdatesAndCreateNewChoice(int moduleOrActionIndex, CompiledCommand ups, State state) throws PrismLangException
 	{
 		ChoiceListFlexi ch;
-		List<Update> list;
+
+		// Create choice and add all info
+		ch = newChoice();
+		fillChoiceFromUpdates(ch, moduleOrActionIndex, ups, state);
+		return ch;
+	}
+
+	/**
+	 * Fill an (empty) Choice object based on an Updates object and a (global) state.
+	 * Check for negative probabilities/rates and, if appropriate, check probabilities sum to 1 too.
+	 * @param ch The (empty) choice
+	 * @param moduleOrActionIndex Module/action for the choice, encoded as an integer (see Choice)
+	 * @param cmd The (compiled command containing the) Updates object
+	 * @param state Global state
+	 */
+	private void fillChoiceFromUpdates(ChoiceListFlexi ch, int moduleOrActionIndex, CompiledCommand cmd, State state) throws PrismLangException
+	{
 		int i, n;
 		double p, sum;
+		Updates ups = cmd.updates;
 
-		// Create choice and add all info
-		ch = new ChoiceListFlexi();
 		ch.setModuleOrActionIndex(moduleOrActionIndex);
 		n = ups.getNumUpdates();
 		sum = 0;
 		for (i = 0; i < n; i++) {
 			// Compute probability/rate
-			p = ups.getProbabilityInState(i, state);
+			p = cmd.probs[i] == null ? 1.0 : cmd.probs[i].evaluateDouble(state);
 			// Check for negative/NaN probabilities/rates
 			if (Double.isNaN(p) || p < 0) {
 				String s = modelType.choicesSumToOne() ? "Probability" : "Rate";
@@ -360,9 +465,7 @@ public class Updater extends PrismComponent
 			if (p == 0)
 				continue;
 			sum += p;
-			list = new ArrayList<Update>();
-			list.add(ups.getUpdate(i));
-			ch.add(p, list);
+			ch.add(p, cmd.ups[i]);
 		}
 		// For now, PRISM treats empty (all zero probs/rates) distributions as an error.
 		// Later, when errors in symbolic model construction are improved, this might be relaxed.
@@ -376,22 +479,85 @@ public class Updater extends PrismComponent
 		if (doProbChecks && ch.size() > 0 && modelType.choicesSumToOne() && Math.abs(sum - 1) > sumRoundOff) {
 			throw new PrismLangException("Probabilities sum to " + sum + " in state " + state.toString(modulesFile), ups);
 		}
-		return ch;
 	}
 
 	/**
 	 * Create a new Choice object (currently ChoiceListFlexi) based on the product
 	 * of an existing ChoiceListFlexi and an Updates object, for some (global) state.
 	 * If appropriate, check probabilities sum to 1 too.
-	 * @param ups The Updates object 
+	 * @param ups The (compiled command containing the) Updates object
 	 * @param state Global state
 	 * @param ch The existing Choices object
 	 */
-	private void processUpdatesAndAddToProduct(Updates ups, State state, ChoiceListFlexi ch) throws PrismLangException
+	private void processUpdatesAndAddToProduct(CompiledCommand ups, State state, ChoiceListFlexi ch) throws PrismLangException
 	{
 		// Create new choice (action index is 0 - not needed)
-		ChoiceListFlexi chNew = processUpdatesAndCreateNewChoice(0, ups, state);
+		// (this is only needed temporarily, so we reuse the same one)
+		productChoice.clear();
+		fillChoiceFromUpdates(productChoice, 0, ups, state);
 		// Build product with existing
-		ch.productWith(chNew);
+		ch.productWith(productChoice);
+	}
+
+	/**
+	 * Get a new (empty) Choice object, recycling an old one if required.
+	 */
+	private ChoiceListFlexi newChoice()
+	{
+		if (!recycleChoices)
+			return new ChoiceListFlexi();
+		ChoiceListFlexi ch;
+		if (choicePoolUsed < choicePool.size()) {
+			ch = choicePool.get(choicePoolUsed);
+			ch.clear();
+		} else {
+			ch = new ChoiceListFlexi();
+			choicePool.add(ch);
+		}
+		choicePoolUsed++;
+		return ch;
+	}
+
+	/**
+	 * Get a new Choice object that is a copy of an existing one, recycling an old one if required.
+	 */
+	private ChoiceListFlexi newChoice(ChoiceListFlexi chCopy)
+	{
+		ChoiceListFlexi ch = newChoice();
+		ch.copyFrom(chCopy);
+		return ch;
+	}
+
+	/**
+	 * A command of the model, with its guard, probabilities/rates and updates compiled
+	 * (see {@link CompiledExpression}) for fast evaluation.
+	 */
+	protected static class CompiledCommand
+	{
+		// The command's Updates object
+		protected final Updates updates;
+		// Action label index (0 denotes independent, otherwise 1-indexed action label)
+		protected final int synchIndex;
+		// Compiled guard
+		protected final CompiledExpression guard;
+		// Compiled probabilities/rates (null for an omitted probability, i.e. 1)
+		protected final CompiledExpression probs[];
+		// Compiled updates
+		protected final CompiledUpdate ups[];
+
+		protected CompiledCommand(Command command)
+		{
+			updates = command.getUpdates();
+			synchIndex = command.getSynchIndex();
+			guard = CompiledExpression.compile(command.getGuard());
+			int n = updates.getNumUpdates();
+			probs = new CompiledExpression[n];
+			ups = new CompiledUpdate[n];
+			for (int i = 0; i < n; i++) {
+				Expression p = updates.getProbability(i);
+				probs[i] = p == null ? null : CompiledExpression.compile(p);
+				ups[i] = new CompiledUpdate(updates.getUpdate(i));
+			}
+		}
 	}
 }
@@ -135,6 +135,13 @@ public abstract class APMCMethod extends SimulationMethod
 		return iters >= numSamples;
 	}
 
+	@Override
+	public int getMaxIterationsBeforeCheck(int iters, Sampler sampler)
+	{
+		// Don't exceed the (fixed) number of samples required
+		return iters < numSamples ? numSamples - iters : Integer.MAX_VALUE;
+	}
+
 	@Override
 	public int getProgress(int iters, Sampler sampler)
 	{
@@ -95,6 +95,13 @@ public final class CIwidth extends CIMethod
 		return false;
 	}
 
+	@Override
+	public int getMaxIterationsBeforeCheck(int iters, Sampler sampler)
+	{
+		// Don't exceed the (fixed) number of samples required
+		return iters < numSamples ? numSamples - iters : Integer.MAX_VALUE;
+	}
+
 	@Override
 	public int getProgress(int iters, Sampler sampler)
 	{
@@ -105,6 +105,21 @@ public abstract class SimulationMethod implements Cloneable
 	 */
 	public abstract boolean shouldStopNow(int iters, Sampler sampler);
 
+	/**
+	 * Get the maximum number of further iterations (samples) that should be done before
+	 * {@link #shouldStopNow(int, Sampler)} is next called, when samples are processed in batches.
+	 * By default, there is no limit, i.e. stopping criteria that depend on the samples seen
+	 * so far are just checked once per batch (so a few more samples than strictly necessary
+	 * may be used). Methods for which the number of samples is known in advance
+	 * should return the number still required, so that this is not exceeded.
+	 * @param iters The number of iterations (samples) done so far
+	 * @param sampler The Sampler object for this simulation
+	 */
+	public int getMaxIterationsBeforeCheck(int iters, Sampler sampler)
+	{
+		return Integer.MAX_VALUE;
+	}
+
 	/**
 	 * Get an indication of progress so far for simulation, i.e. an approximate value
 	 * for the percentage of work (samples) done. The value is a multiple of 10 in the range [0,100].
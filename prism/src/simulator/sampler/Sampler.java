@@ -87,11 +87,32 @@ public abstract class Sampler
 	 */
 	public abstract void updateStats();
 
+	/**
+	 * Update the statistics for the sampler with the value for a finished path
+	 * that was generated elsewhere (e.g. by another thread), as returned by
+	 * {@link #getCurrentValueAsDouble()} for a sampler of the same kind.
+	 */
+	public abstract void updateStats(double value);
+
+	/**
+	 * Update the statistics for the sampler with the values for a batch of finished paths,
+	 * {@code values[offset]}, ..., {@code values[offset+n-1]}, each as returned by
+	 * {@link #getCurrentValueAsDouble()} for a sampler of the same kind.
+	 * This is equivalent to, but cheaper than, calling {@link #updateStats(double)} for each one.
+	 */
+	public abstract void updateStats(double values[], int offset, int n);
+
 	/**
 	 * Get the current value of the sampler.
 	 */
 	public abstract Object getCurrentValue();
 
+	/**
+	 * Get the current value of the sampler, as a double
+	 * (for Boolean-valued samplers: 1.0 for true, 0.0 for false).
+	 */
+	public abstract double getCurrentValueAsDouble();
+
 	/**
 	 * Get the (estimated) mean value from the sampler, over all paths seen.
 	 */
@@ -69,6 +69,26 @@ public abstract class SamplerBoolean extends Sampler
 			numTrue++;
 	}
 
+	@Override
+	public void updateStats(double value)
+	{
+		numSamples++;
+		if (value != 0.0)
+			numTrue++;
+	}
+
+	@Override
+	public void updateStats(double values[], int offset, int n)
+	{
+		int count = 0;
+		for (int i = offset; i < offset + n; i++) {
+			if (values[i] != 0.0)
+				count++;
+		}
+		numSamples += n;
+		numTrue += count;
+	}
+
 	@Override
 	public Object getCurrentValue()
 	{
@@ -76,6 +96,12 @@ public abstract class SamplerBoolean extends Sampler
 		return new Boolean(value != negated);
 	}
 
+	@Override
+	public double getCurrentValueAsDouble()
+	{
+		return (value != negated) ? 1.0 : 0.0;
+	}
+
 	@Override
 	public double getMeanValue()
 	{
@@ -33,14 +33,18 @@ import prism.PrismLangException;
 
 /**
  * Samplers for properties that associate a simulation path with a real (double) value.
+ * <p>
+ * The mean and variance over all paths are maintained with Welford's algorithm
+ * (and, for batches of values, its pairwise variant due to Chan et al.),
+ * which avoids the cancellation errors of working with sums of squares.
  */
 public abstract class SamplerDouble extends Sampler
 {
 	// Value of current path
 	protected double value;
-	// Stats over all paths
-	protected double valueSum;
-	protected double valueSumSq;
+	// Stats over all paths: mean and sum of squared differences from the mean
+	protected double mean;
+	protected double m2;
 	protected int numSamples;
 
 	@Override
@@ -53,8 +57,8 @@ public abstract class SamplerDouble extends Sampler
 	@Override
 	public void resetStats()
 	{
-		valueSum = 0.0;
-		valueSumSq = 0.0;
+		mean = 0.0;
+		m2 = 0.0;
 		numSamples = 0;
 	}
 
@@ -64,9 +68,40 @@ public abstract class SamplerDouble extends Sampler
 	@Override
 	public void updateStats()
 	{
-		valueSum += value;
-		valueSumSq += value * value;
+		updateStats(value);
+	}
+
+	@Override
+	public void updateStats(double value)
+	{
 		numSamples++;
+		double delta = value - mean;
+		mean += delta / numSamples;
+		m2 += delta * (value - mean);
+	}
+
+	@Override
+	public void updateStats(double values[], int offset, int n)
+	{
+		if (n == 0)
+			return;
+		// Mean and squared differences for the batch (two passes over the values)
+		double sum = 0.0;
+		for (int i = offset; i < offset + n; i++) {
+			sum += values[i];
+		}
+		double batchMean = sum / n;
+		double batchM2 = 0.0;
+		for (int i = offset; i < offset + n; i++) {
+			double d = values[i] - batchMean;
+			batchM2 += d * d;
+		}
+		// Combine with stats so far
+		int total = numSamples + n;
+		double delta = batchMean - mean;
+		mean += delta * n / total;
+		m2 += batchM2 + delta * delta * ((double) numSamples * n / total);
+		numSamples = total;
 	}
 
 	@Override
@@ -75,10 +110,16 @@ public abstract class SamplerDouble extends Sampler
 		return new Double(value);
 	}
 
+	@Override
+	public double getCurrentValueAsDouble()
+	{
+		return value;
+	}
+
 	@Override
 	public double getMeanValue()
 	{
-		return valueSum / numSamples;
+		return numSamples == 0 ? Double.NaN : mean;
 	}
 
 	@Override
@@ -88,14 +129,12 @@ public abstract class SamplerDouble extends Sampler
 		if (numSamples <= 1) {
 			return 0.0;
 		} else {
-			double mean = valueSum / numSamples;
-			return (valueSumSq - numSamples * mean * mean) / (numSamples - 1.0);
+			return m2 / (numSamples - 1.0);
 		}
 		
 		// An alternative, below, would be to use the empirical mean
 		// (this is not equivalent (or unbiased) but, asymptotically, is the same)
-		//double mean = valueSum / numSamples;
-		//return (valueSumSq / numSamples) - (mean * mean);
+		//return m2 / numSamples;
 	}
 
 	@Override
@@ -105,11 +144,12 @@ public abstract class SamplerDouble extends Sampler
 		// (in which mu1=p1 and mu0=p0)
 		if (numSamples <= 1)
 			return 0.0;
-		if (valueSumSq == 0)
+		// (sum of squares is zero iff m2 and mean are)
+		if (m2 == 0 && mean == 0)
 			throw new PrismException("Cannot compute likelihood ratio with null variance");
 		// Compute maximum likelihood estimator of variance
-		double MLE = valueSumSq / numSamples - (valueSum * valueSum) / numSamples / numSamples;
-		double lr = (-1 / (2 * MLE)) * (numSamples * (p1 * p1 - p0 * p0) - 2 * valueSum * (p1 - p0));
+		double MLE = m2 / numSamples;
+		double lr = (-1 / (2 * MLE)) * (numSamples * (p1 * p1 - p0 * p0) - 2 * numSamples * mean * (p1 - p0));
 		if (Double.isNaN(lr)) {
 			throw new PrismException("Error computing likelihood ratio");
 		}